@@ -0,0 +1,49 @@
+package org.example;
+
+import java.util.Locale;
+
+/**
+ * Ключи для поиска по имени автора без учёта регистра, буквы «ё» и лишних пробелов.
+ * Ключ вычисляется в Java один раз при записи и хранится рядом с отображаемым именем:
+ * встроенная функция SQLite lower() меняет регистр только латинских букв, а выражение над столбцом не даёт использовать индекс.
+ */
+public final class AuthorKey {
+
+    private AuthorKey() {
+    }
+
+
+    /**
+     * Приводит имя автора к ключу поиска: нижний регистр, «ё» заменена на «е», пробелы схлопнуты.
+     *
+     * @param author Имя автора.
+     * @return Ключ автора.
+     */
+    public static String of(String author) {
+        return author.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+
+    /**
+     * Возвращает фамилию из ключа автора: последнее слово ключа.
+     *
+     * @param key Ключ автора, см. {@link #of(String)}.
+     * @return Ключ фамилии; для имени из одного слова совпадает с ключом.
+     */
+    public static String surname(String key) {
+        return key.substring(key.lastIndexOf(' ') + 1);
+    }
+
+
+    /**
+     * Проверяет, подходит ли автор под запрос: совпадают полные имена, либо одно из них - только фамилия другого
+     * ("толстой" находит "Лев Толстой", "Лев Толстой" находит "Толстой").
+     *
+     * @param queryKey  Ключ запроса.
+     * @param authorKey Ключ автора книги.
+     * @return {@code true}, если автор подходит.
+     */
+    public static boolean matches(String queryKey, String authorKey) {
+        return authorKey.equals(queryKey) || authorKey.equals(surname(queryKey)) || surname(authorKey).equals(queryKey);
+    }
+}
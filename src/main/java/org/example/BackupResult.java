@@ -0,0 +1,14 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Итог резервного копирования хранилища.
+ *
+ * @param files  Файлы резервной копии.
+ * @param bytes  Общий размер копии в байтах.
+ * @param millis Длительность копирования в миллисекундах.
+ */
+public record BackupResult(List<Path> files, long bytes, long millis) {
+}
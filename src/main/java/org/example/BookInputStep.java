@@ -0,0 +1,16 @@
+package org.example;
+
+/**
+ * Шаг ввода данных книги в многошаговом диалоге.
+ */
+enum BookInputStep {
+    TITLE,
+
+    AUTHOR,
+
+    NUMBER,
+
+    YEAR,
+
+    GENRE
+}
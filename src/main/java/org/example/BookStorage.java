@@ -1,10 +1,14 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Интерфейс для работы с книгами.
- * Позволяет управлять списком прочитанных книг и осуществлять поиск по различным критериям.
+ * Позволяет управлять списком прочитанных книг, общим списком рекомендованных книг
+ * и осуществлять поиск по различным критериям.
  */
 public interface BookStorage {
     /**
@@ -16,21 +20,24 @@ public interface BookStorage {
     ArrayList<String> getReadBooks(long chatId);
 
     /**
-     * Добавляет книгу в список прочитанных книг.
+     * Добавляет книгу в список прочитанных книг, если такой книги (название, автор, год) в списке чата ещё нет.
+     * Проверка и добавление выполняются одним запросом, поэтому одновременные добавления не создают повторов.
      *
      * @param title  название книги
      * @param author автор книги
      * @param year   год прочтения
      * @param chatId уникальный идентификатор чата пользователя
+     * @return обещание, которое выполняется после записи: true, если книга добавлена, false, если она уже была в списке
      */
-    void addReadBook(String title, String author, int year, long chatId);
+    CompletableFuture<Boolean> addReadBook(String title, String author, int year, long chatId);
 
     /**
      * Удаляет все прочитанные книги для указанного чата.
      *
      * @param chatId уникальный идентификатор чата пользователя
+     * @return обещание, которое выполняется после записи изменения в хранилище
      */
-    void clearReadBooks(long chatId);
+    CompletableFuture<Void> clearReadBooks(long chatId);
 
     /**
      * Получает список прочитанных книг определенного автора для указанного чата.
@@ -53,27 +60,132 @@ public interface BookStorage {
     /**
      * Изменяет существующую книгу новой книгой в списке прочитанных книг.
      *
-     * @param oldTitle  старое название книги
-     * @param oldAuthor старый автор книги
-     * @param oldYear   старый год прочтения
+     * @param bookId    идентификатор строки редактируемой книги
      * @param newTitle  новое название книги
      * @param newAuthor новый автор книги
      * @param newYear   новый год прочтения
      * @param chatId    уникальный идентификатор чата пользователя
+     * @return обещание, которое выполняется после записи: true, если книга изменена, false, если книги нет
+     *         или в списке уже есть другая книга с такими же названием, автором и годом
      */
-    void editReadBook(String oldTitle, String oldAuthor, int oldYear,
-                      String newTitle, String newAuthor, int newYear, long chatId);
+    CompletableFuture<Boolean> editReadBook(long bookId, String newTitle, String newAuthor, int newYear, long chatId);
 
     /**
-     * Проверяет существование указанной книги в списке прочитанных книг.
+     * Удаляет книгу из списка прочитанных книг.
+     *
+     * @param chatId уникальный идентификатор чата пользователя
+     * @param bookId идентификатор строки удаляемой книги
+     * @return обещание, которое выполняется после записи изменения в хранилище
+     */
+    CompletableFuture<Void> updateReadBooks(long chatId, long bookId);
+
+    /**
+     * Получает список прочитанных книг в полном формате (идентификатор, название, автор, год).
+     *
+     * @param chatId уникальный идентификатор чата пользователя
+     * @return список прочитанных книг в порядке добавления
+     */
+    ArrayList<ReadBook> getAllValues(long chatId);
+
+    /**
+     * Получает страницу прочитанных книг чата, следующих за указанной книгой.
+     *
+     * @param chatId  уникальный идентификатор чата пользователя
+     * @param afterId идентификатор последней книги предыдущей страницы или 0 для первой страницы
+     * @param limit   максимальное количество книг на странице
+     * @return список прочитанных книг в порядке добавления
+     */
+    ArrayList<ReadBook> getReadBooksPage(long chatId, long afterId, int limit);
+
+    /**
+     * Получает статистику прочитанных книг чата.
+     * Статистика ведётся при каждом изменении списка, поэтому её чтение не зависит от количества книг.
+     *
+     * @param chatId     уникальный идентификатор чата пользователя
+     * @param topAuthors максимальное количество самых читаемых авторов
+     * @return статистика чата; для пустого списка все счётчики равны нулю
+     */
+    ReadingStats getReadingStats(long chatId, int topAuthors);
+
+    /**
+     * Импортирует прочитанные книги из файла одной транзакцией: файл читается целиком до записи,
+     * поэтому другие чаты не ждут его разбора, а читатели не видят импорт наполовину.
+     * Книги, которые уже есть в списке чата, пропускаются.
+     *
+     * @param chatId идентификатор чата
+     * @param reader читатель файла со списком книг
+     * @return количество добавленных, повторных и нераспознанных книг
+     * @throws IOException если файл не удалось прочитать или книги не удалось записать; в этом случае ни одна книга не добавляется
+     */
+    ImportResult importReadBooks(long chatId, ReadingListReader reader) throws IOException;
+
+    /**
+     * Записывает все прочитанные книги чата в порядке добавления, не собирая список в памяти.
+     *
+     * @param chatId идентификатор чата
+     * @param writer писатель файла со списком книг
+     * @return количество записанных книг
+     * @throws IOException если книги не удалось прочитать или записать
+     */
+    long exportReadBooks(long chatId, ReadingListWriter writer) throws IOException;
+
+    /**
+     * Добавляет книгу в общий список рекомендованных книг.
      *
      * @param title  название книги
      * @param author автор книги
-     * @param year   год прочтения
+     * @param genre  жанр книги
+     * @param chatId уникальный идентификатор чата пользователя, рекомендовавшего книгу
+     * @return обещание, которое выполняется после записи: true, если книга добавлена,
+     *         false, если книга с таким названием и автором уже рекомендована
+     */
+    CompletableFuture<Boolean> addRecBook(String title, String author, String genre, long chatId);
+
+    /**
+     * Получает страницу рекомендованных книг, следующих за указанной книгой.
+     *
+     * @param afterId идентификатор последней книги предыдущей страницы или 0 для первой страницы
+     * @param limit   максимальное количество книг на странице
+     * @return список рекомендованных книг в порядке добавления
+     */
+    ArrayList<RecommendedBook> getRecBooksPage(long afterId, int limit);
+
+    /**
+     * Ищет рекомендованные книги указанного жанра в порядке добавления.
+     * Список общий для всех чатов, поэтому количество книг в ответе всегда ограничено.
+     *
+     * @param genre жанр книг
+     * @param limit максимальное количество книг
+     * @return список найденных книг, не длиннее limit
+     */
+    ArrayList<RecommendedBook> searchBooksByGenre(String genre, int limit);
+
+    /**
+     * Ищет рекомендованные книги указанного автора в порядке добавления.
+     *
+     * @param author автор книг
+     * @param limit  максимальное количество книг
+     * @return список найденных книг, не длиннее limit
+     */
+    ArrayList<RecommendedBook> searchBooksByAuthor(String author, int limit);
+
+    /**
+     * Ищет рекомендованные книги по словам из названия и имени автора, в том числе по началу слова.
+     *
+     * @param query текст запроса
+     * @param limit максимальное количество найденных книг
+     * @return список найденных книг, начиная с самых подходящих
+     */
+    ArrayList<RecommendedBook> searchRecBooks(String query, int limit);
+
+    /**
+     * Удаляет книгу, рекомендованную указанным чатом, из списка рекомендованных книг.
+     *
      * @param chatId уникальный идентификатор чата пользователя
-     * @return true, если книга существует в списке прочитанных книг, в противном случае - false
+     * @param bookId идентификатор строки удаляемой книги
+     * @return обещание, которое выполняется после записи изменения в хранилище
      */
-    boolean bookExists(String title, String author, int year, long chatId);
+    CompletableFuture<Void> updateRecBooks(long chatId, long bookId);
 
     /**
      * Получает случайную цитату.
@@ -81,4 +193,43 @@ public interface BookStorage {
      * @return случайная цитата в формате строки
      */
     String getRandQuote();
+
+    /**
+     * Получает случайную цитату указанного автора.
+     *
+     * @param author имя автора; регистр, «ё» и лишние пробелы не учитываются
+     * @return случайная цитата автора или {@code null}, если цитат автора нет
+     */
+    String getRandQuote(String author);
+
+    /**
+     * Сохраняет согласованную копию хранилища в каталог, не останавливая работу с ним.
+     *
+     * @param directory существующий каталог для файлов копии
+     * @return итог копирования
+     * @throws IOException если копию не удалось сохранить
+     */
+    BackupResult backup(Path directory) throws IOException;
+
+    /**
+     * Сохраняет состояние диалога чата, вытесненное из памяти (см. {@link ChatSessions}).
+     *
+     * @param chatId уникальный идентификатор чата пользователя
+     * @param state  сериализованное состояние или {@code null}, чтобы удалить сохранённое
+     * @return будущий результат, который завершается после записи
+     */
+    CompletableFuture<Void> saveSession(long chatId, byte[] state);
+
+    /**
+     * Читает сохранённое состояние диалога чата.
+     *
+     * @param chatId уникальный идентификатор чата пользователя
+     * @return сериализованное состояние или {@code null}, если оно не сохранялось
+     */
+    byte[] loadSession(long chatId);
+
+    /**
+     * Освобождает ресурсы хранилища.
+     */
+    void closeConnection();
 }
@@ -0,0 +1,213 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Хранилище книг с кэшем списков прочитанных книг по чатам.
+ * Запросы списка чата и его страниц обслуживаются из {@link ReadingListCache}, при промахе они читаются
+ * из основного хранилища; любое изменение книг чата удаляет его список и страницы из кэша.
+ */
+public class CachedBookStorage implements BookStorage {
+
+    /**
+     * Предельный вес кэша по умолчанию: около 4 миллионов символов.
+     */
+    public static final long DEFAULT_MAX_WEIGHT = 4_000_000;
+
+
+    /**
+     * Основное хранилище.
+     */
+    private final BookStorage delegate;
+
+    /**
+     * Кэш списков прочитанных книг.
+     */
+    private final ReadingListCache cache;
+
+
+    /**
+     * Конструктор класса с размером кэша по умолчанию.
+     *
+     * @param delegate Основное хранилище.
+     */
+    public CachedBookStorage(BookStorage delegate) {
+        this(delegate, DEFAULT_MAX_WEIGHT);
+    }
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param delegate  Основное хранилище.
+     * @param maxWeight Предельный вес кэша в символах.
+     */
+    public CachedBookStorage(BookStorage delegate, long maxWeight) {
+        this.delegate = delegate;
+        this.cache = new ReadingListCache(maxWeight);
+    }
+
+
+    /**
+     * Возвращает кэш, например для просмотра его счётчиков.
+     *
+     * @return Кэш списков прочитанных книг.
+     */
+    public ReadingListCache getCache() {
+        return cache;
+    }
+
+
+    public ArrayList<String> getReadBooks(long chatId) {
+        ArrayList<String> titles = cache.getTitles(chatId);
+        if (titles == null) {
+            long stamp = cache.beginLoad();
+            titles = delegate.getReadBooks(chatId);
+            cache.putTitles(chatId, stamp, titles);
+        }
+        return titles;
+    }
+
+
+    public ArrayList<ReadBook> getAllValues(long chatId) {
+        ArrayList<ReadBook> allValues = cache.getAllValues(chatId);
+        if (allValues == null) {
+            long stamp = cache.beginLoad();
+            allValues = delegate.getAllValues(chatId);
+            cache.putAllValues(chatId, stamp, allValues);
+        }
+        return allValues;
+    }
+
+
+    public ArrayList<ReadBook> getReadBooksPage(long chatId, long afterId, int limit) {
+        ArrayList<ReadBook> page = cache.getPage(chatId, afterId, limit);
+        if (page == null) {
+            long stamp = cache.beginLoad();
+            page = delegate.getReadBooksPage(chatId, afterId, limit);
+            cache.putPage(chatId, stamp, afterId, limit, page);
+        }
+        return page;
+    }
+
+
+    public ReadingStats getReadingStats(long chatId, int topAuthors) {
+        return delegate.getReadingStats(chatId, topAuthors);
+    }
+
+
+    public ImportResult importReadBooks(long chatId, ReadingListReader reader) throws IOException {
+        try {
+            return delegate.importReadBooks(chatId, reader);
+        } finally {
+            cache.invalidate(chatId);
+        }
+    }
+
+
+    public long exportReadBooks(long chatId, ReadingListWriter writer) throws IOException {
+        return delegate.exportReadBooks(chatId, writer);
+    }
+
+
+    public CompletableFuture<Boolean> addReadBook(String title, String author, int year, long chatId) {
+        // Кэш сбрасывается после передачи изменения хранилищу: загрузка, начатая раньше, не попадёт в кэш
+        CompletableFuture<Boolean> result = delegate.addReadBook(title, author, year, chatId);
+        cache.invalidate(chatId);
+        return result;
+    }
+
+
+    public CompletableFuture<Void> clearReadBooks(long chatId) {
+        CompletableFuture<Void> result = delegate.clearReadBooks(chatId);
+        cache.invalidate(chatId);
+        return result;
+    }
+
+
+    public CompletableFuture<Boolean> editReadBook(long bookId, String newTitle, String newAuthor, int newYear, long chatId) {
+        CompletableFuture<Boolean> result = delegate.editReadBook(bookId, newTitle, newAuthor, newYear, chatId);
+        cache.invalidate(chatId);
+        return result;
+    }
+
+
+    public CompletableFuture<Void> updateReadBooks(long chatId, long bookId) {
+        CompletableFuture<Void> result = delegate.updateReadBooks(chatId, bookId);
+        cache.invalidate(chatId);
+        return result;
+    }
+
+
+    public ArrayList<String> getBooksByAuthor(String author, long chatId) {
+        return delegate.getBooksByAuthor(author, chatId);
+    }
+
+
+    public ArrayList<String> getBooksByYear(int year, long chatId) {
+        return delegate.getBooksByYear(year, chatId);
+    }
+
+
+    public CompletableFuture<Boolean> addRecBook(String title, String author, String genre, long chatId) {
+        return delegate.addRecBook(title, author, genre, chatId);
+    }
+
+
+    public ArrayList<RecommendedBook> getRecBooksPage(long afterId, int limit) {
+        return delegate.getRecBooksPage(afterId, limit);
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByGenre(String genre, int limit) {
+        return delegate.searchBooksByGenre(genre, limit);
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByAuthor(String author, int limit) {
+        return delegate.searchBooksByAuthor(author, limit);
+    }
+
+
+    public ArrayList<RecommendedBook> searchRecBooks(String query, int limit) {
+        return delegate.searchRecBooks(query, limit);
+    }
+
+
+    public CompletableFuture<Void> updateRecBooks(long chatId, long bookId) {
+        return delegate.updateRecBooks(chatId, bookId);
+    }
+
+
+    public String getRandQuote() {
+        return delegate.getRandQuote();
+    }
+
+
+    public String getRandQuote(String author) {
+        return delegate.getRandQuote(author);
+    }
+
+
+    public BackupResult backup(Path directory) throws IOException {
+        return delegate.backup(directory);
+    }
+
+
+    public CompletableFuture<Void> saveSession(long chatId, byte[] state) {
+        return delegate.saveSession(chatId, state);
+    }
+
+
+    public byte[] loadSession(long chatId) {
+        return delegate.loadSession(chatId);
+    }
+
+
+    public void closeConnection() {
+        delegate.closeConnection();
+    }
+}
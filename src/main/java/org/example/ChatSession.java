@@ -0,0 +1,301 @@
+package org.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Состояние диалога с одним чатом: режим пользователя, шаг и данные пошагового ввода книги,
+ * головоломка, курсор постраничного просмотра и участие в голосовании.
+ * <p>
+ * Сессию изменяет только поток, который обрабатывает сообщение чата и держит блокировку сессии,
+ * поэтому поля не синхронизированы. Блокировка - {@link ReentrantLock}, а не монитор: обработчик
+ * ждёт хранилище, не занимая поток-носитель виртуального потока. Режим пользователя читается и без блокировки, например
+ * при выборе клавиатуры ответа, поэтому он объявлен volatile.
+ * <p>
+ * Неактивную сессию {@link ChatSessions} сериализует методом {@link #toBytes()} в хранилище
+ * и помечает вытесненной; поток, дождавшийся блокировки вытесненной сессии, должен взять сессию заново.
+ * Изменённые с последнего сохранения сессии отмечены флагом, чтобы контрольная точка
+ * ({@link ChatSessions#checkpoint()}) записывала только их.
+ */
+class ChatSession {
+
+    /**
+     * Версия формата сериализованной сессии. Режим и шаг ввода записываются порядковыми номерами,
+     * поэтому при изменении порядка констант {@link MessageHandling.UserStates} или {@link BookInputStep}
+     * версию нужно поднять.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Идентификатор чата.
+     */
+    private final long chatId;
+
+    /**
+     * Блокировка, под которой изменяется сессия.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Режим пользователя.
+     */
+    private volatile MessageHandling.UserStates state = MessageHandling.UserStates.DEFAULT;
+
+    /**
+     * Текущий шаг пошагового ввода или {@code null}, если ввод не идёт.
+     */
+    private BookInputStep inputStep;
+
+    /**
+     * Собранные при пошаговом вводе данные, по строке на шаг, или {@code null}, если ввод не идёт.
+     */
+    private String bookData;
+
+    /**
+     * Головоломка чата; создаётся при первом обращении.
+     */
+    private PuzzleGame puzzleGame;
+
+    /**
+     * Курсор постраничного просмотра открытого списка книг или {@code null}, если список не открыт.
+     */
+    private PageCursor pageCursor;
+
+    /**
+     * Флаг, что чат начал голосование в этом месяце.
+     */
+    private boolean voting;
+
+    /**
+     * Время последнего сообщения чата в миллисекундах.
+     */
+    private volatile long lastAccess = System.currentTimeMillis();
+
+    /**
+     * Флаг, что сессия вытеснена из памяти и больше не используется.
+     */
+    private boolean evicted;
+
+    /**
+     * Флаг, что в хранилище может лежать сохранённая копия сессии.
+     */
+    private boolean stored;
+
+    /**
+     * Флаг, что сессия могла измениться после последнего сохранения в хранилище.
+     */
+    private boolean dirty;
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param chatId Идентификатор чата.
+     */
+    ChatSession(long chatId) {
+        this.chatId = chatId;
+    }
+
+
+    long getChatId() {
+        return chatId;
+    }
+
+
+    ReentrantLock getLock() {
+        return lock;
+    }
+
+
+    MessageHandling.UserStates getState() {
+        return state;
+    }
+
+
+    void setState(MessageHandling.UserStates state) {
+        this.state = state;
+    }
+
+
+    /**
+     * Возвращает текущий шаг пошагового ввода.
+     *
+     * @param defaultStep Шаг, если ввод не идёт.
+     * @return Текущий шаг или defaultStep.
+     */
+    BookInputStep getInputStep(BookInputStep defaultStep) {
+        return inputStep != null ? inputStep : defaultStep;
+    }
+
+
+    void setInputStep(BookInputStep inputStep) {
+        this.inputStep = inputStep;
+    }
+
+
+    String getBookData() {
+        return bookData;
+    }
+
+
+    void setBookData(String bookData) {
+        this.bookData = bookData;
+    }
+
+
+    /**
+     * Возвращает головоломку чата, создавая её при первом обращении.
+     *
+     * @return Головоломка чата.
+     */
+    PuzzleGame getPuzzleGame() {
+        if (puzzleGame == null) {
+            puzzleGame = new PuzzleGame();
+        }
+        return puzzleGame;
+    }
+
+
+    PageCursor getPageCursor() {
+        return pageCursor;
+    }
+
+
+    void setPageCursor(PageCursor pageCursor) {
+        this.pageCursor = pageCursor;
+    }
+
+
+    boolean isVoting() {
+        return voting;
+    }
+
+
+    void setVoting(boolean voting) {
+        this.voting = voting;
+    }
+
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+
+    /**
+     * Запоминает время сообщения чата.
+     *
+     * @param now Текущее время в миллисекундах.
+     */
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+
+    void markEvicted() {
+        evicted = true;
+    }
+
+
+    boolean isStored() {
+        return stored;
+    }
+
+
+    void setStored(boolean stored) {
+        this.stored = stored;
+    }
+
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+
+    void setDirty(boolean dirty) {
+        this.dirty = dirty;
+    }
+
+
+    /**
+     * Проверяет, что сессия не отличается от новой и её не нужно сохранять.
+     *
+     * @return {@code true}, если в сессии нет ничего, кроме режима по умолчанию.
+     */
+    boolean isBlank() {
+        return state == MessageHandling.UserStates.DEFAULT && inputStep == null && bookData == null
+                && puzzleGame == null && pageCursor == null && !voting;
+    }
+
+
+    /**
+     * Сериализует сессию в компактный двоичный вид.
+     *
+     * @return Сериализованная сессия.
+     * @throws IOException Если сессию не удалось записать.
+     */
+    byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(FORMAT_VERSION);
+        out.writeByte(state.ordinal());
+        out.writeByte(inputStep != null ? inputStep.ordinal() : -1);
+        out.writeBoolean(bookData != null);
+        if (bookData != null) {
+            // Не writeUTF: он ограничен 65535 байтами, а вводимый текст книги - нет
+            byte[] utf8 = bookData.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        out.writeBoolean(voting);
+        out.writeBoolean(pageCursor != null);
+        if (pageCursor != null) {
+            pageCursor.writeTo(out);
+        }
+        out.writeBoolean(puzzleGame != null);
+        if (puzzleGame != null) {
+            puzzleGame.writeTo(out);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+
+    /**
+     * Восстанавливает сессию, сериализованную {@link #toBytes()}.
+     *
+     * @param chatId Идентификатор чата.
+     * @param state  Сериализованная сессия.
+     * @return Восстановленная сессия.
+     * @throws IOException Если формат сессии не распознан.
+     */
+    static ChatSession fromBytes(long chatId, byte[] state) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(state));
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Неизвестная версия сессии чата " + chatId + ": " + version);
+        }
+        ChatSession session = new ChatSession(chatId);
+        session.state = MessageHandling.UserStates.values()[in.readByte()];
+        int step = in.readByte();
+        session.inputStep = step >= 0 ? BookInputStep.values()[step] : null;
+        if (in.readBoolean()) {
+            byte[] utf8 = new byte[in.readInt()];
+            in.readFully(utf8);
+            session.bookData = new String(utf8, StandardCharsets.UTF_8);
+        }
+        session.voting = in.readBoolean();
+        session.pageCursor = in.readBoolean() ? PageCursor.readFrom(in) : null;
+        session.puzzleGame = in.readBoolean() ? PuzzleGame.readFrom(in) : null;
+        return session;
+    }
+}
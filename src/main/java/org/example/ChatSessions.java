@@ -0,0 +1,353 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Сессии чатов в памяти с вытеснением неактивных в хранилище.
+ * <p>
+ * Сессия, к которой не обращались дольше времени простоя, сериализуется в хранилище
+ * ({@link BookStorage#saveSession(long, byte[])}) и удаляется из памяти. Следующее сообщение чата
+ * прозрачно восстанавливает её из хранилища. Если сессий в памяти больше предела, при очередной
+ * проверке вытесняются давно не использованные. Поэтому память занимают только активные чаты,
+ * а не все чаты, когда-либо писавшие боту. Сессии без состояния не сохраняются.
+ * <p>
+ * Контрольная точка ({@link #checkpoint()}) сохраняет в хранилище изменённые сессии, не вытесняя их.
+ * После перезапуска бота сессия восстанавливается из хранилища при первом сообщении чата,
+ * поэтому пользователь продолжает диалог с того же шага.
+ * <p>
+ * Время простоя задаётся переменной среды "sessionIdleSeconds" (по умолчанию 30 минут),
+ * предел сессий в памяти - переменной "sessionMaxResident" (по умолчанию 100 000).
+ */
+class ChatSessions {
+
+    /**
+     * Время простоя по умолчанию, после которого сессия вытесняется, в секундах.
+     */
+    static final long DEFAULT_IDLE_SECONDS = 1800;
+
+    /**
+     * Предел сессий в памяти по умолчанию.
+     */
+    static final int DEFAULT_MAX_RESIDENT = 100_000;
+
+    /**
+     * Наибольший период проверки сессий в миллисекундах.
+     */
+    private static final long MAX_SWEEP_MILLIS = 60_000;
+
+
+    /**
+     * Сессии в памяти по идентификатору чата.
+     */
+    private final Map<Long, ChatSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Хранилище для вытесненных сессий. Берётся при каждом обращении, чтобы владелец мог заменить хранилище.
+     */
+    private final Supplier<BookStorage> storage;
+
+    /**
+     * Время простоя, после которого сессия вытесняется, в миллисекундах.
+     */
+    private final long idleMillis;
+
+    /**
+     * Предел сессий в памяти.
+     */
+    private final int maxResident;
+
+    /**
+     * Поток периодической проверки сессий или {@code null}, если проверка не запущена.
+     */
+    private ScheduledExecutorService sweeper;
+
+
+    /**
+     * Конструктор класса. Проверка сессий не запускается; её запускает {@link #startEviction()}.
+     *
+     * @param storage     Хранилище для вытесненных сессий.
+     * @param idleMillis  Время простоя, после которого сессия вытесняется, в миллисекундах.
+     * @param maxResident Предел сессий в памяти.
+     */
+    ChatSessions(Supplier<BookStorage> storage, long idleMillis, int maxResident) {
+        this.storage = storage;
+        this.idleMillis = idleMillis;
+        this.maxResident = maxResident;
+    }
+
+
+    /**
+     * Создаёт сессии с настройками из переменных среды "sessionIdleSeconds" и "sessionMaxResident"
+     * и запускает периодическую проверку.
+     *
+     * @param storage Хранилище для вытесненных сессий.
+     * @return Сессии чатов.
+     */
+    static ChatSessions fromEnvironment(Supplier<BookStorage> storage) {
+        String idle = System.getenv("sessionIdleSeconds");
+        String max = System.getenv("sessionMaxResident");
+        ChatSessions sessions = new ChatSessions(storage,
+                TimeUnit.SECONDS.toMillis(idle != null ? Long.parseLong(idle) : DEFAULT_IDLE_SECONDS),
+                max != null ? Integer.parseInt(max) : DEFAULT_MAX_RESIDENT);
+        sessions.startEviction();
+        return sessions;
+    }
+
+
+    /**
+     * Запускает периодическую проверку сессий в отдельном потоке.
+     */
+    synchronized void startEviction() {
+        if (sweeper != null) {
+            return;
+        }
+        long period = Math.max(1, Math.min(idleMillis / 2, MAX_SWEEP_MILLIS));
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-eviction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(() -> {
+            try {
+                evictIdle(System.currentTimeMillis());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Останавливает периодическую проверку сессий.
+     */
+    synchronized void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+
+    /**
+     * Возвращает сессию чата, восстанавливая её из хранилища или создавая новую.
+     * Сессию можно изменять только под её блокировкой; удобнее пользоваться {@link #apply(long, Function)}.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Сессия чата.
+     */
+    ChatSession get(long chatId) {
+        ChatSession session = sessions.get(chatId);
+        if (session != null) {
+            return session;
+        }
+        // Хранилище читается вне карты: computeIfAbsent держал бы на время чтения блокировку
+        // корзины карты и задерживал бы другие чаты. Если два потока восстановили сессию одновременно,
+        // остаётся та, что попала в карту первой
+        ChatSession restored = restore(chatId);
+        session = sessions.putIfAbsent(chatId, restored);
+        return session != null ? session : restored;
+    }
+
+
+    /**
+     * Возвращает сессию чата, только если она в памяти.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Сессия чата или {@code null}.
+     */
+    ChatSession peek(long chatId) {
+        return sessions.get(chatId);
+    }
+
+
+    /**
+     * Выполняет действие над сессией чата под её блокировкой и отмечает обращение к сессии.
+     * Если сессию вытеснили, пока поток ждал блокировки, действие выполняется над восстановленной сессией.
+     *
+     * @param chatId Идентификатор чата.
+     * @param action Действие над сессией.
+     * @return Результат действия.
+     */
+    <T> T apply(long chatId, Function<ChatSession, T> action) {
+        while (true) {
+            ChatSession session = get(chatId);
+            session.getLock().lock();
+            try {
+                if (!session.isEvicted()) {
+                    session.touch(System.currentTimeMillis());
+                    session.setDirty(true);
+                    return action.apply(session);
+                }
+            } finally {
+                session.getLock().unlock();
+            }
+        }
+    }
+
+
+    /**
+     * Возвращает количество сессий в памяти.
+     *
+     * @return Количество сессий.
+     */
+    int size() {
+        return sessions.size();
+    }
+
+
+    /**
+     * Вытесняет сессии, простаивающие дольше времени простоя, а затем, если сессий в памяти
+     * всё ещё больше предела, - самые давно использованные.
+     *
+     * @param now Текущее время в миллисекундах.
+     * @return Количество вытесненных сессий.
+     */
+    int evictIdle(long now) {
+        long idleBefore = now - idleMillis;
+        int evicted = 0;
+        for (ChatSession session : sessions.values()) {
+            if (session.getLastAccess() <= idleBefore && evict(session, idleBefore)) {
+                evicted++;
+            }
+        }
+        int excess = sessions.size() - maxResident;
+        if (excess > 0) {
+            // Время обращения запоминается до сортировки: сообщения чатов меняют его во время проверки
+            record Candidate(ChatSession session, long lastAccess) {
+            }
+            List<Candidate> byAge = new ArrayList<>(sessions.size());
+            for (ChatSession session : sessions.values()) {
+                byAge.add(new Candidate(session, session.getLastAccess()));
+            }
+            byAge.sort(Comparator.comparingLong(Candidate::lastAccess));
+            for (int i = 0; i < byAge.size() && excess > 0; i++) {
+                if (evict(byAge.get(i).session(), Long.MAX_VALUE)) {
+                    evicted++;
+                    excess--;
+                }
+            }
+        }
+        return evicted;
+    }
+
+
+    /**
+     * Сохраняет в хранилище сессии, изменённые после последнего сохранения, и оставляет их в памяти.
+     * Записи всех сессий отправляются в хранилище сразу, а затем метод дожидается их завершения.
+     * Сессия, которую не удалось записать, остаётся изменённой и попадёт в следующую контрольную точку.
+     *
+     * @return Количество сохранённых сессий.
+     */
+    int checkpoint() {
+        List<CompletableFuture<Void>> writes = new ArrayList<>();
+        for (ChatSession session : sessions.values()) {
+            session.getLock().lock();
+            try {
+                if (session.isEvicted() || !session.isDirty()) {
+                    continue;
+                }
+                byte[] state = session.isBlank() ? null : session.toBytes();
+                session.setDirty(false);
+                if (state == null && !session.isStored()) {
+                    continue;
+                }
+                session.setStored(state != null);
+                writes.add(storage.get().saveSession(session.getChatId(), state).whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        session.getLock().lock();
+                        try {
+                            session.setDirty(true);
+                            session.setStored(true);
+                        } finally {
+                            session.getLock().unlock();
+                        }
+                    }
+                }));
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                session.getLock().unlock();
+            }
+        }
+        int saved = 0;
+        for (CompletableFuture<Void> write : writes) {
+            try {
+                write.join();
+                saved++;
+            } catch (CompletionException e) {
+                e.printStackTrace();
+            }
+        }
+        return saved;
+    }
+
+
+    /**
+     * Сохраняет сессию в хранилище и удаляет её из памяти. Запись дожидается завершения,
+     * чтобы следующее сообщение чата прочитало из хранилища уже сохранённую сессию.
+     *
+     * @param session    Сессия.
+     * @param idleBefore Сессия вытесняется, только если к ней не обращались после этого времени.
+     * @return {@code true}, если сессия вытеснена.
+     */
+    private boolean evict(ChatSession session, long idleBefore) {
+        session.getLock().lock();
+        try {
+            if (session.isEvicted() || session.getLastAccess() > idleBefore) {
+                return false;
+            }
+            try {
+                byte[] state = session.isBlank() ? null : session.toBytes();
+                if (state != null || session.isStored()) {
+                    storage.get().saveSession(session.getChatId(), state).join();
+                }
+            } catch (IOException | CompletionException e) {
+                // Несохранённая сессия остаётся в памяти до следующей проверки
+                e.printStackTrace();
+                return false;
+            }
+            session.markEvicted();
+            sessions.remove(session.getChatId(), session);
+            return true;
+        } finally {
+            session.getLock().unlock();
+        }
+    }
+
+
+    /**
+     * Восстанавливает сессию чата из хранилища или создаёт новую, если сохранённой нет.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Сессия чата.
+     */
+    private ChatSession restore(long chatId) {
+        byte[] state = storage.get().loadSession(chatId);
+        if (state != null) {
+            try {
+                ChatSession session = ChatSession.fromBytes(chatId, state);
+                session.setStored(true);
+                return session;
+            } catch (IOException | RuntimeException e) {
+                // Повреждённая сессия заменяется новой: пользователь начнёт диалог заново,
+                // а сохранённая копия будет перезаписана или удалена при вытеснении
+                e.printStackTrace();
+            }
+        }
+        ChatSession session = new ChatSession(chatId);
+        session.setStored(state != null);
+        return session;
+    }
+}
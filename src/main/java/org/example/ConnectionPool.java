@@ -0,0 +1,242 @@
+package org.example;
+
+import org.sqlite.SQLiteConfig;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Небольшой пул соединений с базой данных SQLite.
+ * Соединения создаются лениво, при первом запросе, и переиспользуются между вызовами.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Размер пула по умолчанию.
+     */
+    public static final int DEFAULT_SIZE = 4;
+
+    /**
+     * Сколько миллисекунд ждать свободное соединение, прежде чем сообщить об ошибке.
+     */
+    private static final long ACQUIRE_TIMEOUT_MS = 30_000;
+
+    /**
+     * Сколько миллисекунд SQLite ждёт снятия блокировки файла базы данных.
+     */
+    private static final int BUSY_TIMEOUT_MS = 5_000;
+
+
+    /**
+     * URL базы данных SQLite.
+     */
+    private final String databaseUrl;
+
+
+    /**
+     * Максимальное количество открытых соединений.
+     */
+    private final int maxSize;
+
+
+    /**
+     * Открываются ли соединения только для чтения.
+     */
+    private final boolean readOnly;
+
+
+    /**
+     * Свободные соединения, готовые к выдаче.
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+
+    /**
+     * Все соединения, открытые пулом.
+     */
+    private final List<PooledConnection> all = new ArrayList<>();
+
+
+    /**
+     * Журнал медленных запросов или {@code null}, если запросы не измеряются.
+     */
+    private volatile SlowQueryLog slowQueryLog;
+
+
+    /**
+     * Флаг закрытия пула.
+     */
+    private volatile boolean closed;
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param databaseUrl URL базы данных SQLite.
+     * @param maxSize     Максимальное количество соединений в пуле.
+     */
+    public ConnectionPool(String databaseUrl, int maxSize) {
+        this(databaseUrl, maxSize, false);
+    }
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param databaseUrl URL базы данных SQLite.
+     * @param maxSize     Максимальное количество соединений в пуле.
+     * @param readOnly    {@code true}, чтобы открывать соединения только для чтения; попытка записи через них завершится ошибкой.
+     */
+    public ConnectionPool(String databaseUrl, int maxSize, boolean readOnly) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер пула должен быть положительным: " + maxSize);
+        }
+        this.databaseUrl = databaseUrl;
+        this.maxSize = maxSize;
+        this.readOnly = readOnly;
+    }
+
+
+    /**
+     * Выдаёт свободное соединение из пула. Если свободных нет и лимит не исчерпан, открывает новое,
+     * иначе ждёт, пока другое соединение не будет возвращено.
+     * Соединение возвращается в пул методом {@link PooledConnection#close()}.
+     *
+     * @return Соединение из пула.
+     * @throws SQLException Если пул закрыт, соединение не удалось открыть или истекло время ожидания.
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+        PooledConnection connection = idle.pollFirst();
+        if (connection != null) {
+            return connection;
+        }
+        connection = tryOpen();
+        if (connection != null) {
+            return connection;
+        }
+        try {
+            connection = idle.pollFirst(ACQUIRE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+        if (connection == null) {
+            throw new SQLException("Нет свободных соединений в пуле за " + ACQUIRE_TIMEOUT_MS + " мс");
+        }
+        return connection;
+    }
+
+
+    /**
+     * Открывает новое соединение, если лимит пула ещё не исчерпан.
+     *
+     * @return Новое соединение или {@code null}, если пул уже заполнен.
+     * @throws SQLException Если соединение не удалось открыть.
+     */
+    private PooledConnection tryOpen() throws SQLException {
+        synchronized (all) {
+            if (all.size() >= maxSize) {
+                return null;
+            }
+            SQLiteConfig config = new SQLiteConfig();
+            config.setBusyTimeout(BUSY_TIMEOUT_MS);
+            config.setReadOnly(readOnly);
+            Connection connection = DriverManager.getConnection(databaseUrl, config.toProperties());
+            PooledConnection pooled = new PooledConnection(this, connection);
+            all.add(pooled);
+            return pooled;
+        }
+    }
+
+
+    /**
+     * Возвращает соединение в пул. Сломанные соединения закрываются и освобождают место для новых.
+     *
+     * @param connection Возвращаемое соединение.
+     */
+    void release(PooledConnection connection) {
+        boolean broken;
+        try {
+            broken = connection.getConnection().isClosed();
+        } catch (SQLException e) {
+            broken = true;
+        }
+        if (closed || broken) {
+            discard(connection);
+        } else {
+            // Последнее возвращённое соединение выдаётся первым: у него «тёплый» кэш запросов
+            idle.offerFirst(connection);
+        }
+    }
+
+
+    /**
+     * Физически закрывает соединение и убирает его из пула.
+     *
+     * @param connection Закрываемое соединение.
+     */
+    private void discard(PooledConnection connection) {
+        synchronized (all) {
+            all.remove(connection);
+        }
+        connection.closePhysically();
+    }
+
+
+    /**
+     * Включает измерение запросов: запросы, подготовленные после вызова, сообщают журналу о медленном выполнении и ошибках.
+     *
+     * @param slowQueryLog Журнал медленных запросов или {@code null}, чтобы не измерять запросы.
+     */
+    public void setSlowQueryLog(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+
+    /**
+     * Возвращает журнал медленных запросов.
+     *
+     * @return Журнал или {@code null}, если запросы не измеряются.
+     */
+    SlowQueryLog getSlowQueryLog() {
+        return slowQueryLog;
+    }
+
+
+    /**
+     * Возвращает количество открытых пулом соединений.
+     *
+     * @return Количество соединений.
+     */
+    public int size() {
+        synchronized (all) {
+            return all.size();
+        }
+    }
+
+
+    /**
+     * Закрывает все соединения пула.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        List<PooledConnection> toClose;
+        synchronized (all) {
+            toClose = new ArrayList<>(all);
+            all.clear();
+        }
+        idle.clear();
+        for (PooledConnection connection : toClose) {
+            connection.closePhysically();
+        }
+    }
+}
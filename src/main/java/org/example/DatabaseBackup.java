@@ -0,0 +1,353 @@
+package org.example;
+
+import org.sqlite.SQLiteConnection;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Резервное копирование базы данных SQLite без остановки бота и восстановление из копии.
+ *
+ * <p>Копия снимается так: под соединением писателя (пока записи не выполняются) журнал WAL
+ * полностью переносится в файл базы данных, и отдельное соединение открывает транзакцию чтения.
+ * Такая транзакция читает прямо из файла базы данных и не даёт контрольным точкам его менять,
+ * поэтому до её завершения файл остаётся согласованным снимком. Новые записи тем временем
+ * продолжаются и накапливаются в журнале WAL. Файл копируется пачками страниц с паузой между
+ * пачками, чтобы копирование не отнимало диск у запросов пользователей.
+ *
+ * <p>Встроенный в sqlite-jdbc 3.27 метод backup() копирует базу за один шаг и не вызывает
+ * обработчик прогресса, поэтому его нельзя притормозить; для восстановления он подходит.
+ *
+ * <p>Восстановление выполняется в остановленном боте:
+ * {@code java -cp <classpath> org.example.DatabaseBackup <копия.db> <read_books.db>}
+ */
+public final class DatabaseBackup {
+
+    /**
+     * Получатель сведений о ходе копирования.
+     */
+    @FunctionalInterface
+    public interface Progress {
+        /**
+         * Вызывается после каждой пачки страниц.
+         *
+         * @param copied Количество скопированных страниц.
+         * @param total  Общее количество страниц.
+         */
+        void progress(long copied, long total);
+    }
+
+
+    /**
+     * Количество страниц в одной пачке; при странице 4 КБ это 1 МБ.
+     */
+    static final int PAGES_PER_STEP = 256;
+
+    /**
+     * Пауза между пачками по умолчанию, в миллисекундах.
+     */
+    static final long DEFAULT_PAUSE_MILLIS = 10;
+
+    /**
+     * Каталог резервных копий по умолчанию.
+     */
+    static final String DEFAULT_DIRECTORY = "backups";
+
+    /**
+     * Сколько последних копий хранить в каталоге при копировании по расписанию и по команде.
+     */
+    static final int KEEP = 7;
+
+    /**
+     * Сколько раз пытаться перенести журнал WAL в файл базы данных, если мешают читатели.
+     */
+    private static final int CHECKPOINT_ATTEMPTS = 5;
+
+    /**
+     * Формат имени каталога копии.
+     */
+    private static final DateTimeFormatter NAME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+
+    private DatabaseBackup() {
+    }
+
+
+    /**
+     * Возвращает паузу между пачками страниц из переменной среды "storageBackupPauseMs".
+     *
+     * @return Пауза в миллисекундах.
+     */
+    static long pauseFromEnvironment() {
+        String pause = System.getenv("storageBackupPauseMs");
+        return pause != null ? Long.parseLong(pause) : DEFAULT_PAUSE_MILLIS;
+    }
+
+
+    /**
+     * Возвращает каталог резервных копий из переменной среды "storageBackupDir".
+     *
+     * @return Каталог резервных копий.
+     */
+    public static Path directoryFromEnvironment() {
+        String directory = System.getenv("storageBackupDir");
+        return Path.of(directory != null ? directory : DEFAULT_DIRECTORY);
+    }
+
+
+    /**
+     * Возвращает путь к файлу базы данных по её URL.
+     *
+     * @param databaseUrl URL базы данных SQLite.
+     * @return Путь к файлу.
+     */
+    static Path databaseFile(String databaseUrl) {
+        return Path.of(databaseUrl.substring("jdbc:sqlite:".length()));
+    }
+
+
+    /**
+     * Копирует базу данных в файл, не останавливая записи.
+     *
+     * @param writer      Пул с единственным соединением писателя этой базы данных.
+     * @param databaseUrl URL базы данных SQLite.
+     * @param destination Файл копии; записывается через временный файл и появляется только целиком.
+     * @param pauseMillis Пауза между пачками страниц в миллисекундах.
+     * @param progress    Получатель сведений о ходе копирования или {@code null}.
+     * @return Размер копии в байтах.
+     * @throws SQLException Если не удалось получить согласованный снимок или копия не прошла проверку.
+     * @throws IOException  Если файл не удалось скопировать.
+     */
+    public static long copy(ConnectionPool writer, String databaseUrl, Path destination, long pauseMillis, Progress progress)
+            throws SQLException, IOException {
+        Path temporary = destination.resolveSibling(destination.getFileName() + ".part");
+        long bytes;
+        try (Connection snapshot = DriverManager.getConnection(databaseUrl)) {
+            snapshot.setAutoCommit(false);
+            try (PooledConnection connection = writer.acquire()) {
+                checkpoint(connection.getConnection());
+                // Транзакция чтения начинается, пока писатель занят, поэтому журнал WAL ещё пуст
+                // и транзакция читает только файл базы данных
+                query(snapshot, "SELECT count(*) FROM sqlite_master");
+            }
+            long pageSize = query(snapshot, "PRAGMA page_size");
+            long pages = query(snapshot, "PRAGMA page_count");
+            bytes = pageSize * pages;
+            try (FileChannel source = FileChannel.open(databaseFile(databaseUrl), StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect((int) (pageSize * PAGES_PER_STEP));
+                long position = 0;
+                while (position < bytes) {
+                    buffer.clear();
+                    buffer.limit((int) Math.min(buffer.capacity(), bytes - position));
+                    while (buffer.hasRemaining()) {
+                        if (source.read(buffer, position + buffer.position()) < 0) {
+                            throw new IOException("Файл базы данных короче " + pages + " страниц");
+                        }
+                    }
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        target.write(buffer, position + buffer.position());
+                    }
+                    position += buffer.limit();
+                    if (progress != null) {
+                        progress.progress(position / pageSize, pages);
+                    }
+                    if (position < bytes && pauseMillis > 0) {
+                        pause(pauseMillis);
+                    }
+                }
+                target.force(true);
+            }
+            snapshot.rollback();
+        } catch (SQLException | IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        verify(temporary);
+        Files.move(temporary, destination, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return bytes;
+    }
+
+
+    /**
+     * Переносит все записи журнала WAL в файл базы данных и очищает журнал.
+     * Читатели могут ненадолго помешать, поэтому выполняется несколько попыток.
+     */
+    private static void checkpoint(Connection connection) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("PRAGMA wal_checkpoint(TRUNCATE)")) {
+                if (resultSet.next() && resultSet.getInt(1) == 0) {
+                    return;
+                }
+            }
+            if (attempt == CHECKPOINT_ATTEMPTS) {
+                throw new SQLException("Не удалось перенести журнал WAL в базу данных: база данных занята");
+            }
+            pause(10L * attempt);
+        }
+    }
+
+
+    /**
+     * Проверяет целостность копии.
+     */
+    private static void verify(Path file) throws SQLException, IOException {
+        String result;
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA quick_check")) {
+            result = resultSet.next() ? resultSet.getString(1) : "нет ответа";
+        }
+        if (!"ok".equals(result)) {
+            Files.deleteIfExists(file);
+            throw new SQLException("Копия " + file + " повреждена: " + result);
+        }
+    }
+
+
+    /**
+     * Выполняет запрос, возвращающий одно число.
+     */
+    private static long query(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getLong(1) : 0;
+        }
+    }
+
+
+    /**
+     * Приостанавливает поток; прерывание сохраняется и прекращает копирование.
+     */
+    private static void pause(long millis) throws SQLException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Копирование прервано", e);
+        }
+    }
+
+
+    /**
+     * Восстанавливает базу данных из копии, заменяя всё её содержимое. Выполняется, пока база данных не открыта хранилищем.
+     *
+     * @param backup      Файл копии.
+     * @param databaseUrl URL восстанавливаемой базы данных SQLite.
+     * @throws SQLException Если копию не удалось прочитать или записать в базу данных.
+     */
+    public static void restore(Path backup, String databaseUrl) throws SQLException {
+        if (!Files.isRegularFile(backup)) {
+            throw new SQLException("Файл копии не найден: " + backup);
+        }
+        try (SQLiteConnection connection = (SQLiteConnection) DriverManager.getConnection(databaseUrl)) {
+            connection.getDatabase().restore("main", backup.toString(), null);
+        }
+    }
+
+
+    /**
+     * Снимает копию хранилища в новый каталог с датой и временем в имени и удаляет самые старые копии,
+     * оставляя {@link #KEEP} последних.
+     *
+     * @param storage Хранилище книг.
+     * @param root    Каталог резервных копий.
+     * @return Итог копирования.
+     * @throws IOException Если копию не удалось сохранить.
+     */
+    public static BackupResult backupNow(BookStorage storage, Path root) throws IOException {
+        Path directory = root.resolve(LocalDateTime.now().format(NAME));
+        Files.createDirectories(directory);
+        BackupResult result = storage.backup(directory);
+        prune(root);
+        return result;
+    }
+
+
+    /**
+     * Удаляет самые старые каталоги копий.
+     */
+    private static void prune(Path root) throws IOException {
+        List<Path> backups = new ArrayList<>();
+        try (Stream<Path> children = Files.list(root)) {
+            children.filter(Files::isDirectory).sorted(Comparator.reverseOrder()).forEach(backups::add);
+        }
+        for (Path old : backups.subList(Math.min(KEEP, backups.size()), backups.size())) {
+            File[] files = old.toFile().listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            old.toFile().delete();
+        }
+    }
+
+
+    /**
+     * Запускает копирование по расписанию из переменной среды "storageBackupHours".
+     *
+     * @param storage Хранилище книг.
+     * @return Планировщик или {@code null}, если расписание не задано.
+     */
+    public static ScheduledExecutorService scheduleFromEnvironment(BookStorage storage) {
+        String hours = System.getenv("storageBackupHours");
+        if (hours == null || Long.parseLong(hours) <= 0) {
+            return null;
+        }
+        long period = TimeUnit.HOURS.toSeconds(Long.parseLong(hours));
+        Path root = directoryFromEnvironment();
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "storage-backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                backupNow(storage, root);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, period, period, TimeUnit.SECONDS);
+        return scheduler;
+    }
+
+
+    /**
+     * Восстанавливает базу данных из копии.
+     *
+     * @param args Путь к файлу копии и путь к файлу базы данных.
+     * @throws SQLException Если базу данных не удалось восстановить.
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length != 2) {
+            System.err.println("Использование: DatabaseBackup <копия.db> <база.db>");
+            System.exit(2);
+        }
+        restore(Path.of(args[0]), "jdbc:sqlite:" + args[1]);
+        System.out.println("База данных " + args[1] + " восстановлена из " + args[0]);
+    }
+}
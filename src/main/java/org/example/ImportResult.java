@@ -0,0 +1,11 @@
+package org.example;
+
+/**
+ * Итог импорта списка прочитанных книг.
+ *
+ * @param inserted   Количество добавленных книг.
+ * @param duplicates Количество книг, которые уже были в списке чата (или повторялись в файле).
+ * @param invalid    Количество строк файла, которые не удалось разобрать.
+ */
+public record ImportResult(int inserted, int duplicates, int invalid) {
+}
@@ -0,0 +1,1234 @@
+package org.example;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Хранилище книг целиком в памяти, без JDBC.
+ * Прочитанные книги лежат в компактных массивах по чатам, таблица чатов использует примитивные ключи long,
+ * а одинаковые строки (названия, авторы, жанры) хранятся в одном экземпляре.
+ * Если указан каталог, состояние переживает перезапуск: каждое изменение сначала дописывается в журнал
+ * и только потом применяется, а периодический снимок сохраняет всё состояние и начинает журнал заново.
+ */
+public class InMemoryBookStorage implements BookStorage {
+
+    /**
+     * Имя файла снимка в каталоге хранилища.
+     */
+    static final String SNAPSHOT_FILE = "books.snapshot";
+
+    /**
+     * Имя файла журнала в каталоге хранилища.
+     */
+    static final String LOG_FILE = "books.log";
+
+    /**
+     * Признак файла снимка.
+     */
+    private static final int SNAPSHOT_MAGIC = 0x424F4F4B;
+
+    /**
+     * Признак файла журнала.
+     */
+    private static final int LOG_MAGIC = 0x424C4F47;
+
+    /**
+     * Версия формата снимка и журнала. Во второй версии снимок заканчивается вытесненными сессиями чатов;
+     * файлы первой версии читаются без них.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Коды операций в журнале.
+     */
+    private static final byte ADD_READ = 1, EDIT_READ = 2, REMOVE_READ = 3, CLEAR_READ = 4, ADD_REC = 5, REMOVE_REC = 6, SAVE_SESSION = 7;
+
+
+    /**
+     * Порядок авторов в статистике: по убыванию количества книг, затем по имени.
+     */
+    private static final Comparator<ReadingStats.AuthorCount> AUTHOR_RANKING =
+            Comparator.comparingInt(ReadingStats.AuthorCount::books).reversed().thenComparing(ReadingStats.AuthorCount::author);
+
+
+    /**
+     * Прочитанные книги одного чата в порядке возрастания идентификатора.
+     * Статистика по годам и авторам обновляется при каждом изменении списка.
+     */
+    private static final class Shelf {
+
+        /**
+         * Книги; используются первые size элементов.
+         */
+        private ReadBook[] books = new ReadBook[4];
+
+        /**
+         * Количество книг.
+         */
+        private int size;
+
+        /**
+         * Количество книг по годам прочтения.
+         */
+        private final TreeMap<Integer, Integer> years = new TreeMap<>();
+
+        /**
+         * Количество книг по авторам.
+         */
+        private final HashMap<String, Integer> authors = new HashMap<>();
+
+        /**
+         * Авторы в порядке {@link #AUTHOR_RANKING}.
+         */
+        private final TreeSet<ReadingStats.AuthorCount> ranking = new TreeSet<>(AUTHOR_RANKING);
+
+
+        /**
+         * Добавляет книгу в конец; идентификаторы выдаются по возрастанию, поэтому порядок сохраняется.
+         */
+        void add(ReadBook book) {
+            if (size == books.length) {
+                books = Arrays.copyOf(books, size + (size >> 1) + 1);
+            }
+            books[size++] = book;
+            count(book, 1);
+        }
+
+
+        /**
+         * Заменяет книгу по позиции.
+         */
+        void set(int index, ReadBook book) {
+            count(books[index], -1);
+            books[index] = book;
+            count(book, 1);
+        }
+
+
+        /**
+         * Учитывает книгу в статистике или убирает её оттуда.
+         *
+         * @param delta 1 при добавлении книги, -1 при удалении.
+         */
+        private void count(ReadBook book, int delta) {
+            years.merge(book.year(), delta, (old, change) -> old + change == 0 ? null : old + change);
+            Integer old = authors.get(book.author());
+            int books = (old == null ? 0 : old) + delta;
+            if (old != null) {
+                ranking.remove(new ReadingStats.AuthorCount(book.author(), old));
+            }
+            if (books > 0) {
+                authors.put(book.author(), books);
+                ranking.add(new ReadingStats.AuthorCount(book.author(), books));
+            } else {
+                authors.remove(book.author());
+            }
+        }
+
+
+        /**
+         * Возвращает позицию книги с указанным идентификатором.
+         *
+         * @return Позиция или отрицательное число, как у {@link Arrays#binarySearch}.
+         */
+        int indexOf(long id) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleId = books[middle].id();
+                if (middleId < id) {
+                    low = middle + 1;
+                } else if (middleId > id) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+
+        /**
+         * Удаляет книгу по позиции.
+         */
+        void removeAt(int index) {
+            count(books[index], -1);
+            System.arraycopy(books, index + 1, books, index, size - index - 1);
+            books[--size] = null;
+        }
+    }
+
+
+    /**
+     * Прочитанные книги по чатам.
+     */
+    private final LongObjectMap<Shelf> shelves = new LongObjectMap<>();
+
+    /**
+     * Рекомендованные книги по идентификатору.
+     */
+    private final TreeMap<Long, RecommendedBook> recBooks = new TreeMap<>();
+
+    /**
+     * Количество рекомендованных книг с одинаковыми названием и автором, для быстрой проверки существования.
+     * Новые повторы не добавляются, но могут прийти из снимка или журнала, записанных до проверки повторов.
+     */
+    private final HashMap<String, Integer> recKeys = new HashMap<>();
+
+    /**
+     * Наименьший размер таблицы строк, при котором её имеет смысл очищать.
+     */
+    private static final int MIN_STRINGS_TO_PRUNE = 1024;
+
+
+    /**
+     * Единственные экземпляры строк, встречающихся в книгах. Строки удалённых и изменённых книг
+     * остаются в таблице до очистки (см. {@link #pruneStrings()}).
+     */
+    private HashMap<String, String> strings = new HashMap<>();
+
+    /**
+     * Ключи поиска по имени автора (см. {@link AuthorKey}), вычисленные один раз при добавлении книги.
+     * Очищаются вместе с таблицей строк.
+     */
+    private HashMap<String, String> authorKeys = new HashMap<>();
+
+    /**
+     * Размер таблицы строк, по достижении которого она очищается от строк, не используемых книгами.
+     */
+    private int stringsToPrune = MIN_STRINGS_TO_PRUNE;
+
+    /**
+     * Вытесненные из памяти сессии чатов в сериализованном виде.
+     */
+    private final LongObjectMap<byte[]> sessions = new LongObjectMap<>();
+
+    /**
+     * Последний выданный идентификатор прочитанной книги.
+     */
+    private long lastReadId;
+
+    /**
+     * Последний выданный идентификатор рекомендованной книги.
+     */
+    private long lastRecId;
+
+    /**
+     * Блокировка состояния: чтения выполняются параллельно, изменения и снимок - по одному.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Каталог со снимком и журналом или {@code null}, если состояние не сохраняется.
+     */
+    private final Path directory;
+
+    /**
+     * Поколение текущего журнала; снимок помнит последнее поколение журнала, которое он уже включает.
+     */
+    private long logGeneration;
+
+    /**
+     * Открытый журнал или {@code null}.
+     */
+    private DataOutputStream log;
+
+    /**
+     * Планировщик периодических снимков или {@code null}.
+     */
+    private final ScheduledExecutorService snapshots;
+
+    /**
+     * Набор цитат.
+     */
+    private final QuoteBook quotes = new QuoteBook();
+
+
+    /**
+     * Конструктор класса для хранилища без сохранения на диск.
+     */
+    public InMemoryBookStorage() {
+        this(null, 0);
+    }
+
+
+    /**
+     * Конструктор класса. Восстанавливает состояние из снимка и журнала в указанном каталоге.
+     *
+     * @param directory               Каталог для снимка и журнала или {@code null}, чтобы не сохранять состояние.
+     * @param snapshotIntervalSeconds Период снимков в секундах; 0 - снимок только при закрытии.
+     */
+    public InMemoryBookStorage(Path directory, long snapshotIntervalSeconds) {
+        this.directory = directory;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+                long covered = loadSnapshot();
+                replayLog(covered);
+                openLog(Math.max(logGeneration, covered + 1), false);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось восстановить хранилище из " + directory, e);
+            }
+        }
+        if (directory != null && snapshotIntervalSeconds > 0) {
+            snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "storage-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshots.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            snapshots = null;
+        }
+    }
+
+
+    /**
+     * Возвращает единственный экземпляр строки.
+     *
+     * @param value Строка.
+     * @return Экземпляр, хранящийся в таблице строк.
+     */
+    private String intern(String value) {
+        String existing = strings.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+
+    /**
+     * Очищает таблицу строк, если она выросла вдвое с прошлой очистки.
+     */
+    private void pruneStringsIfNeeded() {
+        if (strings.size() >= stringsToPrune) {
+            pruneStrings();
+        }
+    }
+
+
+    /**
+     * Оставляет в таблице строк и ключей авторов только строки книг, которые есть в хранилище:
+     * после удаления и изменения книг их прежние строки больше ни на что не нужны.
+     * Следующая очистка выполняется, когда таблица вырастет вдвое, поэтому в среднем она стоит O(1) на добавление.
+     */
+    private void pruneStrings() {
+        HashMap<String, String> liveStrings = new HashMap<>();
+        HashMap<String, String> liveKeys = new HashMap<>();
+        shelves.forEach((chatId, shelf) -> {
+            for (int i = 0; i < shelf.size; i++) {
+                keepString(liveStrings, shelf.books[i].title());
+                keepAuthor(liveStrings, liveKeys, shelf.books[i].author());
+            }
+        });
+        for (RecommendedBook book : recBooks.values()) {
+            keepString(liveStrings, book.title());
+            keepAuthor(liveStrings, liveKeys, book.author());
+            keepString(liveStrings, book.genre());
+        }
+        strings = liveStrings;
+        authorKeys = liveKeys;
+        stringsToPrune = Math.max(MIN_STRINGS_TO_PRUNE, liveStrings.size() * 2);
+    }
+
+
+    /**
+     * Переносит строку книги в новую таблицу строк.
+     */
+    private static void keepString(HashMap<String, String> liveStrings, String value) {
+        liveStrings.putIfAbsent(value, value);
+    }
+
+
+    /**
+     * Переносит имя автора и его ключ поиска в новые таблицы.
+     */
+    private void keepAuthor(HashMap<String, String> liveStrings, HashMap<String, String> liveKeys, String author) {
+        keepString(liveStrings, author);
+        if (!liveKeys.containsKey(author)) {
+            liveKeys.put(author, authorKey(author));
+        }
+    }
+
+
+    /**
+     * Возвращает единственный экземпляр имени автора и запоминает его ключ поиска.
+     *
+     * @param author Имя автора.
+     * @return Экземпляр, хранящийся в таблице строк.
+     */
+    private String internAuthor(String author) {
+        author = intern(author);
+        authorKeys.computeIfAbsent(author, AuthorKey::of);
+        return author;
+    }
+
+
+    /**
+     * Возвращает ключ поиска автора книги, вычисленный при её добавлении.
+     *
+     * @param author Имя автора из хранилища.
+     * @return Ключ автора.
+     */
+    private String authorKey(String author) {
+        String key = authorKeys.get(author);
+        return key != null ? key : AuthorKey.of(author);
+    }
+
+
+    /**
+     * Возвращает ключ проверки существования рекомендованной книги.
+     */
+    private static String recKey(String title, String author) {
+        return title + '\n' + author;
+    }
+
+
+    public ArrayList<String> getReadBooks(long chatId) {
+        ArrayList<String> titles = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            for (int i = 0; shelf != null && i < shelf.size; i++) {
+                titles.add(shelf.books[i].title());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return titles;
+    }
+
+
+    public CompletableFuture<Boolean> addReadBook(String title, String author, int year, long chatId) {
+        lock.writeLock().lock();
+        try {
+            if (indexOfBook(shelves.get(chatId), title, author, year) >= 0) {
+                return CompletableFuture.completedFuture(false);
+            }
+            long id = lastReadId + 1;
+            return logged(out -> {
+                out.writeByte(ADD_READ);
+                out.writeLong(id);
+                out.writeLong(chatId);
+                out.writeUTF(title);
+                out.writeUTF(author);
+                out.writeInt(year);
+            }, () -> applyAddRead(id, title, author, year, chatId)).thenApply(ignored -> true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public CompletableFuture<Void> clearReadBooks(long chatId) {
+        lock.writeLock().lock();
+        try {
+            return logged(out -> {
+                out.writeByte(CLEAR_READ);
+                out.writeLong(chatId);
+            }, () -> shelves.remove(chatId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public ArrayList<String> getBooksByAuthor(String author, long chatId) {
+        String key = AuthorKey.of(author);
+        ArrayList<String> titles = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            for (int i = 0; shelf != null && i < shelf.size; i++) {
+                if (AuthorKey.matches(key, authorKey(shelf.books[i].author()))) {
+                    titles.add(shelf.books[i].title());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return titles;
+    }
+
+
+    public ArrayList<String> getBooksByYear(int year, long chatId) {
+        ArrayList<String> titles = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            for (int i = 0; shelf != null && i < shelf.size; i++) {
+                if (shelf.books[i].year() == year) {
+                    titles.add(shelf.books[i].title());
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return titles;
+    }
+
+
+    public CompletableFuture<Boolean> editReadBook(long bookId, String newTitle, String newAuthor, int newYear, long chatId) {
+        lock.writeLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            int index = shelf == null ? -1 : shelf.indexOf(bookId);
+            int duplicate = indexOfBook(shelf, newTitle, newAuthor, newYear);
+            if (index < 0 || (duplicate >= 0 && duplicate != index)) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return logged(out -> {
+                out.writeByte(EDIT_READ);
+                out.writeLong(bookId);
+                out.writeLong(chatId);
+                out.writeUTF(newTitle);
+                out.writeUTF(newAuthor);
+                out.writeInt(newYear);
+            }, () -> applyEditRead(bookId, newTitle, newAuthor, newYear, chatId)).thenApply(ignored -> true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Ищет книгу с указанными названием, автором и годом перебором книг чата.
+     *
+     * @param shelf Книги чата или {@code null}.
+     * @return Позиция книги или -1.
+     */
+    private static int indexOfBook(Shelf shelf, String title, String author, int year) {
+        for (int i = 0; shelf != null && i < shelf.size; i++) {
+            ReadBook book = shelf.books[i];
+            if (book.year() == year && book.title().equals(title) && book.author().equals(author)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    public CompletableFuture<Void> updateReadBooks(long chatId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            return logged(out -> {
+                out.writeByte(REMOVE_READ);
+                out.writeLong(bookId);
+                out.writeLong(chatId);
+            }, () -> applyRemoveRead(bookId, chatId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public ArrayList<ReadBook> getAllValues(long chatId) {
+        return getReadBooksPage(chatId, 0, Integer.MAX_VALUE);
+    }
+
+
+    public ArrayList<ReadBook> getReadBooksPage(long chatId, long afterId, int limit) {
+        ArrayList<ReadBook> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            if (shelf != null) {
+                int index = shelf.indexOf(afterId);
+                int from = index >= 0 ? index + 1 : -(index + 1);
+                for (int i = from; i < shelf.size && books.size() < limit; i++) {
+                    books.add(shelf.books[i]);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+
+    public ReadingStats getReadingStats(long chatId, int topAuthors) {
+        lock.readLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            if (shelf == null) {
+                return new ReadingStats(0, 0, List.of(), List.of());
+            }
+            ArrayList<ReadingStats.YearCount> years = new ArrayList<>(shelf.years.size());
+            for (Map.Entry<Integer, Integer> year : shelf.years.descendingMap().entrySet()) {
+                years.add(new ReadingStats.YearCount(year.getKey(), year.getValue()));
+            }
+            ArrayList<ReadingStats.AuthorCount> top = new ArrayList<>(Math.min(topAuthors, shelf.ranking.size()));
+            for (ReadingStats.AuthorCount author : shelf.ranking) {
+                if (top.size() == topAuthors) {
+                    break;
+                }
+                top.add(author);
+            }
+            return new ReadingStats(shelf.size, shelf.authors.size(), years, top);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Импортирует книги под блокировкой записи. Новые книги сначала дочитываются из файла целиком
+     * (всё равно они окажутся в памяти), чтобы ошибка чтения не оставила импорт наполовину применённым;
+     * книги применяются после того, как журнал сброшен на диск, один раз на весь импорт.
+     */
+    public ImportResult importReadBooks(long chatId, ReadingListReader reader) throws IOException {
+        int rows = 0;
+        lock.writeLock().lock();
+        try {
+            Set<String> existing = new HashSet<>();
+            Shelf shelf = shelves.get(chatId);
+            for (int i = 0; shelf != null && i < shelf.size; i++) {
+                existing.add(bookKey(shelf.books[i].title(), shelf.books[i].author(), shelf.books[i].year()));
+            }
+            List<ReadingListReader.Row> added = new ArrayList<>();
+            ReadingListReader.Row row;
+            while ((row = reader.next()) != null) {
+                rows++;
+                if (existing.add(bookKey(row.title(), row.author(), row.year()))) {
+                    added.add(row);
+                }
+            }
+            if (log != null) {
+                long id = lastReadId;
+                for (ReadingListReader.Row book : added) {
+                    log.writeByte(ADD_READ);
+                    log.writeLong(++id);
+                    log.writeLong(chatId);
+                    log.writeUTF(book.title());
+                    log.writeUTF(book.author());
+                    log.writeInt(book.year());
+                }
+                log.flush();
+            }
+            for (ReadingListReader.Row book : added) {
+                applyAddRead(lastReadId + 1, book.title(), book.author(), book.year(), chatId);
+            }
+            return new ImportResult(added.size(), rows - added.size(), reader.getInvalidCount());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Возвращает ключ проверки повтора прочитанной книги.
+     */
+    private static String bookKey(String title, String author, int year) {
+        return title + '\n' + author + '\n' + year;
+    }
+
+
+    /**
+     * Записывает книги чата. Под блокировкой копируются только ссылки на книги, запись в поток идёт без блокировки.
+     */
+    public long exportReadBooks(long chatId, ReadingListWriter writer) throws IOException {
+        ReadBook[] books;
+        lock.readLock().lock();
+        try {
+            Shelf shelf = shelves.get(chatId);
+            books = shelf == null ? new ReadBook[0] : Arrays.copyOf(shelf.books, shelf.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+        for (ReadBook book : books) {
+            writer.write(book);
+        }
+        return writer.getCount();
+    }
+
+
+    public CompletableFuture<Boolean> addRecBook(String title, String author, String genre, long chatId) {
+        lock.writeLock().lock();
+        try {
+            if (recKeys.containsKey(recKey(title, author))) {
+                return CompletableFuture.completedFuture(false);
+            }
+            long id = lastRecId + 1;
+            return logged(out -> {
+                out.writeByte(ADD_REC);
+                out.writeLong(id);
+                out.writeLong(chatId);
+                out.writeUTF(title);
+                out.writeUTF(author);
+                out.writeUTF(genre);
+            }, () -> applyAddRec(id, title, author, genre, chatId)).thenApply(ignored -> true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public ArrayList<RecommendedBook> getRecBooksPage(long afterId, int limit) {
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (RecommendedBook book : recBooks.tailMap(afterId, false).values()) {
+                if (books.size() >= limit) {
+                    break;
+                }
+                books.add(book);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByGenre(String genre, int limit) {
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (RecommendedBook book : recBooks.values()) {
+                if (books.size() == limit) {
+                    break;
+                }
+                if (book.genre().equals(genre)) {
+                    books.add(book);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByAuthor(String author, int limit) {
+        String key = AuthorKey.of(author);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (RecommendedBook book : recBooks.values()) {
+                if (books.size() == limit) {
+                    break;
+                }
+                if (AuthorKey.matches(key, authorKey(book.author()))) {
+                    books.add(book);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return books;
+    }
+
+
+    /**
+     * Ищет рекомендованные книги, в названии или авторе которых каждое слово запроса является началом какого-либо слова.
+     * Книги упорядочены по количеству совпавших слов, при равенстве - по порядку добавления.
+     * В отличие от {@link Storage} индекса нет, поэтому поиск просматривает все рекомендованные книги.
+     */
+    public ArrayList<RecommendedBook> searchRecBooks(String query, int limit) {
+        List<String> terms = words(query);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return books;
+        }
+        Map<RecommendedBook, Integer> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (RecommendedBook book : recBooks.values()) {
+                List<String> bookWords = words(book.title() + " " + book.author());
+                int score = 0;
+                for (String term : terms) {
+                    int hits = 0;
+                    for (String word : bookWords) {
+                        if (word.startsWith(term)) {
+                            hits++;
+                        }
+                    }
+                    if (hits == 0) {
+                        score = 0;
+                        break;
+                    }
+                    score += hits;
+                }
+                if (score > 0) {
+                    books.add(book);
+                    scores.put(book, score);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        books.sort(Comparator.comparing((RecommendedBook book) -> -scores.get(book)).thenComparingLong(RecommendedBook::id));
+        return new ArrayList<>(books.subList(0, Math.min(limit, books.size())));
+    }
+
+
+    /**
+     * Разбивает текст на слова в нижнем регистре с заменой «ё» на «е».
+     */
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).replace('ё', 'е').split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+
+    public CompletableFuture<Void> updateRecBooks(long chatId, long bookId) {
+        lock.writeLock().lock();
+        try {
+            return logged(out -> {
+                out.writeByte(REMOVE_REC);
+                out.writeLong(bookId);
+                out.writeLong(chatId);
+            }, () -> applyRemoveRec(bookId, chatId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public String getRandQuote() {
+        return quotes.getRandQuote();
+    }
+
+
+    public String getRandQuote(String author) {
+        return quotes.getRandQuote(author);
+    }
+
+
+    /**
+     * Сохраняет свежий снимок и копирует его в каталог. Снимок записывается под блокировкой,
+     * поэтому копия согласована; для восстановления файл кладётся в каталог хранилища вместо прежнего снимка.
+     */
+    public BackupResult backup(Path target) throws IOException {
+        if (directory == null) {
+            throw new IOException("Хранилище без каталога нечего копировать");
+        }
+        long start = System.nanoTime();
+        Path destination = target.resolve(SNAPSHOT_FILE);
+        lock.writeLock().lock();
+        try {
+            snapshot();
+            Files.copy(directory.resolve(SNAPSHOT_FILE), destination, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new BackupResult(List.of(destination), Files.size(destination), (System.nanoTime() - start) / 1_000_000);
+    }
+
+
+    public CompletableFuture<Void> saveSession(long chatId, byte[] state) {
+        lock.writeLock().lock();
+        try {
+            return logged(out -> {
+                out.writeByte(SAVE_SESSION);
+                out.writeLong(chatId);
+                writeSession(out, state);
+            }, () -> applySaveSession(chatId, state));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public byte[] loadSession(long chatId) {
+        lock.readLock().lock();
+        try {
+            return sessions.get(chatId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Запоминает или удаляет сессию чата.
+     */
+    private void applySaveSession(long chatId, byte[] state) {
+        if (state == null) {
+            sessions.remove(chatId);
+        } else {
+            sessions.put(chatId, state);
+        }
+    }
+
+
+    /**
+     * Записывает сессию с длиной впереди; длина -1 означает удаление сессии.
+     */
+    private static void writeSession(DataOutputStream out, byte[] state) throws IOException {
+        if (state == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(state.length);
+            out.write(state);
+        }
+    }
+
+
+    /**
+     * Читает сессию, записанную {@link #writeSession(DataOutputStream, byte[])}.
+     */
+    private static byte[] readSession(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] state = new byte[length];
+        in.readFully(state);
+        return state;
+    }
+
+
+    /**
+     * Останавливает периодические снимки, сохраняет последний снимок и закрывает журнал.
+     */
+    public void closeConnection() {
+        if (snapshots != null) {
+            snapshots.shutdownNow();
+        }
+        if (directory == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            snapshot();
+            log.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Добавляет прочитанную книгу в состояние.
+     *
+     * @return Идентификатор книги.
+     */
+    private long applyAddRead(long id, String title, String author, int year, long chatId) {
+        pruneStringsIfNeeded();
+        Shelf shelf = shelves.get(chatId);
+        if (shelf == null) {
+            shelf = new Shelf();
+            shelves.put(chatId, shelf);
+        }
+        shelf.add(new ReadBook(id, intern(title), internAuthor(author), year, chatId));
+        lastReadId = Math.max(lastReadId, id);
+        return id;
+    }
+
+
+    /**
+     * Заменяет данные прочитанной книги в состоянии, если книга принадлежит чату.
+     */
+    private void applyEditRead(long id, String title, String author, int year, long chatId) {
+        pruneStringsIfNeeded();
+        Shelf shelf = shelves.get(chatId);
+        int index = shelf == null ? -1 : shelf.indexOf(id);
+        if (index >= 0) {
+            shelf.set(index, new ReadBook(id, intern(title), internAuthor(author), year, chatId));
+        }
+    }
+
+
+    /**
+     * Удаляет прочитанную книгу из состояния, если книга принадлежит чату.
+     */
+    private void applyRemoveRead(long id, long chatId) {
+        Shelf shelf = shelves.get(chatId);
+        int index = shelf == null ? -1 : shelf.indexOf(id);
+        if (index >= 0) {
+            shelf.removeAt(index);
+        }
+    }
+
+
+    /**
+     * Добавляет рекомендованную книгу в состояние.
+     *
+     * @return Идентификатор книги.
+     */
+    private long applyAddRec(long id, String title, String author, String genre, long chatId) {
+        pruneStringsIfNeeded();
+        recBooks.put(id, new RecommendedBook(id, intern(title), internAuthor(author), intern(genre), chatId));
+        recKeys.merge(recKey(title, author), 1, Integer::sum);
+        lastRecId = Math.max(lastRecId, id);
+        return id;
+    }
+
+
+    /**
+     * Удаляет рекомендованную книгу из состояния, если её добавил указанный чат.
+     */
+    private void applyRemoveRec(long id, long chatId) {
+        RecommendedBook book = recBooks.get(id);
+        if (book != null && book.chatId() == chatId) {
+            recBooks.remove(id);
+            recKeys.computeIfPresent(recKey(book.title(), book.author()), (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+
+    /**
+     * Запись операции в журнал.
+     */
+    @FunctionalInterface
+    private interface LogRecord {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+
+    /**
+     * Дописывает операцию в журнал и затем применяет её к состоянию. Вызывается под блокировкой записи.
+     * Если операцию не удалось записать, она не применяется, и состояние в памяти не расходится с журналом.
+     *
+     * @param record Операция.
+     * @param apply  Изменение состояния.
+     * @return Обещание, которое завершается ошибкой, если запись в журнал не удалась.
+     */
+    private CompletableFuture<Void> logged(LogRecord record, Runnable apply) {
+        if (log != null) {
+            try {
+                record.writeTo(log);
+                log.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        apply.run();
+        return CompletableFuture.completedFuture(null);
+    }
+
+
+    /**
+     * Сохраняет снимок состояния и начинает новый журнал.
+     * Снимок записывается во временный файл и атомарно заменяет прежний; если процесс упадёт до того,
+     * как начнётся новый журнал, старый журнал будет пропущен при восстановлении по номеру поколения.
+     * Заодно таблица строк очищается от строк удалённых книг.
+     *
+     * @throws IOException Если снимок не удалось записать.
+     */
+    public void snapshot() throws IOException {
+        if (directory == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            pruneStrings();
+            Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(logGeneration);
+                out.writeLong(lastReadId);
+                out.writeLong(lastRecId);
+                out.writeInt(shelves.size());
+                IOException[] failure = new IOException[1];
+                shelves.forEach((chatId, shelf) -> {
+                    try {
+                        out.writeLong(chatId);
+                        out.writeInt(shelf.size);
+                        for (int i = 0; i < shelf.size; i++) {
+                            ReadBook book = shelf.books[i];
+                            out.writeLong(book.id());
+                            out.writeUTF(book.title());
+                            out.writeUTF(book.author());
+                            out.writeInt(book.year());
+                        }
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                out.writeInt(recBooks.size());
+                for (RecommendedBook book : recBooks.values()) {
+                    out.writeLong(book.id());
+                    out.writeLong(book.chatId());
+                    out.writeUTF(book.title());
+                    out.writeUTF(book.author());
+                    out.writeUTF(book.genre());
+                }
+                out.writeInt(sessions.size());
+                sessions.forEach((chatId, state) -> {
+                    try {
+                        out.writeLong(chatId);
+                        writeSession(out, state);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                });
+                if (failure[0] != null) {
+                    throw failure[0];
+                }
+                out.flush();
+                file.getFD().sync();
+            }
+            Files.move(temporary, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.close();
+            openLog(logGeneration + 1, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Сохраняет снимок из планировщика, печатая ошибку вместо её проброса.
+     */
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Загружает снимок, если он есть.
+     *
+     * @return Поколение журнала, изменения которого уже включены в снимок, или 0.
+     * @throws IOException Если снимок повреждён.
+     */
+    private long loadSnapshot() throws IOException {
+        Path file = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int version = in.readInt() == SNAPSHOT_MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != FORMAT_VERSION) {
+                throw new IOException("Неизвестный формат снимка " + file);
+            }
+            long covered = in.readLong();
+            lastReadId = in.readLong();
+            lastRecId = in.readLong();
+            int chats = in.readInt();
+            for (int c = 0; c < chats; c++) {
+                long chatId = in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    applyAddRead(in.readLong(), in.readUTF(), in.readUTF(), in.readInt(), chatId);
+                }
+            }
+            int recCount = in.readInt();
+            for (int i = 0; i < recCount; i++) {
+                long id = in.readLong();
+                long chatId = in.readLong();
+                applyAddRec(id, in.readUTF(), in.readUTF(), in.readUTF(), chatId);
+            }
+            if (version >= 2) {
+                int sessionCount = in.readInt();
+                for (int i = 0; i < sessionCount; i++) {
+                    long chatId = in.readLong();
+                    applySaveSession(chatId, readSession(in));
+                }
+            }
+            return covered;
+        }
+    }
+
+
+    /**
+     * Повторяет операции из журнала, если он новее снимка. Недописанная последняя запись
+     * (например, после сбоя питания) отбрасывается, и журнал обрезается до последней целой записи.
+     *
+     * @param covered Поколение журнала, уже включённое в снимок.
+     * @throws IOException Если журнал не удалось прочитать.
+     */
+    private void replayLog(long covered) throws IOException {
+        Path file = directory.resolve(LOG_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        byte[] data = Files.readAllBytes(file);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int valid = 0;
+        try {
+            int version = in.readInt() == LOG_MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != FORMAT_VERSION) {
+                throw new IOException("Неизвестный формат журнала " + file);
+            }
+            long generation = in.readLong();
+            if (generation <= covered) {
+                // Журнал уже включён в снимок: процесс остановился между записью снимка и началом нового журнала
+                return;
+            }
+            logGeneration = generation;
+            valid = data.length - in.available();
+            while (in.available() > 0) {
+                byte op = in.readByte();
+                switch (op) {
+                    case ADD_READ -> {
+                        long id = in.readLong();
+                        long chatId = in.readLong();
+                        applyAddRead(id, in.readUTF(), in.readUTF(), in.readInt(), chatId);
+                    }
+                    case EDIT_READ -> {
+                        long id = in.readLong();
+                        long chatId = in.readLong();
+                        applyEditRead(id, in.readUTF(), in.readUTF(), in.readInt(), chatId);
+                    }
+                    case REMOVE_READ -> applyRemoveRead(in.readLong(), in.readLong());
+                    case CLEAR_READ -> shelves.remove(in.readLong());
+                    case ADD_REC -> {
+                        long id = in.readLong();
+                        long chatId = in.readLong();
+                        applyAddRec(id, in.readUTF(), in.readUTF(), in.readUTF(), chatId);
+                    }
+                    case REMOVE_REC -> applyRemoveRec(in.readLong(), in.readLong());
+                    case SAVE_SESSION -> {
+                        long chatId = in.readLong();
+                        applySaveSession(chatId, readSession(in));
+                    }
+                    default -> throw new EOFException("Неизвестная операция " + op);
+                }
+                valid = data.length - in.available();
+            }
+        } catch (EOFException e) {
+            System.err.println("Журнал " + file + " обрезан после " + valid + " байт: " + e.getMessage());
+        }
+        if (valid < data.length) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+    }
+
+
+    /**
+     * Открывает журнал для дописывания.
+     *
+     * @param generation Поколение журнала.
+     * @param fresh      {@code true}, чтобы начать журнал заново даже при наличии файла.
+     * @throws IOException Если журнал не удалось открыть.
+     */
+    private void openLog(long generation, boolean fresh) throws IOException {
+        File file = directory.resolve(LOG_FILE).toFile();
+        boolean append = !fresh && file.length() > 0 && generation == logGeneration;
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append), 1 << 12));
+        logGeneration = generation;
+        if (!append) {
+            log.writeInt(LOG_MAGIC);
+            log.writeInt(FORMAT_VERSION);
+            log.writeLong(generation);
+            log.flush();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Хранилище книг, измеряющее каждый вызов основного хранилища.
+ * Для каждого метода ведутся гистограмма задержек, количество ошибок и количество строк в результате
+ * (см. {@link StorageMetrics}). Для методов, возвращающих обещание, задержка измеряется до его выполнения,
+ * то есть включает ожидание в очереди отложенной записи.
+ */
+public class InstrumentedBookStorage implements BookStorage {
+
+    /**
+     * Вызов основного хранилища.
+     */
+    @FunctionalInterface
+    private interface Call<T, E extends Exception> {
+        T call() throws E;
+    }
+
+
+    /**
+     * Основное хранилище.
+     */
+    private final BookStorage delegate;
+
+    /**
+     * Метрики методов.
+     */
+    private final StorageMetrics metrics;
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param delegate Основное хранилище.
+     * @param name     Имя хранилища в именах JMX, например "sqlite".
+     */
+    public InstrumentedBookStorage(BookStorage delegate, String name) {
+        this.delegate = delegate;
+        this.metrics = new StorageMetrics(name);
+    }
+
+
+    /**
+     * Возвращает метрики методов, например для проверки в тестах.
+     *
+     * @return Метрики методов.
+     */
+    public StorageMetrics getMetrics() {
+        return metrics;
+    }
+
+
+    /**
+     * Выполняет вызов и записывает его время и количество строк в результате.
+     *
+     * @param method Имя метода.
+     * @param call   Вызов основного хранилища.
+     * @param rows   Количество строк в результате.
+     * @return Результат вызова.
+     */
+    private <T, E extends Exception> T timed(String method, Call<T, E> call, ToLongFunction<T> rows) throws E {
+        StorageMetrics.Method stats = metrics.method(method);
+        long start = System.nanoTime();
+        boolean completed = false;
+        try {
+            T result = call.call();
+            stats.record(System.nanoTime() - start, rows.applyAsLong(result));
+            completed = true;
+            return result;
+        } finally {
+            if (!completed) {
+                stats.recordError(System.nanoTime() - start);
+            }
+        }
+    }
+
+
+    /**
+     * Выполняет вызов, возвращающий обещание, и записывает время до выполнения обещания.
+     *
+     * @param method Имя метода.
+     * @param call   Вызов основного хранилища.
+     * @param rows   Количество строк в результате.
+     * @return Обещание основного хранилища.
+     */
+    private <T> CompletableFuture<T> timedAsync(String method, Supplier<CompletableFuture<T>> call, ToLongFunction<T> rows) {
+        StorageMetrics.Method stats = metrics.method(method);
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            stats.recordError(System.nanoTime() - start);
+            throw e;
+        }
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                stats.recordError(System.nanoTime() - start);
+            } else {
+                stats.record(System.nanoTime() - start, rows.applyAsLong(value));
+            }
+        });
+        return result;
+    }
+
+
+    /**
+     * Количество строк для результата-признака: 1, если строка добавлена, изменена или найдена.
+     */
+    private static long flag(Boolean value) {
+        return Boolean.TRUE.equals(value) ? 1 : 0;
+    }
+
+
+    public ArrayList<String> getReadBooks(long chatId) {
+        return timed("getReadBooks", () -> delegate.getReadBooks(chatId), ArrayList::size);
+    }
+
+
+    public CompletableFuture<Boolean> addReadBook(String title, String author, int year, long chatId) {
+        return timedAsync("addReadBook", () -> delegate.addReadBook(title, author, year, chatId), InstrumentedBookStorage::flag);
+    }
+
+
+    public CompletableFuture<Void> clearReadBooks(long chatId) {
+        return timedAsync("clearReadBooks", () -> delegate.clearReadBooks(chatId), ignored -> 0);
+    }
+
+
+    public ArrayList<String> getBooksByAuthor(String author, long chatId) {
+        return timed("getBooksByAuthor", () -> delegate.getBooksByAuthor(author, chatId), ArrayList::size);
+    }
+
+
+    public ArrayList<String> getBooksByYear(int year, long chatId) {
+        return timed("getBooksByYear", () -> delegate.getBooksByYear(year, chatId), ArrayList::size);
+    }
+
+
+    public CompletableFuture<Boolean> editReadBook(long bookId, String newTitle, String newAuthor, int newYear, long chatId) {
+        return timedAsync("editReadBook", () -> delegate.editReadBook(bookId, newTitle, newAuthor, newYear, chatId), InstrumentedBookStorage::flag);
+    }
+
+
+    public CompletableFuture<Void> updateReadBooks(long chatId, long bookId) {
+        return timedAsync("updateReadBooks", () -> delegate.updateReadBooks(chatId, bookId), ignored -> 0);
+    }
+
+
+    public ArrayList<ReadBook> getAllValues(long chatId) {
+        return timed("getAllValues", () -> delegate.getAllValues(chatId), ArrayList::size);
+    }
+
+
+    public ArrayList<ReadBook> getReadBooksPage(long chatId, long afterId, int limit) {
+        return timed("getReadBooksPage", () -> delegate.getReadBooksPage(chatId, afterId, limit), ArrayList::size);
+    }
+
+
+    public ReadingStats getReadingStats(long chatId, int topAuthors) {
+        return timed("getReadingStats", () -> delegate.getReadingStats(chatId, topAuthors),
+                stats -> stats.years().size() + stats.topAuthors().size());
+    }
+
+
+    public ImportResult importReadBooks(long chatId, ReadingListReader reader) throws IOException {
+        return timed("importReadBooks", () -> delegate.importReadBooks(chatId, reader), ImportResult::inserted);
+    }
+
+
+    public long exportReadBooks(long chatId, ReadingListWriter writer) throws IOException {
+        return timed("exportReadBooks", () -> delegate.exportReadBooks(chatId, writer), Long::longValue);
+    }
+
+
+    public CompletableFuture<Boolean> addRecBook(String title, String author, String genre, long chatId) {
+        return timedAsync("addRecBook", () -> delegate.addRecBook(title, author, genre, chatId), InstrumentedBookStorage::flag);
+    }
+
+
+    public ArrayList<RecommendedBook> getRecBooksPage(long afterId, int limit) {
+        return timed("getRecBooksPage", () -> delegate.getRecBooksPage(afterId, limit), ArrayList::size);
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByGenre(String genre, int limit) {
+        return timed("searchBooksByGenre", () -> delegate.searchBooksByGenre(genre, limit), ArrayList::size);
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByAuthor(String author, int limit) {
+        return timed("searchBooksByAuthor", () -> delegate.searchBooksByAuthor(author, limit), ArrayList::size);
+    }
+
+
+    public ArrayList<RecommendedBook> searchRecBooks(String query, int limit) {
+        return timed("searchRecBooks", () -> delegate.searchRecBooks(query, limit), ArrayList::size);
+    }
+
+
+    public CompletableFuture<Void> updateRecBooks(long chatId, long bookId) {
+        return timedAsync("updateRecBooks", () -> delegate.updateRecBooks(chatId, bookId), ignored -> 0);
+    }
+
+
+    public String getRandQuote() {
+        return timed("getRandQuote", delegate::getRandQuote, quote -> quote != null ? 1 : 0);
+    }
+
+
+    public String getRandQuote(String author) {
+        return timed("getRandQuoteByAuthor", () -> delegate.getRandQuote(author), quote -> quote != null ? 1 : 0);
+    }
+
+
+    public BackupResult backup(Path directory) throws IOException {
+        return timed("backup", () -> delegate.backup(directory), result -> result.files().size());
+    }
+
+
+    public CompletableFuture<Void> saveSession(long chatId, byte[] state) {
+        return timedAsync("saveSession", () -> delegate.saveSession(chatId, state), ignored -> state == null ? 0 : 1);
+    }
+
+
+    public byte[] loadSession(long chatId) {
+        return timed("loadSession", () -> delegate.loadSession(chatId), state -> state == null ? 0 : 1);
+    }
+
+
+    public void closeConnection() {
+        delegate.closeConnection();
+        metrics.close();
+    }
+}
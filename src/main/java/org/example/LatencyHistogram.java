@@ -0,0 +1,138 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Гистограмма задержек с логарифмическими корзинами.
+ * Каждая степень двойки делится на 16 корзин, поэтому перцентиль известен с точностью около 6%,
+ * а запись значения стоит одного атомарного увеличения счётчика и не выделяет память.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Количество двоичных разрядов мантиссы: 2^4 = 16 корзин на каждую степень двойки.
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /**
+     * Количество корзин на степень двойки.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Общее количество корзин, достаточное для любого неотрицательного long.
+     */
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+
+    /**
+     * Счётчики корзин.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Количество записанных значений.
+     */
+    private final AtomicLong total = new AtomicLong();
+
+    /**
+     * Наибольшее записанное значение.
+     */
+    private final AtomicLong max = new AtomicLong();
+
+
+    /**
+     * Записывает значение.
+     *
+     * @param value Задержка в наносекундах; отрицательные значения считаются нулём.
+     */
+    public void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(bucket(value));
+        total.incrementAndGet();
+        max.accumulateAndGet(value, Math::max);
+    }
+
+
+    /**
+     * Возвращает значение перцентиля.
+     *
+     * @param quantile Доля от 0 до 1, например 0.99.
+     * @return Верхняя граница корзины, в которую попал перцентиль, или 0, если значений нет.
+     */
+    public long percentile(double quantile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+
+    /**
+     * Возвращает количество записанных значений.
+     *
+     * @return Количество значений.
+     */
+    public long count() {
+        return total.get();
+    }
+
+
+    /**
+     * Возвращает наибольшее записанное значение.
+     *
+     * @return Наибольшее значение или 0, если значений нет.
+     */
+    public long max() {
+        return max.get();
+    }
+
+
+    /**
+     * Обнуляет гистограмму. Значения, записываемые одновременно со сбросом, могут частично сохраниться.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+
+    /**
+     * Возвращает номер корзины для значения.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int mantissa = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+
+    /**
+     * Возвращает наибольшее значение, попадающее в корзину.
+     */
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long mantissa = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (mantissa << shift) + (1L << shift) - 1;
+    }
+}
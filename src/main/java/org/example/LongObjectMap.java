@@ -0,0 +1,224 @@
+package org.example;
+
+import java.util.Arrays;
+
+/**
+ * Хеш-таблица с ключами примитивного типа long и открытой адресацией.
+ * В отличие от {@code HashMap<Long, V>} не создаёт объект-обёртку и узел на каждую запись:
+ * ключи и значения хранятся в двух параллельных массивах.
+ * Класс не потокобезопасен.
+ *
+ * @param <V> Тип значений.
+ */
+public class LongObjectMap<V> {
+
+    /**
+     * Максимальная доля занятых ячеек, после которой таблица увеличивается.
+     */
+    private static final float LOAD_FACTOR = 0.6f;
+
+
+    /**
+     * Обход записей таблицы.
+     *
+     * @param <V> Тип значений.
+     */
+    @FunctionalInterface
+    public interface Visitor<V> {
+        /**
+         * Вызывается для каждой записи.
+         *
+         * @param key   Ключ.
+         * @param value Значение.
+         */
+        void visit(long key, V value);
+    }
+
+
+    /**
+     * Ключи; ячейка свободна, если соответствующее значение равно {@code null}.
+     */
+    private long[] keys;
+
+    /**
+     * Значения.
+     */
+    private Object[] values;
+
+    /**
+     * Количество записей.
+     */
+    private int size;
+
+
+    /**
+     * Конструктор класса с начальной ёмкостью по умолчанию.
+     */
+    public LongObjectMap() {
+        this(16);
+    }
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param expectedSize Ожидаемое количество записей.
+     */
+    public LongObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) * 2 - 1);
+        keys = new long[capacity];
+        values = new Object[capacity];
+    }
+
+
+    /**
+     * Перемешивает биты ключа, чтобы соседние идентификаторы чатов не попадали в соседние ячейки.
+     *
+     * @param key Ключ.
+     * @return Номер начальной ячейки.
+     */
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (keys.length - 1);
+    }
+
+
+    /**
+     * Возвращает значение по ключу.
+     *
+     * @param key Ключ.
+     * @return Значение или {@code null}, если ключа нет.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int mask = keys.length - 1;
+        for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return (V) values[i];
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Сохраняет значение по ключу.
+     *
+     * @param key   Ключ.
+     * @param value Значение, не {@code null}.
+     * @return Прежнее значение или {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        int mask = keys.length - 1;
+        int i = slot(key);
+        for (; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                V previous = (V) values[i];
+                values[i] = value;
+                return previous;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > keys.length * LOAD_FACTOR) {
+            resize(keys.length * 2);
+        }
+        return null;
+    }
+
+
+    /**
+     * Удаляет запись по ключу. Следующие за ней записи той же цепочки сдвигаются назад,
+     * поэтому таблица не накапливает удалённые ячейки.
+     *
+     * @param key Ключ.
+     * @return Удалённое значение или {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (values[i] == null) {
+            return null;
+        }
+        V removed = (V) values[i];
+        size--;
+        int gap = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = slot(keys[j]);
+            // Запись переносится в освободившуюся ячейку, если её начальная ячейка не лежит между gap и j
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        return removed;
+    }
+
+
+    /**
+     * Увеличивает таблицу и заново раскладывает записи.
+     *
+     * @param capacity Новая ёмкость, степень двойки.
+     */
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != null) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+
+    /**
+     * Обходит все записи в порядке ячеек.
+     *
+     * @param visitor Обработчик записей.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Visitor<V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != null) {
+                visitor.visit(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+
+    /**
+     * Возвращает количество записей.
+     *
+     * @return Количество записей.
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     * Удаляет все записи.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+}
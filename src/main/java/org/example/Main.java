@@ -3,19 +3,27 @@ import org.telegram.telegrambots.meta.TelegramBotsApi;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
 
+import java.io.IOException;
+
 public class Main {
     /**
      * Главный метод, который запускает бота.
-     * Создает объект TelegramBotsApi, который используется для регистрации бота.
-     * Регистрирует новый экземпляр класса TelegramBot с помощью метода registerBot().
+     * Если переменная среды "botMode" равна "webhook", бот получает обновления через встроенный
+     * HTTP-сервер {@link WebhookServer}. Иначе создает объект TelegramBotsApi, который используется
+     * для регистрации бота, и регистрирует новый экземпляр класса TelegramBot с помощью метода registerBot().
      * Если при регистрации происходит ошибка, то выводит ее в консоль.
      */
     public static void main(String[] args)
     {
         try {
-            TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
-            telegramBotsApi.registerBot(new TelegramBot());
-        } catch (TelegramApiException e) {
+            TelegramBot bot = new TelegramBot();
+            if ("webhook".equalsIgnoreCase(System.getenv("botMode"))) {
+                WebhookServer.startFromEnvironment(bot);
+            } else {
+                TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+                telegramBotsApi.registerBot(bot);
+            }
+        } catch (TelegramApiException | IOException e) {
             e.printStackTrace();
         }
     }
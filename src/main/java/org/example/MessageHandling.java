@@ -1,19 +1,16 @@
 package org.example;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.*;
-
-enum BookInputStep {
-    TITLE,
-
-    AUTHOR,
-
-    NUMBER,
-
-    YEAR,
-
-    GENRE
-}
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Класс для обработки сообщений пользователя
@@ -21,13 +18,13 @@ enum BookInputStep {
 public class MessageHandling implements MessageHandlingInterface {
 
     public enum UserStates {
-        DEFAULT, PUZZLE_MODE, VOTE_MODE, BOOK_MODE, AUTHOR_BOOK_MODE, YEAR_BOOK_MODE, REMOVE_BOOK_MODE, EDIT_BOOK_MODE, REC_BOOK_MODE, AUTHOR_REC_MODE, GENRE_REC_MODE, REMOVE_REC_MODE
+        DEFAULT, PUZZLE_MODE, VOTE_MODE, BOOK_MODE, AUTHOR_BOOK_MODE, YEAR_BOOK_MODE, REMOVE_BOOK_MODE, EDIT_BOOK_MODE, REC_BOOK_MODE, AUTHOR_REC_MODE, GENRE_REC_MODE, REMOVE_REC_MODE, SEARCH_MODE
     }
 
     /**
      * Хранилище данных, необходимых для бота.
      */
-    private Storage storage;
+    private BookStorage storage;
 
 
     /**
@@ -38,18 +35,13 @@ public class MessageHandling implements MessageHandlingInterface {
     /**
      * Флаг, указывающий на наличие активного голосования.
      */
-    private boolean votingInProgress = false;
+    private volatile boolean votingInProgress = false;
 
     /**
      * День, когда заканчивается голосование.
      */
     private int VOTING_END_DAY = 5;
 
-    /**
-     * Множество чатов, в которых в данный момент идет голосование.
-     */
-    private Set<Long> activeVotingChats = new HashSet<>();
-
 
     /**
      * Проверяет, идет ли в данный момент голосование в указанном чате.
@@ -58,7 +50,7 @@ public class MessageHandling implements MessageHandlingInterface {
      * @return {@code true}, если голосование идет, иначе {@code false}.
      */
     private boolean votingInProgressForChat(long chatId) {
-        return activeVotingChats.contains(chatId);
+        return session(chatId).isVoting();
     }
 
     /**
@@ -67,32 +59,69 @@ public class MessageHandling implements MessageHandlingInterface {
      * @param chatId Идентификатор чата.
      */
     private void addVotingInProgressChat(long chatId) {
-        activeVotingChats.add(chatId);
+        session(chatId).setVoting(true);
     }
 
     /**
-     * Отслеживание текущего шага работы с книгой
+     * Сессии чатов. Сессия изменяется только под её блокировкой, поэтому сообщения разных чатов
+     * обрабатываются параллельно без общей блокировки. Неактивные сессии вытесняются в хранилище.
      */
-    private Map<Long, BookInputStep> bookInputSteps;
+    private final ChatSessions sessions = ChatSessions.fromEnvironment(() -> storage);
+
+    /**
+     * Поставщик даты и времени.
+     */
+    private DateTimeProvider dateTimeProvider;
 
 
     /**
-     * Собранные данные о книге
+     * Максимальное количество книг в ответе на полнотекстовый поиск.
      */
-    private Map<Long, String> bookData;
+    private static final int SEARCH_LIMIT = 10;
 
     /**
-     * Состояние пользователя в чате.
+     * Максимальное количество книг в ответе на поиск по жанру и автору: общий список рекомендаций
+     * может быть сколь угодно длинным, а сообщение Telegram - не длиннее 4096 символов.
      */
-    public Map<Long, UserStates> userState;
+    static final int SEARCH_BY_LIMIT = 20;
 
     /**
-     * Поставщик даты и времени.
+     * Количество самых читаемых авторов в ответе на /stats.
      */
-    private DateTimeProvider dateTimeProvider;
+    private static final int STATS_TOP_AUTHORS = 5;
 
+    /**
+     * Ответ пользователю, если изменение не удалось записать в хранилище.
+     */
+    private static final String WRITE_FAILED = "Не удалось сохранить изменения, попробуйте ещё раз.";
 
-    private Map<Long, PuzzleGame> puzzleGames = new HashMap<>();
+    /**
+     * Чаты администраторов, которым разрешены импорт файлов с локального диска и резервное копирование.
+     * Задаются через запятую в переменной среды "adminChatIds".
+     */
+    private Set<Long> adminChatIds = parseChatIds(System.getenv("adminChatIds"));
+
+    /**
+     * Обработчик сообщения пользователя в одном из режимов или одной команды.
+     */
+    private interface Handler {
+        String handle(String textMsg, long chatId);
+    }
+
+    /**
+     * Обработчики режимов пользователя.
+     */
+    private final Map<UserStates, Handler> stateHandlers = buildStateHandlers();
+
+    /**
+     * Команды и кнопки режима по умолчанию, совпадающие с сообщением целиком.
+     */
+    private final Map<String, Handler> commands = buildCommands();
+
+    /**
+     * Команды режима по умолчанию, после которых через пробел идёт аргумент, по имени команды без аргумента.
+     */
+    private final Map<String, Handler> argumentCommands = buildArgumentCommands();
 
 
     /**
@@ -102,7 +131,19 @@ public class MessageHandling implements MessageHandlingInterface {
      * @return Состояние пользователя.
      */
     public UserStates getUserState(long chatId) {
-        return userState.getOrDefault(chatId, UserStates.DEFAULT);
+        ChatSession session = sessions.peek(chatId);
+        return session != null ? session.getState() : UserStates.DEFAULT;
+    }
+
+
+    /**
+     * Возвращает сессию чата, восстанавливая её из хранилища или создавая при первом обращении.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Сессия чата.
+     */
+    private ChatSession session(long chatId) {
+        return sessions.get(chatId);
     }
 
     /**
@@ -111,10 +152,7 @@ public class MessageHandling implements MessageHandlingInterface {
      */
     public MessageHandling() {
         bookVoting = new BookVoting();
-        storage = new Storage();
-        userState = new HashMap<>();
-        bookInputSteps = new HashMap<>();
-        bookData = new HashMap<>();
+        storage = StorageFactory.create();
     }
 
 
@@ -125,10 +163,21 @@ public class MessageHandling implements MessageHandlingInterface {
     public MessageHandling(DateTimeProvider dateTimeProvider) {
         this.dateTimeProvider = dateTimeProvider != null ? dateTimeProvider : new DefaultDateTimeProvider();
         bookVoting = new BookVoting(dateTimeProvider);
-        storage = new Storage();
-        userState = new HashMap<>();
-        bookInputSteps = new HashMap<>();
-        bookData = new HashMap<>();
+        storage = StorageFactory.create();
+    }
+
+
+    /**
+     * Конструктор класса MessageHandling с готовым хранилищем, например для бенчмарков,
+     * которым не нужна база данных из переменных среды.
+     *
+     * @param storage          Хранилище книг.
+     * @param dateTimeProvider Поставщик даты и времени.
+     */
+    MessageHandling(BookStorage storage, DateTimeProvider dateTimeProvider) {
+        this.dateTimeProvider = dateTimeProvider;
+        bookVoting = new BookVoting(dateTimeProvider);
+        this.storage = storage;
     }
 
 
@@ -140,35 +189,178 @@ public class MessageHandling implements MessageHandlingInterface {
      * @return Ответ на запрос пользователя в виде строки.
      */
     public String parseMessage(String textMsg, long chatId) {
-        String response;
-        UserStates currentUserStates = getUserState(chatId);
-        // Проверяем, есть ли активный режим загадок для данного пользователя
-        if (currentUserStates == UserStates.PUZZLE_MODE) {
-            response = handlePuzzleMode(textMsg, chatId);
-        } else if (currentUserStates == UserStates.VOTE_MODE) {
-            response = handleVoteMode(textMsg, chatId);
-        } else if (currentUserStates == UserStates.BOOK_MODE) {
-            response = handleBookMode(textMsg, chatId);
-        } else if (currentUserStates == UserStates.AUTHOR_BOOK_MODE) {
-            response = handleGetByAuthor(textMsg, chatId);
-        } else if (currentUserStates == UserStates.YEAR_BOOK_MODE) {
-            response = handleGetByYear(textMsg, chatId);
-        } else if (currentUserStates == UserStates.REMOVE_BOOK_MODE) {
-            response = handleRemoveBook(textMsg, chatId);
-        } else if (currentUserStates == UserStates.EDIT_BOOK_MODE) {
-            response = handleEditBookMode(textMsg, chatId);
-        } else if (currentUserStates == UserStates.REC_BOOK_MODE) {
-            response = handleRecBookMode(textMsg, chatId);
-        } else if (currentUserStates == UserStates.AUTHOR_REC_MODE) {
-            response = handleSearchByAuthor(textMsg, chatId);
-        } else if (currentUserStates == UserStates.GENRE_REC_MODE) {
-            response = handleSearchByGenre(textMsg, chatId);
-        } else if (currentUserStates == UserStates.REMOVE_REC_MODE) {
-            response = handleRemoveRecBook(textMsg, chatId);
-        } else {
-            response = handleDefaultMode(textMsg, chatId);
+        // Сообщения одного чата обрабатываются по очереди, сообщения разных чатов - параллельно
+        return sessions.apply(chatId, session -> stateHandlers.get(session.getState()).handle(textMsg, chatId));
+    }
+
+
+    /**
+     * Сохраняет в хранилище сессии чатов, изменённые после прошлой контрольной точки.
+     * После перезапуска сессия восстанавливается из хранилища при первом сообщении чата.
+     *
+     * @return Количество сохранённых сессий.
+     */
+    int checkpointSessions() {
+        return sessions.checkpoint();
+    }
+
+
+    /**
+     * Записывает общее для всех чатов состояние: флаг голосования и голоса.
+     *
+     * @param out Поток записи.
+     * @throws IOException Если состояние не удалось записать.
+     */
+    void writeState(DataOutput out) throws IOException {
+        out.writeBoolean(votingInProgress);
+        bookVoting.writeTo(out);
+    }
+
+
+    /**
+     * Восстанавливает общее для всех чатов состояние, записанное {@link #writeState(DataOutput)}.
+     *
+     * @param in Поток чтения.
+     * @throws IOException Если состояние не удалось прочитать.
+     */
+    void readState(DataInput in) throws IOException {
+        boolean voting = in.readBoolean();
+        bookVoting.readFrom(in);
+        votingInProgress = voting;
+    }
+
+
+    /**
+     * Импортирует прочитанные книги из присланного файла.
+     *
+     * @param chatId   Идентификатор чата пользователя.
+     * @param fileName Имя файла, по расширению которого определяется формат.
+     * @param input    Содержимое файла; поток закрывается после импорта.
+     * @return Ответ пользователю с итогом импорта.
+     */
+    public String importReadBooks(long chatId, String fileName, InputStream input) {
+        ReadingListFormat format = ReadingListFormat.fromName(fileName);
+        if (format == null) {
+            return "Поддерживаются только файлы .csv и .json.";
+        }
+        try (ReadingListReader reader = ReadingListReader.open(input, format)) {
+            ImportResult result = storage.importReadBooks(chatId, reader);
+            return "Импорт завершён. Добавлено книг: " + result.inserted() + ", уже были в списке: " + result.duplicates()
+                    + ", не удалось распознать: " + result.invalid() + ".";
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "Не удалось импортировать файл: " + e.getMessage();
         }
-        return response;
+    }
+
+
+    /**
+     * Импортирует прочитанные книги из файла на локальном диске. Доступно только администраторам.
+     *
+     * @param path   Путь к файлу.
+     * @param chatId Идентификатор чата администратора.
+     * @return Ответ пользователю с итогом импорта.
+     */
+    private String importFromDisk(String path, long chatId) {
+        if (!adminChatIds.contains(chatId)) {
+            return "Импорт с диска доступен только администраторам. Чтобы импортировать список, отправьте файл в чат.";
+        }
+        try {
+            return importReadBooks(chatId, path, Files.newInputStream(Path.of(path)));
+        } catch (NoSuchFileException e) {
+            return "Файл не найден: " + path;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "Не удалось открыть файл: " + e.getMessage();
+        }
+    }
+
+
+    /**
+     * Сохраняет резервную копию хранилища в каталог из переменной среды "storageBackupDir". Доступно только администраторам.
+     *
+     * @param chatId Идентификатор чата администратора.
+     * @return Ответ пользователю с итогом копирования.
+     */
+    private String backup(long chatId) {
+        if (!adminChatIds.contains(chatId)) {
+            return "Резервное копирование доступно только администраторам.";
+        }
+        try {
+            BackupResult result = DatabaseBackup.backupNow(storage, DatabaseBackup.directoryFromEnvironment());
+            StringBuilder files = new StringBuilder();
+            for (Path file : result.files()) {
+                files.append(files.length() > 0 ? ", " : "").append(file);
+            }
+            return "Резервная копия сохранена: " + files + ". Размер: " + result.bytes() / 1024 + " КБ, время: " + result.millis() + " мс.";
+        } catch (IOException e) {
+            e.printStackTrace();
+            return "Не удалось сохранить резервную копию: " + e.getMessage();
+        }
+    }
+
+
+    /**
+     * Записывает прочитанные книги чата в поток в указанном формате.
+     *
+     * @param chatId Идентификатор чата пользователя.
+     * @param format Формат файла.
+     * @param output Поток для записи; не закрывается.
+     * @return Количество записанных книг.
+     * @throws IOException Если книги не удалось прочитать или записать.
+     */
+    public long exportReadBooks(long chatId, ReadingListFormat format, OutputStream output) throws IOException {
+        try (ReadingListWriter writer = ReadingListWriter.open(output, format)) {
+            return storage.exportReadBooks(chatId, writer);
+        }
+    }
+
+
+    /**
+     * Дожидается записи изменения в хранилище.
+     *
+     * @param result Обещание хранилища.
+     * @return Результат изменения или {@code null}, если запись не удалась.
+     */
+    private static Boolean awaitWrite(CompletableFuture<Boolean> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+
+    /**
+     * Дожидается записи изменения, которое не сообщает результата, в хранилище.
+     *
+     * @param result Обещание хранилища.
+     * @return {@code true}, если изменение записано.
+     */
+    private static boolean awaitDone(CompletableFuture<Void> result) {
+        return awaitWrite(result.thenApply(ignored -> true)) != null;
+    }
+
+
+    /**
+     * Разбирает список идентификаторов чатов через запятую.
+     *
+     * @param value Строка вида "1,2,3" или {@code null}.
+     * @return Множество идентификаторов; нечисловые элементы пропускаются.
+     */
+    static Set<Long> parseChatIds(String value) {
+        Set<Long> ids = new HashSet<>();
+        if (value != null) {
+            for (String part : value.split(",")) {
+                try {
+                    ids.add(Long.parseLong(part.trim()));
+                } catch (NumberFormatException e) {
+                    // Пропускаем пустые и нечисловые элементы
+                }
+            }
+        }
+        return ids;
     }
 
 
@@ -181,7 +373,7 @@ public class MessageHandling implements MessageHandlingInterface {
      */
     private String handlePuzzleMode(String textMsg, long chatId) {
         String response;
-        PuzzleGame puzzleGame = puzzleGames.computeIfAbsent(chatId, k -> new PuzzleGame());
+        PuzzleGame puzzleGame = session(chatId).getPuzzleGame();
         if ((textMsg.equalsIgnoreCase("дай подсказку"))||(textMsg.equals("/gethint"))) {
             response = puzzleGame.getHint();
         } else if ((textMsg.equalsIgnoreCase("следующая загадка"))||(textMsg.equals("/anotheriddle"))) {
@@ -192,10 +384,10 @@ public class MessageHandling implements MessageHandlingInterface {
             response = puzzleGame.getAnswerAndNextPuzzle(chatId);
         } else if (textMsg.equals("/stoppuzzle")) {
             response = "Режим головоломки завершен.\n" + puzzleGame.getStatistics(chatId);;
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setState(UserStates.DEFAULT);
         }else if (textMsg.equals("/back")) {
             // Обработка команды /back - возврат в главное меню
-            userState.put(chatId, UserStates.DEFAULT);  // Установка состояния пользователя в режим по умолчанию
+            session(chatId).setState(UserStates.DEFAULT);  // Установка состояния пользователя в режим по умолчанию
             response = "Вы вернулись в главное меню.";
         }else {
             response = puzzleGame.checkAnswer(chatId, textMsg);
@@ -216,229 +408,297 @@ public class MessageHandling implements MessageHandlingInterface {
         response = bookVoting.processUserVotes(textMsg, chatId);
         if (response.equals("Спасибо за ваш голос!")) {
             // Голосование завершено, устанавливаем voteMode в false
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setState(UserStates.DEFAULT);
         }
         return response;
     }
 
 
     /**
-     * Обработчик сообщений в режиме по умолчанию.
+     * Составляет таблицу обработчиков режимов пользователя.
+     *
+     * @return Обработчик для каждого режима.
+     */
+    private Map<UserStates, Handler> buildStateHandlers() {
+        Map<UserStates, Handler> handlers = new EnumMap<>(UserStates.class);
+        handlers.put(UserStates.DEFAULT, this::handleDefaultMode);
+        handlers.put(UserStates.PUZZLE_MODE, this::handlePuzzleMode);
+        handlers.put(UserStates.VOTE_MODE, this::handleVoteMode);
+        handlers.put(UserStates.BOOK_MODE, this::handleBookMode);
+        handlers.put(UserStates.AUTHOR_BOOK_MODE, this::handleGetByAuthor);
+        handlers.put(UserStates.YEAR_BOOK_MODE, this::handleGetByYear);
+        handlers.put(UserStates.REMOVE_BOOK_MODE, this::handleRemoveBook);
+        handlers.put(UserStates.EDIT_BOOK_MODE, this::handleEditBookMode);
+        handlers.put(UserStates.REC_BOOK_MODE, this::handleRecBookMode);
+        handlers.put(UserStates.AUTHOR_REC_MODE, this::handleSearchByAuthor);
+        handlers.put(UserStates.GENRE_REC_MODE, this::handleSearchByGenre);
+        handlers.put(UserStates.REMOVE_REC_MODE, this::handleRemoveRecBook);
+        handlers.put(UserStates.SEARCH_MODE, this::handleSearch);
+        return handlers;
+    }
+
+
+    /**
+     * Составляет таблицу команд и кнопок режима по умолчанию.
+     *
+     * @return Обработчики по тексту команды.
+     */
+    private Map<String, Handler> buildCommands() {
+        Handler help = (textMsg, chatId) -> "Приветствую, это литературный бот. Жми /get, чтобы получить случайную цитату, или /get и имя автора, чтобы получить его цитату. Жми /genre, чтобы перейти в раздел жанров книг.";
+        Handler quote = (textMsg, chatId) -> storage.getRandQuote();
+        return Map.ofEntries(
+                Map.entry("/start", help),
+                Map.entry("/help", help),
+                Map.entry("/get", quote),
+                Map.entry("Просвети", quote),
+                Map.entry("/genre", (textMsg, chatId) -> "Здравствуйте, добро пожаловать в бот рекомендации книг! Нажмите /chat и выберите жанр"),
+                Map.entry("Научная фантастика", (textMsg, chatId) -> "Прочитайте 'Автостопом по галактике', 'Время жить и время умирать' или 'Война миров'"),
+                Map.entry("Фэнтези", (textMsg, chatId) -> "Прочитайте 'Хоббит', 'Игра престолов' или 'Гарри Поттер'"),
+                Map.entry("Романтика", (textMsg, chatId) -> "Прочитайте 'Великий Гетсби', 'Триумфальная арка' или 'Поющие в терновнике'"),
+                Map.entry("Детектив", (textMsg, chatId) -> "Прочитайте 'Убийство в восточном экспрессе', 'Снеговик' или 'Собака Баскервилей'"),
+                Map.entry("/addbook", (textMsg, chatId) -> startInput(chatId, UserStates.BOOK_MODE, BookInputStep.TITLE, "Введите название книги:")),
+                Map.entry("/recommendbook", (textMsg, chatId) -> startInput(chatId, UserStates.REC_BOOK_MODE, BookInputStep.TITLE, "Введите название книги:")),
+                Map.entry("/editbook", (textMsg, chatId) -> storage.getReadBooksPage(chatId, 0, 1).isEmpty()
+                        ? "Список прочитанных книг пуст."
+                        : startNumberInput(chatId, PageCursor.Kind.READ_BOOKS, UserStates.EDIT_BOOK_MODE, BookInputStep.NUMBER, "Введите номер книги из списка /getread, которую хотите изменить:")),
+                Map.entry("/clearread", (textMsg, chatId) -> awaitDone(storage.clearReadBooks(chatId))
+                        ? "Список прочитанных книг очищен!"
+                        : WRITE_FAILED),
+                Map.entry("/getread", (textMsg, chatId) -> openPage(PageCursor.Kind.READ_BOOKS, chatId)),
+                Map.entry("/stats", (textMsg, chatId) -> formatStats(storage.getReadingStats(chatId, STATS_TOP_AUTHORS))),
+                Map.entry("/allrecommendbooks", (textMsg, chatId) -> openPage(PageCursor.Kind.RECOMMENDED_BOOKS, chatId)),
+                Map.entry("/next", (textMsg, chatId) -> turnPage(chatId, true)),
+                Map.entry("/prev", (textMsg, chatId) -> turnPage(chatId, false)),
+                Map.entry("/getbyauthor", (textMsg, chatId) -> startInput(chatId, UserStates.AUTHOR_BOOK_MODE, BookInputStep.TITLE, "Введите автора книги, которую хотите вывести:")),
+                Map.entry("/getbyyear", (textMsg, chatId) -> startInput(chatId, UserStates.YEAR_BOOK_MODE, BookInputStep.TITLE, "Введите год книги, которую хотите вывести:")),
+                Map.entry("/searchbygenre", this::startSearchByGenre),
+                Map.entry("/searchbyauthor", this::startSearchByAuthor),
+                Map.entry("/import", (textMsg, chatId) -> "Отправьте файл .csv (столбцы title,author,year) или .json (массив объектов с полями title, author, year) со списком прочитанных книг."),
+                Map.entry("/backup", (textMsg, chatId) -> backup(chatId)),
+                Map.entry("/search", (textMsg, chatId) -> {
+                    session(chatId).setState(UserStates.SEARCH_MODE);
+                    return "Введите слова из названия книги или имени автора (можно начало слова):";
+                }),
+                Map.entry("/removebook", (textMsg, chatId) -> storage.getReadBooksPage(chatId, 0, 1).isEmpty()
+                        ? "Список прочитанных книг пуст."
+                        : startNumberInput(chatId, PageCursor.Kind.READ_BOOKS, UserStates.REMOVE_BOOK_MODE, BookInputStep.TITLE, "Введите номер книги из списка /getread, которую хотите удалить:")),
+                Map.entry("/removerecbook", (textMsg, chatId) -> storage.getRecBooksPage(0, 1).isEmpty()
+                        ? "Список книг пуст."
+                        : startNumberInput(chatId, PageCursor.Kind.RECOMMENDED_BOOKS, UserStates.REMOVE_REC_MODE, BookInputStep.TITLE, "Введите номер книги из списка /allrecommendbooks, которую хотите удалить:")),
+                Map.entry("/playpuzzle", (textMsg, chatId) -> {
+                    PuzzleGame puzzleGame = session(chatId).getPuzzleGame();
+                    session(chatId).setState(UserStates.PUZZLE_MODE);
+                    // Вход в режим головоломки
+                    return puzzleGame.startPuzzle(chatId);
+                }),
+                Map.entry("/vote", (textMsg, chatId) -> vote(chatId)),
+                Map.entry("/revote", (textMsg, chatId) -> revote(chatId)),
+                Map.entry("/voteresults", (textMsg, chatId) -> votingOpen() ? bookVoting.getVotingStatistics() : votingClosed())
+        );
+    }
+
+
+    /**
+     * Составляет таблицу команд режима по умолчанию, принимающих аргумент.
+     *
+     * @return Обработчики по имени команды.
+     */
+    private Map<String, Handler> buildArgumentCommands() {
+        return Map.of(
+                "/get", (textMsg, chatId) -> {
+                    String author = textMsg.substring("/get ".length()).trim();
+                    String quote = storage.getRandQuote(author);
+                    return quote != null ? quote : "Цитат автора " + author + " не найдено.";
+                },
+                "/import", (textMsg, chatId) -> importFromDisk(textMsg.substring("/import ".length()).trim(), chatId),
+                // Аргумент поиска не используется: жанр или автор вводится следующим сообщением
+                "/searchbygenre", this::startSearchByGenre,
+                "/searchbyauthor", this::startSearchByAuthor
+        );
+    }
+
+
+    /**
+     * Обработчик сообщений в режиме по умолчанию. Команда ищется в таблице по всему сообщению,
+     * затем по первому слову сообщения, начинающегося с "/"; остальной текст бот повторяет.
      *
      * @param textMsg Входящий текстовый запрос от пользователя.
      * @param chatId  Идентификатор чата пользователя.
      * @return Ответ на запрос пользователя в режиме по умолчанию.
      */
     private String handleDefaultMode(String textMsg, long chatId) {
-        String response;
-        LocalDate currentDate = LocalDate.now();
-        int currentDay = currentDate.getDayOfMonth();
-        // Сравниваем текст пользователя с командами, на основе этого формируем ответ
-        if (textMsg.equals("/start") || textMsg.equals("/help")) {
-            response = "Приветствую, это литературный бот. Жми /get, чтобы получить случайную цитату. Жми /genre, чтобы перейти в раздел жанров книг.";
-        } else if (textMsg.equals("/get") || textMsg.equals("Просвети")) {
-            response = storage.getRandQuote();
-        } else if (textMsg.equals("/genre")) {
-            response = "Здравствуйте, добро пожаловать в бот рекомендации книг! Нажмите /chat и выберите жанр";
-        } else if (textMsg.equals("Научная фантастика")) {
-            response = "Прочитайте 'Автостопом по галактике', 'Время жить и время умирать' или 'Война миров'";
-        } else if (textMsg.equals("Фэнтези")) {
-            response = "Прочитайте 'Хоббит', 'Игра престолов' или 'Гарри Поттер'";
-        } else if (textMsg.equals("Романтика")) {
-            response = "Прочитайте 'Великий Гетсби', 'Триумфальная арка' или 'Поющие в терновнике'";
-        } else if (textMsg.equals("Детектив")) {
-            response = "Прочитайте 'Убийство в восточном экспрессе', 'Снеговик' или 'Собака Баскервилей'";
-
-
-        } else if (textMsg.equals("/addbook")) {
-            // Переходим к обработке добавления книги
-            userState.put(chatId, UserStates.BOOK_MODE);
-            bookInputSteps.put(chatId, BookInputStep.TITLE);
-            bookData.put(chatId, ""); // Инициализируем пустой строкой
-            response = "Введите название книги:";
-
-
-        } else if (textMsg.equals("/recommendbook")) {
-            // Переходим к обработке добавления книги
-            userState.put(chatId, UserStates.REC_BOOK_MODE);
-            bookInputSteps.put(chatId, BookInputStep.TITLE);
-            bookData.put(chatId, ""); // Инициализируем пустой строкой
-            response = "Введите название книги:";
-
-
-        } else if (textMsg.equals("/editbook")) {
-            ArrayList<String> readBooks = storage.getReadBooks(chatId);
-            if (readBooks.isEmpty()) {
-                response = "Список прочитанных книг пуст.";
-            } else {
-                userState.put(chatId, UserStates.EDIT_BOOK_MODE);
-                // Переходим в режим редактирования книг
-                bookInputSteps.put(chatId, BookInputStep.NUMBER);
-                bookData.put(chatId, ""); // Инициализируем пустой строкой
-                response = "Введите номер книги из списка /getread, которую хотите изменить:";
+        Handler handler = commands.get(textMsg);
+        if (handler == null && textMsg.startsWith("/")) {
+            int space = textMsg.indexOf(' ');
+            if (space > 0) {
+                handler = argumentCommands.get(textMsg.substring(0, space));
             }
+        }
+        return handler != null ? handler.handle(textMsg, chatId) : textMsg;
+    }
 
 
-        } else if (textMsg.equals("/clearread")) {
-            // Очищаем список прочитанных книг
-            storage.clearReadBooks(chatId);
-            response = "Список прочитанных книг очищен!";
+    /**
+     * Переводит пользователя в режим пошагового ввода.
+     *
+     * @param chatId Идентификатор чата пользователя.
+     * @param state  Новый режим пользователя.
+     * @param step   Первый шаг ввода.
+     * @param prompt Приглашение к вводу.
+     * @return Приглашение к вводу.
+     */
+    private String startInput(long chatId, UserStates state, BookInputStep step, String prompt) {
+        session(chatId).setState(state);
+        session(chatId).setInputStep(step);
+        session(chatId).setBookData(""); // Инициализируем пустой строкой
+        return prompt;
+    }
+
 
+    /**
+     * Переводит пользователя в режим поиска рекомендованных книг по жанру.
+     */
+    private String startSearchByGenre(String textMsg, long chatId) {
+        return startInput(chatId, UserStates.GENRE_REC_MODE, BookInputStep.GENRE,
+                "Выберите жанр из списка ниже, книги из которого вы хотели бы узнать, и напишите мне его следующим сообщением:\n" +
+                        "Драма\n" +
+                        "Приключения \n" +
+                        "Фэнтези \n" +
+                        "Научная Фантастика \n" +
+                        "История \n" +
+                        "Ужасы \n" +
+                        "Детектив \n" +
+                        "Сказка \n" +
+                        "Романтика\n");
+    }
 
-        } else if (textMsg.equals("/getread")) {
-            // Получаем список прочитанных книг с уникальными номерами
-            ArrayList<String> readBooks = storage.getReadBooks(chatId);
-            if (readBooks.isEmpty()) {
-                response = "Список прочитанных книг пуст.";
-            } else {
-                StringBuilder responseBuilder = new StringBuilder("Прочитанные книги:\n");
-                for (int i = 0; i < readBooks.size(); i++) {
-                    responseBuilder.append(i + 1).append(". ").append(readBooks.get(i)).append("\n");
-                }
-                response = responseBuilder.toString();
-            }
 
+    /**
+     * Переводит пользователя в режим поиска рекомендованных книг по автору.
+     */
+    private String startSearchByAuthor(String textMsg, long chatId) {
+        return startInput(chatId, UserStates.AUTHOR_REC_MODE, BookInputStep.AUTHOR, "Введите автора, книги которого вы хотели бы найти");
+    }
 
-        } else if (textMsg.equals("/allrecommendbooks")) {
-            // Получаем список прочитанных книг с уникальными номерами
-            ArrayList<String> readBooks = storage.getRecBooks();
-            if (readBooks.isEmpty()) {
-                response = "Список книг пуст.";
-            } else {
-                StringBuilder responseBuilder = new StringBuilder("Рекомендованные пользователями книги:\n");
-                for (int i = 0; i < readBooks.size(); i++) {
-                    responseBuilder.append(i + 1).append(". ").append(readBooks.get(i)).append("\n");
-                }
-                response = responseBuilder.toString();
-            }
 
+    /**
+     * Открывает первую страницу списка книг с уникальными номерами.
+     *
+     * @param kind   Вид списка.
+     * @param chatId Идентификатор чата пользователя.
+     * @return Первая страница списка.
+     */
+    private String openPage(PageCursor.Kind kind, long chatId) {
+        PageCursor cursor = new PageCursor(kind);
+        session(chatId).setPageCursor(cursor);
+        return showPage(cursor, chatId);
+    }
 
-        } else if (textMsg.equals("/getbyauthor")) {
-            userState.put(chatId, UserStates.AUTHOR_BOOK_MODE);
-            bookInputSteps.put(chatId, BookInputStep.TITLE);
-            bookData.put(chatId, ""); // Инициализируем пустой строкой
-            response = "Введите автора книги, которую хотите вывести:";
-
-
-        } else if (textMsg.equals("/getbyyear")) {
-            userState.put(chatId, UserStates.YEAR_BOOK_MODE);
-            bookInputSteps.put(chatId, BookInputStep.TITLE);
-            bookData.put(chatId, ""); // Инициализируем пустой строкой
-            response = "Введите год книги, которую хотите вывести:";
-
-
-        } else if (textMsg.startsWith("/searchbygenre")) {
-            userState.put(chatId, UserStates.GENRE_REC_MODE);
-            bookInputSteps.put(chatId, BookInputStep.GENRE);
-            bookData.put(chatId, ""); // Инициализируем пустой строкой
-            response = "Выберите жанр из списка ниже, книги из которого вы хотели бы узнать, и напишите мне его следующим сообщением:\n" +
-                    "Драма\n" +
-                    "Приключения \n" +
-                    "Фэнтези \n" +
-                    "Научная Фантастика \n" +
-                    "История \n" +
-                    "Ужасы \n" +
-                    "Детектив \n" +
-                    "Сказка \n" +
-                    "Романтика\n";
-
-
-        } else if (textMsg.startsWith("/searchbyauthor")) {
-            userState.put(chatId, UserStates.AUTHOR_REC_MODE);
-            bookInputSteps.put(chatId, BookInputStep.AUTHOR);
-            bookData.put(chatId, ""); // Инициализируем пустой строкой
-            response = "Введите автора, книги которого вы хотели бы найти";
-
-
-        } else if (textMsg.equals("/removebook")) {
-            // Получаем список прочитанных книг с уникальными номерами
-            ArrayList<String> readBooks = storage.getReadBooks(chatId);
-            if (readBooks.isEmpty()) {
-                response = "Список прочитанных книг пуст.";
-            } else {
-                userState.put(chatId, UserStates.REMOVE_BOOK_MODE);
-                bookInputSteps.put(chatId, BookInputStep.TITLE);
-                bookData.put(chatId, ""); // Инициализируем пустой строкой
-                response = "Введите номер книги из списка /getread, которую хотите удалить:";
-            }
 
+    /**
+     * Начинает ввод номера книги из списка. Если список этого вида в чате не открыт, запоминаются книги
+     * его первой страницы, чтобы номер указывал на книгу, которая была под ним в момент команды.
+     *
+     * @param chatId Идентификатор чата пользователя.
+     * @param kind   Список, из которого выбирается книга.
+     * @param state  Режим ввода.
+     * @param step   Первый шаг ввода.
+     * @param prompt Приглашение к вводу.
+     * @return Приглашение к вводу.
+     */
+    private String startNumberInput(long chatId, PageCursor.Kind kind, UserStates state, BookInputStep step, String prompt) {
+        PageCursor cursor = session(chatId).getPageCursor();
+        if (cursor == null || cursor.getKind() != kind) {
+            cursor = new PageCursor(kind);
+            session(chatId).setPageCursor(cursor);
+            showPage(cursor, chatId);
+        }
+        return startInput(chatId, state, step, prompt);
+    }
 
-        } else if (textMsg.equals("/removerecbook")) {
-            // Получаем список прочитанных книг с уникальными номерами
-            ArrayList<String> readBooks = storage.getRecBooks();
-            if (readBooks.isEmpty()) {
-                response = "Список книг пуст.";
-            } else {
-                userState.put(chatId, UserStates.REMOVE_REC_MODE);
-                bookInputSteps.put(chatId, BookInputStep.TITLE);
-                bookData.put(chatId, ""); // Инициализируем пустой строкой
-                response = "Введите номер книги из списка /allrecommendbooks, которую хотите удалить:";
-            }
 
+    /**
+     * Перелистывает открытый список книг.
+     *
+     * @param chatId  Идентификатор чата пользователя.
+     * @param forward {@code true} для следующей страницы, {@code false} для предыдущей.
+     * @return Новая страница списка или сообщение, почему её нет.
+     */
+    private String turnPage(long chatId, boolean forward) {
+        PageCursor cursor = session(chatId).getPageCursor();
+        if (cursor == null) {
+            return "Сначала откройте список командой /getread или /allrecommendbooks.";
+        }
+        if (forward ? !cursor.next() : !cursor.prev()) {
+            return forward ? "Это последняя страница списка." : "Это первая страница списка.";
+        }
+        return showPage(cursor, chatId);
+    }
 
-        } else if (textMsg.equals("/playpuzzle")) {
-            PuzzleGame puzzleGame = puzzleGames.computeIfAbsent(chatId, k -> new PuzzleGame());
-            userState.put(chatId, UserStates.PUZZLE_MODE);
-            // Вход в режим головоломки
-            response = puzzleGame.startPuzzle(chatId);
 
+    /**
+     * Проверяет, идёт ли сегодня ежемесячное голосование.
+     *
+     * @return {@code true}, если день месяца не позже дня окончания голосования.
+     */
+    private boolean votingOpen() {
+        return LocalDate.now().getDayOfMonth() <= VOTING_END_DAY;
+    }
 
-        } else if (textMsg.equals("/vote")) {
-            if (currentDay <= VOTING_END_DAY) {
-                // Проверяем, не проводится ли уже голосование для данного пользователя
-                if (!votingInProgress || !votingInProgressForChat(chatId)) {
-                    userState.put(chatId, UserStates.VOTE_MODE);
-                    votingInProgress = true;
-                    // Если голосование ещё не начато для данного пользователя, устанавливаем флаг и отображаем список книг
-                    addVotingInProgressChat(chatId); // Добавляем текущий чат в список активных голосований
-                    response = " Здравствуйте, добро пожаловать на ежемесячное голосование за “книгу месяца”, которое проводится с 1 по 5 число. Вам предлагается на выбор 10 книг.\n"+bookVoting.showBookList(chatId);
-                } else {
-                    // Если голосование уже начато для данного пользователя, предлагаем вариант переголосования
-                    response = "Если вы пытаетесь проголосовать повторно, то этого сделать нельзя. Если вы хотите переголосовать, нажмите /revote";
-                }
-            } else {
-                if (votingInProgress)
-                    response = bookVoting.finishVoting();
-                else{
-                    response = "Голосование за книгу месяца уже окончено. В этом месяце никто не проголосовал.Вы можете присоединиться к нам и начать читать вместе! Новое голосование начнётся 1 числа следующего месяца.";
-                }
-            }
 
+    /**
+     * Ответ на команды голосования после его окончания.
+     *
+     * @return Итоги голосования или сообщение, что в этом месяце никто не голосовал.
+     */
+    private String votingClosed() {
+        if (votingInProgress) {
+            return bookVoting.finishVoting();
+        }
+        return "Голосование за книгу месяца уже окончено. В этом месяце никто не проголосовал.Вы можете присоединиться к нам и начать читать вместе! Новое голосование начнётся 1 числа следующего месяца.";
+    }
 
-        } else if (textMsg.equals("/revote")) {
-            if (currentDay <= VOTING_END_DAY) {
-                if (votingInProgressForChat(chatId)) {
-                    userState.put(chatId, UserStates.VOTE_MODE);
-                    bookVoting.cancelUserVotes(chatId);
-                    response = bookVoting.showBookList(chatId);
-                } else {
-                    // Если голосование ещё не начато для данного пользователя, предлагаем вариант голосования
-                    response = "Вы не можете использовать эту команду до использования /vote";
-                }
-            } else {
-                if (votingInProgress)
-                    response = bookVoting.finishVoting();
-                else{
-                    response = "Голосование за книгу месяца уже окончено. В этом месяце никто не проголосовал.Вы можете присоединиться к нам и начать читать вместе! Новое голосование начнётся 1 числа следующего месяца.";
-                }
-            }
 
+    /**
+     * Обработчик команды /vote.
+     *
+     * @param chatId Идентификатор чата пользователя.
+     * @return Список книг для голосования или объяснение, почему проголосовать нельзя.
+     */
+    private String vote(long chatId) {
+        if (!votingOpen()) {
+            return votingClosed();
+        }
+        // Проверяем, не проводится ли уже голосование для данного пользователя
+        if (!votingInProgress || !votingInProgressForChat(chatId)) {
+            session(chatId).setState(UserStates.VOTE_MODE);
+            votingInProgress = true;
+            // Если голосование ещё не начато для данного пользователя, устанавливаем флаг и отображаем список книг
+            addVotingInProgressChat(chatId); // Добавляем текущий чат в список активных голосований
+            return " Здравствуйте, добро пожаловать на ежемесячное голосование за “книгу месяца”, которое проводится с 1 по 5 число. Вам предлагается на выбор 10 книг.\n"+bookVoting.showBookList(chatId);
+        }
+        // Если голосование уже начато для данного пользователя, предлагаем вариант переголосования
+        return "Если вы пытаетесь проголосовать повторно, то этого сделать нельзя. Если вы хотите переголосовать, нажмите /revote";
+    }
 
-        }else if (textMsg.equals("/voteresults")) {
-            if (currentDay <= VOTING_END_DAY) {
-                response = bookVoting.getVotingStatistics();
-            } else {
-                if (votingInProgress)
-                    response = bookVoting.finishVoting();
-                else {
-                    response = "Голосование за книгу месяца уже окончено. В этом месяце никто не проголосовал.Вы можете присоединиться к нам и начать читать вместе! Новое голосование начнётся 1 числа следующего месяца.";
-                }
-            }
 
-        } else {
-            response = textMsg;
+    /**
+     * Обработчик команды /revote.
+     *
+     * @param chatId Идентификатор чата пользователя.
+     * @return Список книг для повторного голосования или объяснение, почему переголосовать нельзя.
+     */
+    private String revote(long chatId) {
+        if (!votingOpen()) {
+            return votingClosed();
         }
-        return response;
+        if (votingInProgressForChat(chatId)) {
+            session(chatId).setState(UserStates.VOTE_MODE);
+            bookVoting.cancelUserVotes(chatId);
+            return bookVoting.showBookList(chatId);
+        }
+        // Если голосование ещё не начато для данного пользователя, предлагаем вариант голосования
+        return "Вы не можете использовать эту команду до использования /vote";
     }
 
 
@@ -452,43 +712,43 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleBookMode(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.TITLE);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.TITLE);
 
         // Если пользователь отправляет произвольное сообщение, предполагаем, что это название книги
         if (currentStep == BookInputStep.TITLE) {
-            bookData.put(chatId, textMsg.trim()); // Сохраняем название книги
-            bookInputSteps.put(chatId, BookInputStep.AUTHOR); // Переходим к следующему шагу
+            session(chatId).setBookData(textMsg.trim()); // Сохраняем название книги
+            session(chatId).setInputStep(BookInputStep.AUTHOR); // Переходим к следующему шагу
             response = "Теперь введите автора книги:";
         } else {
             // Иначе обрабатываем ввод в соответствии с текущим шагом
             switch (currentStep) {
                 case AUTHOR:
-                    bookData.put(chatId, bookData.get(chatId) + "\n" + textMsg.trim()); // Сохраняем автора книги
-                    bookInputSteps.put(chatId, BookInputStep.YEAR); // Переходим к следующему шагу
+                    session(chatId).setBookData(session(chatId).getBookData() + "\n" + textMsg.trim()); // Сохраняем автора книги
+                    session(chatId).setInputStep(BookInputStep.YEAR); // Переходим к следующему шагу
                     response = "Теперь введите год прочтения книги:";
                     break;
                 case YEAR:
                     try {
                         int year = Integer.parseInt(textMsg.trim());
 
-                        // Проверяем существование книги в базе данных
-                        String[] parts = bookData.get(chatId).split("\n");
+                        String[] parts = session(chatId).getBookData().split("\n");
                         String title = parts[0].trim();
                         String author = parts[1].trim();
 
-                        if (!storage.bookExists(title, author, year, chatId)) {
-                            // Если книги с такими данными нет, добавляем книгу в базу данных
-                            storage.addReadBook(title, author, year, chatId);
-                            userState.put(chatId, UserStates.DEFAULT);
+                        // Добавление и проверка повтора выполняются хранилищем одним запросом
+                        Boolean added = awaitWrite(storage.addReadBook(title, author, year, chatId));
+                        session(chatId).setState(UserStates.DEFAULT);
+                        if (added == null) {
+                            response = WRITE_FAILED;
+                        } else if (added) {
                             response = "Книга '" + title + "' от автора " + author + " (год: " + year + ") успешно добавлена в список прочитанных!";
                         } else {
-                            userState.put(chatId, UserStates.DEFAULT);
                             response = "Книга с указанным названием, автором и годом прочтения уже существует в базе данных.";
                         }
 
                         // Сбрасываем состояние добавления книги для данного чата
-                        bookInputSteps.remove(chatId);
-                        bookData.remove(chatId);
+                        session(chatId).setInputStep(null);
+                        session(chatId).setBookData(null);
 
                     } catch (NumberFormatException e) {
                         response = "Некорректный формат года прочтения. Пожалуйста, введите год цифрами.";
@@ -496,7 +756,7 @@ public class MessageHandling implements MessageHandlingInterface {
                     break;
                 default:
                     response = "Неизвестная ошибка в процессе добавления книги.";
-                    userState.put(chatId, UserStates.DEFAULT);
+                    session(chatId).setState(UserStates.DEFAULT);
             }
         }
 
@@ -514,14 +774,14 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleGetByAuthor(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.TITLE);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.TITLE);
 
         // Если пользователь отправляет произвольное сообщение, предполагаем, что это имя автора
         if (currentStep == BookInputStep.TITLE) {
-            bookData.put(chatId, textMsg.trim()); // Сохраняем имя автора
+            session(chatId).setBookData(textMsg.trim()); // Сохраняем имя автора
 
                 // Получаем список книг по автору из базы данных
-                String author = bookData.get(chatId);
+                String author = session(chatId).getBookData();
                 ArrayList<String> booksByAuthor = storage.getBooksByAuthor(author, chatId);
 
                 if (!booksByAuthor.isEmpty()) {
@@ -531,19 +791,19 @@ public class MessageHandling implements MessageHandlingInterface {
                         booksResponse.append("\"").append(book).append("\";\n");
                     }
                     response = booksResponse.toString();
-                    userState.put(chatId, UserStates.DEFAULT);
+                    session(chatId).setState(UserStates.DEFAULT);
                 } else {
                     response = "Нет прочитанных книг этого автора.";
-                    userState.put(chatId, UserStates.DEFAULT);
+                    session(chatId).setState(UserStates.DEFAULT);
                 }
 
             // Сбрасываем состояние для данного чата
-            bookInputSteps.remove(chatId);
-            bookData.remove(chatId);
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setInputStep(null);
+            session(chatId).setBookData(null);
+            session(chatId).setState(UserStates.DEFAULT);
         } else {
             response = "Неизвестная ошибка в процессе получения книг по автору.";
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setState(UserStates.DEFAULT);
         }
 
         return response;
@@ -561,14 +821,14 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleGetByYear(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.TITLE);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.TITLE);
 
         // Если пользователь отправляет произвольное сообщение, предполагаем, что это год
         if (currentStep == BookInputStep.TITLE) {
-            bookData.put(chatId, textMsg.trim()); // Сохраняем год
+            session(chatId).setBookData(textMsg.trim()); // Сохраняем год
 
                 // Получаем список книг по году из базы данных
-                int year = Integer.parseInt(bookData.get(chatId));
+                int year = Integer.parseInt(session(chatId).getBookData());
                 ArrayList<String> booksByYear = storage.getBooksByYear(year, chatId);
 
                 if (!booksByYear.isEmpty()) {
@@ -583,9 +843,9 @@ public class MessageHandling implements MessageHandlingInterface {
                 }
 
             // Сбрасываем состояние для данного чата и выключаем флаг
-            bookInputSteps.remove(chatId);
-            bookData.remove(chatId);
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setInputStep(null);
+            session(chatId).setBookData(null);
+            session(chatId).setState(UserStates.DEFAULT);
         } else {
             response = "Неизвестная ошибка в процессе получения книг по году.";
         }
@@ -604,24 +864,16 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleRemoveBook(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.TITLE);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.TITLE);
         // Если пользователь отправляет произвольное сообщение, предполагаем, что это номер книги
         if (currentStep == BookInputStep.TITLE) {
             try {
                     int bookNumber = Integer.parseInt(textMsg.trim());
-                ArrayList<String> readBooks = storage.getAllValues(chatId);
-                ArrayList<String> anotherreadBooks = storage.getReadBooks(chatId);
-                if (bookNumber >= 1 && bookNumber <= readBooks.size()) {
-
-                    String[] oldBookParts = readBooks.get(bookNumber - 1).split("\n");
-                    String oldTitle = oldBookParts[0];
-                    String oldAuthor = oldBookParts[1];
-                    int oldYear = Integer.parseInt(oldBookParts[2]);
-
-                    String removedBook = anotherreadBooks.remove(bookNumber - 1); // Удаляем книгу и получаем ее данные
-                    storage.updateReadBooks(chatId, oldTitle,oldAuthor,oldYear); // Обновляем список без удаленной книги
-                        userState.put(chatId, UserStates.DEFAULT);
-                        response = "Книга " + removedBook + " успешно удалена из списка прочитанных!";
+                ReadBook removedBook = findReadBook(bookNumber, chatId); // Получаем данные удаляемой книги
+                if (removedBook != null) {
+                    boolean removed = awaitDone(storage.updateReadBooks(chatId, removedBook.id())); // Обновляем список без удаленной книги
+                        session(chatId).setState(UserStates.DEFAULT);
+                        response = removed ? "Книга " + removedBook.title() + " успешно удалена из списка прочитанных!" : WRITE_FAILED;
                 } else {
                     response = "Указанный уникальный номер книги не существует в списке прочитанных книг.";
                 }
@@ -629,11 +881,11 @@ public class MessageHandling implements MessageHandlingInterface {
                 response = "Некорректный формат номера книги.";
             }
             // Сбрасываем состояние для данного чата
-            bookInputSteps.remove(chatId);
-            bookData.remove(chatId);
+            session(chatId).setInputStep(null);
+            session(chatId).setBookData(null);
         } else {
             response = "Неизвестная ошибка в процессе удаления книги.";
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setState(UserStates.DEFAULT);
         }
 
         return response;
@@ -650,7 +902,7 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleEditBookMode(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.NUMBER);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.NUMBER);
 
         // Проверяем, является ли введенный текст числом
         if (currentStep == BookInputStep.NUMBER) {
@@ -658,11 +910,11 @@ public class MessageHandling implements MessageHandlingInterface {
                 int bookNumber = Integer.parseInt(textMsg.trim());
 
                 // Проверяем существование книги с указанным уникальным номером в списке прочитанных книг
-                ArrayList<String> readBooks = storage.getAllValues(chatId);
-                if (bookNumber >= 1 && bookNumber <= readBooks.size()) {
-                    // Сохраняем номер книги для последующего использования
-                    bookData.put(chatId, textMsg.trim());
-                    bookInputSteps.put(chatId, BookInputStep.TITLE); // Переходим к следующему шагу
+                ReadBook book = findReadBook(bookNumber, chatId);
+                if (book != null) {
+                    // Сохраняем идентификатор книги, а не номер: номер в списке может измениться, пока вводятся данные
+                    session(chatId).setBookData(String.valueOf(book.id()));
+                    session(chatId).setInputStep(BookInputStep.TITLE); // Переходим к следующему шагу
                     response = "Теперь введите новое название книги:";
                 } else {
                     response = "Указанный уникальный номер книги не существует в списке прочитанных книг.";
@@ -674,44 +926,50 @@ public class MessageHandling implements MessageHandlingInterface {
             // Если это не число, то предполагаем, что это данные книги
             switch (currentStep) {
                 case TITLE:
-                    bookData.put(chatId, bookData.get(chatId) + "\n" + textMsg.trim()); // Сохраняем новое название книги
-                    bookInputSteps.put(chatId, BookInputStep.AUTHOR); // Переходим к следующему шагу
+                    session(chatId).setBookData(session(chatId).getBookData() + "\n" + textMsg.trim()); // Сохраняем новое название книги
+                    session(chatId).setInputStep(BookInputStep.AUTHOR); // Переходим к следующему шагу
                     response = "Теперь введите нового автора книги:";
                     break;
                 case AUTHOR:
-                    bookData.put(chatId, bookData.get(chatId) + "\n" + textMsg.trim()); // Сохраняем автора книги
-                    bookInputSteps.put(chatId, BookInputStep.YEAR); // Переходим к следующему шагу
+                    session(chatId).setBookData(session(chatId).getBookData() + "\n" + textMsg.trim()); // Сохраняем автора книги
+                    session(chatId).setInputStep(BookInputStep.YEAR); // Переходим к следующему шагу
                     response = "Теперь введите новый год прочтения книги:";
                     break;
                 case YEAR:
                     try {
-                        bookData.put(chatId, bookData.get(chatId) + "\n" + textMsg.trim()); // Сохраняем год прочтения книги
-                        String[] parts = bookData.get(chatId).split("\n");
-                        int bookNumber = Integer.parseInt(parts[0]);
+                        session(chatId).setBookData(session(chatId).getBookData() + "\n" + textMsg.trim()); // Сохраняем год прочтения книги
+                        String[] parts = session(chatId).getBookData().split("\n");
+                        long bookId = Long.parseLong(parts[0]);
                         // Получаем новые данные книги
                         String newTitle = parts[1];
                         String newAuthor = parts[2];
                         int newYear = Integer.parseInt(parts[3]);
                         // Получаем старые данные книги
-                        ArrayList<String> readBooks = storage.getAllValues(chatId);
-                        String[] oldBookParts = readBooks.get(bookNumber - 1).split("\n");
-                        String oldTitle = oldBookParts[0];
-                        String oldAuthor = oldBookParts[1];
-                        int oldYear = Integer.parseInt(oldBookParts[2]);
-                        //Обновляем данные о книге в базе данных
-                        storage.editReadBook(oldTitle, oldAuthor, oldYear, newTitle, newAuthor, newYear, chatId);
-                        userState.put(chatId, UserStates.DEFAULT);
-                        response = "Книга '" + oldTitle + "' успешно отредактирована в списке прочитанных!";
+                        ReadBook oldBook = readBookById(bookId, chatId);
+                        session(chatId).setState(UserStates.DEFAULT);
+                        if (oldBook != null) {
+                            //Обновляем данные о книге в базе данных
+                            Boolean edited = awaitWrite(storage.editReadBook(oldBook.id(), newTitle, newAuthor, newYear, chatId));
+                            if (edited == null) {
+                                response = WRITE_FAILED;
+                            } else if (edited) {
+                                response = "Книга '" + oldBook.title() + "' успешно отредактирована в списке прочитанных!";
+                            } else {
+                                response = "Книга с указанным названием, автором и годом прочтения уже существует в списке прочитанных.";
+                            }
+                        } else {
+                            response = "Указанный уникальный номер книги не существует в списке прочитанных книг.";
+                        }
                         // Сбрасываем состояние редактирования книги для данного чата
-                        bookInputSteps.remove(chatId);
-                        bookData.remove(chatId);
+                        session(chatId).setInputStep(null);
+                        session(chatId).setBookData(null);
                     } catch (NumberFormatException e) {
                         response = "Некорректный формат года прочтения. Пожалуйста, введите год цифрами.";
                     }
                     break;
                 default:
                     response = "Неизвестная ошибка в процессе редактирования книги.";
-                    userState.put(chatId, UserStates.DEFAULT);
+                    session(chatId).setState(UserStates.DEFAULT);
             }
         }
         return response;
@@ -728,19 +986,19 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleRecBookMode(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.TITLE);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.TITLE);
 
         // Если пользователь отправляет произвольное сообщение, предполагаем, что это название книги
         if (currentStep == BookInputStep.TITLE) {
-            bookData.put(chatId, textMsg.trim()); // Сохраняем название книги
-            bookInputSteps.put(chatId, BookInputStep.AUTHOR); // Переходим к следующему шагу
+            session(chatId).setBookData(textMsg.trim()); // Сохраняем название книги
+            session(chatId).setInputStep(BookInputStep.AUTHOR); // Переходим к следующему шагу
             response = "Теперь введите автора книги:";
         } else {
             // Иначе обрабатываем ввод в соответствии с текущим шагом
             switch (currentStep) {
                 case AUTHOR:
-                    bookData.put(chatId, bookData.get(chatId) + "\n" + textMsg.trim()); // Сохраняем автора книги
-                    bookInputSteps.put(chatId, BookInputStep.GENRE); // Переходим к следующему шагу
+                    session(chatId).setBookData(session(chatId).getBookData() + "\n" + textMsg.trim()); // Сохраняем автора книги
+                    session(chatId).setInputStep(BookInputStep.GENRE); // Переходим к следующему шагу
                     response = "Выберите жанр, который наиболее близок к вашей книге из списка ниже и напишите мне его следующим сообщением:\n" +
                             "Драма\n" +
                             "Приключения \n" +
@@ -758,33 +1016,33 @@ public class MessageHandling implements MessageHandlingInterface {
 
                     // Проверяем, что введенный жанр является допустимым
                     if (Arrays.asList(validGenres).contains(userGenre)) {
-                        bookData.put(chatId, bookData.get(chatId) + "\n" + userGenre); // Сохраняем жанр книги
+                        session(chatId).setBookData(session(chatId).getBookData() + "\n" + userGenre); // Сохраняем жанр книги
 
-                            // Проверяем существование книги в базе данных
-                            String[] parts = bookData.get(chatId).split("\n");
+                            String[] parts = session(chatId).getBookData().split("\n");
                             String title = parts[0].trim();
                             String author = parts[1].trim();
                             String genre = parts[2].trim();
 
-                            if (!storage.recBookExists(title, author)) {
-                                // Если книги с такими данными нет, добавляем книгу в базу данных
-                                storage.addRecBook(title, author, genre, chatId);
-                                userState.put(chatId, UserStates.DEFAULT);
+                            // Добавление и проверка повтора выполняются хранилищем одним запросом
+                            Boolean added = awaitWrite(storage.addRecBook(title, author, genre, chatId));
+                            session(chatId).setState(UserStates.DEFAULT);
+                            if (added == null) {
+                                response = WRITE_FAILED;
+                            } else if (added) {
                                 response = "Книга '" + title + "' от автора " + author + " (жанр: " + genre + ") успешно добавлена в список!";
                             } else {
-                                userState.put(chatId, UserStates.DEFAULT);
                                 response = "Книга с указанным названием и автором уже существует в базе данных.";
                             }
                             // Сбрасываем состояние добавления книги для данного чата
-                            bookInputSteps.remove(chatId);
-                            bookData.remove(chatId);
+                            session(chatId).setInputStep(null);
+                            session(chatId).setBookData(null);
                     } else {
                         response = "Неверный жанр, выберите жанр из списка выше.";
                     }
                     break;
                 default:
                     response = "Неизвестная ошибка в процессе добавления книги.";
-                    userState.put(chatId, UserStates.DEFAULT);
+                    session(chatId).setState(UserStates.DEFAULT);
             }
         }
         return response;
@@ -802,7 +1060,7 @@ public class MessageHandling implements MessageHandlingInterface {
         String response;
 
         // Обрабатываем ввод в соответствии с текущим шагом
-        switch (bookInputSteps.get(chatId)) {
+        switch (session(chatId).getInputStep(BookInputStep.GENRE)) {
             case GENRE:
                 String[] validGenres = {"Драма", "Приключения", "Фэнтези", "Научная Фантастика", "История", "Ужасы", "Детектив", "Сказка", "Романтика"};
                 String userGenre = textMsg.trim();
@@ -810,22 +1068,23 @@ public class MessageHandling implements MessageHandlingInterface {
                 // Проверяем, что введенный жанр является допустимым
                 if (Arrays.asList(validGenres).contains(userGenre)) {
                     // Выполняем поиск книг по жанру в базе данных
-                    ArrayList<String> foundBooks = storage.searchBooksByGenre(userGenre);
+                    // Запрашиваем на одну книгу больше, чтобы узнать, показаны ли все книги
+                    ArrayList<RecommendedBook> foundBooks = storage.searchBooksByGenre(userGenre, SEARCH_BY_LIMIT + 1);
 
                     if (!foundBooks.isEmpty()) {
                         // Формируем ответ с найденными книгами
                         StringBuilder bookList = new StringBuilder("Найденные книги по жанру '" + userGenre + "':\n");
-                        for (String book : foundBooks) {
-                            bookList.append("- ").append(book).append("\n");
+                        for (RecommendedBook book : foundBooks.subList(0, Math.min(foundBooks.size(), SEARCH_BY_LIMIT))) {
+                            bookList.append("- ").append(book.title()).append(" от автора ").append(book.author()).append("\n");
                         }
-                        response = bookList.toString();
-                        userState.put(chatId, UserStates.DEFAULT);
-                        bookInputSteps.remove(chatId);
+                        response = bookList.append(moreHint(foundBooks.size())).toString();
+                        session(chatId).setState(UserStates.DEFAULT);
+                        session(chatId).setInputStep(null);
                     } else {
                         response = "Книг по указанному жанру не найдено.";
-                        userState.put(chatId, UserStates.DEFAULT);
+                        session(chatId).setState(UserStates.DEFAULT);
                         // Сбрасываем состояние поиска по жанру для данного чата
-                        bookInputSteps.remove(chatId);
+                        session(chatId).setInputStep(null);
                     }
 
                 } else {
@@ -834,15 +1093,28 @@ public class MessageHandling implements MessageHandlingInterface {
                 break;
             default:
                 response = "Неизвестная ошибка в процессе поиска по жанру.";
-                userState.put(chatId, UserStates.DEFAULT);
+                session(chatId).setState(UserStates.DEFAULT);
                 // Сбрасываем состояние поиска по жанру для данного чата
-                bookInputSteps.remove(chatId);
+                session(chatId).setInputStep(null);
         }
 
         return response;
     }
 
 
+    /**
+     * Возвращает подсказку для ответа на поиск по жанру или автору, если показаны не все найденные книги.
+     *
+     * @param found Количество книг, полученных из хранилища с запасом в одну книгу.
+     * @return Подсказка или пустая строка.
+     */
+    private static String moreHint(int found) {
+        return found > SEARCH_BY_LIMIT
+                ? "\nПоказаны первые " + SEARCH_BY_LIMIT + " книг, найдено больше. Уточните запрос через /search или откройте весь список /allrecommendbooks.\n"
+                : "";
+    }
+
+
     /**
      * Метод для обработки поиска книг по автору.
      *
@@ -854,38 +1126,64 @@ public class MessageHandling implements MessageHandlingInterface {
         String response;
 
         // Обрабатываем ввод в соответствии с текущим шагом
-        switch (bookInputSteps.get(chatId)) {
+        switch (session(chatId).getInputStep(BookInputStep.AUTHOR)) {
             case AUTHOR:
                 // Выполняем поиск книг по автору в базе данных
-                ArrayList<String> foundBooks = storage.searchBooksByAuthor(textMsg.trim());
+                ArrayList<RecommendedBook> foundBooks = storage.searchBooksByAuthor(textMsg.trim(), SEARCH_BY_LIMIT + 1);
 
                 if (!foundBooks.isEmpty()) {
                     // Формируем ответ с найденными книгами
                     StringBuilder bookList = new StringBuilder("Найденные книги автора '" + textMsg.trim() + "':\n");
-                    for (String book : foundBooks) {
-                        bookList.append("- ").append(book).append("\n");
+                    for (RecommendedBook book : foundBooks.subList(0, Math.min(foundBooks.size(), SEARCH_BY_LIMIT))) {
+                        bookList.append("- ").append(book.title()).append(" (жанр: ").append(book.genre()).append(")\n");
                     }
-                    response = bookList.toString();
-                    userState.put(chatId, UserStates.DEFAULT);
+                    response = bookList.append(moreHint(foundBooks.size())).toString();
+                    session(chatId).setState(UserStates.DEFAULT);
                 } else {
                     response = "Книг автора '" + textMsg.trim() + "' не найдено.";
-                    userState.put(chatId, UserStates.DEFAULT);
+                    session(chatId).setState(UserStates.DEFAULT);
                 }
 
                 // Сбрасываем состояние поиска по автору для данного чата
-                bookInputSteps.remove(chatId);
+                session(chatId).setInputStep(null);
                 break;
             default:
                 response = "Неизвестная ошибка в процессе поиска по автору.";
-                userState.put(chatId, UserStates.DEFAULT);
+                session(chatId).setState(UserStates.DEFAULT);
                 // Сбрасываем состояние поиска по автору для данного чата
-                bookInputSteps.remove(chatId);
+                session(chatId).setInputStep(null);
         }
 
         return response;
     }
 
 
+    /**
+     * Метод для обработки полнотекстового поиска рекомендованных книг по названию и автору.
+     *
+     * @param textMsg Входное текстовое сообщение от пользователя.
+     * @param chatId  Идентификатор чата.
+     * @return Сообщение-ответ на ввод пользователя.
+     */
+    private String handleSearch(String textMsg, long chatId) {
+        String response;
+        ArrayList<RecommendedBook> foundBooks = storage.searchRecBooks(textMsg.trim(), SEARCH_LIMIT);
+        if (!foundBooks.isEmpty()) {
+            // Формируем ответ с найденными книгами в порядке релевантности
+            StringBuilder bookList = new StringBuilder("Найденные книги по запросу '" + textMsg.trim() + "':\n");
+            for (RecommendedBook book : foundBooks) {
+                bookList.append("- ").append(book.title()).append(" от автора ").append(book.author())
+                        .append(" (жанр: ").append(book.genre()).append(")\n");
+            }
+            response = bookList.toString();
+        } else {
+            response = "По запросу '" + textMsg.trim() + "' ничего не найдено.";
+        }
+        session(chatId).setState(UserStates.DEFAULT);
+        return response;
+    }
+
+
     /**
      * Метод для обработки удаления рекомендованных книг.
      *
@@ -896,30 +1194,21 @@ public class MessageHandling implements MessageHandlingInterface {
     private String handleRemoveRecBook(String textMsg, long chatId) {
         String response;
         // Проверяем текущий шаг ввода для данного чата
-        BookInputStep currentStep = bookInputSteps.getOrDefault(chatId, BookInputStep.TITLE);
+        BookInputStep currentStep = session(chatId).getInputStep(BookInputStep.TITLE);
         // Если пользователь отправляет произвольное сообщение, предполагаем, что это номер книги
         if (currentStep == BookInputStep.TITLE) {
             try {
                 int bookNumber = Integer.parseInt(textMsg.trim());
-                ArrayList<String> readBooks = storage.getAllRecValues();
-                ArrayList<String> anotherreadBooks = storage.getRecBooks();
-                if (bookNumber >= 1 && bookNumber <= readBooks.size()) {
-
-                    String[] oldBookParts = readBooks.get(bookNumber - 1).split("\n");
-                    String oldTitle = oldBookParts[0];
-                    String oldAuthor = oldBookParts[1];
-                    String oldGenre = oldBookParts[2];
-                    long chatid = Long.parseLong(oldBookParts[3]);
+                RecommendedBook removedBook = findRecBook(bookNumber, chatId); //  получаем ее данные книги
+                if (removedBook != null) {
 
-                    String removedBook = anotherreadBooks.remove(bookNumber - 1); //  получаем ее данные книги
-                    storage.updateRecBooks(chatId, oldTitle,oldAuthor,oldGenre); // Обновляем список без удаленной книги
-
-                    if (chatId ==chatid) {
-                        userState.put(chatId, UserStates.DEFAULT);
-                        response = "Книга " + removedBook + " успешно удалена из списка!";
+                    if (chatId == removedBook.chatId()) {
+                        boolean removed = awaitDone(storage.updateRecBooks(chatId, removedBook.id())); // Обновляем список без удаленной книги
+                        session(chatId).setState(UserStates.DEFAULT);
+                        response = removed ? "Книга " + removedBook.title() + " успешно удалена из списка!" : WRITE_FAILED;
 
                     }else{
-                        userState.put(chatId, UserStates.DEFAULT);
+                        session(chatId).setState(UserStates.DEFAULT);
                         response = "Вы не можете удалить книгу, которую добавляли не вы";
                     }
 
@@ -930,16 +1219,154 @@ public class MessageHandling implements MessageHandlingInterface {
                 response = "Некорректный формат номера книги.";
             }
             // Сбрасываем состояние для данного чата
-            bookInputSteps.remove(chatId);
-            bookData.remove(chatId);
+            session(chatId).setInputStep(null);
+            session(chatId).setBookData(null);
         } else {
             response = "Неизвестная ошибка в процессе удаления книги.";
-            userState.put(chatId, UserStates.DEFAULT);
+            session(chatId).setState(UserStates.DEFAULT);
         }
 
         return response;
     }
 
+    /**
+     * Выводит текущую страницу списка, на который указывает курсор чата.
+     *
+     * @param cursor Курсор просмотра списка.
+     * @param chatId Идентификатор чата.
+     * @return Текст страницы с номерами книг и подсказкой для перехода между страницами.
+     */
+    private String showPage(PageCursor cursor, long chatId) {
+        ArrayList<String> titles = new ArrayList<>();
+        ArrayList<Long> ids = new ArrayList<>();
+        String header;
+        // Запрашиваем на одну книгу больше, чтобы узнать, есть ли следующая страница
+        if (cursor.getKind() == PageCursor.Kind.READ_BOOKS) {
+            header = "Прочитанные книги:\n";
+            for (ReadBook book : storage.getReadBooksPage(chatId, cursor.getAfterId(), PageCursor.PAGE_SIZE + 1)) {
+                titles.add(book.title());
+                ids.add(book.id());
+            }
+        } else {
+            header = "Рекомендованные пользователями книги:\n";
+            for (RecommendedBook book : storage.getRecBooksPage(cursor.getAfterId(), PageCursor.PAGE_SIZE + 1)) {
+                titles.add(book.title());
+                ids.add(book.id());
+            }
+        }
+        if (titles.isEmpty()) {
+            cursor.showed(new long[0], false);
+            if (cursor.getPageIndex() > 0) {
+                return "На этой странице больше нет книг. Нажмите /prev, чтобы вернуться назад.";
+            }
+            return cursor.getKind() == PageCursor.Kind.READ_BOOKS ? "Список прочитанных книг пуст." : "Список книг пуст.";
+        }
+        boolean hasNext = titles.size() > PageCursor.PAGE_SIZE;
+        int count = Math.min(titles.size(), PageCursor.PAGE_SIZE);
+        long[] shown = new long[count];
+        for (int i = 0; i < count; i++) {
+            shown[i] = ids.get(i);
+        }
+        cursor.showed(shown, hasNext);
+
+        StringBuilder responseBuilder = new StringBuilder(header);
+        for (int i = 0; i < count; i++) {
+            responseBuilder.append(cursor.firstNumber() + i).append(". ").append(titles.get(i)).append("\n");
+        }
+        if (hasNext || cursor.getPageIndex() > 0) {
+            responseBuilder.append("\nСтраница ").append(cursor.getPageIndex() + 1).append(".");
+            if (cursor.getPageIndex() > 0) {
+                responseBuilder.append(" /prev - предыдущая страница.");
+            }
+            if (hasNext) {
+                responseBuilder.append(" /next - следующая страница.");
+            }
+            responseBuilder.append("\n");
+        }
+        return responseBuilder.toString();
+    }
+
+
+    /**
+     * Формирует ответ на команду /stats.
+     *
+     * @param stats Статистика прочитанных книг чата.
+     * @return Итоги, количество книг по годам и самые читаемые авторы.
+     */
+    private static String formatStats(ReadingStats stats) {
+        if (stats.books() == 0) {
+            return "Список прочитанных книг пуст.";
+        }
+        StringBuilder response = new StringBuilder("Всего прочитано книг: ").append(stats.books())
+                .append(", авторов: ").append(stats.authors()).append(".\n\nКниг по годам:\n");
+        for (ReadingStats.YearCount year : stats.years()) {
+            response.append(year.year()).append(": ").append(year.books()).append("\n");
+        }
+        response.append("\nСамые читаемые авторы:\n");
+        int number = 1;
+        for (ReadingStats.AuthorCount author : stats.topAuthors()) {
+            response.append(number++).append(". ").append(author.author()).append(" - ").append(author.books()).append("\n");
+        }
+        return response.toString();
+    }
+
+
+    /**
+     * Находит прочитанную книгу по номеру, под которым она была показана в списке /getread.
+     *
+     * @param bookNumber Номер книги в списке.
+     * @param chatId     Идентификатор чата.
+     * @return Книга или {@code null}, если книга с таким номером не показывалась или уже удалена.
+     */
+    private ReadBook findReadBook(int bookNumber, long chatId) {
+        long id = shownId(PageCursor.Kind.READ_BOOKS, bookNumber, chatId);
+        return id < 0 ? null : readBookById(id, chatId);
+    }
+
+
+    /**
+     * Находит рекомендованную книгу по номеру, под которым она была показана в списке /allrecommendbooks.
+     *
+     * @param bookNumber Номер книги в списке.
+     * @param chatId     Идентификатор чата.
+     * @return Книга или {@code null}, если книга с таким номером не показывалась или уже удалена.
+     */
+    private RecommendedBook findRecBook(int bookNumber, long chatId) {
+        long id = shownId(PageCursor.Kind.RECOMMENDED_BOOKS, bookNumber, chatId);
+        if (id < 0) {
+            return null;
+        }
+        ArrayList<RecommendedBook> page = storage.getRecBooksPage(id - 1, 1);
+        return !page.isEmpty() && page.get(0).id() == id ? page.get(0) : null;
+    }
+
+
+    /**
+     * Возвращает идентификатор книги, показанной под номером в открытом списке чата.
+     *
+     * @param kind       Список, в котором ищется книга.
+     * @param bookNumber Номер книги в списке.
+     * @param chatId     Идентификатор чата.
+     * @return Идентификатор или -1, если книга с таким номером в этом списке не показывалась.
+     */
+    private long shownId(PageCursor.Kind kind, int bookNumber, long chatId) {
+        PageCursor cursor = session(chatId).getPageCursor();
+        return cursor != null && cursor.getKind() == kind ? cursor.idOf(bookNumber) : -1;
+    }
+
+
+    /**
+     * Находит прочитанную книгу чата по идентификатору.
+     *
+     * @param id     Идентификатор книги.
+     * @param chatId Идентификатор чата.
+     * @return Книга или {@code null}, если её нет в списке чата.
+     */
+    private ReadBook readBookById(long id, long chatId) {
+        ArrayList<ReadBook> page = storage.getReadBooksPage(chatId, id - 1, 1);
+        return !page.isEmpty() && page.get(0).id() == id ? page.get(0) : null;
+    }
+
     /**
      * устанавливает день окончания голосования
      */
@@ -0,0 +1,612 @@
+package org.example;
+
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiValidationException;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Планировщик исходящих сообщений с учётом ограничений Telegram.
+ * <p>
+ * Сообщения отправляются асинхронными запросами (executeAsync), поэтому поток обработки не ждёт Telegram.
+ * Общая скорость ограничена корзиной токенов (по умолчанию 30 сообщений в секунду), а сообщения одного
+ * чата отправляются не чаще интервала (по умолчанию раз в секунду) и строго по очереди: следующее
+ * сообщение чата уходит только после ответа на предыдущее. Ответ 429 повторяется через указанное
+ * Telegram время retry_after, сетевые ошибки и ошибки сервера - с экспоненциальной задержкой;
+ * остальные ошибки (например, бот заблокирован пользователем или запрос не прошёл проверку) не повторяются.
+ * <p>
+ * Очередь ограничена: сообщение сверх ёмкости отклоняется. Ответы пользователям
+ * ({@link Priority#INTERACTIVE}) отправляются раньше массовых рассылок ({@link Priority#BULK}),
+ * в том числе внутри одного чата.
+ * <p>
+ * Скорость задаётся переменными среды "outboundPerSecond" (по умолчанию 30), "outboundChatIntervalMs"
+ * (по умолчанию 1000) и "outboundQueueCapacity" (по умолчанию 10 000).
+ */
+class OutboundSender implements AutoCloseable {
+
+    /**
+     * Приоритет исходящего сообщения.
+     */
+    enum Priority {
+        /**
+         * Ответ на сообщение пользователя.
+         */
+        INTERACTIVE,
+
+        /**
+         * Массовая рассылка.
+         */
+        BULK
+    }
+
+    /**
+     * Общая скорость отправки по умолчанию, сообщений в секунду.
+     */
+    static final double DEFAULT_PER_SECOND = 30;
+
+    /**
+     * Интервал между сообщениями одного чата по умолчанию, в миллисекундах.
+     */
+    static final long DEFAULT_CHAT_INTERVAL_MILLIS = 1000;
+
+    /**
+     * Ёмкость очереди по умолчанию.
+     */
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Наибольшее количество попыток отправить сообщение.
+     */
+    static final int MAX_ATTEMPTS = 5;
+
+    /**
+     * Задержка перед первым повтором после сетевой ошибки или ошибки сервера, в миллисекундах.
+     */
+    private static final long BASE_BACKOFF_MILLIS = 1000;
+
+    /**
+     * Время, которое {@link #close()} ждёт отправки очереди, в миллисекундах.
+     */
+    private static final long CLOSE_TIMEOUT_MILLIS = 10_000;
+
+
+    /**
+     * Исходящее сообщение.
+     */
+    private static final class Outgoing {
+
+        /**
+         * Асинхронный запрос отправки.
+         */
+        final Supplier<CompletableFuture<?>> request;
+
+        /**
+         * Приоритет сообщения.
+         */
+        final Priority priority;
+
+        /**
+         * Порядковый номер постановки в очередь.
+         */
+        final long sequence;
+
+        /**
+         * Результат отправки.
+         */
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+
+        /**
+         * Количество сделанных попыток.
+         */
+        int attempts;
+
+        Outgoing(Supplier<CompletableFuture<?>> request, Priority priority, long sequence) {
+            this.request = request;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Очередь сообщений одного чата. Чат находится ровно в одном состоянии: ждёт времени отправки,
+     * готов к отправке или ждёт ответа на отправленное сообщение. Поля изменяются под общей блокировкой.
+     */
+    private static final class ChatQueue {
+
+        /**
+         * Идентификатор чата.
+         */
+        final long chatId;
+
+        /**
+         * Ответы пользователю.
+         */
+        final ArrayDeque<Outgoing> interactive = new ArrayDeque<>();
+
+        /**
+         * Сообщения рассылки.
+         */
+        final ArrayDeque<Outgoing> bulk = new ArrayDeque<>();
+
+        /**
+         * Время по {@link System#nanoTime()}, раньше которого чату нельзя отправлять.
+         */
+        long readyAt;
+
+        /**
+         * Флаг, что чат ждёт ответа на отправленное сообщение.
+         */
+        boolean inFlight;
+
+        /**
+         * Флаг, что чат в множестве ждущих времени отправки.
+         */
+        boolean waiting;
+
+        /**
+         * Флаг, что чат в множестве готовых к отправке.
+         */
+        boolean ready;
+
+        ChatQueue(long chatId) {
+            this.chatId = chatId;
+        }
+
+        Outgoing head() {
+            return !interactive.isEmpty() ? interactive.peekFirst() : bulk.peekFirst();
+        }
+
+        Outgoing poll() {
+            return !interactive.isEmpty() ? interactive.pollFirst() : bulk.pollFirst();
+        }
+
+        ArrayDeque<Outgoing> queueFor(Priority priority) {
+            return priority == Priority.INTERACTIVE ? interactive : bulk;
+        }
+
+        boolean isEmpty() {
+            return interactive.isEmpty() && bulk.isEmpty();
+        }
+    }
+
+
+    /**
+     * Блокировка состояния планировщика.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Условие, о котором сообщают постановка сообщения и ответ Telegram.
+     */
+    private final Condition changed = lock.newCondition();
+
+    /**
+     * Очереди чатов, у которых есть сообщения или не истёк интервал после последней отправки.
+     */
+    private final Map<Long, ChatQueue> chats = new HashMap<>();
+
+    /**
+     * Чаты, ждущие времени отправки, по времени готовности.
+     */
+    private final TreeSet<ChatQueue> waiting = new TreeSet<>(Comparator
+            .comparingLong((ChatQueue chat) -> chat.readyAt)
+            .thenComparingLong(chat -> chat.chatId));
+
+    /**
+     * Чаты, готовые к отправке, по приоритету и порядку постановки первого сообщения.
+     */
+    private final TreeSet<ChatQueue> ready = new TreeSet<>(Comparator
+            .comparing((ChatQueue chat) -> chat.head().priority)
+            .thenComparingLong(chat -> chat.head().sequence));
+
+    /**
+     * Общая скорость отправки, сообщений в секунду.
+     */
+    private final double perSecond;
+
+    /**
+     * Интервал между сообщениями одного чата в наносекундах.
+     */
+    private final long chatIntervalNanos;
+
+    /**
+     * Ёмкость очереди.
+     */
+    private final int capacity;
+
+    /**
+     * Поток планировщика.
+     */
+    private final Thread scheduler;
+
+    /**
+     * Токены общей корзины.
+     */
+    private double tokens;
+
+    /**
+     * Время последнего пополнения корзины по {@link System#nanoTime()}.
+     */
+    private long refilledAt = System.nanoTime();
+
+    /**
+     * Счётчик порядка постановки.
+     */
+    private long sequence;
+
+    /**
+     * Количество сообщений в очереди.
+     */
+    private int queued;
+
+    /**
+     * Количество чатов, ждущих ответа Telegram.
+     */
+    private int inFlight;
+
+    /**
+     * Количество отправленных сообщений.
+     */
+    private long sent;
+
+    /**
+     * Количество повторов.
+     */
+    private long retried;
+
+    /**
+     * Количество сообщений, которые не удалось отправить.
+     */
+    private long failed;
+
+    /**
+     * Количество сообщений, отклонённых из-за переполнения очереди.
+     */
+    private long rejected;
+
+    /**
+     * Флаг, что новые сообщения не принимаются.
+     */
+    private boolean closed;
+
+    /**
+     * Флаг, что планировщик остановлен.
+     */
+    private boolean stopped;
+
+
+    /**
+     * Конструктор класса. Запускает поток планировщика.
+     *
+     * @param perSecond          Общая скорость отправки, сообщений в секунду.
+     * @param chatIntervalMillis Интервал между сообщениями одного чата в миллисекундах.
+     * @param capacity           Ёмкость очереди.
+     */
+    OutboundSender(double perSecond, long chatIntervalMillis, int capacity) {
+        this.perSecond = perSecond;
+        this.chatIntervalNanos = TimeUnit.MILLISECONDS.toNanos(chatIntervalMillis);
+        this.capacity = capacity;
+        this.tokens = Math.max(1, perSecond);
+        scheduler = new Thread(this::run, "outbound-sender");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+
+    /**
+     * Создаёт планировщик с настройками из переменных среды "outboundPerSecond",
+     * "outboundChatIntervalMs" и "outboundQueueCapacity".
+     *
+     * @return Планировщик исходящих сообщений.
+     */
+    static OutboundSender fromEnvironment() {
+        String perSecond = System.getenv("outboundPerSecond");
+        String interval = System.getenv("outboundChatIntervalMs");
+        String capacity = System.getenv("outboundQueueCapacity");
+        return new OutboundSender(perSecond != null ? Double.parseDouble(perSecond) : DEFAULT_PER_SECOND,
+                interval != null ? Long.parseLong(interval) : DEFAULT_CHAT_INTERVAL_MILLIS,
+                capacity != null ? Integer.parseInt(capacity) : DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Ставит сообщение в очередь чата.
+     *
+     * @param chatId   Идентификатор чата.
+     * @param priority Приоритет сообщения.
+     * @param request  Асинхронный запрос отправки; вызывается заново при каждой попытке.
+     * @return Результат отправки: завершается после успешной попытки или с ошибкой последней попытки;
+     * при переполнении очереди - с {@link RejectedExecutionException}.
+     */
+    CompletableFuture<Void> send(long chatId, Priority priority, Supplier<CompletableFuture<?>> request) {
+        lock.lock();
+        try {
+            Outgoing message = new Outgoing(request, priority, sequence++);
+            if (closed || queued >= capacity) {
+                rejected++;
+                message.result.completeExceptionally(new RejectedExecutionException(closed
+                        ? "Отправка сообщений остановлена" : "Очередь исходящих сообщений переполнена"));
+                return message.result;
+            }
+            ChatQueue chat = chats.computeIfAbsent(chatId, ChatQueue::new);
+            if (chat.ready) {
+                // Сообщение может сменить первое сообщение чата, а с ним и место чата среди готовых
+                ready.remove(chat);
+                chat.queueFor(priority).addLast(message);
+                ready.add(chat);
+            } else {
+                chat.queueFor(priority).addLast(message);
+                if (!chat.inFlight && !chat.waiting) {
+                    chat.ready = true;
+                    ready.add(chat);
+                }
+            }
+            queued++;
+            changed.signalAll();
+            return message.result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Цикл планировщика: выбирает следующее сообщение и отправляет его.
+     */
+    private void run() {
+        while (true) {
+            ChatQueue chat;
+            Outgoing message;
+            lock.lock();
+            try {
+                chat = nextChat();
+                if (chat == null) {
+                    return;
+                }
+                message = chat.poll();
+                queued--;
+                message.attempts++;
+            } finally {
+                lock.unlock();
+            }
+            ChatQueue target = chat;
+            try {
+                message.request.get().whenComplete((ignored, e) -> complete(target, message, e));
+            } catch (RuntimeException e) {
+                complete(target, message, e);
+            }
+        }
+    }
+
+
+    /**
+     * Ждёт чата, готового к отправке, и свободного токена. Вызывается под блокировкой.
+     *
+     * @return Чат, отмеченный ждущим ответа, или {@code null}, если планировщик остановлен.
+     */
+    private ChatQueue nextChat() {
+        while (!stopped) {
+            long now = System.nanoTime();
+            while (!waiting.isEmpty() && waiting.first().readyAt - now <= 0) {
+                ChatQueue chat = waiting.pollFirst();
+                chat.waiting = false;
+                if (chat.isEmpty()) {
+                    chats.remove(chat.chatId);
+                } else {
+                    chat.ready = true;
+                    ready.add(chat);
+                }
+            }
+            long waitNanos = waiting.isEmpty() ? Long.MAX_VALUE : waiting.first().readyAt - now;
+            if (!ready.isEmpty()) {
+                tokens = Math.min(Math.max(1, perSecond), tokens + (now - refilledAt) * perSecond / 1e9);
+                refilledAt = now;
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    ChatQueue chat = ready.pollFirst();
+                    chat.ready = false;
+                    chat.inFlight = true;
+                    inFlight++;
+                    return chat;
+                }
+                waitNanos = Math.min(waitNanos, (long) Math.ceil((1 - tokens) * 1e9 / perSecond));
+            }
+            try {
+                if (waitNanos == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitNanos);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Обрабатывает ответ Telegram: завершает сообщение, возвращает его в начало очереди чата для повтора
+     * или завершает с ошибкой, и переводит чат в ожидание следующего интервала.
+     *
+     * @param chat    Чат.
+     * @param message Сообщение.
+     * @param error   Ошибка попытки или {@code null}.
+     */
+    private void complete(ChatQueue chat, Outgoing message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            long delay = chatIntervalNanos;
+            if (cause == null) {
+                sent++;
+                message.result.complete(null);
+            } else {
+                long retryNanos = message.attempts < MAX_ATTEMPTS && !stopped ? retryDelayNanos(cause, message.attempts) : -1;
+                if (retryNanos >= 0) {
+                    retried++;
+                    queued++;
+                    chat.queueFor(message.priority).addFirst(message);
+                    delay = Math.max(delay, retryNanos);
+                } else {
+                    failed++;
+                    cause.printStackTrace();
+                    message.result.completeExceptionally(cause);
+                }
+            }
+            chat.inFlight = false;
+            inFlight--;
+            chat.readyAt = now + delay;
+            chat.waiting = true;
+            waiting.add(chat);
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Возвращает задержку перед повтором попытки.
+     *
+     * @param cause    Ошибка попытки.
+     * @param attempts Количество сделанных попыток.
+     * @return Задержка в наносекундах или -1, если ошибку повторять бесполезно.
+     */
+    static long retryDelayNanos(Throwable cause, int attempts) {
+        if (cause instanceof TelegramApiRequestException request && request.getErrorCode() != null) {
+            int code = request.getErrorCode();
+            if (code == 429) {
+                Integer retryAfter = request.getParameters() != null ? request.getParameters().getRetryAfter() : null;
+                return TimeUnit.SECONDS.toNanos(retryAfter != null ? retryAfter : 1);
+            }
+            if (code < 500) {
+                return -1;
+            }
+        }
+        if (cause instanceof TelegramApiException && !(cause instanceof TelegramApiValidationException)) {
+            return TimeUnit.MILLISECONDS.toNanos(BASE_BACKOFF_MILLIS << Math.min(attempts - 1, 10));
+        }
+        return -1;
+    }
+
+
+    /**
+     * Возвращает количество сообщений в очереди, не считая ждущих ответа.
+     *
+     * @return Количество сообщений.
+     */
+    int getQueueDepth() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Возвращает количество отправленных сообщений.
+     *
+     * @return Количество сообщений.
+     */
+    long getSent() {
+        lock.lock();
+        try {
+            return sent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Возвращает количество повторных попыток.
+     *
+     * @return Количество попыток.
+     */
+    long getRetried() {
+        lock.lock();
+        try {
+            return retried;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Возвращает количество сообщений, которые не удалось отправить.
+     *
+     * @return Количество сообщений.
+     */
+    long getFailed() {
+        lock.lock();
+        try {
+            return failed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Возвращает количество сообщений, отклонённых из-за переполнения очереди.
+     *
+     * @return Количество сообщений.
+     */
+    long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+
+    /**
+     * Перестаёт принимать сообщения, ждёт отправки очереди и останавливает планировщик.
+     * Сообщения, не отправленные за время ожидания, завершаются с {@link RejectedExecutionException}.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CLOSE_TIMEOUT_MILLIS);
+            try {
+                while ((queued > 0 || inFlight > 0) && deadline - System.nanoTime() > 0) {
+                    changed.awaitNanos(deadline - System.nanoTime());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stopped = true;
+            for (ChatQueue chat : chats.values()) {
+                for (Outgoing message = chat.poll(); message != null; message = chat.poll()) {
+                    message.result.completeExceptionally(new RejectedExecutionException("Отправка сообщений остановлена"));
+                }
+            }
+            queued = 0;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
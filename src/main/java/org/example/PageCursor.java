@@ -0,0 +1,218 @@
+package org.example;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Курсор постраничного просмотра списка книг в чате.
+ * Страницы выбираются по ключу (keyset): для каждой просмотренной страницы запоминается идентификатор
+ * последней книги перед ней, и следующая страница запрашивается как книги с идентификатором больше этого значения.
+ * Для каждой просмотренной страницы запоминаются и идентификаторы показанных книг, поэтому номер, который
+ * пользователь видел в списке, указывает на ту же книгу, даже если список с тех пор изменился.
+ */
+public class PageCursor {
+
+    /**
+     * Список, который просматривается в чате.
+     */
+    public enum Kind {
+        READ_BOOKS, RECOMMENDED_BOOKS
+    }
+
+
+    /**
+     * Количество книг на одной странице.
+     */
+    public static final int PAGE_SIZE = 20;
+
+
+    /**
+     * Просматриваемый список.
+     */
+    private final Kind kind;
+
+    /**
+     * Идентификаторы книг, после которых начинаются просмотренные страницы; последний элемент относится к текущей странице.
+     */
+    private final ArrayList<Long> pageStarts = new ArrayList<>();
+
+    /**
+     * Идентификаторы книг, показанных на просмотренных страницах, в порядке их номеров.
+     */
+    private final ArrayList<long[]> pageIds = new ArrayList<>();
+
+    /**
+     * Идентификатор последней книги текущей страницы.
+     */
+    private long lastId;
+
+    /**
+     * Есть ли книги после текущей страницы.
+     */
+    private boolean hasNext;
+
+
+    /**
+     * Конструктор класса. Курсор указывает на первую страницу списка.
+     *
+     * @param kind Просматриваемый список.
+     */
+    public PageCursor(Kind kind) {
+        this.kind = kind;
+        pageStarts.add(0L);
+        pageIds.add(new long[0]);
+    }
+
+
+    /**
+     * Возвращает просматриваемый список.
+     *
+     * @return Вид списка.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+
+    /**
+     * Возвращает номер текущей страницы, начиная с нуля.
+     *
+     * @return Номер страницы.
+     */
+    public int getPageIndex() {
+        return pageStarts.size() - 1;
+    }
+
+
+    /**
+     * Возвращает идентификатор книги, после которой начинается текущая страница.
+     *
+     * @return Идентификатор или 0 для первой страницы.
+     */
+    public long getAfterId() {
+        return pageStarts.get(getPageIndex());
+    }
+
+
+    /**
+     * Возвращает идентификатор книги, показанной в списке под указанным номером.
+     *
+     * @param number Номер книги в списке, начиная с единицы.
+     * @return Идентификатор или -1, если книга с таким номером на просмотренных страницах не показывалась.
+     */
+    public long idOf(int number) {
+        if (number < 1) {
+            return -1;
+        }
+        int pageIndex = (number - 1) / PAGE_SIZE;
+        int offset = (number - 1) % PAGE_SIZE;
+        if (pageIndex >= pageIds.size() || offset >= pageIds.get(pageIndex).length) {
+            return -1;
+        }
+        return pageIds.get(pageIndex)[offset];
+    }
+
+
+    /**
+     * Запоминает результат вывода текущей страницы.
+     *
+     * @param ids     Идентификаторы показанных книг в порядке их номеров.
+     * @param hasNext Есть ли книги после этой страницы.
+     */
+    public void showed(long[] ids, boolean hasNext) {
+        pageIds.set(getPageIndex(), ids);
+        if (ids.length > 0) {
+            lastId = ids[ids.length - 1];
+        }
+        this.hasNext = hasNext;
+    }
+
+
+    /**
+     * Переходит к следующей странице.
+     *
+     * @return {@code true}, если следующая страница есть.
+     */
+    public boolean next() {
+        if (!hasNext) {
+            return false;
+        }
+        pageStarts.add(lastId);
+        pageIds.add(new long[0]);
+        return true;
+    }
+
+
+    /**
+     * Возвращается к предыдущей странице.
+     *
+     * @return {@code true}, если текущая страница не первая.
+     */
+    public boolean prev() {
+        if (getPageIndex() == 0) {
+            return false;
+        }
+        pageIds.remove(getPageIndex());
+        pageStarts.remove(getPageIndex());
+        return true;
+    }
+
+
+    /**
+     * Записывает положение курсора.
+     *
+     * @param out Поток для записи.
+     * @throws IOException Если курсор не удалось записать.
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeByte(kind.ordinal());
+        out.writeInt(pageStarts.size());
+        for (int i = 0; i < pageStarts.size(); i++) {
+            out.writeLong(pageStarts.get(i));
+            out.writeInt(pageIds.get(i).length);
+            for (long id : pageIds.get(i)) {
+                out.writeLong(id);
+            }
+        }
+        out.writeLong(lastId);
+        out.writeBoolean(hasNext);
+    }
+
+
+    /**
+     * Читает курсор, записанный {@link #writeTo(DataOutput)}.
+     *
+     * @param in Поток для чтения.
+     * @return Восстановленный курсор.
+     * @throws IOException Если курсор не удалось прочитать.
+     */
+    public static PageCursor readFrom(DataInput in) throws IOException {
+        PageCursor cursor = new PageCursor(Kind.values()[in.readByte()]);
+        cursor.pageStarts.clear();
+        cursor.pageIds.clear();
+        int pages = in.readInt();
+        for (int i = 0; i < pages; i++) {
+            cursor.pageStarts.add(in.readLong());
+            long[] ids = new long[in.readInt()];
+            for (int j = 0; j < ids.length; j++) {
+                ids[j] = in.readLong();
+            }
+            cursor.pageIds.add(ids);
+        }
+        cursor.lastId = in.readLong();
+        cursor.hasNext = in.readBoolean();
+        return cursor;
+    }
+
+
+    /**
+     * Возвращает номер в списке, с которого нумеруются книги текущей страницы.
+     *
+     * @return Номер первой книги страницы.
+     */
+    public int firstNumber() {
+        return getPageIndex() * PAGE_SIZE + 1;
+    }
+}
@@ -0,0 +1,229 @@
+package org.example;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Соединение из пула {@link ConnectionPool} с кэшем подготовленных запросов.
+ * Запросы кэшируются по тексту SQL, поэтому каждый запрос разбирается один раз на соединение.
+ * Объект не потокобезопасен: им пользуется только тот поток, который получил его из пула.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    /**
+     * Максимальное количество подготовленных запросов в кэше одного соединения.
+     */
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+
+    /**
+     * Пул, которому принадлежит соединение.
+     */
+    private final ConnectionPool pool;
+
+
+    /**
+     * Соединение с базой данных.
+     */
+    private final Connection connection;
+
+
+    /**
+     * Кэш подготовленных запросов по тексту SQL, вытесняющий давно не использованные запросы.
+     */
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() > STATEMENT_CACHE_SIZE) {
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param pool       Пул, которому принадлежит соединение.
+     * @param connection Соединение с базой данных.
+     */
+    PooledConnection(ConnectionPool pool, Connection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+
+    /**
+     * Возвращает подготовленный запрос из кэша или подготавливает новый.
+     * Параметры запроса из кэша очищены. Закрывать запрос не нужно: им владеет соединение.
+     *
+     * @param sql Текст SQL-запроса.
+     * @return Подготовленный запрос.
+     * @throws SQLException Если запрос не удалось подготовить.
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            SlowQueryLog slowQueryLog = pool.getSlowQueryLog();
+            if (slowQueryLog != null) {
+                statement = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, new TimedStatement(statement, sql, slowQueryLog));
+            }
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+
+    /**
+     * Возвращает соединение с базой данных, например для управления транзакцией.
+     *
+     * @return Соединение с базой данных.
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+
+    /**
+     * Возвращает соединение в пул.
+     */
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+
+    /**
+     * Закрывает все подготовленные запросы и само соединение.
+     */
+    void closePhysically() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Обёртка подготовленного запроса, измеряющая время выполнения.
+     * Запоминает типы параметров (но не значения) и размер пачки, чтобы журнал показывал форму запроса.
+     * Время чтения строк результата после executeQuery не учитывается.
+     */
+    private static final class TimedStatement implements InvocationHandler {
+
+        /**
+         * Исходный запрос.
+         */
+        private final PreparedStatement statement;
+
+        /**
+         * Текст SQL.
+         */
+        private final String sql;
+
+        /**
+         * Журнал медленных запросов.
+         */
+        private final SlowQueryLog slowQueryLog;
+
+        /**
+         * Типы параметров по номерам, начиная с 1.
+         */
+        private final ArrayList<String> binds = new ArrayList<>();
+
+        /**
+         * Количество запросов в текущей пачке.
+         */
+        private int batch;
+
+
+        TimedStatement(PreparedStatement statement, String sql, SlowQueryLog slowQueryLog) {
+            this.statement = statement;
+            this.sql = sql;
+            this.slowQueryLog = slowQueryLog;
+        }
+
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                long start = System.nanoTime();
+                try {
+                    Object result = method.invoke(statement, args);
+                    long elapsed = System.nanoTime() - start;
+                    if (slowQueryLog.isSlow(elapsed)) {
+                        slowQueryLog.slow(sql, shape(), elapsed);
+                    }
+                    return result;
+                } catch (InvocationTargetException e) {
+                    slowQueryLog.failed(sql, shape(), System.nanoTime() - start, e.getCause());
+                    throw e.getCause();
+                } finally {
+                    if (name.equals("executeBatch")) {
+                        batch = 0;
+                    }
+                }
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                while (binds.size() < index) {
+                    binds.add("?");
+                }
+                binds.set(index - 1, name.substring("set".length()));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (name.equals("addBatch") && args == null) {
+                batch++;
+            } else if (name.equals("clearBatch")) {
+                batch = 0;
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+
+        /**
+         * Возвращает форму параметров, например "(Long, String) x 500".
+         */
+        private String shape() {
+            String shape = "(" + String.join(", ", binds) + ")";
+            return batch > 0 ? shape + " x " + batch : shape;
+        }
+    }
+
+
+    /**
+     * Закрывает запрос, печатая ошибку, если она возникла.
+     *
+     * @param statement Закрываемый запрос.
+     */
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Набор цитат, из которого бот выдаёт случайную цитату по команде /get.
+ * Если переменная среды "quoteCorpus" указывает на файл, собранный {@link QuoteCorpusBuilder},
+ * цитаты берутся из отображённого в память {@link QuoteCorpus}; иначе используется встроенный набор.
+ */
+public class QuoteBook {
+
+    /**
+     * Встроенные цитаты: текст и автор.
+     */
+    private static final String[][] BUILT_IN = {
+            {"Начинать всегда стоит с того, что сеет сомнения.", "Борис Стругацкий"},
+            {"80% успеха - это появиться в нужном месте в нужное время.", "Вуди Аллен"},
+            {"Мы должны признать очевидное: понимают лишь те,кто хочет понять.", "Бернар Вербер"}
+    };
+
+
+    /**
+     * Корпус цитат или {@code null}, если используется встроенный набор.
+     */
+    final private QuoteCorpus corpus;
+
+
+    /**
+     * Конструктор класса. Открывает корпус из переменной среды "quoteCorpus", если она задана.
+     */
+    public QuoteBook() {
+        this(openCorpus(System.getenv("quoteCorpus")));
+    }
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param corpus Корпус цитат или {@code null} для встроенного набора.
+     */
+    public QuoteBook(QuoteCorpus corpus) {
+        this.corpus = corpus;
+    }
+
+
+    /**
+     * Открывает корпус цитат.
+     *
+     * @param path Путь к файлу корпуса или {@code null}.
+     * @return Корпус или {@code null}, если путь не задан или файл не удалось открыть.
+     */
+    private static QuoteCorpus openCorpus(String path) {
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        try {
+            return new QuoteCorpus(Path.of(path));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+
+    /**
+     * Метод для получения произвольной цитаты.
+     */
+    public String getRandQuote()
+    {
+        if (corpus != null && corpus.size() > 0) {
+            return corpus.getRandQuote();
+        }
+        String[] quote = BUILT_IN[ThreadLocalRandom.current().nextInt(BUILT_IN.length)];
+        return format(quote[0], quote[1]);
+    }
+
+
+    /**
+     * Метод для получения произвольной цитаты указанного автора.
+     *
+     * @param author Имя автора; регистр, «ё» и лишние пробелы не учитываются.
+     * @return Цитата или {@code null}, если цитат автора нет.
+     */
+    public String getRandQuote(String author)
+    {
+        if (corpus != null) {
+            return corpus.getRandQuote(author);
+        }
+        String key = AuthorKey.of(author);
+        for (String[] quote : BUILT_IN) {
+            if (AuthorKey.of(quote[1]).equals(key)) {
+                return format(quote[0], quote[1]);
+            }
+        }
+        return null;
+    }
+
+
+    /**
+     * Оформляет цитату для ответа бота.
+     */
+    private static String format(String text, String author) {
+        return "Цитата: " + text + "\n\n" + author;
+    }
+}
@@ -0,0 +1,261 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Корпус цитат в упакованном файле, отображённом в память.
+ * Цитаты не загружаются в кучу: случайная цитата - это чтение двух смещений из индекса
+ * и декодирование одного фрагмента UTF-8.
+ *
+ * <p>Формат файла (числа big-endian), собирается {@link QuoteCorpusBuilder}:
+ * <pre>
+ * int MAGIC, int VERSION, int quoteCount, int authorCount
+ * int[quoteCount + 1]  смещения цитат от начала текста; цитата i занимает [offset[i], offset[i + 1])
+ * authorCount записей: int nameOffset, int nameLength, int keyLength, int firstQuote, int quoteCount
+ * текст: цитаты в UTF-8, сгруппированные по авторам, затем имена авторов, каждое со своим ключом сразу после имени
+ * </pre>
+ * Записи авторов упорядочены по байтам ключа {@link AuthorKey#of(String)} в UTF-8, а цитаты каждого автора идут подряд,
+ * поэтому выбор по автору - двоичный поиск по таблице авторов без декодирования строк
+ * и случайный номер внутри его диапазона.
+ */
+public class QuoteCorpus {
+
+    /**
+     * Признак файла корпуса.
+     */
+    static final int MAGIC = 0x51554F54;
+
+    /**
+     * Версия формата.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Размер заголовка в байтах.
+     */
+    static final int HEADER_SIZE = 16;
+
+    /**
+     * Размер записи автора в байтах.
+     */
+    static final int AUTHOR_ENTRY_SIZE = 20;
+
+
+    /**
+     * Отображённый файл. Используются только чтения по абсолютной позиции, поэтому буфер можно читать из нескольких потоков.
+     */
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Количество цитат.
+     */
+    private final int quoteCount;
+
+    /**
+     * Количество авторов.
+     */
+    private final int authorCount;
+
+    /**
+     * Позиция таблицы авторов.
+     */
+    private final int authorsStart;
+
+    /**
+     * Позиция начала текста.
+     */
+    private final int textStart;
+
+
+    /**
+     * Конструктор класса. Отображает файл корпуса в память.
+     *
+     * @param file Файл, собранный {@link QuoteCorpusBuilder}.
+     * @throws IOException Если файл не удалось прочитать или его формат неизвестен.
+     */
+    public QuoteCorpus(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Файл корпуса больше 2 ГБ: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Неизвестный формат корпуса цитат " + file);
+        }
+        quoteCount = buffer.getInt(8);
+        authorCount = buffer.getInt(12);
+        authorsStart = HEADER_SIZE + 4 * (quoteCount + 1);
+        textStart = authorsStart + AUTHOR_ENTRY_SIZE * authorCount;
+    }
+
+
+    /**
+     * Возвращает количество цитат.
+     *
+     * @return Количество цитат.
+     */
+    public int size() {
+        return quoteCount;
+    }
+
+
+    /**
+     * Возвращает количество авторов.
+     *
+     * @return Количество авторов.
+     */
+    public int authorCount() {
+        return authorCount;
+    }
+
+
+    /**
+     * Возвращает цитату по номеру в формате ответа бота.
+     *
+     * @param index Номер цитаты от 0 до {@link #size()} - 1.
+     * @return Цитата с подписью автора.
+     */
+    public String getQuote(int index) {
+        if (index < 0 || index >= quoteCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int start = buffer.getInt(HEADER_SIZE + 4 * index);
+        int end = buffer.getInt(HEADER_SIZE + 4 * (index + 1));
+        return "Цитата: " + decode(start, end - start) + "\n\n" + authorName(authorOf(index));
+    }
+
+
+    /**
+     * Возвращает случайную цитату.
+     *
+     * @return Цитата или {@code null}, если корпус пуст.
+     */
+    public String getRandQuote() {
+        if (quoteCount == 0) {
+            return null;
+        }
+        return getQuote(ThreadLocalRandom.current().nextInt(quoteCount));
+    }
+
+
+    /**
+     * Возвращает случайную цитату указанного автора. Имя сравнивается без учёта регистра, «ё» и лишних пробелов.
+     *
+     * @param author Имя автора.
+     * @return Цитата или {@code null}, если цитат автора нет.
+     */
+    public String getRandQuote(String author) {
+        int entry = findAuthor(AuthorKey.of(author));
+        if (entry < 0) {
+            return null;
+        }
+        int first = authorField(entry, 3);
+        int count = authorField(entry, 4);
+        return getQuote(first + ThreadLocalRandom.current().nextInt(count));
+    }
+
+
+    /**
+     * Ищет запись автора двоичным поиском по ключу.
+     *
+     * @param key Ключ автора.
+     * @return Номер записи или -1.
+     */
+    private int findAuthor(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = authorCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = compareKey(middle, keyBytes);
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Находит запись автора, в диапазон которой входит цитата.
+     *
+     * @param index Номер цитаты.
+     * @return Номер записи автора.
+     */
+    private int authorOf(int index) {
+        int low = 0;
+        int high = authorCount - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (authorField(middle, 3) <= index) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+
+    /**
+     * Сравнивает ключ автора в записи с искомым ключом побайтово, как беззнаковые числа.
+     *
+     * @param entry Номер записи.
+     * @param key   Искомый ключ в UTF-8.
+     * @return Отрицательное число, ноль или положительное число, как у {@link Comparable#compareTo}.
+     */
+    private int compareKey(int entry, byte[] key) {
+        int position = textStart + authorField(entry, 0) + authorField(entry, 1);
+        int length = authorField(entry, 2);
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int compare = Byte.toUnsignedInt(buffer.get(position + i)) - Byte.toUnsignedInt(key[i]);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return length - key.length;
+    }
+
+
+    /**
+     * Возвращает имя автора из записи.
+     */
+    private String authorName(int entry) {
+        return decode(authorField(entry, 0), authorField(entry, 1));
+    }
+
+
+    /**
+     * Читает поле записи автора.
+     *
+     * @param entry Номер записи.
+     * @param field Номер поля: 0 - смещение имени, 1 - длина имени, 2 - длина ключа, 3 - первая цитата, 4 - количество цитат.
+     */
+    private int authorField(int entry, int field) {
+        return buffer.getInt(authorsStart + AUTHOR_ENTRY_SIZE * entry + 4 * field);
+    }
+
+
+    /**
+     * Декодирует фрагмент текста.
+     *
+     * @param offset Смещение от начала текста.
+     * @param length Длина в байтах.
+     */
+    private String decode(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(textStart + offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сборка упакованного файла {@link QuoteCorpus} из текстового источника.
+ * Источник - текст в UTF-8, по одной цитате в строке: «Автор&lt;TAB&gt;Текст»; перевод строки внутри цитаты
+ * записывается как \n. Пустые строки и строки без табуляции пропускаются.
+ *
+ * <p>Источник читается дважды: первый проход считает цитаты и байты по авторам, второй раскладывает
+ * цитаты по уже известным местам в отображённом выходном файле. В памяти хранятся только счётчики авторов,
+ * поэтому размер источника ограничен лишь форматом (до 2 ГБ).
+ *
+ * <p>Запуск: {@code java -cp <classpath> org.example.QuoteCorpusBuilder quotes.txt quotes.bin}
+ */
+public final class QuoteCorpusBuilder {
+
+    /**
+     * Сведения об авторе, собранные при первом проходе.
+     */
+    private static final class Author {
+
+        /**
+         * Имя в том виде, в котором оно впервые встретилось в источнике.
+         */
+        final String name;
+
+        /**
+         * Имя в UTF-8.
+         */
+        final byte[] nameBytes;
+
+        /**
+         * Ключ автора в UTF-8.
+         */
+        final byte[] keyBytes;
+
+        /**
+         * Количество цитат.
+         */
+        int quotes;
+
+        /**
+         * Суммарный размер цитат в байтах.
+         */
+        long bytes;
+
+        /**
+         * Номер первой цитаты автора в корпусе.
+         */
+        int firstQuote;
+
+        /**
+         * Количество уже записанных цитат во втором проходе.
+         */
+        int written;
+
+        /**
+         * Смещение следующей цитаты во втором проходе.
+         */
+        long nextByte;
+
+        Author(String name, String key) {
+            this.name = name;
+            this.nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            this.keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+
+    private QuoteCorpusBuilder() {
+    }
+
+
+    /**
+     * Собирает корпус из источника, указанного первым аргументом, в файл, указанный вторым.
+     *
+     * @param args Путь к источнику и путь к выходному файлу.
+     * @throws IOException Если источник не удалось прочитать или файл записать.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Использование: QuoteCorpusBuilder <источник.txt> <корпус.bin>");
+            System.exit(2);
+        }
+        int count = build(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Записано цитат: " + count);
+    }
+
+
+    /**
+     * Собирает корпус.
+     *
+     * @param source Текстовый источник.
+     * @param target Выходной файл.
+     * @return Количество записанных цитат.
+     * @throws IOException Если источник не удалось прочитать, файл записать или корпус больше 2 ГБ.
+     */
+    public static int build(Path source, Path target) throws IOException {
+        Map<String, Author> authors = new HashMap<>();
+        long quoteCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                String name = line.substring(0, tab).trim().replaceAll("\\s+", " ");
+                Author author = authors.computeIfAbsent(AuthorKey.of(name), key -> new Author(name, key));
+                author.quotes++;
+                author.bytes += text(line, tab).length;
+                quoteCount++;
+            }
+        }
+
+        // Авторы упорядочены по байтам ключа, цитаты каждого автора занимают непрерывный диапазон
+        List<Author> sorted = new ArrayList<>(authors.values());
+        sorted.sort((left, right) -> Arrays.compareUnsigned(left.keyBytes, right.keyBytes));
+        int quoteNumber = 0;
+        long textSize = 0;
+        for (Author author : sorted) {
+            author.firstQuote = quoteNumber;
+            author.nextByte = textSize;
+            quoteNumber += author.quotes;
+            textSize += author.bytes;
+        }
+        long namesStart = textSize;
+        for (Author author : sorted) {
+            textSize += author.nameBytes.length + author.keyBytes.length;
+        }
+        long textStart = QuoteCorpus.HEADER_SIZE + 4 * (quoteCount + 1) + (long) QuoteCorpus.AUTHOR_ENTRY_SIZE * sorted.size();
+        long fileSize = textStart + textSize;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Корпус получается больше 2 ГБ: " + fileSize + " байт");
+        }
+
+        Files.deleteIfExists(target);
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            out.putInt(0, QuoteCorpus.MAGIC);
+            out.putInt(4, QuoteCorpus.VERSION);
+            out.putInt(8, (int) quoteCount);
+            out.putInt(12, sorted.size());
+            out.putInt(QuoteCorpus.HEADER_SIZE + 4 * (int) quoteCount, (int) namesStart);
+            int authorsStart = QuoteCorpus.HEADER_SIZE + 4 * ((int) quoteCount + 1);
+            long nameOffset = namesStart;
+            for (int i = 0; i < sorted.size(); i++) {
+                Author author = sorted.get(i);
+                int position = authorsStart + QuoteCorpus.AUTHOR_ENTRY_SIZE * i;
+                out.putInt(position, (int) nameOffset);
+                out.putInt(position + 4, author.nameBytes.length);
+                out.putInt(position + 8, author.keyBytes.length);
+                out.putInt(position + 12, author.firstQuote);
+                out.putInt(position + 16, author.quotes);
+                out.put((int) (textStart + nameOffset), author.nameBytes);
+                out.put((int) (textStart + nameOffset + author.nameBytes.length), author.keyBytes);
+                nameOffset += author.nameBytes.length + author.keyBytes.length;
+            }
+
+            try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int tab = line.indexOf('\t');
+                    if (tab <= 0) {
+                        continue;
+                    }
+                    Author author = authors.get(AuthorKey.of(line.substring(0, tab)));
+                    byte[] text = text(line, tab);
+                    int index = author.firstQuote + author.written++;
+                    out.putInt(QuoteCorpus.HEADER_SIZE + 4 * index, (int) author.nextByte);
+                    out.put((int) (textStart + author.nextByte), text);
+                    author.nextByte += text.length;
+                }
+            }
+            out.force();
+        }
+        return (int) quoteCount;
+    }
+
+
+    /**
+     * Возвращает текст цитаты из строки источника в UTF-8.
+     */
+    private static byte[] text(String line, int tab) {
+        return line.substring(tab + 1).trim().replace("\\n", "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example;
+
+/**
+ * Строка списка прочитанных книг.
+ *
+ * @param id     Уникальный идентификатор строки в хранилище.
+ * @param title  Название книги.
+ * @param author Автор книги.
+ * @param year   Год прочтения.
+ * @param chatId Идентификатор чата, которому принадлежит книга.
+ */
+public record ReadBook(long id, String title, String author, int year, long chatId) {
+}
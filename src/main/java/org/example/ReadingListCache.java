@@ -0,0 +1,395 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ограниченный кэш списков прочитанных книг по чатам и их страниц, которые бот показывает
+ * при листании списка.
+ * Размер кэша ограничен суммарным «весом» записей (примерно количеством символов в строках списков),
+ * при переполнении вытесняются списки чатов, к которым дольше всего не обращались.
+ */
+public class ReadingListCache {
+
+    /**
+     * Вес записи кэша без учёта строк списка.
+     */
+    private static final long ENTRY_OVERHEAD = 64;
+
+    /**
+     * Вес одной книги без учёта её строк.
+     */
+    private static final long ROW_OVERHEAD = 16;
+
+
+    /**
+     * Закэшированная страница списка.
+     *
+     * @param limit Размер страницы, с которым она загружена.
+     * @param books Книги страницы; если их меньше размера, это последняя страница списка.
+     */
+    private record Page(int limit, ArrayList<ReadBook> books) {
+    }
+
+
+    /**
+     * Закэшированный список чата. Каждое представление списка загружается отдельно, по первому запросу.
+     */
+    static final class Entry {
+
+        /**
+         * Названия прочитанных книг или {@code null}, если ещё не загружены.
+         */
+        private ArrayList<String> titles;
+
+        /**
+         * Книги в полном формате или {@code null}, если ещё не загружены.
+         */
+        private ArrayList<ReadBook> allValues;
+
+        /**
+         * Страницы списка по идентификатору книги, после которой начинается страница.
+         */
+        private final HashMap<Long, Page> pages = new HashMap<>();
+
+        /**
+         * Текущий вес записи.
+         */
+        private long weight = ENTRY_OVERHEAD;
+    }
+
+
+    /**
+     * Максимальный суммарный вес записей.
+     */
+    private final long maxWeight;
+
+    /**
+     * Записи кэша в порядке последнего обращения.
+     */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Текущий суммарный вес записей.
+     */
+    private long weight;
+
+    /**
+     * Счётчик инвалидаций. Загрузка, во время которой произошла инвалидация, не попадает в кэш.
+     */
+    private long invalidations;
+
+    /**
+     * Количество попаданий в кэш.
+     */
+    private long hits;
+
+    /**
+     * Количество промахов кэша.
+     */
+    private long misses;
+
+    /**
+     * Количество вытесненных записей.
+     */
+    private long evictions;
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param maxWeight Максимальный суммарный вес записей в символах.
+     */
+    public ReadingListCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+
+    /**
+     * Возвращает закэшированные названия книг чата.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Копия списка или {@code null}, если его нет в кэше.
+     */
+    public synchronized ArrayList<String> getTitles(long chatId) {
+        Entry entry = entries.get(chatId);
+        return count(entry == null ? null : entry.titles);
+    }
+
+
+    /**
+     * Возвращает закэшированные книги чата в полном формате.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Копия списка или {@code null}, если его нет в кэше.
+     */
+    public synchronized ArrayList<ReadBook> getAllValues(long chatId) {
+        Entry entry = entries.get(chatId);
+        return count(entry == null ? null : entry.allValues);
+    }
+
+
+    /**
+     * Возвращает закэшированную страницу списка чата. Страница подходит и тогда, когда она загружена
+     * с большим размером или оказалась последней: нужная страница - её начало.
+     *
+     * @param chatId  Идентификатор чата.
+     * @param afterId Идентификатор книги, после которой начинается страница.
+     * @param limit   Размер страницы.
+     * @return Копия страницы или {@code null}, если её нет в кэше.
+     */
+    public synchronized ArrayList<ReadBook> getPage(long chatId, long afterId, int limit) {
+        Entry entry = entries.get(chatId);
+        Page page = entry == null ? null : entry.pages.get(afterId);
+        if (page == null || page.limit() < limit && page.books().size() == page.limit()) {
+            return count(null);
+        }
+        return count(new ArrayList<>(page.books().subList(0, Math.min(limit, page.books().size()))));
+    }
+
+
+    /**
+     * Учитывает попадание или промах и возвращает копию списка, чтобы вызывающий код не менял кэш.
+     *
+     * @param list Закэшированный список или {@code null}.
+     * @return Копия списка или {@code null}.
+     */
+    private <T> ArrayList<T> count(ArrayList<T> list) {
+        if (list == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return new ArrayList<>(list);
+    }
+
+
+    /**
+     * Возвращает метку для начала загрузки из хранилища.
+     *
+     * @return Метка, которую нужно передать в метод сохранения загруженного списка.
+     */
+    public synchronized long beginLoad() {
+        return invalidations;
+    }
+
+
+    /**
+     * Сохраняет загруженные названия книг, если с начала загрузки не было инвалидаций.
+     *
+     * @param chatId Идентификатор чата.
+     * @param stamp  Метка, полученная от {@link #beginLoad()}.
+     * @param titles Загруженный список.
+     */
+    public synchronized void putTitles(long chatId, long stamp, List<String> titles) {
+        if (stamp == invalidations) {
+            Entry entry = entryFor(chatId);
+            replace(entry, weighTitles(entry.titles), weighTitles(titles));
+            entry.titles = new ArrayList<>(titles);
+            evict();
+        }
+    }
+
+
+    /**
+     * Сохраняет загруженные книги в полном формате, если с начала загрузки не было инвалидаций.
+     *
+     * @param chatId    Идентификатор чата.
+     * @param stamp     Метка, полученная от {@link #beginLoad()}.
+     * @param allValues Загруженный список.
+     */
+    public synchronized void putAllValues(long chatId, long stamp, List<ReadBook> allValues) {
+        if (stamp == invalidations) {
+            Entry entry = entryFor(chatId);
+            replace(entry, weighBooks(entry.allValues), weighBooks(allValues));
+            entry.allValues = new ArrayList<>(allValues);
+            evict();
+        }
+    }
+
+
+    /**
+     * Сохраняет загруженную страницу, если с начала загрузки не было инвалидаций.
+     * Страница, загруженная с меньшим размером, не заменяет уже закэшированную.
+     *
+     * @param chatId  Идентификатор чата.
+     * @param stamp   Метка, полученная от {@link #beginLoad()}.
+     * @param afterId Идентификатор книги, после которой начинается страница.
+     * @param limit   Размер страницы, с которым она загружена.
+     * @param books   Книги страницы.
+     */
+    public synchronized void putPage(long chatId, long stamp, long afterId, int limit, List<ReadBook> books) {
+        if (stamp == invalidations) {
+            Entry entry = entryFor(chatId);
+            Page previous = entry.pages.get(afterId);
+            if (previous != null && previous.limit() >= limit) {
+                return;
+            }
+            replace(entry, previous == null ? 0 : ENTRY_OVERHEAD + weighBooks(previous.books()),
+                    ENTRY_OVERHEAD + weighBooks(books));
+            entry.pages.put(afterId, new Page(limit, new ArrayList<>(books)));
+            evict();
+        }
+    }
+
+
+    /**
+     * Возвращает запись чата, создавая пустую запись при необходимости.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Запись кэша.
+     */
+    private Entry entryFor(long chatId) {
+        Entry entry = entries.get(chatId);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(chatId, entry);
+            weight += entry.weight;
+        }
+        return entry;
+    }
+
+
+    /**
+     * Пересчитывает вес записи при замене одного из её списков.
+     *
+     * @param entry    Запись кэша.
+     * @param previous Вес прежнего списка.
+     * @param current  Вес нового списка.
+     */
+    private void replace(Entry entry, long previous, long current) {
+        long delta = current - previous;
+        entry.weight += delta;
+        weight += delta;
+    }
+
+
+    /**
+     * Считает вес списка строк.
+     *
+     * @param list Список или {@code null}.
+     * @return Суммарная длина строк.
+     */
+    private static long weighTitles(List<String> list) {
+        if (list == null) {
+            return 0;
+        }
+        long total = 0;
+        for (String value : list) {
+            total += value.length();
+        }
+        return total;
+    }
+
+
+    /**
+     * Считает вес списка книг.
+     *
+     * @param list Список или {@code null}.
+     * @return Суммарная длина названий и авторов с учётом накладных расходов на каждую книгу.
+     */
+    private static long weighBooks(List<ReadBook> list) {
+        if (list == null) {
+            return 0;
+        }
+        long total = 0;
+        for (ReadBook book : list) {
+            total += ROW_OVERHEAD + book.title().length() + book.author().length();
+        }
+        return total;
+    }
+
+
+    /**
+     * Вытесняет давно не использованные записи, пока суммарный вес превышает предел.
+     */
+    private void evict() {
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            weight -= eldest.weight;
+            evictions++;
+        }
+    }
+
+
+    /**
+     * Удаляет список чата из кэша после изменения его данных.
+     *
+     * @param chatId Идентификатор чата.
+     */
+    public synchronized void invalidate(long chatId) {
+        invalidations++;
+        Entry entry = entries.remove(chatId);
+        if (entry != null) {
+            weight -= entry.weight;
+        }
+    }
+
+
+    /**
+     * Возвращает количество попаданий в кэш.
+     *
+     * @return Количество попаданий.
+     */
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+
+    /**
+     * Возвращает количество промахов кэша.
+     *
+     * @return Количество промахов.
+     */
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+
+    /**
+     * Возвращает количество вытесненных записей.
+     *
+     * @return Количество вытеснений.
+     */
+    public synchronized long getEvictionCount() {
+        return evictions;
+    }
+
+
+    /**
+     * Возвращает количество чатов в кэше.
+     *
+     * @return Количество записей.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+
+    /**
+     * Возвращает текущий суммарный вес записей.
+     *
+     * @return Вес в символах.
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+
+    /**
+     * Представляет статистику кэша в виде строки.
+     *
+     * @return Строка со счётчиками кэша.
+     */
+    @Override
+    public synchronized String toString() {
+        return "Кэш списков: чатов " + entries.size() + ", вес " + weight + "/" + maxWeight
+                + ", попаданий " + hits + ", промахов " + misses + ", вытеснений " + evictions;
+    }
+}
@@ -0,0 +1,60 @@
+package org.example;
+
+import java.util.Locale;
+
+/**
+ * Формат файла со списком прочитанных книг для импорта и экспорта.
+ */
+public enum ReadingListFormat {
+
+    /**
+     * CSV в UTF-8 со столбцами title, author, year; строка заголовка необязательна.
+     */
+    CSV("csv"),
+
+    /**
+     * JSON-массив объектов с полями title, author, year.
+     */
+    JSON("json");
+
+
+    /**
+     * Расширение файла.
+     */
+    private final String extension;
+
+
+    ReadingListFormat(String extension) {
+        this.extension = extension;
+    }
+
+
+    /**
+     * Возвращает расширение файла без точки.
+     *
+     * @return Расширение файла.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+
+    /**
+     * Определяет формат по имени файла или названию формата.
+     *
+     * @param name Имя файла ("books.csv") или название формата ("json").
+     * @return Формат или {@code null}, если формат не распознан.
+     */
+    public static ReadingListFormat fromName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String lower = name.trim().toLowerCase(Locale.ROOT);
+        for (ReadingListFormat format : values()) {
+            if (lower.equals(format.extension) || lower.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+}
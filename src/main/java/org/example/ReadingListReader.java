@@ -0,0 +1,274 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение списка прочитанных книг из CSV или JSON.
+ * Книги читаются по одной, поэтому размер файла не ограничен памятью.
+ * Строки, которые не удалось разобрать (нет названия или автора, год не число, слишком длинное поле),
+ * пропускаются и учитываются в {@link #getInvalidCount()}; синтаксическая ошибка JSON прерывает чтение.
+ */
+public abstract class ReadingListReader implements Closeable {
+
+    /**
+     * Максимальная длина названия или автора в символах.
+     */
+    static final int MAX_FIELD_LENGTH = 1000;
+
+
+    /**
+     * Книга из файла.
+     *
+     * @param title  Название.
+     * @param author Автор.
+     * @param year   Год прочтения.
+     */
+    public record Row(String title, String author, int year) {
+    }
+
+
+    /**
+     * Количество пропущенных строк.
+     */
+    private int invalid;
+
+
+    /**
+     * Открывает чтение потока в указанном формате.
+     *
+     * @param input  Поток с содержимым файла в UTF-8.
+     * @param format Формат файла.
+     * @return Читатель списка.
+     * @throws IOException Если поток не удалось открыть.
+     */
+    public static ReadingListReader open(InputStream input, ReadingListFormat format) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)));
+            case JSON -> new Json(new JsonFactory().createParser(input));
+        };
+    }
+
+
+    /**
+     * Читает следующую книгу, пропуская строки, которые не удалось разобрать.
+     *
+     * @return Книга или {@code null}, если файл закончился.
+     * @throws IOException Если поток не удалось прочитать или JSON синтаксически неверен.
+     */
+    public abstract Row next() throws IOException;
+
+
+    /**
+     * Возвращает количество пропущенных строк.
+     *
+     * @return Количество строк, которые не удалось разобрать.
+     */
+    public int getInvalidCount() {
+        return invalid;
+    }
+
+
+    /**
+     * Проверяет поля книги.
+     *
+     * @return Книга или {@code null}, если поля неверны; в этом случае строка учитывается как пропущенная.
+     */
+    Row row(String title, String author, String year) {
+        title = title == null ? "" : title.trim();
+        author = author == null ? "" : author.trim();
+        if (title.isEmpty() || author.isEmpty() || title.length() > MAX_FIELD_LENGTH || author.length() > MAX_FIELD_LENGTH || year == null) {
+            invalid++;
+            return null;
+        }
+        try {
+            return new Row(title, author, Integer.parseInt(year.trim()));
+        } catch (NumberFormatException e) {
+            invalid++;
+            return null;
+        }
+    }
+
+
+    /**
+     * Чтение CSV по RFC 4180: поля через запятую, поля в кавычках могут содержать запятые,
+     * переводы строк и удвоенные кавычки.
+     */
+    private static final class Csv extends ReadingListReader {
+
+        /**
+         * Источник символов.
+         */
+        private final BufferedReader reader;
+
+        /**
+         * Прочитана ли первая запись (она может быть заголовком).
+         */
+        private boolean started;
+
+
+        Csv(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+
+        @Override
+        public Row next() throws IOException {
+            List<String> fields;
+            while ((fields = record()) != null) {
+                String first = fields.get(0);
+                boolean header = !started && first != null && first.trim().equalsIgnoreCase("title");
+                started = true;
+                if (header || (fields.size() == 1 && first != null && first.isBlank())) {
+                    continue;
+                }
+                Row row = fields.size() == 3 ? row(fields.get(0), fields.get(1), fields.get(2)) : row(null, null, null);
+                if (row != null) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+
+        /**
+         * Читает одну запись CSV.
+         *
+         * @return Поля записи или {@code null}, если файл закончился. Слишком длинное поле заменяется на {@code null}.
+         */
+        private List<String> record() throws IOException {
+            List<String> fields = new ArrayList<>(3);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean any = false;
+            boolean tooLong = false;
+            int c;
+            while ((c = reader.read()) != -1) {
+                any = true;
+                if (c == '\uFEFF' && !started && fields.isEmpty() && field.length() == 0) {
+                    continue;
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                        continue;
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                    continue;
+                } else if (c == ',') {
+                    fields.add(tooLong ? null : field.toString());
+                    field.setLength(0);
+                    tooLong = false;
+                    continue;
+                } else if (c == '\r') {
+                    continue;
+                } else if (c == '\n') {
+                    break;
+                }
+                if (field.length() > MAX_FIELD_LENGTH) {
+                    tooLong = true;
+                } else {
+                    field.append((char) c);
+                }
+            }
+            if (!any) {
+                return null;
+            }
+            fields.add(tooLong ? null : field.toString());
+            return fields;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+
+    /**
+     * Чтение JSON-массива объектов; неизвестные поля и вложенные значения пропускаются.
+     */
+    private static final class Json extends ReadingListReader {
+
+        /**
+         * Потоковый разборщик JSON.
+         */
+        private final JsonParser parser;
+
+        /**
+         * Прочитано ли начало массива.
+         */
+        private boolean started;
+
+
+        Json(JsonParser parser) {
+            this.parser = parser;
+        }
+
+
+        @Override
+        public Row next() throws IOException {
+            if (!started) {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new JsonParseException(parser, "Ожидается JSON-массив книг");
+                }
+                started = true;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    row(null, null, null);
+                    continue;
+                }
+                String title = null;
+                String author = null;
+                String year = null;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+                    if (value.isScalarValue() && value != JsonToken.VALUE_NULL) {
+                        switch (name) {
+                            case "title" -> title = parser.getText();
+                            case "author" -> author = parser.getText();
+                            case "year" -> year = parser.getText();
+                            default -> { }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                Row row = row(title, author, year);
+                if (row != null) {
+                    return row;
+                }
+            }
+            return null;
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package org.example;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Потоковая запись списка прочитанных книг в CSV или JSON.
+ * Каждая книга сразу пишется в поток, поэтому список целиком в памяти не собирается.
+ * Метод {@link #close()} дописывает окончание документа и сбрасывает буфер, но не закрывает сам поток.
+ */
+public abstract class ReadingListWriter implements AutoCloseable {
+
+    /**
+     * Количество записанных книг.
+     */
+    private long count;
+
+
+    /**
+     * Открывает запись в поток в указанном формате.
+     *
+     * @param output Поток для записи в UTF-8.
+     * @param format Формат файла.
+     * @return Писатель списка.
+     * @throws IOException Если начало документа не удалось записать.
+     */
+    public static ReadingListWriter open(OutputStream output, ReadingListFormat format) throws IOException {
+        return switch (format) {
+            case CSV -> new Csv(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+            case JSON -> new Json(new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET).createGenerator(output));
+        };
+    }
+
+
+    /**
+     * Записывает книгу.
+     *
+     * @param book Прочитанная книга.
+     * @throws IOException Если книгу не удалось записать.
+     */
+    public void write(ReadBook book) throws IOException {
+        writeRow(book.title(), book.author(), book.year());
+        count++;
+    }
+
+
+    /**
+     * Возвращает количество записанных книг.
+     *
+     * @return Количество книг.
+     */
+    public long getCount() {
+        return count;
+    }
+
+
+    /**
+     * Записывает поля книги в формате файла.
+     */
+    abstract void writeRow(String title, String author, int year) throws IOException;
+
+
+    /**
+     * Дописывает окончание документа и сбрасывает буфер.
+     *
+     * @throws IOException Если данные не удалось записать.
+     */
+    @Override
+    public abstract void close() throws IOException;
+
+
+    /**
+     * Запись CSV с заголовком title,author,year.
+     */
+    private static final class Csv extends ReadingListWriter {
+
+        /**
+         * Буфер записи.
+         */
+        private final BufferedWriter writer;
+
+
+        Csv(BufferedWriter writer) throws IOException {
+            this.writer = writer;
+            writer.write("title,author,year\r\n");
+        }
+
+
+        @Override
+        void writeRow(String title, String author, int year) throws IOException {
+            writeField(title);
+            writer.write(',');
+            writeField(author);
+            writer.write(',');
+            writer.write(Integer.toString(year));
+            writer.write("\r\n");
+        }
+
+
+        /**
+         * Записывает поле, заключая его в кавычки, если в нём есть запятая, кавычка или перевод строки.
+         */
+        private void writeField(String value) throws IOException {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+            } else {
+                writer.write('"');
+                writer.write(value.replace("\"", "\"\""));
+                writer.write('"');
+            }
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+
+    /**
+     * Запись JSON-массива объектов.
+     */
+    private static final class Json extends ReadingListWriter {
+
+        /**
+         * Потоковый генератор JSON.
+         */
+        private final JsonGenerator generator;
+
+
+        Json(JsonGenerator generator) throws IOException {
+            this.generator = generator;
+            generator.writeStartArray();
+        }
+
+
+        @Override
+        void writeRow(String title, String author, int year) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("title", title);
+            generator.writeStringField("author", author);
+            generator.writeNumberField("year", year);
+            generator.writeEndObject();
+        }
+
+
+        @Override
+        public void close() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.example;
+
+import java.util.List;
+
+/**
+ * Статистика прочитанных книг чата.
+ *
+ * @param books      Всего прочитанных книг.
+ * @param authors    Количество разных авторов.
+ * @param years      Количество книг по годам прочтения, начиная с последнего года.
+ * @param topAuthors Самые читаемые авторы, начиная с автора с наибольшим числом книг.
+ */
+public record ReadingStats(int books, int authors, List<YearCount> years, List<AuthorCount> topAuthors) {
+
+    /**
+     * Количество книг, прочитанных за год.
+     *
+     * @param year  Год прочтения.
+     * @param books Количество книг.
+     */
+    public record YearCount(int year, int books) {
+    }
+
+
+    /**
+     * Количество прочитанных книг автора.
+     *
+     * @param author Автор.
+     * @param books  Количество книг.
+     */
+    public record AuthorCount(String author, int books) {
+    }
+}
@@ -0,0 +1,13 @@
+package org.example;
+
+/**
+ * Строка общего списка рекомендованных книг.
+ *
+ * @param id     Уникальный идентификатор строки в хранилище.
+ * @param title  Название книги.
+ * @param author Автор книги.
+ * @param genre  Жанр книги.
+ * @param chatId Идентификатор чата, рекомендовавшего книгу.
+ */
+public record RecommendedBook(long id, String title, String author, String genre, long chatId) {
+}
@@ -0,0 +1,331 @@
+package org.example;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Перераспределение книг между шардами {@link ShardedBookStorage} при изменении количества шардов.
+ * Выполняется в остановленном боте: книги копируются из файлов прежних шардов в новые файлы,
+ * прежние файлы только приводятся к текущей версии схемы и удаляются вручную после проверки.
+ *
+ * <p>Прочитанные книги каждого чата копируются в порядке добавления и получают новые идентификаторы.
+ * Рекомендованные книги копируются в порядке их идентификаторов снаружи хранилища и тоже получают
+ * новые идентификаторы, поэтому внутри каждого нового шарда сохраняется их прежний взаимный порядок.
+ * Вытесненные сессии чатов переносятся в шарды своих чатов, чтобы незаконченные диалоги не терялись.
+ *
+ * <p>Запуск: {@code java -cp <classpath> org.example.Resharder 1 4 [каталог]}
+ */
+public final class Resharder {
+
+    /**
+     * Количество скопированных книг и сессий.
+     *
+     * @param readBooks Количество прочитанных книг.
+     * @param recBooks  Количество рекомендованных книг.
+     * @param sessions  Количество вытесненных сессий чатов.
+     */
+    public record Counts(long readBooks, long recBooks, long sessions) {
+    }
+
+
+    private Resharder() {
+    }
+
+
+    /**
+     * Копирует книги из шардов прежнего количества в новые шарды.
+     *
+     * @param directory Каталог файлов баз данных.
+     * @param from      Прежнее количество шардов.
+     * @param to        Новое количество шардов.
+     * @return Количество скопированных книг и сессий.
+     * @throws SQLException Если книги не удалось прочитать или записать, или файлы новых шардов уже существуют.
+     */
+    public static Counts reshard(Path directory, int from, int to) throws SQLException {
+        if (from == to) {
+            throw new IllegalArgumentException("Количество шардов не меняется: " + from);
+        }
+        for (int j = 0; j < to; j++) {
+            String file = shardFile(directory, j, to);
+            if (new File(file).exists()) {
+                throw new SQLException("Файл нового шарда уже существует: " + file);
+            }
+        }
+        List<Connection> sources = new ArrayList<>(from);
+        List<Connection> targets = new ArrayList<>(to);
+        boolean committed = false;
+        try {
+            for (int i = 0; i < from; i++) {
+                Connection connection = DriverManager.getConnection(ShardedBookStorage.shardUrl(directory, i, from));
+                sources.add(connection);
+                SchemaMigrations.migrate(connection);
+            }
+            for (int j = 0; j < to; j++) {
+                Connection connection = DriverManager.getConnection(ShardedBookStorage.shardUrl(directory, j, to));
+                targets.add(connection);
+                SchemaMigrations.migrate(connection);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA journal_mode = WAL");
+                }
+                connection.setAutoCommit(false);
+            }
+            long readBooks = copyReadBooks(sources, targets);
+            long recBooks = copyRecBooks(sources, targets);
+            long sessions = copyChatSessions(sources, targets);
+            for (Connection target : targets) {
+                target.commit();
+            }
+            committed = true;
+            return new Counts(readBooks, recBooks, sessions);
+        } finally {
+            for (Connection connection : sources) {
+                closeQuietly(connection);
+            }
+            for (Connection connection : targets) {
+                closeQuietly(connection);
+            }
+            if (!committed) {
+                // Недописанные новые шарды удаляются, чтобы перераспределение можно было повторить
+                for (int j = 0; j < to; j++) {
+                    String file = shardFile(directory, j, to);
+                    for (String suffix : new String[]{"", "-wal", "-shm"}) {
+                        new File(file + suffix).delete();
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Возвращает путь к файлу базы данных шарда.
+     */
+    private static String shardFile(Path directory, int index, int count) {
+        return ShardedBookStorage.shardUrl(directory, index, count).substring("jdbc:sqlite:".length());
+    }
+
+
+    /**
+     * Копирует прочитанные книги в шарды их чатов.
+     *
+     * @param sources Соединения с прежними шардами.
+     * @param targets Соединения с новыми шардами, на которых открыты транзакции.
+     * @return Количество скопированных книг.
+     */
+    private static long copyReadBooks(List<Connection> sources, List<Connection> targets) throws SQLException {
+        List<PreparedStatement> inserts = prepareAll(targets, "INSERT INTO read_books (title, author, year, chat_id, author_key, author_surname) "
+                + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING");
+        int[] pending = new int[targets.size()];
+        long copied = 0;
+        try {
+            for (Connection source : sources) {
+                try (Statement select = source.createStatement();
+                     ResultSet resultSet = select.executeQuery(
+                             "SELECT title, author, year, chat_id, author_key, author_surname FROM read_books ORDER BY id")) {
+                    while (resultSet.next()) {
+                        int shard = ShardedBookStorage.shardOf(resultSet.getLong("chat_id"), targets.size());
+                        PreparedStatement insert = inserts.get(shard);
+                        insert.setString(1, resultSet.getString("title"));
+                        insert.setString(2, resultSet.getString("author"));
+                        insert.setInt(3, resultSet.getInt("year"));
+                        insert.setLong(4, resultSet.getLong("chat_id"));
+                        insert.setString(5, resultSet.getString("author_key"));
+                        insert.setString(6, resultSet.getString("author_surname"));
+                        insert.addBatch();
+                        if (++pending[shard] == Storage.IMPORT_BATCH_SIZE) {
+                            insert.executeBatch();
+                            pending[shard] = 0;
+                        }
+                        copied++;
+                    }
+                }
+            }
+            for (PreparedStatement insert : inserts) {
+                insert.executeBatch();
+            }
+        } finally {
+            closeAll(inserts);
+        }
+        return copied;
+    }
+
+
+    /**
+     * Копирует рекомендованные книги в шарды по названию и автору, сливая прежние шарды
+     * в порядке идентификаторов снаружи хранилища.
+     *
+     * @param sources Соединения с прежними шардами.
+     * @param targets Соединения с новыми шардами, на которых открыты транзакции.
+     * @return Количество скопированных книг.
+     */
+    private static long copyRecBooks(List<Connection> sources, List<Connection> targets) throws SQLException {
+        List<PreparedStatement> inserts = prepareAll(targets, "INSERT INTO recommendedBooks (title, author, genre, chat_id, author_key, author_surname) "
+                + "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING");
+        List<Statement> selects = new ArrayList<>(sources.size());
+        List<ResultSet> cursors = new ArrayList<>(sources.size());
+        int[] pending = new int[targets.size()];
+        long copied = 0;
+        try {
+            for (Connection source : sources) {
+                Statement select = source.createStatement();
+                selects.add(select);
+                ResultSet resultSet = select.executeQuery(
+                        "SELECT id, title, author, genre, chat_id, author_key, author_surname FROM recommendedBooks ORDER BY id");
+                cursors.add(resultSet.next() ? resultSet : null);
+            }
+            while (true) {
+                // Следующая книга - с наименьшим идентификатором снаружи: локальный * количество шардов + номер шарда
+                int next = -1;
+                long nextId = Long.MAX_VALUE;
+                for (int i = 0; i < cursors.size(); i++) {
+                    if (cursors.get(i) != null) {
+                        long id = cursors.get(i).getLong("id") * cursors.size() + i;
+                        if (id < nextId) {
+                            nextId = id;
+                            next = i;
+                        }
+                    }
+                }
+                if (next < 0) {
+                    break;
+                }
+                ResultSet resultSet = cursors.get(next);
+                String title = resultSet.getString("title");
+                String author = resultSet.getString("author");
+                int shard = ShardedBookStorage.recShardOf(title, author, targets.size());
+                PreparedStatement insert = inserts.get(shard);
+                insert.setString(1, title);
+                insert.setString(2, author);
+                insert.setString(3, resultSet.getString("genre"));
+                insert.setLong(4, resultSet.getLong("chat_id"));
+                insert.setString(5, resultSet.getString("author_key"));
+                insert.setString(6, resultSet.getString("author_surname"));
+                insert.addBatch();
+                if (++pending[shard] == Storage.IMPORT_BATCH_SIZE) {
+                    insert.executeBatch();
+                    pending[shard] = 0;
+                }
+                copied++;
+                if (!resultSet.next()) {
+                    cursors.set(next, null);
+                }
+            }
+            for (PreparedStatement insert : inserts) {
+                insert.executeBatch();
+            }
+        } finally {
+            closeAll(selects);
+            closeAll(inserts);
+        }
+        return copied;
+    }
+
+
+    /**
+     * Копирует вытесненные сессии в шарды их чатов.
+     *
+     * @param sources Соединения с прежними шардами.
+     * @param targets Соединения с новыми шардами, на которых открыты транзакции.
+     * @return Количество скопированных сессий.
+     */
+    private static long copyChatSessions(List<Connection> sources, List<Connection> targets) throws SQLException {
+        List<PreparedStatement> inserts = prepareAll(targets, "INSERT INTO chat_sessions (chat_id, state, saved_at) VALUES (?, ?, ?) ON CONFLICT DO NOTHING");
+        int[] pending = new int[targets.size()];
+        long copied = 0;
+        try {
+            for (Connection source : sources) {
+                try (Statement select = source.createStatement();
+                     ResultSet resultSet = select.executeQuery("SELECT chat_id, state, saved_at FROM chat_sessions")) {
+                    while (resultSet.next()) {
+                        int shard = ShardedBookStorage.shardOf(resultSet.getLong("chat_id"), targets.size());
+                        PreparedStatement insert = inserts.get(shard);
+                        insert.setLong(1, resultSet.getLong("chat_id"));
+                        insert.setBytes(2, resultSet.getBytes("state"));
+                        insert.setLong(3, resultSet.getLong("saved_at"));
+                        insert.addBatch();
+                        if (++pending[shard] == Storage.IMPORT_BATCH_SIZE) {
+                            insert.executeBatch();
+                            pending[shard] = 0;
+                        }
+                        copied++;
+                    }
+                }
+            }
+            for (PreparedStatement insert : inserts) {
+                insert.executeBatch();
+            }
+        } finally {
+            closeAll(inserts);
+        }
+        return copied;
+    }
+
+
+    /**
+     * Готовит одинаковый запрос на каждом соединении.
+     */
+    private static List<PreparedStatement> prepareAll(List<Connection> connections, String sql) throws SQLException {
+        List<PreparedStatement> statements = new ArrayList<>(connections.size());
+        try {
+            for (Connection connection : connections) {
+                statements.add(connection.prepareStatement(sql));
+            }
+        } catch (SQLException e) {
+            closeAll(statements);
+            throw e;
+        }
+        return statements;
+    }
+
+
+    /**
+     * Закрывает запросы, печатая ошибки закрытия.
+     */
+    private static void closeAll(List<? extends Statement> statements) {
+        for (Statement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+
+    /**
+     * Закрывает соединение, печатая ошибку закрытия.
+     */
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Перераспределяет книги из шардов прежнего количества в новые.
+     *
+     * @param args Прежнее и новое количество шардов и, необязательно, каталог файлов баз данных.
+     * @throws SQLException Если книги не удалось скопировать.
+     */
+    public static void main(String[] args) throws SQLException {
+        if (args.length != 2 && args.length != 3) {
+            System.err.println("Использование: Resharder <было шардов> <стало шардов> [каталог]");
+            System.exit(2);
+        }
+        Path directory = Path.of(args.length == 3 ? args[2] : "");
+        Counts counts = reshard(directory, Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+        System.out.println("Скопировано прочитанных книг: " + counts.readBooks() + ", рекомендованных: " + counts.recBooks()
+                + ", сессий чатов: " + counts.sessions());
+    }
+}
@@ -0,0 +1,302 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Версионированные миграции схемы базы данных.
+ * Текущая версия схемы хранится в {@code PRAGMA user_version}; при запуске применяются по порядку
+ * все миграции с номером больше текущей версии, каждая в своей транзакции.
+ */
+public final class SchemaMigrations {
+
+    /**
+     * Шаг миграции, изменяющий схему или данные.
+     */
+    @FunctionalInterface
+    interface Step {
+        /**
+         * Применяет шаг миграции.
+         *
+         * @param connection Соединение с базой данных, на котором открыта транзакция.
+         * @throws SQLException Если миграцию не удалось применить.
+         */
+        void apply(Connection connection) throws SQLException;
+    }
+
+
+    /**
+     * Миграция схемы.
+     *
+     * @param version     Номер версии схемы после применения миграции.
+     * @param description Краткое описание миграции.
+     * @param step        Шаг миграции.
+     */
+    record Migration(int version, String description, Step step) {
+    }
+
+
+    /**
+     * Все миграции в порядке возрастания версии.
+     */
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "исходные таблицы", sql(
+                    "CREATE TABLE IF NOT EXISTS read_books (title text, author text, year integer, chat_id integer)",
+                    "CREATE TABLE IF NOT EXISTS recommendedBooks (title text, chat_id integer, genre text, author text)")),
+            new Migration(2, "первичные ключи и индексы", sql(
+                    "CREATE TABLE read_books_new (id INTEGER PRIMARY KEY, title text, author text, year integer, chat_id integer)",
+                    "INSERT INTO read_books_new (title, author, year, chat_id) SELECT title, author, year, chat_id FROM read_books ORDER BY rowid",
+                    "DROP TABLE read_books",
+                    "ALTER TABLE read_books_new RENAME TO read_books",
+                    "CREATE INDEX idx_read_books_chat_author ON read_books (chat_id, author)",
+                    "CREATE INDEX idx_read_books_chat_year ON read_books (chat_id, year)",
+                    "CREATE INDEX idx_read_books_chat_title ON read_books (chat_id, title)",
+                    "CREATE TABLE recommendedBooks_new (id INTEGER PRIMARY KEY, title text, chat_id integer, genre text, author text)",
+                    "INSERT INTO recommendedBooks_new (title, chat_id, genre, author) SELECT title, chat_id, genre, author FROM recommendedBooks ORDER BY rowid",
+                    "DROP TABLE recommendedBooks",
+                    "ALTER TABLE recommendedBooks_new RENAME TO recommendedBooks",
+                    "CREATE INDEX idx_recommended_author_title ON recommendedBooks (author, title)",
+                    "CREATE INDEX idx_recommended_genre ON recommendedBooks (genre)")),
+            new Migration(3, "индекс для постраничного просмотра прочитанных книг", sql(
+                    "CREATE INDEX idx_read_books_chat ON read_books (chat_id)")),
+            // Токенизатор unicode61 сам приводит регистр, но не заменяет «ё» на «е», поэтому
+            // в индекс попадают копии названия и автора с заменённой буквой
+            new Migration(4, "полнотекстовый поиск по рекомендованным книгам", sql(
+                    "CREATE VIRTUAL TABLE recommended_books_fts USING fts5(title, author, tokenize = 'unicode61 remove_diacritics 2', prefix = '2 3')",
+                    "INSERT INTO recommended_books_fts (rowid, title, author) "
+                            + "SELECT id, " + foldYo("title") + ", " + foldYo("author") + " FROM recommendedBooks",
+                    "CREATE TRIGGER recommended_books_fts_insert AFTER INSERT ON recommendedBooks BEGIN "
+                            + "INSERT INTO recommended_books_fts (rowid, title, author) "
+                            + "VALUES (new.id, " + foldYo("new.title") + ", " + foldYo("new.author") + "); END",
+                    "CREATE TRIGGER recommended_books_fts_delete AFTER DELETE ON recommendedBooks BEGIN "
+                            + "DELETE FROM recommended_books_fts WHERE rowid = old.id; END",
+                    "CREATE TRIGGER recommended_books_fts_update AFTER UPDATE ON recommendedBooks BEGIN "
+                            + "DELETE FROM recommended_books_fts WHERE rowid = old.id; "
+                            + "INSERT INTO recommended_books_fts (rowid, title, author) "
+                            + "VALUES (new.id, " + foldYo("new.title") + ", " + foldYo("new.author") + "); END")),
+            // Повторы, накопившиеся до появления ограничений, удаляются с сохранением самой ранней строки.
+            // Уникальный индекс прочитанных книг начинается с (chat_id, title) и заменяет прежний индекс по этим столбцам
+            new Migration(5, "уникальность прочитанных и рекомендованных книг", sql(
+                    "DELETE FROM read_books WHERE id NOT IN (SELECT min(id) FROM read_books GROUP BY chat_id, title, author, year)",
+                    "CREATE UNIQUE INDEX idx_read_books_unique ON read_books (chat_id, title, author, year)",
+                    "DROP INDEX idx_read_books_chat_title",
+                    "DELETE FROM recommendedBooks WHERE id NOT IN (SELECT min(id) FROM recommendedBooks GROUP BY title, author)",
+                    "CREATE UNIQUE INDEX idx_recommended_unique ON recommendedBooks (title, author)")),
+            // Сводные таблицы пересчитываются триггерами на каждую вставку, изменение и удаление книги,
+            // поэтому статистика читается без группировки по всем книгам чата.
+            // Счётчик авторов в read_stats ведут триггеры самой таблицы авторов.
+            // Старые строки без чата ни к какой статистике не относятся и пропускаются. Прежний текст миграции
+            // не пропускал их и на такой строке откатывался из-за NOT NULL в read_stats_year, поэтому каждая база,
+            // прошедшая версию 6, получила ту же статистику, и пересчитывать её не нужно
+            new Migration(6, "статистика прочитанных книг", sql(
+                    "CREATE TABLE read_stats (chat_id INTEGER PRIMARY KEY, books integer NOT NULL, authors integer NOT NULL)",
+                    "CREATE TABLE read_stats_year (chat_id integer NOT NULL, year integer NOT NULL, books integer NOT NULL, "
+                            + "PRIMARY KEY (chat_id, year)) WITHOUT ROWID",
+                    "CREATE TABLE read_stats_author (chat_id integer NOT NULL, author text NOT NULL, books integer NOT NULL, "
+                            + "PRIMARY KEY (chat_id, author)) WITHOUT ROWID",
+                    "CREATE INDEX idx_read_stats_author_books ON read_stats_author (chat_id, books DESC, author)",
+                    "INSERT INTO read_stats_year SELECT chat_id, ifnull(year, 0), count(*) FROM read_books WHERE chat_id IS NOT NULL GROUP BY chat_id, ifnull(year, 0)",
+                    "INSERT INTO read_stats_author SELECT chat_id, ifnull(author, ''), count(*) FROM read_books WHERE chat_id IS NOT NULL GROUP BY chat_id, ifnull(author, '')",
+                    "INSERT INTO read_stats SELECT chat_id, count(*), count(DISTINCT ifnull(author, '')) FROM read_books WHERE chat_id IS NOT NULL GROUP BY chat_id",
+                    "CREATE TRIGGER read_stats_author_insert AFTER INSERT ON read_stats_author BEGIN "
+                            + "UPDATE read_stats SET authors = authors + 1 WHERE chat_id = new.chat_id; END",
+                    "CREATE TRIGGER read_stats_author_delete AFTER DELETE ON read_stats_author BEGIN "
+                            + "UPDATE read_stats SET authors = authors - 1 WHERE chat_id = old.chat_id; END",
+                    "CREATE TRIGGER read_books_stats_insert AFTER INSERT ON read_books BEGIN "
+                            + countBook("new") + " END",
+                    "CREATE TRIGGER read_books_stats_delete AFTER DELETE ON read_books BEGIN "
+                            + uncountBook("old") + " END",
+                    "CREATE TRIGGER read_books_stats_update AFTER UPDATE OF author, year, chat_id ON read_books "
+                            + "WHEN old.author IS NOT new.author OR old.year IS NOT new.year OR old.chat_id IS NOT new.chat_id BEGIN "
+                            + uncountBook("old") + " " + countBook("new") + " END")),
+            // Ключи автора вычисляются в Java (см. AuthorKey): lower() в SQLite не меняет регистр кириллицы
+            new Migration(7, "ключи поиска по автору", connection -> {
+                sql("ALTER TABLE read_books ADD COLUMN author_key text",
+                        "ALTER TABLE read_books ADD COLUMN author_surname text",
+                        "ALTER TABLE recommendedBooks ADD COLUMN author_key text",
+                        "ALTER TABLE recommendedBooks ADD COLUMN author_surname text").apply(connection);
+                fillAuthorKeys(connection, "read_books");
+                fillAuthorKeys(connection, "recommendedBooks");
+                sql("CREATE INDEX idx_read_books_chat_author_key ON read_books (chat_id, author_key)",
+                        "CREATE INDEX idx_read_books_chat_author_surname ON read_books (chat_id, author_surname)",
+                        "CREATE INDEX idx_recommended_author_key ON recommendedBooks (author_key)",
+                        "CREATE INDEX idx_recommended_author_surname ON recommendedBooks (author_surname)").apply(connection);
+            }),
+            new Migration(8, "вытесненные сессии чатов", sql(
+                    "CREATE TABLE chat_sessions (chat_id INTEGER PRIMARY KEY, state blob NOT NULL, saved_at integer NOT NULL)"))
+    );
+
+
+    private SchemaMigrations() {
+    }
+
+
+    /**
+     * Возвращает SQL-выражение, заменяющее в значении букву «ё» на «е».
+     *
+     * @param column Столбец или выражение.
+     * @return SQL-выражение.
+     */
+    private static String foldYo(String column) {
+        return "replace(replace(" + column + ", 'ё', 'е'), 'Ё', 'Е')";
+    }
+
+
+    /**
+     * Возвращает тело триггера, учитывающее книгу в статистике чата.
+     *
+     * @param row Строка триггера: {@code new} или {@code old}.
+     * @return SQL-выражения, разделённые точкой с запятой.
+     */
+    private static String countBook(String row) {
+        return "INSERT INTO read_stats (chat_id, books, authors) VALUES (" + row + ".chat_id, 1, 0) "
+                + "ON CONFLICT (chat_id) DO UPDATE SET books = books + 1; "
+                + "INSERT INTO read_stats_year (chat_id, year, books) VALUES (" + row + ".chat_id, " + year(row) + ", 1) "
+                + "ON CONFLICT (chat_id, year) DO UPDATE SET books = books + 1; "
+                + "INSERT INTO read_stats_author (chat_id, author, books) VALUES (" + row + ".chat_id, " + author(row) + ", 1) "
+                + "ON CONFLICT (chat_id, author) DO UPDATE SET books = books + 1;";
+    }
+
+
+    /**
+     * Возвращает тело триггера, убирающее книгу из статистики чата; опустевшие строки удаляются.
+     *
+     * @param row Строка триггера: {@code new} или {@code old}.
+     * @return SQL-выражения, разделённые точкой с запятой.
+     */
+    private static String uncountBook(String row) {
+        return "UPDATE read_stats_year SET books = books - 1 WHERE chat_id = " + row + ".chat_id AND year = " + year(row) + "; "
+                + "DELETE FROM read_stats_year WHERE chat_id = " + row + ".chat_id AND year = " + year(row) + " AND books <= 0; "
+                + "UPDATE read_stats_author SET books = books - 1 WHERE chat_id = " + row + ".chat_id AND author = " + author(row) + "; "
+                + "DELETE FROM read_stats_author WHERE chat_id = " + row + ".chat_id AND author = " + author(row) + " AND books <= 0; "
+                + "UPDATE read_stats SET books = books - 1 WHERE chat_id = " + row + ".chat_id; "
+                + "DELETE FROM read_stats WHERE chat_id = " + row + ".chat_id AND books <= 0;";
+    }
+
+
+    /**
+     * Возвращает год книги для статистики; старые строки без года учитываются как год 0.
+     */
+    private static String year(String row) {
+        return "ifnull(" + row + ".year, 0)";
+    }
+
+
+    /**
+     * Возвращает автора книги для статистики; старые строки без автора учитываются под пустым именем.
+     */
+    private static String author(String row) {
+        return "ifnull(" + row + ".author, '')";
+    }
+
+
+    /**
+     * Заполняет ключи автора у всех строк таблицы.
+     *
+     * @param connection Соединение с базой данных.
+     * @param table      Таблица со столбцами author, author_key и author_surname.
+     * @throws SQLException Если ключи не удалось записать.
+     */
+    private static void fillAuthorKeys(Connection connection, String table) throws SQLException {
+        try (Statement select = connection.createStatement();
+             ResultSet resultSet = select.executeQuery("SELECT id, author FROM " + table + " WHERE author IS NOT NULL");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE " + table + " SET author_key = ?, author_surname = ? WHERE id = ?")) {
+            int batched = 0;
+            while (resultSet.next()) {
+                String key = AuthorKey.of(resultSet.getString("author"));
+                update.setString(1, key);
+                update.setString(2, AuthorKey.surname(key));
+                update.setLong(3, resultSet.getLong("id"));
+                update.addBatch();
+                if (++batched % 1000 == 0) {
+                    update.executeBatch();
+                }
+            }
+            update.executeBatch();
+        }
+    }
+
+
+    /**
+     * Создаёт шаг миграции из последовательности SQL-выражений.
+     *
+     * @param statements SQL-выражения.
+     * @return Шаг миграции.
+     */
+    static Step sql(String... statements) {
+        return connection -> {
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.execute(sql);
+                }
+            }
+        };
+    }
+
+
+    /**
+     * Возвращает номер последней известной версии схемы.
+     *
+     * @return Номер версии.
+     */
+    public static int latestVersion() {
+        return MIGRATIONS.get(MIGRATIONS.size() - 1).version();
+    }
+
+
+    /**
+     * Возвращает текущую версию схемы базы данных.
+     *
+     * @param connection Соединение с базой данных.
+     * @return Значение {@code PRAGMA user_version}.
+     * @throws SQLException Если версию не удалось прочитать.
+     */
+    public static int currentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA user_version")) {
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+
+    /**
+     * Применяет к базе данных все миграции, которые ещё не были применены.
+     *
+     * @param connection Соединение с базой данных.
+     * @return Количество применённых миграций.
+     * @throws SQLException Если какая-либо миграция завершилась ошибкой; её изменения откатываются.
+     */
+    public static int migrate(Connection connection) throws SQLException {
+        int version = currentVersion(connection);
+        int applied = 0;
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() <= version) {
+                    continue;
+                }
+                try {
+                    migration.step().apply(connection);
+                    try (Statement statement = connection.createStatement()) {
+                        // PRAGMA не поддерживает параметры, версия берётся из списка миграций
+                        statement.execute("PRAGMA user_version = " + migration.version());
+                    }
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    throw new SQLException("Миграция " + migration.version() + " (" + migration.description() + ") не применена", e);
+                }
+                applied++;
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+        return applied;
+    }
+}
@@ -0,0 +1,344 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Хранилище книг, распределённое по нескольким базам данных SQLite (шардам).
+ * SQLite допускает одного писателя на файл, поэтому каждый шард имеет своего писателя,
+ * и записи разных чатов не ждут друг друга, если чаты попали в разные шарды.
+ * <p>
+ * Прочитанные книги чата целиком хранятся в шарде, выбранном по стабильному хэшу идентификатора чата.
+ * Рекомендованная книга хранится в шарде, выбранном по хэшу названия и автора, поэтому проверка повтора
+ * обращается к одному шарду. Идентификатор рекомендованной книги снаружи равен
+ * {@code локальный идентификатор * количество шардов + номер шарда}, что сохраняет его уникальность
+ * и позволяет найти шард по идентификатору. Запросы по всем рекомендованным книгам выполняются
+ * во всех шардах параллельно, результаты объединяются.
+ * <p>
+ * Количество шардов меняется только в остановленном боте с помощью {@link Resharder}.
+ */
+public class ShardedBookStorage implements BookStorage {
+
+    /**
+     * Шарды в порядке номеров.
+     */
+    private final List<BookStorage> shards;
+
+    /**
+     * Потоки для параллельных запросов ко всем шардам.
+     */
+    private final ExecutorService fanOut;
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param shards Шарды в порядке номеров; номер шарда определяет, какие чаты и книги в нём хранятся.
+     */
+    public ShardedBookStorage(List<? extends BookStorage> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("Нужен хотя бы один шард");
+        }
+        this.shards = List.copyOf(shards);
+        this.fanOut = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "storage-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+    /**
+     * Открывает шарды SQLite в каталоге.
+     *
+     * @param directory   Каталог файлов баз данных.
+     * @param count       Количество шардов.
+     * @param writeBehind {@code true}, чтобы каждый шард записывал изменения пачками в отдельном потоке.
+     * @return Хранилище из шардов с кэшем списков.
+     */
+    public static ShardedBookStorage open(Path directory, int count, boolean writeBehind) {
+        List<BookStorage> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(new CachedBookStorage(new Storage(shardUrl(directory, i, count), writeBehind)));
+        }
+        return new ShardedBookStorage(shards);
+    }
+
+
+    /**
+     * Возвращает URL базы данных шарда. В имя файла входит количество шардов, поэтому при изменении
+     * количества новые файлы не смешиваются со старыми. Единственный шард - это прежний файл read_books.db.
+     *
+     * @param directory Каталог файлов баз данных.
+     * @param index     Номер шарда.
+     * @param count     Количество шардов.
+     * @return URL базы данных SQLite, например "jdbc:sqlite:read_books-2-of-4.db".
+     */
+    public static String shardUrl(Path directory, int index, int count) {
+        return "jdbc:sqlite:" + directory.resolve(count == 1 ? "read_books.db" : "read_books-" + index + "-of-" + count + ".db");
+    }
+
+
+    /**
+     * Возвращает номер шарда для чата. Функция не должна меняться: от неё зависит, где лежат уже записанные книги.
+     *
+     * @param chatId Идентификатор чата.
+     * @param count  Количество шардов.
+     * @return Номер шарда от 0 до count - 1.
+     */
+    public static int shardOf(long chatId, int count) {
+        // Умножение на 2^64 / φ перемешивает биты, так что соседние идентификаторы чатов попадают в разные шарды
+        long hash = chatId * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) count);
+    }
+
+
+    /**
+     * Возвращает номер шарда для рекомендованной книги.
+     *
+     * @param title  Название книги.
+     * @param author Автор книги.
+     * @param count  Количество шардов.
+     * @return Номер шарда от 0 до count - 1.
+     */
+    public static int recShardOf(String title, String author, int count) {
+        // String.hashCode определён спецификацией языка и одинаков во всех JVM
+        return shardOf((title + '\n' + author).hashCode(), count);
+    }
+
+
+    /**
+     * Возвращает шард чата.
+     */
+    private BookStorage shard(long chatId) {
+        return shards.get(shardOf(chatId, shards.size()));
+    }
+
+
+    /**
+     * Переводит идентификатор рекомендованной книги в шарде в идентификатор снаружи хранилища.
+     */
+    private RecommendedBook globalRecBook(RecommendedBook book, int shard) {
+        return new RecommendedBook(book.id() * shards.size() + shard, book.title(), book.author(), book.genre(), book.chatId());
+    }
+
+
+    /**
+     * Выполняет запрос во всех шардах параллельно и собирает результаты в порядке номеров шардов.
+     *
+     * @param query Запрос к шарду по его номеру.
+     * @return Результаты шардов.
+     */
+    private <T> List<T> fanOut(Function<Integer, T> query) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            int shard = i;
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), fanOut));
+        }
+        List<T> results = new ArrayList<>(shards.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+
+    /**
+     * Выполняет поиск рекомендованных книг во всех шардах и объединяет найденное в порядке идентификаторов.
+     *
+     * @param query Поиск в шарде по его номеру.
+     * @return Найденные книги с идентификаторами снаружи хранилища.
+     */
+    private ArrayList<RecommendedBook> searchAll(Function<Integer, List<RecommendedBook>> query) {
+        List<List<RecommendedBook>> found = fanOut(query);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        for (int i = 0; i < found.size(); i++) {
+            for (RecommendedBook book : found.get(i)) {
+                books.add(globalRecBook(book, i));
+            }
+        }
+        books.sort(Comparator.comparingLong(RecommendedBook::id));
+        return books;
+    }
+
+
+    public ArrayList<String> getReadBooks(long chatId) {
+        return shard(chatId).getReadBooks(chatId);
+    }
+
+
+    public CompletableFuture<Boolean> addReadBook(String title, String author, int year, long chatId) {
+        return shard(chatId).addReadBook(title, author, year, chatId);
+    }
+
+
+    public CompletableFuture<Void> clearReadBooks(long chatId) {
+        return shard(chatId).clearReadBooks(chatId);
+    }
+
+
+    public ArrayList<String> getBooksByAuthor(String author, long chatId) {
+        return shard(chatId).getBooksByAuthor(author, chatId);
+    }
+
+
+    public ArrayList<String> getBooksByYear(int year, long chatId) {
+        return shard(chatId).getBooksByYear(year, chatId);
+    }
+
+
+    public CompletableFuture<Boolean> editReadBook(long bookId, String newTitle, String newAuthor, int newYear, long chatId) {
+        return shard(chatId).editReadBook(bookId, newTitle, newAuthor, newYear, chatId);
+    }
+
+
+    public CompletableFuture<Void> updateReadBooks(long chatId, long bookId) {
+        return shard(chatId).updateReadBooks(chatId, bookId);
+    }
+
+
+    public ArrayList<ReadBook> getAllValues(long chatId) {
+        return shard(chatId).getAllValues(chatId);
+    }
+
+
+    public ArrayList<ReadBook> getReadBooksPage(long chatId, long afterId, int limit) {
+        return shard(chatId).getReadBooksPage(chatId, afterId, limit);
+    }
+
+
+    public ReadingStats getReadingStats(long chatId, int topAuthors) {
+        return shard(chatId).getReadingStats(chatId, topAuthors);
+    }
+
+
+    public ImportResult importReadBooks(long chatId, ReadingListReader reader) throws IOException {
+        return shard(chatId).importReadBooks(chatId, reader);
+    }
+
+
+    public long exportReadBooks(long chatId, ReadingListWriter writer) throws IOException {
+        return shard(chatId).exportReadBooks(chatId, writer);
+    }
+
+
+    public CompletableFuture<Boolean> addRecBook(String title, String author, String genre, long chatId) {
+        return shards.get(recShardOf(title, author, shards.size())).addRecBook(title, author, genre, chatId);
+    }
+
+
+    /**
+     * Метод для получения страницы рекомендованных книг.
+     * Каждый шард отдаёт страницу книг после идентификатора afterId в своей нумерации,
+     * страницы объединяются по идентификаторам снаружи хранилища.
+     */
+    public ArrayList<RecommendedBook> getRecBooksPage(long afterId, int limit) {
+        int count = shards.size();
+        // Книга шарда s идёт после afterId, если local * count + s > afterId
+        ArrayList<RecommendedBook> books = searchAll(shard ->
+                shards.get(shard).getRecBooksPage(Math.max(0, Math.floorDiv(afterId - shard, count)), limit));
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByGenre(String genre, int limit) {
+        ArrayList<RecommendedBook> books = searchAll(shard -> shards.get(shard).searchBooksByGenre(genre, limit));
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+
+    public ArrayList<RecommendedBook> searchBooksByAuthor(String author, int limit) {
+        ArrayList<RecommendedBook> books = searchAll(shard -> shards.get(shard).searchBooksByAuthor(author, limit));
+        return books.size() > limit ? new ArrayList<>(books.subList(0, limit)) : books;
+    }
+
+
+    /**
+     * Метод для полнотекстового поиска рекомендованных книг.
+     * Оценки релевантности разных шардов несравнимы, поэтому результаты шардов чередуются,
+     * сохраняя порядок внутри каждого шарда.
+     */
+    public ArrayList<RecommendedBook> searchRecBooks(String query, int limit) {
+        List<ArrayList<RecommendedBook>> found = fanOut(shard -> shards.get(shard).searchRecBooks(query, limit));
+        ArrayList<RecommendedBook> books = new ArrayList<>(limit);
+        for (int rank = 0; books.size() < limit; rank++) {
+            boolean more = false;
+            for (int i = 0; i < found.size() && books.size() < limit; i++) {
+                if (rank < found.get(i).size()) {
+                    books.add(globalRecBook(found.get(i).get(rank), i));
+                    more = true;
+                }
+            }
+            if (!more) {
+                break;
+            }
+        }
+        return books;
+    }
+
+
+    public CompletableFuture<Void> updateRecBooks(long chatId, long bookId) {
+        int count = shards.size();
+        return shards.get((int) Math.floorMod(bookId, (long) count)).updateRecBooks(chatId, Math.floorDiv(bookId, count));
+    }
+
+
+    public String getRandQuote() {
+        return shards.get(0).getRandQuote();
+    }
+
+
+    public String getRandQuote(String author) {
+        return shards.get(0).getRandQuote(author);
+    }
+
+
+    /**
+     * Сохраняет копии шардов по очереди, чтобы копирование одновременно нагружало диск только одним шардом.
+     * Копии шардов сняты в разные моменты; каждая согласована сама по себе.
+     */
+    public BackupResult backup(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (BookStorage shard : shards) {
+            BackupResult result = shard.backup(directory);
+            files.addAll(result.files());
+            bytes += result.bytes();
+        }
+        return new BackupResult(files, bytes, (System.nanoTime() - start) / 1_000_000);
+    }
+
+
+    public CompletableFuture<Void> saveSession(long chatId, byte[] state) {
+        return shard(chatId).saveSession(chatId, state);
+    }
+
+
+    public byte[] loadSession(long chatId) {
+        return shard(chatId).loadSession(chatId);
+    }
+
+
+    public void closeConnection() {
+        fanOut.shutdown();
+        for (BookStorage shard : shards) {
+            shard.closeConnection();
+        }
+    }
+}
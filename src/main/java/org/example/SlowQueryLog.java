@@ -0,0 +1,151 @@
+package org.example;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Журнал медленных запросов SQL.
+ * Запрос, выполнявшийся дольше порога, печатается в System.err вместе с формой параметров
+ * (типами, без значений, чтобы в журнал не попадали данные пользователей) и временем выполнения;
+ * последние такие запросы доступны через JMX.
+ */
+public class SlowQueryLog implements SlowQueryLogMXBean {
+
+    /**
+     * Порог медленного запроса по умолчанию, в миллисекундах.
+     */
+    static final long DEFAULT_THRESHOLD_MILLIS = 100;
+
+    /**
+     * Сколько последних записей хранить для JMX.
+     */
+    private static final int RECENT_SIZE = 50;
+
+
+    /**
+     * Порог медленного запроса в наносекундах.
+     */
+    private volatile long thresholdNanos;
+
+    /**
+     * Количество медленных запросов.
+     */
+    private final AtomicLong slow = new AtomicLong();
+
+    /**
+     * Количество ошибочных запросов.
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * Последние записи журнала.
+     */
+    private final Deque<String> recent = new ArrayDeque<>(RECENT_SIZE);
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param thresholdMillis Порог медленного запроса в миллисекундах.
+     */
+    public SlowQueryLog(long thresholdMillis) {
+        setThresholdMillis(thresholdMillis);
+    }
+
+
+    /**
+     * Создаёт журнал с порогом из переменной среды "storageSlowQueryMs".
+     *
+     * @return Журнал медленных запросов.
+     */
+    public static SlowQueryLog fromEnvironment() {
+        String threshold = System.getenv("storageSlowQueryMs");
+        return new SlowQueryLog(threshold != null ? Long.parseLong(threshold) : DEFAULT_THRESHOLD_MILLIS);
+    }
+
+
+    /**
+     * Проверяет, превышает ли время выполнения порог. Вызывается после каждого запроса, поэтому дешёвая.
+     *
+     * @param elapsedNanos Время выполнения в наносекундах.
+     * @return {@code true}, если запрос нужно записать в журнал.
+     */
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+
+    /**
+     * Записывает медленный запрос.
+     *
+     * @param sql          Текст SQL.
+     * @param binds        Форма параметров, например "(long, String) x 500".
+     * @param elapsedNanos Время выполнения в наносекундах.
+     */
+    public void slow(String sql, String binds, long elapsedNanos) {
+        slow.incrementAndGet();
+        add("Медленный запрос " + TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0 + " мс: " + sql + " " + binds);
+    }
+
+
+    /**
+     * Записывает запрос, завершившийся ошибкой.
+     *
+     * @param sql          Текст SQL.
+     * @param binds        Форма параметров.
+     * @param elapsedNanos Время до ошибки в наносекундах.
+     * @param error        Ошибка.
+     */
+    public void failed(String sql, String binds, long elapsedNanos, Throwable error) {
+        failed.incrementAndGet();
+        add("Ошибка запроса через " + TimeUnit.NANOSECONDS.toMicros(elapsedNanos) / 1000.0 + " мс: " + sql + " " + binds + ": " + error);
+    }
+
+
+    /**
+     * Печатает запись и сохраняет её среди последних.
+     */
+    private void add(String entry) {
+        System.err.println(entry);
+        synchronized (recent) {
+            if (recent.size() == RECENT_SIZE) {
+                recent.removeLast();
+            }
+            recent.addFirst(entry);
+        }
+    }
+
+
+    @Override
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+
+    @Override
+    public void setThresholdMillis(long thresholdMillis) {
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+
+    @Override
+    public long getSlowQueries() {
+        return slow.get();
+    }
+
+
+    @Override
+    public long getFailedQueries() {
+        return failed.get();
+    }
+
+
+    @Override
+    public String[] getRecent() {
+        synchronized (recent) {
+            return recent.toArray(new String[0]);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.example;
+
+/**
+ * Интерфейс управления журналом медленных запросов {@link SlowQueryLog} через JMX.
+ */
+public interface SlowQueryLogMXBean {
+
+    /**
+     * Возвращает порог медленного запроса.
+     *
+     * @return Порог в миллисекундах.
+     */
+    long getThresholdMillis();
+
+    /**
+     * Меняет порог медленного запроса.
+     *
+     * @param thresholdMillis Новый порог в миллисекундах.
+     */
+    void setThresholdMillis(long thresholdMillis);
+
+    /**
+     * Возвращает количество медленных запросов с момента запуска.
+     *
+     * @return Количество запросов.
+     */
+    long getSlowQueries();
+
+    /**
+     * Возвращает количество запросов, завершившихся ошибкой SQLException.
+     *
+     * @return Количество запросов.
+     */
+    long getFailedQueries();
+
+    /**
+     * Возвращает последние медленные и ошибочные запросы.
+     *
+     * @return Записи журнала, начиная с самой новой.
+     */
+    String[] getRecent();
+}
@@ -0,0 +1,200 @@
+package org.example;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Контрольные точки состояния диалогов бота для тёплого перезапуска.
+ * <p>
+ * Контрольная точка сохраняет изменённые сессии чатов (режим, шаг ввода книги, головоломку, курсор
+ * и участие в голосовании) в хранилище, а общее для всех чатов состояние голосования - в компактный
+ * двоичный снимок. Снимок пишется во временный файл и атомарно заменяет прежний, поэтому сбой
+ * во время записи оставляет предыдущий снимок целым.
+ * <p>
+ * Контрольная точка делается периодически и при остановке JVM. При запуске из снимка читается только
+ * состояние голосования, а сессии восстанавливаются из хранилища при первом сообщении каждого чата.
+ * Поэтому после перезапуска пользователи продолжают диалог с того же шага, не повторяя команды.
+ * <p>
+ * Файл снимка задаётся переменной среды "stateSnapshotFile" (по умолчанию "bot_state.snapshot"),
+ * период в секундах - переменной "stateSnapshotSeconds" (по умолчанию 60, 0 - только при остановке).
+ */
+class StateCheckpoint {
+
+    /**
+     * Файл снимка по умолчанию.
+     */
+    static final String DEFAULT_FILE = "bot_state.snapshot";
+
+    /**
+     * Период контрольных точек по умолчанию в секундах.
+     */
+    static final long DEFAULT_PERIOD_SECONDS = 60;
+
+    /**
+     * Сигнатура файла снимка.
+     */
+    private static final int MAGIC = 0x424F5453;
+
+    /**
+     * Версия формата снимка.
+     */
+    private static final int FORMAT_VERSION = 1;
+
+
+    /**
+     * Обработчик сообщений, состояние которого сохраняется.
+     */
+    private final MessageHandling messageHandling;
+
+    /**
+     * Файл снимка.
+     */
+    private final Path file;
+
+    /**
+     * Период контрольных точек в миллисекундах; 0 - только при остановке.
+     */
+    private final long periodMillis;
+
+    /**
+     * Поток периодических контрольных точек или {@code null}, если они не запущены.
+     */
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Обработчик остановки JVM или {@code null}, если он не зарегистрирован.
+     */
+    private Thread shutdownHook;
+
+
+    /**
+     * Конструктор класса. Контрольные точки не запускаются; их запускает {@link #start()}.
+     *
+     * @param messageHandling Обработчик сообщений.
+     * @param file            Файл снимка.
+     * @param periodMillis    Период контрольных точек в миллисекундах; 0 - только при остановке.
+     */
+    StateCheckpoint(MessageHandling messageHandling, Path file, long periodMillis) {
+        this.messageHandling = messageHandling;
+        this.file = file;
+        this.periodMillis = periodMillis;
+    }
+
+
+    /**
+     * Создаёт контрольные точки с настройками из переменных среды "stateSnapshotFile" и "stateSnapshotSeconds".
+     *
+     * @param messageHandling Обработчик сообщений.
+     * @return Контрольные точки.
+     */
+    static StateCheckpoint fromEnvironment(MessageHandling messageHandling) {
+        String file = System.getenv("stateSnapshotFile");
+        String seconds = System.getenv("stateSnapshotSeconds");
+        return new StateCheckpoint(messageHandling, Paths.get(file != null ? file : DEFAULT_FILE),
+                TimeUnit.SECONDS.toMillis(seconds != null ? Long.parseLong(seconds) : DEFAULT_PERIOD_SECONDS));
+    }
+
+
+    /**
+     * Восстанавливает состояние голосования из снимка, если он есть. Повреждённый снимок пропускается:
+     * бот стартует с пустым голосованием, как при холодном запуске.
+     *
+     * @return {@code true}, если состояние восстановлено.
+     */
+    boolean restore() {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Неизвестный формат снимка состояния " + file);
+            }
+            in.readLong();
+            messageHandling.readState(in);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+
+    /**
+     * Делает контрольную точку: сохраняет изменённые сессии в хранилище и записывает снимок.
+     *
+     * @throws IOException Если снимок не удалось записать.
+     */
+    synchronized void checkpoint() throws IOException {
+        messageHandling.checkpointSessions();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            messageHandling.writeState(out);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+
+    /**
+     * Делает контрольную точку, печатая ошибку вместо исключения.
+     */
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Запускает периодические контрольные точки и регистрирует контрольную точку при остановке JVM.
+     */
+    synchronized void start() {
+        if (shutdownHook != null) {
+            return;
+        }
+        shutdownHook = new Thread(this::checkpointQuietly, "state-checkpoint-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+        if (periodMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "state-checkpoint");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::checkpointQuietly, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    /**
+     * Останавливает периодические контрольные точки и снимает обработчик остановки JVM.
+     */
+    synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // JVM уже останавливается, и обработчик выполняется
+            }
+            shutdownHook = null;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package org.example;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Класс для управления хранилищем книг и цитат.
@@ -15,50 +21,136 @@ public class Storage implements BookStorage {
 
 
     /**
-     * Соединение с базой данных.
+     * URL базы данных SQLite.
+     */
+    private final String databaseUrl;
+
+
+    /**
+     * Количество соединений для чтения.
+     */
+    static final int READER_COUNT = ConnectionPool.DEFAULT_SIZE;
+
+
+    /**
+     * Единственное соединение для записи. Записи выполняются по очереди в Java-коде,
+     * поэтому не соревнуются за блокировку файла и не получают SQLITE_BUSY.
+     */
+    private final ConnectionPool writer;
+
+
+    /**
+     * Соединения только для чтения. В режиме WAL они читают последнюю зафиксированную версию базы данных
+     * и не ждут писателя, а писатель не ждёт их.
+     */
+    private final ConnectionPool readers;
+
+
+    /**
+     * Журнал медленных и ошибочных запросов обоих пулов; публикуется через JMX.
      */
-    private Connection connection;
+    private final SlowQueryLog slowQueries = SlowQueryLog.fromEnvironment();
 
 
     /**
-     * Список цитат.
+     * Имя журнала медленных запросов в JMX.
      */
-    final private ArrayList<String> quoteList;
+    private final ObjectName slowQueriesName;
 
 
     /**
-     * Конструктор класса. Инициализирует соединение с базой данных и список цитат.
+     * Очередь отложенной записи или {@code null}, если изменения записываются сразу.
+     */
+    private final WriteBehindQueue writeQueue;
+
+
+    /**
+     * Набор цитат.
+     */
+    final private QuoteBook quotes = new QuoteBook();
+
+
+    /**
+     * Количество книг в одной пачке executeBatch при импорте.
+     */
+    static final int IMPORT_BATCH_SIZE = 500;
+
+
+    /**
+     * Конструктор класса. Инициализирует пул соединений с базой данных по умолчанию.
+     * Режим отложенной записи включается переменной среды "storageWriteBehind".
      */
     public Storage() {
+        this(DATABASE_URL, Boolean.parseBoolean(System.getenv("storageWriteBehind")));
+    }
+
+
+    /**
+     * Конструктор класса. Инициализирует пул соединений с указанной базой данных.
+     *
+     * @param databaseUrl URL базы данных SQLite.
+     */
+    public Storage(String databaseUrl) {
+        this(databaseUrl, false);
+    }
+
+
+    /**
+     * Конструктор класса. Открывает соединение для записи и пул соединений для чтения с указанной базой данных
+     * и, при необходимости, очередь отложенной записи. База данных переводится в режим журнала WAL.
+     *
+     * @param databaseUrl URL базы данных SQLite.
+     * @param writeBehind {@code true}, чтобы записывать изменения пачками в отдельном потоке.
+     */
+    public Storage(String databaseUrl, boolean writeBehind) {
         try {
             Class.forName("org.sqlite.JDBC");
-            connection = DriverManager.getConnection(DATABASE_URL);
         } catch (Exception e) {
             e.printStackTrace();
         }
-        quoteList = new ArrayList<>();
-        quoteList.add("Цитата: Начинать всегда стоит с того, что сеет сомнения. \n\nБорис Стругацкий.");
-        quoteList.add("Цитата: 80% успеха - это появиться в нужном месте в нужное время.\n\nВуди Аллен");
-        quoteList.add("Цитата: Мы должны признать очевидное: понимают лишь те,кто хочет понять.\n\nБернар Вербер");
+        this.databaseUrl = databaseUrl;
+        writer = new ConnectionPool(databaseUrl, 1);
+        writer.setSlowQueryLog(slowQueries);
+        // Приводим схему базы данных к актуальной версии до первого запроса и включаем WAL:
+        // режим журнала сохраняется в файле базы данных, поэтому читатели открываются уже в нём
+        try (PooledConnection connection = writer.acquire();
+             Statement statement = connection.getConnection().createStatement()) {
+            SchemaMigrations.migrate(connection.getConnection());
+            statement.execute("PRAGMA journal_mode = WAL");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        readers = new ConnectionPool(databaseUrl, READER_COUNT, true);
+        readers.setSlowQueryLog(slowQueries);
+        slowQueriesName = StorageMetrics.objectName("SlowQueryLog", databaseUrl, null);
+        StorageMetrics.register(slowQueriesName, slowQueries);
+        writeQueue = writeBehind ? new WriteBehindQueue(writer) : null;
     }
 
     /**
-     * Метод для получения произвольной цитаты из quoteList
+     * Метод для получения произвольной цитаты из набора цитат
      */
     public String getRandQuote()
     {
-        //получаем случайное значение в интервале от 0 до самого большого индекса
-        int randValue = (int)(Math.random() * quoteList.size());
-        //Из коллекции получаем цитату со случайным индексом и возвращаем ее
-        return quoteList.get(randValue);
+        return quotes.getRandQuote();
+    }
+
+    /**
+     * Метод для получения произвольной цитаты указанного автора
+     */
+    public String getRandQuote(String author)
+    {
+        return quotes.getRandQuote(author);
     }
 
     /**
      * Метод для получения списка прочитанных книг
      */
     public ArrayList<String> getReadBooks(long chatId) {
+        awaitPendingWrites(chatId);
         ArrayList<String> books = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM read_books WHERE chat_id = ?")) {
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT title FROM read_books WHERE chat_id = ? ORDER BY id");
             statement.setLong(1, chatId);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
@@ -72,62 +164,68 @@ public class Storage implements BookStorage {
     }
 
     /**
-     * Метод для добавления книги в список прочитанных книг по формату: название /n автор /n год
+     * Метод для добавления книги в список прочитанных книг по формату: название /n автор /n год.
+     * Повтор отсекается уникальным индексом (chat_id, title, author, year) в том же запросе INSERT.
+     * SQLite 3.27 не поддерживает RETURNING, поэтому результат определяется по количеству добавленных строк.
      */
-    public void addReadBook(String title, String author, int year, long chatId) {
-        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO read_books (title, author, year, chat_id) VALUES (?, ?, ?, ?)")) {
+    public CompletableFuture<Boolean> addReadBook(String title, String author, int year, long chatId) {
+        return writeChanged(chatId, connection -> {
+            PreparedStatement statement = connection.prepare("INSERT INTO read_books (title, author, year, chat_id, author_key, author_surname) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING");
             statement.setString(1, title);
             statement.setString(2, author);
             statement.setInt(3, year);
             statement.setLong(4, chatId);
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            setAuthorKeys(statement, 5, author);
+            return statement.executeUpdate();
+        });
     }
 
 
     /**
-     * Метод для замены книги в списке прочитанных книг по формату: старое_название /n старый_автор /n старый_год новое_название /n новый_автор /n новый_год
+     * Метод для замены данных книги в списке прочитанных книг по идентификатору строки.
+     * Если в списке уже есть другая книга с новыми данными, изменение пропускается.
      */
-    public void editReadBook(String oldTitle, String oldAuthor, int oldYear, String newTitle, String newAuthor, int newYear, long chatId) {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "UPDATE read_books SET title = ?, author = ?, year = ? WHERE title = ? AND author = ? AND year = ? AND chat_id = ?")) {
+    public CompletableFuture<Boolean> editReadBook(long bookId, String newTitle, String newAuthor, int newYear, long chatId) {
+        return writeChanged(chatId, connection -> {
+            PreparedStatement statement = connection.prepare("UPDATE OR IGNORE read_books SET title = ?, author = ?, year = ?, author_key = ?, author_surname = ? WHERE id = ? AND chat_id = ?");
             statement.setString(1, newTitle);
             statement.setString(2, newAuthor);
             statement.setInt(3, newYear);
-            statement.setString(4, oldTitle);
-            statement.setString(5, oldAuthor);
-            statement.setInt(6, oldYear);
+            setAuthorKeys(statement, 4, newAuthor);
+            statement.setLong(6, bookId);
             statement.setLong(7, chatId);
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            return statement.executeUpdate();
+        });
     }
 
 
     /**
      * Метод для полной очистки списка прочитанных книг
      */
-    public void clearReadBooks(long chatId) {
-        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM read_books WHERE chat_id = ?")) {
+    public CompletableFuture<Void> clearReadBooks(long chatId) {
+        return write(chatId, connection -> {
+            PreparedStatement statement = connection.prepare("DELETE FROM read_books WHERE chat_id = ?");
             statement.setLong(1, chatId);
             statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        });
     }
 
 
     /**
-     * Метод для получения книг одного автора из списка прочитанных книг
+     * Метод для получения книг одного автора из списка прочитанных книг.
+     * Автор сравнивается по ключу без учёта регистра, «ё» и лишних пробелов; запрос из одной фамилии
+     * находит книги автора с полным именем и наоборот (см. {@link AuthorKey#matches(String, String)}).
+     * Условия проверяются двумя частями UNION ALL по индексам (chat_id, author_key) и (chat_id, author_surname):
+     * при записи через OR SQLite выбирает индекс (chat_id) и просматривает все книги чата.
      */
     public ArrayList<String> getBooksByAuthor(String author, long chatId) {
+        awaitPendingWrites(chatId);
         ArrayList<String> books = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM read_books WHERE author = ? AND chat_id = ?")) {
-            statement.setString(1, author);
-            statement.setLong(2, chatId);
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT title FROM read_books WHERE chat_id = ?1 AND author_key IN (?2, ?3) "
+                    + "UNION ALL SELECT title FROM read_books WHERE chat_id = ?1 AND author_surname = ?2 AND author_key NOT IN (?2, ?3)");
+            statement.setLong(1, chatId);
+            setAuthorQuery(statement, 2, author);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
                     books.add(resultSet.getString("title"));
@@ -144,8 +242,10 @@ public class Storage implements BookStorage {
      * Метод для получения книг по конкретному году из списка прочитанных книг
      */
     public ArrayList<String> getBooksByYear(int year, long chatId) {
+        awaitPendingWrites(chatId);
         ArrayList<String> books = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM read_books WHERE year = ? AND chat_id = ?")) {
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT title FROM read_books WHERE year = ? AND chat_id = ?");
             statement.setInt(1, year);
             statement.setLong(2, chatId);
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -161,55 +261,234 @@ public class Storage implements BookStorage {
 
 
     /**
-     * Метод для проверки существования книги в списке прочитанных книг
+     * Метод для удаления книги из списка прочитанных книг по идентификатору строки
      */
-    public boolean bookExists(String title, String author, int year, long chatId) {
-        boolean exists = false;
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT * FROM read_books WHERE title = ? AND author = ? AND year = ? AND chat_id = ?")) {
-            statement.setString(1, title);
-            statement.setString(2, author);
-            statement.setInt(3, year);
-            statement.setLong(4, chatId);
+    public CompletableFuture<Void> updateReadBooks(long chatId, long bookId) {
+        return write(chatId, connection -> {
+            PreparedStatement statement = connection.prepare("DELETE FROM read_books WHERE id = ? AND chat_id = ?");
+            statement.setLong(1, bookId);
+            statement.setLong(2, chatId);
+            statement.executeUpdate();
+        });
+    }
+
+
+    /**
+     * Метод для получения страницы прочитанных книг чата.
+     * Страница начинается сразу после строки с идентификатором afterId и читается по индексу (chat_id, id).
+     *
+     * @param chatId  Идентификатор чата.
+     * @param afterId Идентификатор последней книги предыдущей страницы или 0 для первой страницы.
+     * @param limit   Максимальное количество книг на странице.
+     * @return Список прочитанных книг.
+     */
+    public ArrayList<ReadBook> getReadBooksPage(long chatId, long afterId, int limit) {
+        awaitPendingWrites(chatId);
+        ArrayList<ReadBook> books = new ArrayList<>();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT id, title, author, year, chat_id FROM read_books WHERE chat_id = ? AND id > ? ORDER BY id LIMIT ?");
+            statement.setLong(1, chatId);
+            statement.setLong(2, afterId);
+            statement.setInt(3, limit);
             try (ResultSet resultSet = statement.executeQuery()) {
-                exists = resultSet.next();
+                while (resultSet.next()) {
+                    books.add(readBook(resultSet));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return exists;
+        return books;
     }
 
 
     /**
-     * Метод для обновления списка прочитанных книг
+     * Метод для получения статистики прочитанных книг.
+     * Сводные таблицы read_stats, read_stats_year и read_stats_author поддерживаются триггерами базы данных
+     * при каждой вставке, изменении и удалении книги, поэтому здесь читаются только готовые счётчики.
      */
-    public void updateReadBooks(long chatId, String oldTitle, String oldAuthor, int oldYear) {
-        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM read_books WHERE chat_id = ? AND title = ? AND author = ? AND year = ?")) {
+    public ReadingStats getReadingStats(long chatId, int topAuthors) {
+        awaitPendingWrites(chatId);
+        int books = 0;
+        int authors = 0;
+        ArrayList<ReadingStats.YearCount> years = new ArrayList<>();
+        ArrayList<ReadingStats.AuthorCount> top = new ArrayList<>();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT books, authors FROM read_stats WHERE chat_id = ?");
             statement.setLong(1, chatId);
-            statement.setString(2, oldTitle);
-            statement.setString(3, oldAuthor);
-            statement.setInt(4, oldYear);
-            statement.executeUpdate();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    books = resultSet.getInt("books");
+                    authors = resultSet.getInt("authors");
+                }
+            }
+            statement = connection.prepare("SELECT year, books FROM read_stats_year WHERE chat_id = ? ORDER BY year DESC");
+            statement.setLong(1, chatId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    years.add(new ReadingStats.YearCount(resultSet.getInt("year"), resultSet.getInt("books")));
+                }
+            }
+            statement = connection.prepare("SELECT author, books FROM read_stats_author WHERE chat_id = ? ORDER BY books DESC, author LIMIT ?");
+            statement.setLong(1, chatId);
+            statement.setInt(2, topAuthors);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    top.add(new ReadingStats.AuthorCount(resultSet.getString("author"), resultSet.getInt("books")));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ReadingStats(books, authors, years, top);
+    }
+
+
+    /**
+     * Метод для импорта прочитанных книг из файла.
+     * Файл сначала читается целиком в память без соединения писателя, поэтому его разбор не задерживает
+     * записи других чатов. Затем все книги добавляются одним изменением через executeBatch пачками
+     * по {@value #IMPORT_BATCH_SIZE} внутри одной транзакции; повторы отсекает уникальный индекс в том же
+     * запросе INSERT, без отдельного запроса на каждую книгу. При ошибке чтения в базу ничего не пишется,
+     * при ошибке записи транзакция откатывается, так что читатели не видят импорт наполовину.
+     *
+     * @param chatId Идентификатор чата.
+     * @param reader Читатель файла со списком книг.
+     * @return Итог импорта.
+     * @throws IOException Если файл не удалось прочитать или книги не удалось записать.
+     */
+    public ImportResult importReadBooks(long chatId, ReadingListReader reader) throws IOException {
+        List<ReadingListReader.Row> rows = new ArrayList<>();
+        ReadingListReader.Row row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        awaitPendingWrites(chatId);
+        int[] inserted = new int[1];
+        try {
+            insertReadBooks(chatId, rows, inserted).join();
+        } catch (CompletionException e) {
+            throw new IOException("Не удалось записать импортированные книги", e.getCause());
+        }
+        return new ImportResult(inserted[0], rows.size() - inserted[0], reader.getInvalidCount());
+    }
+
+
+    /**
+     * Добавляет импортированные книги одной транзакцией. В очереди отложенной записи транзакцию уже открыл
+     * писатель, поэтому при ошибке откатываются только книги импорта до точки сохранения.
+     *
+     * @param chatId   Идентификатор чата.
+     * @param rows     Книги.
+     * @param inserted Счётчик добавленных книг, в который записывается итог после записи.
+     * @return Обещание, которое выполняется после записи книг.
+     */
+    private CompletableFuture<Void> insertReadBooks(long chatId, List<ReadingListReader.Row> rows, int[] inserted) {
+        return write(chatId, connection -> {
+            Connection jdbc = connection.getConnection();
+            boolean ownTransaction = jdbc.getAutoCommit();
+            PreparedStatement statement = connection.prepare("INSERT INTO read_books (title, author, year, chat_id, author_key, author_surname) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING");
+            Savepoint savepoint = null;
+            if (ownTransaction) {
+                jdbc.setAutoCommit(false);
+            } else {
+                savepoint = jdbc.setSavepoint();
+            }
+            try {
+                int count = 0;
+                int pending = 0;
+                for (ReadingListReader.Row row : rows) {
+                    statement.setString(1, row.title());
+                    statement.setString(2, row.author());
+                    statement.setInt(3, row.year());
+                    statement.setLong(4, chatId);
+                    setAuthorKeys(statement, 5, row.author());
+                    statement.addBatch();
+                    if (++pending == IMPORT_BATCH_SIZE) {
+                        count += countUpdates(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    count += countUpdates(statement.executeBatch());
+                }
+                if (ownTransaction) {
+                    jdbc.commit();
+                } else {
+                    jdbc.releaseSavepoint(savepoint);
+                }
+                inserted[0] = count;
+            } catch (SQLException e) {
+                // Запрос остаётся в кэше соединения, поэтому недописанная пачка не должна попасть в следующий импорт
+                statement.clearBatch();
+                if (ownTransaction) {
+                    jdbc.rollback();
+                } else {
+                    jdbc.rollback(savepoint);
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    jdbc.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+
+    /**
+     * Суммирует количество изменённых строк по результату executeBatch.
+     *
+     * @param counts Количество изменённых строк для каждого запроса пачки.
+     * @return Общее количество изменённых строк.
+     */
+    private static int countUpdates(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+
+    /**
+     * Метод для экспорта прочитанных книг чата. Строки результата запроса сразу передаются писателю.
+     *
+     * @param chatId Идентификатор чата.
+     * @param writer Писатель файла со списком книг.
+     * @return Количество записанных книг.
+     * @throws IOException Если книги не удалось прочитать или записать.
+     */
+    public long exportReadBooks(long chatId, ReadingListWriter writer) throws IOException {
+        awaitPendingWrites(chatId);
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT id, title, author, year, chat_id FROM read_books WHERE chat_id = ? ORDER BY id");
+            statement.setLong(1, chatId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    writer.write(readBook(resultSet));
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
+            throw new IOException("Не удалось прочитать список книг", e);
         }
+        return writer.getCount();
     }
 
 
     /**
-     * Метод для получения списка прочитанных книг в полном формате (название, автор, год)
+     * Метод для получения списка прочитанных книг в полном формате (идентификатор, название, автор, год)
      */
-    public ArrayList<String> getAllValues(long chatId) {
-        ArrayList<String> allValues = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title, author, year FROM read_books WHERE chat_id = ?")) {
+    public ArrayList<ReadBook> getAllValues(long chatId) {
+        awaitPendingWrites(chatId);
+        ArrayList<ReadBook> allValues = new ArrayList<>();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT id, title, author, year, chat_id FROM read_books WHERE chat_id = ? ORDER BY id");
             statement.setLong(1, chatId);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    String title = resultSet.getString("title");
-                    String author = resultSet.getString("author");
-                    int year = resultSet.getInt("year");
-                    allValues.add(title + "\n" + author + "\n" + year);
+                    allValues.add(readBook(resultSet));
                 }
             }
         } catch (SQLException e) {
@@ -226,31 +505,41 @@ public class Storage implements BookStorage {
      * @param author  Автор книги.
      * @param genre   Жанр книги.
      * @param chatId  Идентификатор чата.
+     * @return Обещание, которое выполняется после записи в базу данных: {@code true}, если книга добавлена,
+     *         {@code false}, если книга с таким названием и автором уже есть.
      */
-    public void addRecBook(String title, String author, String genre, long chatId) {
-        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO recommendedBooks (title, author, genre, chat_id) VALUES (?, ?, ?, ?)")) {
+    public CompletableFuture<Boolean> addRecBook(String title, String author, String genre, long chatId) {
+        return writeChanged(chatId, connection -> {
+            PreparedStatement statement = connection.prepare("INSERT INTO recommendedBooks (title, author, genre, chat_id, author_key, author_surname) VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING");
             statement.setString(1, title);
             statement.setString(2, author);
             statement.setString(3, genre);
             statement.setLong(4, chatId);
-            statement.executeUpdate();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+            setAuthorKeys(statement, 5, author);
+            return statement.executeUpdate();
+        });
     }
 
 
     /**
-     * Метод для получения списка названий рекомендованных книг.
+     * Метод для получения страницы рекомендованных книг.
+     * Страница начинается сразу после строки с идентификатором afterId, поэтому запрос
+     * переходит к ней по первичному ключу и не просматривает предыдущие строки.
      *
-     * @return Список названий книг.
+     * @param afterId Идентификатор последней книги предыдущей страницы или 0 для первой страницы.
+     * @param limit   Максимальное количество книг на странице.
+     * @return Список рекомендованных книг.
      */
-    public ArrayList<String> getRecBooks() {
-        ArrayList<String> books = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM recommendedBooks")) {
+    public ArrayList<RecommendedBook> getRecBooksPage(long afterId, int limit) {
+        awaitPendingWrites();
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT id, title, author, genre, chat_id FROM recommendedBooks WHERE id > ? ORDER BY id LIMIT ?");
+            statement.setLong(1, afterId);
+            statement.setInt(2, limit);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    books.add(resultSet.getString("title"));
+                    books.add(recommendedBook(resultSet));
                 }
             }
         } catch (SQLException e) {
@@ -260,45 +549,52 @@ public class Storage implements BookStorage {
     }
 
 
-
     /**
-     * Метод для проверки существования рекомендованной книги.
+     * Метод для поиска книг по указанному жанру в порядке добавления.
      *
-     * @param title  Название книги.
-     * @param author Автор книги.
-     * @return {@code true}, если книга существует, иначе {@code false}.
-     */
-    public boolean recBookExists(String title, String author) {
-        boolean exists = false;
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT * FROM recommendedBooks WHERE title = ? AND author = ?")) {
-            statement.setString(1, title);
-            statement.setString(2, author);
+     * @param genre Жанр книг.
+     * @param limit Максимальное количество книг.
+     * @return Список найденных книг.
+     */
+    public ArrayList<RecommendedBook> searchBooksByGenre(String genre, int limit) {
+        awaitPendingWrites();
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT id, title, author, genre, chat_id FROM recommendedBooks WHERE genre = ? ORDER BY id LIMIT ?");
+            statement.setString(1, genre);
+            statement.setInt(2, limit);
             try (ResultSet resultSet = statement.executeQuery()) {
-                exists = resultSet.next();
+                while (resultSet.next()) {
+                    books.add(recommendedBook(resultSet));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return exists;
+        return books;
     }
 
 
     /**
-     * Метод для поиска книг по указанному жанру.
+     * Метод для поиска книг по указанному автору в порядке добавления.
+     * Автор сравнивается так же, как в {@link #getBooksByAuthor(String, long)}.
      *
-     * @param genre Жанр книг.
-     * @return Список найденных книг в формате "название от автора".
+     * @param author Автор книг.
+     * @param limit  Максимальное количество книг.
+     * @return Список найденных книг.
      */
-    public ArrayList<String> searchBooksByGenre(String genre) {
-        ArrayList<String> books = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title, author FROM recommendedBooks WHERE genre = ?")) {
-            statement.setString(1, genre);
+    public ArrayList<RecommendedBook> searchBooksByAuthor(String author, int limit) {
+        awaitPendingWrites();
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT id, title, author, genre, chat_id FROM recommendedBooks WHERE author_key IN (?1, ?2) "
+                    + "UNION ALL SELECT id, title, author, genre, chat_id FROM recommendedBooks WHERE author_surname = ?1 AND author_key NOT IN (?1, ?2) "
+                    + "ORDER BY id LIMIT ?3");
+            setAuthorQuery(statement, 1, author);
+            statement.setInt(3, limit);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    String title = resultSet.getString("title");
-                    String author = resultSet.getString("author");
-                    books.add(title + " от автора " + author);
+                    books.add(recommendedBook(resultSet));
                 }
             }
         } catch (SQLException e) {
@@ -309,20 +605,29 @@ public class Storage implements BookStorage {
 
 
     /**
-     * Метод для поиска книг по указанному автору.
+     * Метод для полнотекстового поиска рекомендованных книг по названию и автору.
+     * Каждое слово запроса ищется как префикс, книги упорядочены по релевантности (bm25).
      *
-     * @param author Автор книг.
-     * @return Список найденных книг в формате "название (жанр)".
+     * @param query Текст запроса.
+     * @param limit Максимальное количество найденных книг.
+     * @return Список найденных книг, начиная с самых подходящих.
      */
-    public ArrayList<String> searchBooksByAuthor(String author) {
-        ArrayList<String> books = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title, genre FROM recommendedBooks WHERE author = ?")) {
-            statement.setString(1, author);
+    public ArrayList<RecommendedBook> searchRecBooks(String query, int limit) {
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        String match = ftsQuery(query);
+        if (match.isEmpty()) {
+            return books;
+        }
+        awaitPendingWrites();
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT r.id, r.title, r.author, r.genre, r.chat_id FROM recommendedBooks r "
+                    + "JOIN (SELECT rowid, rank FROM recommended_books_fts WHERE recommended_books_fts MATCH ? ORDER BY rank LIMIT ?) m "
+                    + "ON r.id = m.rowid ORDER BY m.rank");
+            statement.setString(1, match);
+            statement.setInt(2, limit);
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    String title = resultSet.getString("title");
-                    String genre = resultSet.getString("genre");
-                    books.add(title + " (жанр: " + genre + ")");
+                    books.add(recommendedBook(resultSet));
                 }
             }
         } catch (SQLException e) {
@@ -333,60 +638,263 @@ public class Storage implements BookStorage {
 
 
     /**
-     * Метод для обновления данных о рекомендованных книгах.
+     * Преобразует текст пользователя в запрос FTS5: каждое слово берётся в кавычки и ищется как префикс,
+     * поэтому служебный синтаксис FTS5 во вводе не интерпретируется.
      *
-     * @param chatId   Идентификатор чата.
-     * @param oldTitle Старое название книги.
-     * @param oldAuthor Старый автор книги.
-     * @param oldGenre  Старый жанр книги.
+     * @param text Текст пользователя.
+     * @return Запрос FTS5 или пустая строка, если в тексте нет слов.
      */
-    public void updateRecBooks(long chatId, String oldTitle, String oldAuthor, String oldGenre) {
-        try (PreparedStatement statement = connection.prepareStatement("DELETE FROM recommendedBooks WHERE chat_id = ? AND title = ? AND author = ? AND genre = ?")) {
-            statement.setLong(1, chatId);
-            statement.setString(2, oldTitle);
-            statement.setString(3, oldAuthor);
-            statement.setString(4, oldGenre);
+    static String ftsQuery(String text) {
+        StringBuilder query = new StringBuilder();
+        for (String word : text.replace('ё', 'е').replace('Ё', 'Е').split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append('"').append(word).append("\"*");
+            }
+        }
+        return query.toString();
+    }
+
+
+    /**
+     * Метод для удаления рекомендованной книги по идентификатору строки.
+     * Книга удаляется, только если её добавил указанный чат.
+     *
+     * @param chatId Идентификатор чата.
+     * @param bookId Идентификатор строки книги.
+     * @return Обещание, которое выполняется после записи изменения в базу данных.
+     */
+    public CompletableFuture<Void> updateRecBooks(long chatId, long bookId) {
+        return write(chatId, connection -> {
+            PreparedStatement statement = connection.prepare("DELETE FROM recommendedBooks WHERE id = ? AND chat_id = ?");
+            statement.setLong(1, bookId);
+            statement.setLong(2, chatId);
             statement.executeUpdate();
+        });
+    }
+
+
+    /**
+     * Устанавливает параметры ключа и фамилии автора для записи книги.
+     *
+     * @param statement Запрос.
+     * @param index     Номер параметра ключа; фамилия устанавливается в следующий параметр.
+     * @param author    Имя автора.
+     * @throws SQLException Если параметры не удалось установить.
+     */
+    private static void setAuthorKeys(PreparedStatement statement, int index, String author) throws SQLException {
+        String key = author != null ? AuthorKey.of(author) : null;
+        statement.setString(index, key);
+        statement.setString(index + 1, key != null ? AuthorKey.surname(key) : null);
+    }
+
+
+    /**
+     * Устанавливает два параметра поиска по автору: полный ключ запроса и его фамилию.
+     * Книга подходит, если её ключ равен одному из них или её фамилия равна полному ключу запроса.
+     *
+     * @param statement Запрос.
+     * @param index     Номер первого параметра.
+     * @param author    Автор из запроса пользователя.
+     * @throws SQLException Если параметры не удалось установить.
+     */
+    private static void setAuthorQuery(PreparedStatement statement, int index, String author) throws SQLException {
+        String key = AuthorKey.of(author);
+        statement.setString(index, key);
+        statement.setString(index + 1, AuthorKey.surname(key));
+    }
+
+
+    /**
+     * Читает прочитанную книгу из текущей строки результата запроса.
+     *
+     * @param resultSet Результат запроса со столбцами id, title, author, year, chat_id.
+     * @return Прочитанная книга.
+     * @throws SQLException Если строку не удалось прочитать.
+     */
+    private static ReadBook readBook(ResultSet resultSet) throws SQLException {
+        return new ReadBook(resultSet.getLong("id"), resultSet.getString("title"), resultSet.getString("author"),
+                resultSet.getInt("year"), resultSet.getLong("chat_id"));
+    }
+
+
+    /**
+     * Читает рекомендованную книгу из текущей строки результата запроса.
+     *
+     * @param resultSet Результат запроса со столбцами id, title, author, genre, chat_id.
+     * @return Рекомендованная книга.
+     * @throws SQLException Если строку не удалось прочитать.
+     */
+    private static RecommendedBook recommendedBook(ResultSet resultSet) throws SQLException {
+        return new RecommendedBook(resultSet.getLong("id"), resultSet.getString("title"), resultSet.getString("author"),
+                resultSet.getString("genre"), resultSet.getLong("chat_id"));
+    }
+
+
+    /**
+     * Выполняет изменение базы данных: сразу, если отложенная запись выключена, иначе через очередь записи.
+     *
+     * @param chatId   Идентификатор чата, к данным которого относится изменение.
+     * @param mutation Изменение базы данных.
+     * @return Обещание, которое выполняется после записи изменения в базу данных.
+     */
+    private CompletableFuture<Void> write(long chatId, WriteBehindQueue.Mutation mutation) {
+        if (writeQueue != null) {
+            return writeQueue.submit(chatId, mutation);
+        }
+        try (PooledConnection connection = writer.acquire()) {
+            mutation.apply(connection);
+            return CompletableFuture.completedFuture(null);
         } catch (SQLException e) {
             e.printStackTrace();
+            return CompletableFuture.failedFuture(e);
         }
     }
 
 
     /**
-     * Метод для получения всех значений о рекомендованных книгах.
+     * Изменение базы данных, сообщающее количество изменённых строк.
+     */
+    @FunctionalInterface
+    private interface CountingMutation {
+        int apply(PooledConnection connection) throws SQLException;
+    }
+
+
+    /**
+     * Выполняет изменение базы данных так же, как {@link #write(long, WriteBehindQueue.Mutation)}, и сообщает, изменило ли оно строки.
+     *
+     * @param chatId   Идентификатор чата, к данным которого относится изменение.
+     * @param mutation Изменение базы данных.
+     * @return Обещание, которое выполняется после записи: {@code true}, если изменена хотя бы одна строка.
+     */
+    private CompletableFuture<Boolean> writeChanged(long chatId, CountingMutation mutation) {
+        int[] changed = new int[1];
+        return write(chatId, connection -> changed[0] = mutation.apply(connection)).thenApply(ignored -> changed[0] > 0);
+    }
+
+
+    /**
+     * Дожидается записи изменений, поставленных в очередь указанным чатом, чтобы чат видел свои изменения.
      *
-     * @return Список строк с данными о книгах.
+     * @param chatId Идентификатор чата.
      */
-    public ArrayList<String> getAllRecValues() {
-        ArrayList<String> allValues = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement("SELECT title, author, genre, chat_id FROM recommendedBooks")) {
+    private void awaitPendingWrites(long chatId) {
+        if (writeQueue != null) {
+            writeQueue.awaitChat(chatId);
+        }
+    }
+
+
+    /**
+     * Дожидается записи всех изменений из очереди перед запросом, общим для всех чатов.
+     */
+    private void awaitPendingWrites() {
+        if (writeQueue != null) {
+            writeQueue.awaitAll();
+        }
+    }
+
+
+    /**
+     * Возвращает журнал медленных запросов, например чтобы изменить порог.
+     *
+     * @return Журнал медленных запросов.
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return slowQueries;
+    }
+
+
+    /**
+     * Сохраняет копию базы данных в каталог под тем же именем файла, не останавливая записи и чтения
+     * (см. {@link DatabaseBackup}). Изменения из очереди отложенной записи попадают в копию.
+     * Пауза между пачками страниц задаётся переменной среды "storageBackupPauseMs".
+     */
+    public BackupResult backup(Path directory) throws IOException {
+        return backup(directory, null);
+    }
+
+
+    /**
+     * Сохраняет копию базы данных в каталог так же, как {@link #backup(Path)}, сообщая о ходе копирования.
+     *
+     * @param directory Каталог копии.
+     * @param progress  Получатель сведений о ходе копирования или {@code null}.
+     * @return Итог копирования.
+     * @throws IOException Если копию не удалось сохранить.
+     */
+    public BackupResult backup(Path directory, DatabaseBackup.Progress progress) throws IOException {
+        awaitPendingWrites();
+        Path destination = directory.resolve(DatabaseBackup.databaseFile(databaseUrl).getFileName());
+        long start = System.nanoTime();
+        try {
+            long bytes = DatabaseBackup.copy(writer, databaseUrl, destination, DatabaseBackup.pauseFromEnvironment(), progress);
+            return new BackupResult(List.of(destination), bytes, (System.nanoTime() - start) / 1_000_000);
+        } catch (SQLException e) {
+            throw new IOException("Не удалось сохранить копию " + databaseUrl, e);
+        }
+    }
+
+
+    /**
+     * Метод для сохранения вытесненной сессии чата в таблицу chat_sessions.
+     * Сохранённая ранее сессия чата заменяется новой.
+     *
+     * @param chatId Идентификатор чата.
+     * @param state  Сериализованная сессия или {@code null}, чтобы удалить сохранённую сессию.
+     * @return Обещание, которое выполняется после записи в базу данных.
+     */
+    public CompletableFuture<Void> saveSession(long chatId, byte[] state) {
+        return write(chatId, connection -> {
+            PreparedStatement statement;
+            if (state == null) {
+                statement = connection.prepare("DELETE FROM chat_sessions WHERE chat_id = ?");
+                statement.setLong(1, chatId);
+            } else {
+                statement = connection.prepare("INSERT INTO chat_sessions (chat_id, state, saved_at) VALUES (?, ?, ?) "
+                        + "ON CONFLICT (chat_id) DO UPDATE SET state = excluded.state, saved_at = excluded.saved_at");
+                statement.setLong(1, chatId);
+                statement.setBytes(2, state);
+                statement.setLong(3, System.currentTimeMillis());
+            }
+            statement.executeUpdate();
+        });
+    }
+
+
+    /**
+     * Метод для получения сохранённой сессии чата.
+     *
+     * @param chatId Идентификатор чата.
+     * @return Сериализованная сессия или {@code null}, если сессия не сохранена или её не удалось прочитать.
+     */
+    public byte[] loadSession(long chatId) {
+        awaitPendingWrites(chatId);
+        try (PooledConnection connection = readers.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT state FROM chat_sessions WHERE chat_id = ?");
+            statement.setLong(1, chatId);
             try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    String title = resultSet.getString("title");
-                    String author = resultSet.getString("author");
-                    String genre = resultSet.getString("genre");
-                    long chat_id = resultSet.getLong("chat_id");
-                    allValues.add(title + "\n" + author + "\n" + genre +"\n" + chat_id);
-                }
+                return resultSet.next() ? resultSet.getBytes(1) : null;
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         }
-        return allValues;
     }
 
 
     /**
-     * Метод для закрытия соединения с базой данных.
+     * Метод для закрытия всех соединений с базой данных. Перед закрытием дописывает очередь отложенной записи.
      */
     public void closeConnection() {
-        try {
-            if (connection != null) {
-                connection.close();
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        if (writeQueue != null) {
+            writeQueue.close();
         }
+        readers.close();
+        writer.close();
+        StorageMetrics.unregister(slowQueriesName);
     }
-}
\ No newline at end of file
+}
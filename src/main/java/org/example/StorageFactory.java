@@ -0,0 +1,63 @@
+package org.example;
+
+import java.nio.file.Path;
+
+/**
+ * Выбор реализации хранилища книг при запуске.
+ * Реализация задаётся переменной среды "storageBackend": "memory" - {@link InMemoryBookStorage},
+ * иначе - {@link Storage} на SQLite с кэшем списков. Если переменная "storageShards" больше 1, книги распределяются
+ * между указанным количеством файлов SQLite ({@link ShardedBookStorage}); количество меняется только через {@link Resharder}.
+ * Для хранилища в памяти каталог снимка задаётся переменной "storageDir" (по умолчанию "books-data"),
+ * период снимков в секундах - переменной "storageSnapshotSeconds" (по умолчанию 300).
+ * Вызовы хранилища измеряются {@link InstrumentedBookStorage}; метрики доступны через JMX.
+ * Если задана переменная "storageBackupHours", хранилище копируется по расписанию (см. {@link DatabaseBackup}).
+ */
+public final class StorageFactory {
+
+    /**
+     * Каталог снимка хранилища в памяти по умолчанию.
+     */
+    static final String DEFAULT_DIRECTORY = "books-data";
+
+    /**
+     * Период снимков хранилища в памяти по умолчанию, в секундах.
+     */
+    static final long DEFAULT_SNAPSHOT_SECONDS = 300;
+
+
+    private StorageFactory() {
+    }
+
+
+    /**
+     * Создаёт хранилище по переменным среды.
+     *
+     * @return Хранилище книг.
+     */
+    public static BookStorage create() {
+        BookStorage storage = createBackend();
+        DatabaseBackup.scheduleFromEnvironment(storage);
+        return storage;
+    }
+
+
+    /**
+     * Создаёт хранилище выбранной реализации.
+     *
+     * @return Хранилище книг.
+     */
+    private static BookStorage createBackend() {
+        if ("memory".equalsIgnoreCase(System.getenv("storageBackend"))) {
+            String directory = System.getenv("storageDir");
+            String seconds = System.getenv("storageSnapshotSeconds");
+            return new InstrumentedBookStorage(new InMemoryBookStorage(Path.of(directory != null ? directory : DEFAULT_DIRECTORY),
+                    seconds != null ? Long.parseLong(seconds) : DEFAULT_SNAPSHOT_SECONDS), "memory");
+        }
+        String shards = System.getenv("storageShards");
+        if (shards != null && Integer.parseInt(shards) > 1) {
+            return new InstrumentedBookStorage(ShardedBookStorage.open(Path.of(""), Integer.parseInt(shards),
+                    Boolean.parseBoolean(System.getenv("storageWriteBehind"))), "sqlite");
+        }
+        return new InstrumentedBookStorage(new CachedBookStorage(new Storage()), "sqlite");
+    }
+}
@@ -0,0 +1,296 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Метрики вызовов методов хранилища: гистограмма задержек, количество вызовов, ошибок и возвращённых строк.
+ * Метрики каждого метода публикуются через JMX под именем
+ * {@code org.example:type=BookStorage,name=<хранилище>,method=<метод>}.
+ */
+public class StorageMetrics implements AutoCloseable {
+
+    /**
+     * Интерфейс метрик одного метода для JMX.
+     */
+    public interface MethodMXBean {
+
+        /**
+         * Возвращает количество вызовов.
+         *
+         * @return Количество вызовов.
+         */
+        long getCalls();
+
+        /**
+         * Возвращает количество вызовов, завершившихся ошибкой.
+         *
+         * @return Количество ошибок.
+         */
+        long getErrors();
+
+        /**
+         * Возвращает суммарное количество строк, возвращённых или изменённых методом.
+         *
+         * @return Количество строк.
+         */
+        long getRows();
+
+        /**
+         * Возвращает медиану задержки.
+         *
+         * @return Задержка в микросекундах.
+         */
+        long getP50Micros();
+
+        /**
+         * Возвращает 99-й перцентиль задержки.
+         *
+         * @return Задержка в микросекундах.
+         */
+        long getP99Micros();
+
+        /**
+         * Возвращает 99,9-й перцентиль задержки.
+         *
+         * @return Задержка в микросекундах.
+         */
+        long getP999Micros();
+
+        /**
+         * Возвращает наибольшую задержку.
+         *
+         * @return Задержка в микросекундах.
+         */
+        long getMaxMicros();
+
+        /**
+         * Обнуляет метрики метода.
+         */
+        void reset();
+    }
+
+
+    /**
+     * Метрики одного метода.
+     */
+    public static final class Method implements MethodMXBean {
+
+        /**
+         * Гистограмма задержек в наносекундах.
+         */
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        /**
+         * Количество ошибок.
+         */
+        private final AtomicLong errors = new AtomicLong();
+
+        /**
+         * Количество строк.
+         */
+        private final LongAdder rows = new LongAdder();
+
+
+        /**
+         * Записывает успешный вызов.
+         *
+         * @param elapsedNanos Время вызова в наносекундах.
+         * @param rowCount     Количество возвращённых или изменённых строк.
+         */
+        public void record(long elapsedNanos, long rowCount) {
+            latency.record(elapsedNanos);
+            rows.add(rowCount);
+        }
+
+
+        /**
+         * Записывает вызов, завершившийся ошибкой.
+         *
+         * @param elapsedNanos Время до ошибки в наносекундах.
+         */
+        public void recordError(long elapsedNanos) {
+            latency.record(elapsedNanos);
+            errors.incrementAndGet();
+        }
+
+
+        @Override
+        public long getCalls() {
+            return latency.count();
+        }
+
+
+        @Override
+        public long getErrors() {
+            return errors.get();
+        }
+
+
+        @Override
+        public long getRows() {
+            return rows.sum();
+        }
+
+
+        @Override
+        public long getP50Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(latency.percentile(0.5));
+        }
+
+
+        @Override
+        public long getP99Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(latency.percentile(0.99));
+        }
+
+
+        @Override
+        public long getP999Micros() {
+            return TimeUnit.NANOSECONDS.toMicros(latency.percentile(0.999));
+        }
+
+
+        @Override
+        public long getMaxMicros() {
+            return TimeUnit.NANOSECONDS.toMicros(latency.max());
+        }
+
+
+        @Override
+        public void reset() {
+            latency.reset();
+            errors.set(0);
+            rows.reset();
+        }
+    }
+
+
+    /**
+     * Имя хранилища в именах JMX.
+     */
+    private final String name;
+
+    /**
+     * Метрики по именам методов.
+     */
+    private final Map<String, Method> methods = new ConcurrentHashMap<>();
+
+
+    /**
+     * Конструктор класса.
+     *
+     * @param name Имя хранилища в именах JMX, например "sqlite".
+     */
+    public StorageMetrics(String name) {
+        this.name = name;
+    }
+
+
+    /**
+     * Возвращает метрики метода, при первом обращении создавая их и публикуя через JMX.
+     *
+     * @param method Имя метода.
+     * @return Метрики метода.
+     */
+    public Method method(String method) {
+        Method metrics = methods.get(method);
+        if (metrics == null) {
+            metrics = methods.computeIfAbsent(method, key -> {
+                Method created = new Method();
+                register(objectName("BookStorage", name, key), created);
+                return created;
+            });
+        }
+        return metrics;
+    }
+
+
+    /**
+     * Возвращает метрики всех вызывавшихся методов.
+     *
+     * @return Метрики по именам методов.
+     */
+    public Map<String, Method> methods() {
+        return Map.copyOf(methods);
+    }
+
+
+    /**
+     * Снимает публикацию метрик через JMX.
+     */
+    @Override
+    public void close() {
+        for (String method : methods.keySet()) {
+            unregister(objectName("BookStorage", name, method));
+        }
+    }
+
+
+    /**
+     * Составляет имя объекта JMX.
+     *
+     * @param type   Тип объекта.
+     * @param name   Имя экземпляра.
+     * @param method Имя метода или {@code null}.
+     * @return Имя объекта или {@code null}, если имя составить не удалось.
+     */
+    static ObjectName objectName(String type, String name, String method) {
+        try {
+            return new ObjectName("org.example:type=" + type + ",name=" + ObjectName.quote(name)
+                    + (method != null ? ",method=" + method : ""));
+        } catch (JMException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+
+    /**
+     * Публикует объект через JMX, заменяя объект с тем же именем, оставшийся от прежнего экземпляра.
+     *
+     * @param objectName Имя объекта.
+     * @param bean       Объект с интерфейсом MXBean.
+     */
+    static void register(ObjectName objectName, Object bean) {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(bean, objectName);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Снимает публикацию объекта через JMX, если он опубликован.
+     *
+     * @param objectName Имя объекта.
+     */
+    static void unregister(ObjectName objectName) {
+        if (objectName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package org.example;
 
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.GetFile;
+import org.telegram.telegrambots.meta.api.methods.send.SendDocument;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.objects.Document;
+import org.telegram.telegrambots.meta.api.objects.InputFile;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.ReplyKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.KeyboardRow;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 /**
@@ -28,18 +43,72 @@ public class TelegramBot extends TelegramLongPollingBot implements TelegramBotIn
      */
     final private String BOT_NAME = "groobee";
 
+    /**
+     * Сколько секунд запрос webhook ждёт ответа бота. Не дождавшийся ответ отправляется отдельным сообщением.
+     */
+    static final long WEBHOOK_REPLY_TIMEOUT_SECONDS = 10;
+
+    /**
+     * Ответ на сообщение, обработка которого завершилась ошибкой.
+     */
+    static final String UPDATE_FAILED = "Не удалось обработать сообщение, попробуйте ещё раз.";
+
     /**
      * Экземпляр класса MessageHandling.
      * Эта переменная используется для хранения экземпляра обработки сообщения.
      */
     private MessageHandling messageHandling;
+
+    /**
+     * Контрольные точки состояния диалогов, благодаря которым перезапуск бота незаметен пользователям.
+     */
+    private StateCheckpoint stateCheckpoint;
+
+    /**
+     * Диспетчер обновлений: сообщения разных чатов обрабатываются параллельно на виртуальных потоках,
+     * сообщения одного чата - по порядку. Поток получения обновлений не ждёт базу данных и отправку ответов.
+     */
+    private final UpdateDispatcher updateDispatcher;
+
+    /**
+     * Планировщик исходящих сообщений: соблюдает ограничения скорости Telegram и повторяет неудачные отправки.
+     */
+    private final OutboundSender outboundSender = OutboundSender.fromEnvironment();
+
     /**
      * Конструктор класса TelegramBot, который инициализирует объекты Storage и MessageHandling.
      * Storage используется для управления базой данных с прочитанными книгами,
      * а MessageHandling - для обработки входящих сообщений от пользователя.
+     * Состояние голосования восстанавливается из последней контрольной точки.
      */
     public TelegramBot() {
-        messageHandling = new MessageHandling();
+        this(new MessageHandling());
+        stateCheckpoint = StateCheckpoint.fromEnvironment(messageHandling);
+        stateCheckpoint.restore();
+        stateCheckpoint.start();
+    }
+
+
+    /**
+     * Конструктор класса TelegramBot с готовым обработчиком сообщений и без контрольных точек,
+     * например для проверки режима webhook без базы данных из переменных среды.
+     *
+     * @param messageHandling Обработчик сообщений.
+     */
+    TelegramBot(MessageHandling messageHandling) {
+        this(messageHandling, UpdateDispatcher.fromEnvironment("telegram"));
+    }
+
+
+    /**
+     * Конструктор класса TelegramBot с готовым обработчиком сообщений и диспетчером обновлений.
+     *
+     * @param messageHandling  Обработчик сообщений.
+     * @param updateDispatcher Диспетчер обновлений.
+     */
+    TelegramBot(MessageHandling messageHandling, UpdateDispatcher updateDispatcher) {
+        this.messageHandling = messageHandling;
+        this.updateDispatcher = updateDispatcher;
     }
 
     @Override
@@ -53,27 +122,209 @@ public class TelegramBot extends TelegramLongPollingBot implements TelegramBotIn
     }
 
     /**
-     * Получение и Отправка сообщения в чат пользователю
+     * Получение сообщения: обновление ставится в очередь своего чата и обрабатывается диспетчером.
      */
     @Override
     public void onUpdateReceived(Update update) {
+        if (!update.hasMessage()) {
+            return;
+        }
+        long chatId = update.getMessage().getChatId();
+        if (!updateDispatcher.submit(chatId, () -> handleUpdate(update))) {
+            System.err.println("Очередь обновлений переполнена, сообщение чата " + chatId + " не обработано");
+        }
+    }
+
+
+    /**
+     * Получение сообщения в режиме webhook. Сообщение обрабатывается в очереди своего чата, как и при
+     * длинном опросе, а текстовый ответ возвращается, чтобы отправить его прямо в ответе на запрос webhook
+     * без отдельного обращения к Telegram.
+     * <p>
+     * Если обработка завершилась ошибкой, пользователь получает сообщение {@link #UPDATE_FAILED}: повторная
+     * доставка того же обновления, скорее всего, снова завершилась бы ошибкой и задержала бы следующие.
+     *
+     * @param update Обновление.
+     * @return Ответ для отправки в ответе на запрос webhook или {@code null}, если ответ уже отправлен,
+     * не нужен или не успел за {@value #WEBHOOK_REPLY_TIMEOUT_SECONDS} секунд - тогда он будет
+     * отправлен отдельным сообщением, когда будет готов.
+     * @throws RejectedExecutionException Если очередь обновлений переполнена или диспетчер закрыт;
+     *                                    сервер webhook отвечает на это 503, и Telegram присылает обновление повторно.
+     */
+    public BotApiMethod<?> onWebhookUpdate(Update update) {
+        if (!update.hasMessage()) {
+            return null;
+        }
+        long chatId = update.getMessage().getChatId();
+        CompletableFuture<SendMessage> reply = new CompletableFuture<>();
+        if (!updateDispatcher.submit(chatId, () -> {
+            try {
+                reply.complete(answerUpdate(update));
+            } catch (Throwable e) {
+                reply.completeExceptionally(e);
+                throw e;
+            }
+        })) {
+            throw new RejectedExecutionException("Очередь обновлений переполнена, сообщение чата " + chatId + " не принято");
+        }
+        try {
+            return reply.get(WEBHOOK_REPLY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            // Запрос webhook больше не ждёт, но обновление уже принято: ответ уйдёт отдельным сообщением
+            reply.thenAccept(message -> {
+                if (message != null) {
+                    send(chatId, message);
+                }
+            });
+            return null;
+        } catch (ExecutionException e) {
+            // Ошибка обработки уже записана диспетчером
+            SendMessage failure = new SendMessage();
+            failure.setChatId(String.valueOf(chatId));
+            failure.setText(UPDATE_FAILED);
+            return failure;
+        }
+    }
+
+
+    /**
+     * Обработка сообщения и отправка ответа в чат пользователю
+     */
+    private void handleUpdate(Update update) {
+        SendMessage reply = answerUpdate(update);
+        if (reply != null) {
+            send(update.getMessage().getChatId(), reply);
+        }
+    }
+
+
+    /**
+     * Обрабатывает сообщение и возвращает текстовый ответ. Выгрузка списка книг отправляет документ сама.
+     *
+     * @param update Обновление.
+     * @return Текстовый ответ с клавиатурой или {@code null}, если ответ уже отправлен или не нужен.
+     */
+    private SendMessage answerUpdate(Update update) {
         try {
-            if (update.hasMessage() && update.getMessage().hasText()) {
+            if (update.hasMessage() && update.getMessage().hasDocument()) {
+                Message message = update.getMessage();
+                long chatId = message.getChatId();
+                return textMessage(chatId, importDocument(message.getDocument(), chatId));
+            } else if (update.hasMessage() && update.getMessage().hasText()) {
                 Message message = update.getMessage();
                 String userMessage = message.getText();
                 long chatId = message.getChatId();
 
-                String response = messageHandling.parseMessage(userMessage, chatId);
+                if (userMessage.equals("/export") || userMessage.startsWith("/export ")) {
+                    sendExport(userMessage.substring("/export".length()).trim(), chatId);
+                    return null;
+                }
 
-                SendMessage outMess = new SendMessage();
-                outMess.setChatId(String.valueOf(chatId));
-                outMess.setText(response);
-                outMess.setReplyMarkup(createKeyboard(chatId)); // Передаем chatId для определения состояния пользователя
-                execute(outMess);
+                String response = messageHandling.parseMessage(userMessage, chatId);
+                return textMessage(chatId, response);
             }
         } catch (TelegramApiException e) {
             e.printStackTrace();
         }
+        return null;
+    }
+
+
+    /**
+     * Создаёт текстовый ответ с клавиатурой.
+     */
+    private SendMessage textMessage(long chatId, String response) {
+        SendMessage outMess = new SendMessage();
+        outMess.setChatId(String.valueOf(chatId));
+        outMess.setText(response);
+        outMess.setReplyMarkup(createKeyboard(chatId)); // Передаем chatId для определения состояния пользователя
+        return outMess;
+    }
+
+
+    /**
+     * Ставит текстовый ответ с клавиатурой в очередь отправки.
+     */
+    private void sendText(long chatId, String response) {
+        send(chatId, textMessage(chatId, response));
+    }
+
+
+    /**
+     * Ставит текстовое сообщение в очередь отправки.
+     */
+    private void send(long chatId, SendMessage outMess) {
+        outboundSender.send(chatId, OutboundSender.Priority.INTERACTIVE, () -> {
+            try {
+                return executeAsync(outMess);
+            } catch (TelegramApiException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+
+    /**
+     * Скачивает присланный файл потоком и импортирует из него прочитанные книги.
+     *
+     * @param document Присланный файл.
+     * @param chatId   Идентификатор чата пользователя.
+     * @return Ответ пользователю с итогом импорта.
+     */
+    private String importDocument(Document document, long chatId) throws TelegramApiException {
+        if (ReadingListFormat.fromName(document.getFileName()) == null) {
+            return "Поддерживаются только файлы .csv и .json.";
+        }
+        GetFile getFile = new GetFile();
+        getFile.setFileId(document.getFileId());
+        InputStream input = downloadFileAsStream(execute(getFile));
+        return messageHandling.importReadBooks(chatId, document.getFileName(), input);
+    }
+
+
+    /**
+     * Выгружает прочитанные книги чата во временный файл и отправляет его документом.
+     * Книги пишутся в файл потоком, список целиком в памяти не собирается.
+     * Файл удаляется, когда отправка завершится, в том числе после повторов.
+     *
+     * @param formatName Формат "csv" или "json"; пустая строка означает CSV.
+     * @param chatId     Идентификатор чата пользователя.
+     */
+    private void sendExport(String formatName, long chatId) {
+        ReadingListFormat format = formatName.isEmpty() ? ReadingListFormat.CSV : ReadingListFormat.fromName(formatName);
+        if (format == null) {
+            sendText(chatId, "Укажите формат: /export csv или /export json.");
+            return;
+        }
+        File file = null;
+        try {
+            file = Files.createTempFile("read_books", "." + format.getExtension()).toFile();
+            long count;
+            try (OutputStream output = Files.newOutputStream(file.toPath())) {
+                count = messageHandling.exportReadBooks(chatId, format, output);
+            }
+            if (count == 0) {
+                sendText(chatId, "Список прочитанных книг пуст.");
+                return;
+            }
+            File exported = file;
+            SendDocument document = new SendDocument();
+            document.setChatId(String.valueOf(chatId));
+            document.setDocument(new InputFile(exported, "read_books." + format.getExtension()));
+            outboundSender.send(chatId, OutboundSender.Priority.INTERACTIVE, () -> executeAsync(document))
+                    .whenComplete((ignored, e) -> exported.delete());
+            file = null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            sendText(chatId, "Не удалось выгрузить список книг.");
+        } finally {
+            if (file != null) {
+                file.delete();
+            }
+        }
     }
 
 
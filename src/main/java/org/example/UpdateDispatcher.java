@@ -0,0 +1,359 @@
+package org.example;
+
+import javax.management.ObjectName;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Диспетчер обновлений: обрабатывает обновления разных чатов параллельно на виртуальных потоках,
+ * а обновления одного чата - строго по очереди.
+ * <p>
+ * У каждого чата с необработанными обновлениями есть почтовый ящик - очередь обновлений. Первое
+ * обновление в пустом ящике запускает виртуальный поток, который разбирает ящик до конца и удаляет его.
+ * Поэтому медленный чат (запрос к базе данных, отправка ответа) задерживает только собственные
+ * обновления, а поток получения обновлений сразу возвращается за следующими.
+ * <p>
+ * Принятые и ещё не обработанные обновления ограничены ёмкостью. Когда очередь заполнена,
+ * {@link #submit(long, Runnable)} ждёт освобождения места, замедляя получение обновлений, а если место
+ * не освободилось за время ожидания, отказывает. Глубина очереди, количество активных чатов и время
+ * ожидания в очереди публикуются через JMX под именем {@code org.example:type=UpdateDispatcher,name=<имя>}.
+ * <p>
+ * Ёмкость задаётся переменной среды "updateQueueCapacity" (по умолчанию 10 000),
+ * время ожидания места - переменной "updateQueueTimeoutMs" (по умолчанию 30 секунд).
+ */
+public class UpdateDispatcher implements UpdateDispatcherMXBean, AutoCloseable {
+
+    /**
+     * Ёмкость очереди по умолчанию.
+     */
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Время ожидания места в очереди по умолчанию, в миллисекундах.
+     */
+    static final long DEFAULT_OFFER_TIMEOUT_MILLIS = 30_000;
+
+    /**
+     * Время, которое {@link #close()} ждёт обработки принятых обновлений, в секундах.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+
+    /**
+     * Обновление в очереди чата.
+     *
+     * @param action     Обработка обновления.
+     * @param enqueuedAt Время постановки в очередь по {@link System#nanoTime()}.
+     */
+    private record Task(Runnable action, long enqueuedAt) {
+    }
+
+    /**
+     * Почтовый ящик чата. Поля изменяются под монитором ящика.
+     */
+    private static final class Mailbox {
+
+        /**
+         * Идентификатор чата.
+         */
+        final long chatId;
+
+        /**
+         * Необработанные обновления чата.
+         */
+        final ArrayDeque<Task> tasks = new ArrayDeque<>();
+
+        /**
+         * Флаг, что ящик разбирает виртуальный поток.
+         */
+        boolean running;
+
+        /**
+         * Флаг, что ящик опустел и удалён; новые обновления кладутся в новый ящик.
+         */
+        boolean closed;
+
+        Mailbox(long chatId) {
+            this.chatId = chatId;
+        }
+    }
+
+
+    /**
+     * Почтовые ящики чатов с необработанными обновлениями.
+     */
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * Исполнитель, запускающий по виртуальному потоку на каждый разбираемый ящик.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Свободные места очереди.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Ёмкость очереди.
+     */
+    private final int capacity;
+
+    /**
+     * Время ожидания места в очереди в миллисекундах.
+     */
+    private final long offerTimeoutMillis;
+
+    /**
+     * Количество обновлений, ожидающих обработки.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Наибольшее количество обновлений, ожидавших обработки.
+     */
+    private final AtomicInteger maxQueued = new AtomicInteger();
+
+    /**
+     * Гистограмма времени ожидания в очереди в наносекундах.
+     */
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+
+    /**
+     * Количество обработанных обновлений.
+     */
+    private final LongAdder processed = new LongAdder();
+
+    /**
+     * Количество обновлений, обработка которых завершилась исключением.
+     */
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Количество непринятых обновлений.
+     */
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Имя объекта JMX.
+     */
+    private final ObjectName objectName;
+
+    /**
+     * Флаг, что диспетчер закрыт и не принимает обновления.
+     */
+    private volatile boolean closed;
+
+
+    /**
+     * Конструктор класса. Публикует метрики через JMX.
+     *
+     * @param name               Имя диспетчера в JMX.
+     * @param capacity           Ёмкость очереди.
+     * @param offerTimeoutMillis Время ожидания места в очереди в миллисекундах.
+     */
+    public UpdateDispatcher(String name, int capacity, long offerTimeoutMillis) {
+        this.capacity = capacity;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.permits = new Semaphore(capacity);
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("update-", 0).factory());
+        this.objectName = StorageMetrics.objectName("UpdateDispatcher", name, null);
+        StorageMetrics.register(objectName, this);
+    }
+
+
+    /**
+     * Создаёт диспетчер с настройками из переменных среды "updateQueueCapacity" и "updateQueueTimeoutMs".
+     *
+     * @param name Имя диспетчера в JMX.
+     * @return Диспетчер обновлений.
+     */
+    public static UpdateDispatcher fromEnvironment(String name) {
+        String capacity = System.getenv("updateQueueCapacity");
+        String timeout = System.getenv("updateQueueTimeoutMs");
+        return new UpdateDispatcher(name,
+                capacity != null ? Integer.parseInt(capacity) : DEFAULT_CAPACITY,
+                timeout != null ? Long.parseLong(timeout) : DEFAULT_OFFER_TIMEOUT_MILLIS);
+    }
+
+
+    /**
+     * Ставит обновление чата в очередь. Обновления одного чата обрабатываются в порядке постановки.
+     * Если очередь заполнена, метод ждёт освобождения места.
+     *
+     * @param chatId Идентификатор чата.
+     * @param action Обработка обновления.
+     * @return {@code true}, если обновление принято; {@code false}, если место не освободилось
+     * за время ожидания или диспетчер закрыт.
+     */
+    public boolean submit(long chatId, Runnable action) {
+        if (closed) {
+            rejected.increment();
+            return false;
+        }
+        try {
+            if (!permits.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                return false;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            return false;
+        }
+        Task task = new Task(action, System.nanoTime());
+        maxQueued.accumulateAndGet(queued.incrementAndGet(), Math::max);
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(chatId, Mailbox::new);
+            synchronized (mailbox) {
+                if (mailbox.closed) {
+                    // Ящик опустел и удалён, пока поток ждал монитора; берём новый
+                    continue;
+                }
+                mailbox.tasks.add(task);
+                if (mailbox.running) {
+                    return true;
+                }
+                mailbox.running = true;
+            }
+            try {
+                executor.execute(() -> drain(mailbox));
+            } catch (RejectedExecutionException e) {
+                // Диспетчер закрывается: принятые обновления обрабатываются в вызывающем потоке
+                drain(mailbox);
+            }
+            return true;
+        }
+    }
+
+
+    /**
+     * Обрабатывает обновления из ящика по очереди, пока ящик не опустеет, и удаляет пустой ящик.
+     *
+     * @param mailbox Почтовый ящик чата.
+     */
+    private void drain(Mailbox mailbox) {
+        while (true) {
+            Task task;
+            synchronized (mailbox) {
+                task = mailbox.tasks.poll();
+                if (task == null) {
+                    mailbox.running = false;
+                    mailbox.closed = true;
+                    mailboxes.remove(mailbox.chatId, mailbox);
+                    return;
+                }
+            }
+            queued.decrementAndGet();
+            queueTime.record(System.nanoTime() - task.enqueuedAt());
+            try {
+                task.action().run();
+            } catch (Throwable e) {
+                // Перехватывается и Error: иначе ящик остался бы помечен выполняемым и чат бы замолчал навсегда
+                failed.increment();
+                e.printStackTrace();
+            } finally {
+                processed.increment();
+                // Место освобождается после обработки, поэтому ёмкость ограничивает и обрабатываемые обновления
+                permits.release();
+            }
+        }
+    }
+
+
+    /**
+     * Перестаёт принимать обновления, дожидается обработки принятых и снимает публикацию метрик.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        StorageMetrics.unregister(objectName);
+    }
+
+
+    @Override
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+
+    @Override
+    public int getMaxQueueDepth() {
+        return maxQueued.get();
+    }
+
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+
+    @Override
+    public int getActiveChats() {
+        return mailboxes.size();
+    }
+
+
+    @Override
+    public long getProcessed() {
+        return processed.sum();
+    }
+
+
+    @Override
+    public long getFailed() {
+        return failed.sum();
+    }
+
+
+    @Override
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+
+    @Override
+    public long getQueueTimeP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueTime.percentile(0.5));
+    }
+
+
+    @Override
+    public long getQueueTimeP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueTime.percentile(0.99));
+    }
+
+
+    @Override
+    public long getQueueTimeMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(queueTime.max());
+    }
+
+
+    @Override
+    public void reset() {
+        maxQueued.set(queued.get());
+        queueTime.reset();
+        processed.reset();
+        failed.reset();
+        rejected.reset();
+    }
+}
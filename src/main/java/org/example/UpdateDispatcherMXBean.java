@@ -0,0 +1,82 @@
+package org.example;
+
+/**
+ * Интерфейс метрик диспетчера обновлений {@link UpdateDispatcher} для JMX.
+ */
+public interface UpdateDispatcherMXBean {
+
+    /**
+     * Возвращает количество обновлений, ожидающих обработки во всех чатах.
+     *
+     * @return Количество обновлений.
+     */
+    int getQueueDepth();
+
+    /**
+     * Возвращает наибольшее количество ожидающих обработки обновлений с момента запуска или обнуления.
+     *
+     * @return Количество обновлений.
+     */
+    int getMaxQueueDepth();
+
+    /**
+     * Возвращает предел обновлений, принятых и ещё не обработанных.
+     *
+     * @return Предел обновлений.
+     */
+    int getCapacity();
+
+    /**
+     * Возвращает количество чатов, у которых есть необработанные обновления.
+     *
+     * @return Количество чатов.
+     */
+    int getActiveChats();
+
+    /**
+     * Возвращает количество обработанных обновлений.
+     *
+     * @return Количество обновлений.
+     */
+    long getProcessed();
+
+    /**
+     * Возвращает количество обновлений, обработка которых завершилась исключением.
+     *
+     * @return Количество обновлений.
+     */
+    long getFailed();
+
+    /**
+     * Возвращает количество обновлений, не принятых из-за переполнения очереди.
+     *
+     * @return Количество обновлений.
+     */
+    long getRejected();
+
+    /**
+     * Возвращает медиану времени ожидания обновления в очереди.
+     *
+     * @return Время в микросекундах.
+     */
+    long getQueueTimeP50Micros();
+
+    /**
+     * Возвращает 99-й перцентиль времени ожидания обновления в очереди.
+     *
+     * @return Время в микросекундах.
+     */
+    long getQueueTimeP99Micros();
+
+    /**
+     * Возвращает наибольшее время ожидания обновления в очереди.
+     *
+     * @return Время в микросекундах.
+     */
+    long getQueueTimeMaxMicros();
+
+    /**
+     * Обнуляет счётчики и гистограмму времени ожидания.
+     */
+    void reset();
+}
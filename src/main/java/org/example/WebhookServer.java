@@ -0,0 +1,249 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Встроенный HTTP-сервер для получения обновлений через webhook вместо длинного опроса.
+ * <p>
+ * Telegram присылает каждое обновление POST-запросом с JSON на секретный путь. Сервер не проверяет,
+ * кто прислал запрос, иначе как по пути, поэтому путь обязан быть длинным случайным значением:
+ * иначе любой, кто достаёт до порта, подделает обновление от чата администратора. Если задан секретный
+ * токен, сервер дополнительно сверяет его с заголовком {@value #SECRET_TOKEN_HEADER}; Bot API присылает
+ * этот заголовок, если токен передан в setWebhook (telegrambots 5.3.0 этого не умеет, поэтому такой
+ * webhook регистрируют вручную). Путь и токен сравниваются за постоянное время. Обработчик возвращает
+ * метод Bot API, который сервер отправляет в теле ответа на запрос, - так Telegram выполняет ответ
+ * бота без отдельного обращения к нему. Если ответа нет, сервер отвечает пустым 200. Ответ 200
+ * отправляется и при ошибке обработки, чтобы Telegram не присылал то же обновление повторно. Если же
+ * обработчик не принял обновление ({@link RejectedExecutionException}, например очередь переполнена),
+ * сервер отвечает 503, и Telegram доставит обновление ещё раз. Запросы обрабатываются на виртуальных потоках.
+ * <p>
+ * Режим включается переменной среды "botMode" со значением "webhook". Порт задаётся переменной
+ * "webhookPort" (по умолчанию 8080), путь - обязательной переменной "webhookPath", последний сегмент
+ * которой не короче {@value #MIN_SECRET_LENGTH} символов, секретный токен - переменной "webhookSecretToken".
+ * Если задана переменная "webhookUrl" - внешний адрес HTTPS, оканчивающийся путём webhook, по которому
+ * Telegram достаёт до сервера, например через обратный прокси, - при запуске бот регистрирует webhook на этот адрес.
+ */
+class WebhookServer implements AutoCloseable {
+
+    /**
+     * Порт по умолчанию.
+     */
+    static final int DEFAULT_PORT = 8080;
+
+    /**
+     * Наименьшая длина секретного сегмента пути.
+     */
+    static final int MIN_SECRET_LENGTH = 32;
+
+    /**
+     * Заголовок, в котором Bot API присылает секретный токен webhook.
+     */
+    static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+
+    /**
+     * Через сколько секунд Telegram стоит повторить обновление, которое обработчик не принял.
+     */
+    static final int RETRY_AFTER_SECONDS = 1;
+
+    /**
+     * Преобразование обновлений и ответов в JSON.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+
+    /**
+     * HTTP-сервер.
+     */
+    private final HttpServer server;
+
+    /**
+     * Исполнитель запросов.
+     */
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Путь, на который Telegram присылает обновления, в UTF-8.
+     */
+    private final byte[] path;
+
+    /**
+     * Секретный токен в UTF-8 или {@code null}, если заголовок не проверяется.
+     */
+    private final byte[] secretToken;
+
+    /**
+     * Обработчик обновления, возвращающий ответ или {@code null}.
+     */
+    private final Function<Update, BotApiMethod<?>> handler;
+
+
+    /**
+     * Конструктор класса. Сервер не запускается; его запускает {@link #start()}.
+     *
+     * @param address Адрес и порт; порт 0 выбирает свободный порт.
+     * @param path        Секретный путь, на который Telegram присылает обновления.
+     * @param secretToken Секретный токен из заголовка {@value #SECRET_TOKEN_HEADER} или {@code null}.
+     * @param handler     Обработчик обновления, возвращающий ответ или {@code null}; бросает
+     *                    {@link RejectedExecutionException}, если не может принять обновление сейчас.
+     * @throws IOException Если порт не удалось открыть.
+     */
+    WebhookServer(InetSocketAddress address, String path, String secretToken,
+                  Function<Update, BotApiMethod<?>> handler) throws IOException {
+        this.path = path.getBytes(StandardCharsets.UTF_8);
+        this.secretToken = secretToken != null ? secretToken.getBytes(StandardCharsets.UTF_8) : null;
+        this.handler = handler;
+        server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+
+
+    /**
+     * Создаёт сервер для бота с настройками из переменных среды "webhookPort", "webhookPath"
+     * и "webhookSecretToken", регистрирует webhook по адресу из "webhookUrl", если он задан, и запускает сервер.
+     *
+     * @param bot Бот.
+     * @return Запущенный сервер.
+     * @throws IOException          Если порт не удалось открыть.
+     * @throws TelegramApiException Если webhook не удалось зарегистрировать.
+     * @throws IllegalStateException Если путь не секретный или адрес webhook не оканчивается путём.
+     */
+    static WebhookServer startFromEnvironment(TelegramBot bot) throws IOException, TelegramApiException {
+        String port = System.getenv("webhookPort");
+        String path = requireSecretPath(System.getenv("webhookPath"));
+        String url = System.getenv("webhookUrl");
+        if (url != null && !url.endsWith(path)) {
+            throw new IllegalStateException("Адрес webhookUrl должен оканчиваться путём webhookPath");
+        }
+        WebhookServer server = new WebhookServer(new InetSocketAddress(port != null ? Integer.parseInt(port) : DEFAULT_PORT),
+                path, System.getenv("webhookSecretToken"), bot::onWebhookUpdate);
+        server.start();
+        if (url != null) {
+            SetWebhook setWebhook = new SetWebhook();
+            setWebhook.setUrl(url);
+            bot.execute(setWebhook);
+        }
+        return server;
+    }
+
+
+    /**
+     * Проверяет, что путь webhook нельзя угадать: он задан и его последний сегмент не короче
+     * {@value #MIN_SECRET_LENGTH} символов.
+     *
+     * @param path Путь webhook.
+     * @return Тот же путь.
+     * @throws IllegalStateException Если путь не задан или слишком короткий.
+     */
+    static String requireSecretPath(String path) {
+        if (path == null || !path.startsWith("/") || path.length() - path.lastIndexOf('/') - 1 < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("Задайте в webhookPath путь с длинным случайным сегментом, например /telegram/<"
+                    + MIN_SECRET_LENGTH + " или больше случайных символов>: иначе обновления можно подделать");
+        }
+        return path;
+    }
+
+
+    /**
+     * Запускает сервер.
+     */
+    void start() {
+        server.start();
+    }
+
+
+    /**
+     * Возвращает порт, на котором слушает сервер.
+     *
+     * @return Порт.
+     */
+    int getPort() {
+        return server.getAddress().getPort();
+    }
+
+
+    /**
+     * Останавливает сервер, давая обрабатываемым запросам секунду на завершение.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+
+    /**
+     * Обрабатывает запрос Telegram с обновлением.
+     *
+     * @param exchange Запрос и ответ.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            byte[] requestPath = exchange.getRequestURI().getRawPath().getBytes(StandardCharsets.UTF_8);
+            if (!MessageDigest.isEqual(path, requestPath)) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (secretToken != null) {
+                String token = exchange.getRequestHeaders().getFirst(SECRET_TOKEN_HEADER);
+                if (token == null || !MessageDigest.isEqual(secretToken, token.getBytes(StandardCharsets.UTF_8))) {
+                    exchange.sendResponseHeaders(401, -1);
+                    return;
+                }
+            }
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            Update update;
+            try (InputStream body = exchange.getRequestBody()) {
+                update = MAPPER.readValue(body, Update.class);
+            } catch (IOException e) {
+                e.printStackTrace();
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            BotApiMethod<?> reply = null;
+            try {
+                reply = handler.apply(update);
+            } catch (RejectedExecutionException e) {
+                System.err.println(e.getMessage());
+                exchange.getResponseHeaders().set("Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            if (reply == null) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            byte[] json = MAPPER.writeValueAsBytes(reply);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, json.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(json);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
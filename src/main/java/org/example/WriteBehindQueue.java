@@ -0,0 +1,346 @@
+package org.example;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Очередь отложенной записи с групповой фиксацией.
+ * Изменения базы данных ставятся в ограниченную очередь, а единственный поток-писатель забирает
+ * их пачками и фиксирует каждую пачку одной транзакцией, то есть одним fsync вместо fsync на каждое изменение.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    /**
+     * Изменение базы данных, выполняемое потоком-писателем.
+     */
+    @FunctionalInterface
+    public interface Mutation {
+        /**
+         * Выполняет изменение на соединении писателя внутри открытой транзакции.
+         *
+         * @param connection Соединение из пула.
+         * @throws SQLException Если изменение не удалось выполнить.
+         */
+        void apply(PooledConnection connection) throws SQLException;
+    }
+
+
+    /**
+     * Изменение в очереди вместе с чатом, которому оно принадлежит, и обещанием результата.
+     */
+    private record PendingWrite(long chatId, Mutation mutation, CompletableFuture<Void> durable) {
+    }
+
+
+    /**
+     * Ёмкость очереди по умолчанию.
+     */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /**
+     * Максимальное количество изменений в одной транзакции по умолчанию.
+     */
+    public static final int DEFAULT_MAX_BATCH = 500;
+
+
+    /**
+     * Метка остановки потока-писателя.
+     */
+    private static final PendingWrite STOP = new PendingWrite(0, null, null);
+
+
+    /**
+     * Пул, из которого писатель берёт соединение.
+     */
+    private final ConnectionPool pool;
+
+    /**
+     * Ограниченная очередь изменений.
+     */
+    private final BlockingQueue<PendingWrite> queue;
+
+    /**
+     * Максимальное количество изменений в одной транзакции.
+     */
+    private final int maxBatch;
+
+    /**
+     * Последнее незафиксированное изменение каждого чата; по нему чтения чата дожидаются своих записей.
+     */
+    private final Map<Long, CompletableFuture<Void>> lastWriteByChat = new ConcurrentHashMap<>();
+
+    /**
+     * Последнее поставленное в очередь изменение любого чата.
+     */
+    private volatile CompletableFuture<Void> lastWrite = CompletableFuture.completedFuture(null);
+
+    /**
+     * Количество зафиксированных транзакций.
+     */
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Количество зафиксированных изменений.
+     */
+    private final AtomicLong writes = new AtomicLong();
+
+    /**
+     * Поток-писатель.
+     */
+    private final Thread writer;
+
+    /**
+     * Флаг остановки приёма изменений.
+     */
+    private volatile boolean closed;
+
+
+    /**
+     * Конструктор класса с параметрами по умолчанию.
+     *
+     * @param pool Пул соединений с базой данных.
+     */
+    public WriteBehindQueue(ConnectionPool pool) {
+        this(pool, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+
+    /**
+     * Конструктор класса. Запускает поток-писатель.
+     *
+     * @param pool     Пул соединений с базой данных.
+     * @param capacity Ёмкость очереди; при заполнении очереди вызывающий поток ждёт.
+     * @param maxBatch Максимальное количество изменений в одной транзакции.
+     */
+    public WriteBehindQueue(ConnectionPool pool, int capacity, int maxBatch) {
+        this.pool = pool;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        enableWal();
+        writer = new Thread(this::run, "storage-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    /**
+     * Переводит базу данных в режим журнала WAL, в котором чтения не блокируются записью.
+     */
+    private void enableWal() {
+        try (PooledConnection connection = pool.acquire();
+             Statement statement = connection.getConnection().createStatement()) {
+            statement.execute("PRAGMA journal_mode = WAL");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+
+    /**
+     * Ставит изменение в очередь. Если очередь заполнена, ждёт освобождения места.
+     *
+     * @param chatId   Идентификатор чата, к данным которого относится изменение.
+     * @param mutation Изменение базы данных.
+     * @return Обещание, которое выполняется, когда транзакция с изменением зафиксирована на диске.
+     */
+    public CompletableFuture<Void> submit(long chatId, Mutation mutation) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        if (closed) {
+            durable.completeExceptionally(new IllegalStateException("Очередь записи остановлена"));
+            return durable;
+        }
+        try {
+            queue.put(new PendingWrite(chatId, mutation, durable));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            durable.completeExceptionally(e);
+            return durable;
+        }
+        // Публикуем запись только после постановки в очередь: иначе чтения ждали бы изменения,
+        // которое так и не попало в очередь. Если запись уже зафиксирована, она сразу же снимается
+        lastWriteByChat.put(chatId, durable);
+        lastWrite = durable;
+        durable.whenComplete((ignored, error) -> lastWriteByChat.remove(chatId, durable));
+        if (closed && !writer.isAlive()) {
+            // Писатель уже остановлен и не заберёт изменение из очереди
+            failPending(null);
+        }
+        return durable;
+    }
+
+
+    /**
+     * Ждёт, пока будут зафиксированы все поставленные в очередь изменения указанного чата.
+     * Изменения фиксируются по порядку, поэтому достаточно дождаться последнего из них.
+     *
+     * @param chatId Идентификатор чата.
+     */
+    public void awaitChat(long chatId) {
+        CompletableFuture<Void> pending = lastWriteByChat.get(chatId);
+        if (pending != null) {
+            pending.exceptionally(error -> null).join();
+        }
+    }
+
+
+    /**
+     * Ждёт, пока будут зафиксированы все поставленные в очередь изменения.
+     */
+    public void awaitAll() {
+        lastWrite.exceptionally(error -> null).join();
+    }
+
+
+    /**
+     * Основной цикл потока-писателя.
+     */
+    private void run() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatch);
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                queue.drainTo(batch, maxBatch - 1);
+                stopping = batch.remove(STOP);
+                if (!batch.isEmpty()) {
+                    commit(batch);
+                }
+                batch.clear();
+            }
+        } finally {
+            // Как бы ни завершился писатель, ожидающие записи не должны зависнуть навсегда
+            closed = true;
+            failPending(batch);
+        }
+    }
+
+
+    /**
+     * Завершает ошибкой изменения из очереди и из недописанной пачки, которые уже не будут записаны.
+     *
+     * @param batch Недописанная пачка или {@code null}.
+     */
+    private void failPending(List<PendingWrite> batch) {
+        IllegalStateException stopped = new IllegalStateException("Очередь записи остановлена");
+        if (batch != null) {
+            for (PendingWrite write : batch) {
+                if (write != STOP) {
+                    write.durable().completeExceptionally(stopped);
+                }
+            }
+        }
+        PendingWrite late;
+        while ((late = queue.poll()) != null) {
+            if (late != STOP) {
+                late.durable().completeExceptionally(stopped);
+            }
+        }
+    }
+
+
+    /**
+     * Фиксирует пачку изменений одной транзакцией и выполняет их обещания.
+     * Ошибка отдельного изменения, в том числе непроверяемое исключение, не отменяет остальные изменения пачки.
+     *
+     * @param batch Пачка изменений.
+     */
+    private void commit(List<PendingWrite> batch) {
+        List<PendingWrite> applied = new ArrayList<>(batch.size());
+        try (PooledConnection connection = pool.acquire()) {
+            Connection jdbc = connection.getConnection();
+            jdbc.setAutoCommit(false);
+            try {
+                for (PendingWrite write : batch) {
+                    try {
+                        write.mutation().apply(connection);
+                        applied.add(write);
+                    } catch (SQLException | RuntimeException e) {
+                        e.printStackTrace();
+                        write.durable().completeExceptionally(e);
+                    }
+                }
+                jdbc.commit();
+            } catch (SQLException | RuntimeException e) {
+                jdbc.rollback();
+                throw e;
+            } finally {
+                jdbc.setAutoCommit(true);
+            }
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+            for (PendingWrite write : applied) {
+                write.durable().completeExceptionally(e);
+            }
+            return;
+        }
+        batches.incrementAndGet();
+        writes.addAndGet(applied.size());
+        for (PendingWrite write : applied) {
+            write.durable().complete(null);
+        }
+    }
+
+
+    /**
+     * Возвращает количество зафиксированных транзакций.
+     *
+     * @return Количество транзакций.
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+
+    /**
+     * Возвращает количество зафиксированных изменений.
+     *
+     * @return Количество изменений.
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+
+    /**
+     * Возвращает количество изменений, ожидающих в очереди.
+     *
+     * @return Длина очереди.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+
+    /**
+     * Останавливает приём новых изменений, дописывает очередь и завершает поток-писатель.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(STOP);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Изменения, успевшие попасть в очередь после метки остановки, уже не будут записаны
+        failPending(null);
+    }
+}
@@ -1,194 +1,207 @@
-package org.example;
-import org.junit.Assert;
-import org.junit.Before;
-import org.junit.Test;
-import java.util.*;
-
-
-
-/**
- * Класс для тестирования обработки сообщений пользователя.
- */
-public class BotTest {
-
-
-    /**
-     * Идентификатор чата для тестирования.
-     */
-    private long ChatId;
-
-    /**
-     * Объект для обработки сообщений.
-     */
-    private MessageHandling bot;
-
-
-    private PuzzleGame puzzleGame;
-
-    private Map<String, Puzzle> puzzles;
-
-
-    /**
-     * Метод, выполняемый перед каждым тестом, инициализирует идентификатор чата, объект для обработки сообщений, экземпляр класса PuzzleGame
-     */
-    @Before
-    public void setUp() {
-        ChatId = 12345L;
-        bot = new MessageHandling();
-        puzzles = new HashMap<>();
-        puzzleGame = new PuzzleGame();
-    }
-
-    /**
-     * Проверка для команды /genre
-     */
-    @Test
-    public void GenreCommandTest() {
-        String response = bot.parseMessage("/genre", ChatId);
-        Assert.assertEquals("Здравствуйте, добро пожаловать в бот рекомендации книг! Нажмите /chat и выберите жанр", response);
-
-        /*
-         * Проверка для жанра "Научная фантастика"
-         */
-        response = bot.parseMessage("Научная фантастика", ChatId);
-        Assert.assertEquals("Прочитайте 'Автостопом по галактике', 'Время жить и время умирать' или 'Война миров'", response);
-
-        /*
-         * Проверка для жанра "Фэнтези"
-         */
-        response = bot.parseMessage("Фэнтези", ChatId);
-        Assert.assertEquals("Прочитайте 'Хоббит', 'Игра престолов' или 'Гарри Поттер'", response);
-
-        /*
-         * Проверка для жанра "Романтика"
-         */
-        response = bot.parseMessage("Романтика", ChatId);
-        Assert.assertEquals("Прочитайте 'Великий Гетсби', 'Триумфальная арка' или 'Поющие в терновнике'", response);
-
-        /*
-         * Проверка для жанра "Детектив"
-         */
-        response = bot.parseMessage("Детектив", ChatId);
-        Assert.assertEquals("Прочитайте 'Убийство в восточном экспрессе', 'Снеговик' или 'Собака Баскервилей'", response);
-    }
-
-    /**
-     * Проверка ответа для произвольного сообщения
-     */
-    @Test
-    public void AnyMessageTest() {
-        String response = bot.parseMessage("Привет", ChatId);
-        Assert.assertEquals("Привет", response);
-    }
-
-    /**
-     * Проверяет команду получения цитаты.
-     */
-    @Test
-    public void CitationCommandTest() {
-        String response = bot.parseMessage("/get", ChatId);
-        Assert.assertTrue(response.startsWith("Цитата:"));
-    }
-
-
-    /**
-     * Проверяет команду /playpuzzle - начала игры в загадки.
-     */
-    @Test
-    public void playPuzzleCommandTest() {
-        String response = bot.parseMessage("/playpuzzle", ChatId); // запуск режима загадок
-        Assert.assertTrue(response.startsWith("Добро пожаловать в игру в загадки! Начнем."));
-    }
-
-
-    /**
-     * Проверяет, что произвольная загадка, вызываемая в сообщении командой начала игры в загадки
-     * содержится в списке всех загадок
-     */
-    @Test
-    public void testPlayPuzzleContainsRandomPuzzle() {
-        puzzles = puzzleGame.getPuzzles();
-        String response = bot.parseMessage("/playpuzzle", ChatId);
-        String puzzleQuestion = response.replace("Добро пожаловать в игру в загадки! Начнем.\nЗагадка: ", "");
-        Assert.assertTrue(puzzles.containsKey(puzzleQuestion));
-    }
-
-    /**
-     * Проверяет команду /gethint - получения подсказки в игре в загадки.
-     */
-    @Test
-    public void getHintCommandTest() {
-        bot.parseMessage("/playpuzzle", ChatId); // запуск режима загадок
-        String response = bot.parseMessage("/gethint", ChatId); //получение подсказки к текущей загадке
-        Assert.assertTrue(response.startsWith("Подсказка:"));
-    }
-
-    /**
-     * Проверяет команду получения следующей загадки в игре.
-     */
-    @Test
-    public void anotherRiddleCommandTest() {
-        bot.parseMessage("/playpuzzle", ChatId);
-        String response = bot.parseMessage("/anotheriddle", ChatId);
-        Assert.assertTrue(response.startsWith("Следующая загадка:"));
-    }
-
-
-    /**
-     * Тестирует команду /anotheriddle для проверки, что произвольная загадка, вызываемая в сообщении командой следующая загадка в игре в загадки
-     * содержится в списке всех загадок
-     */
-    @Test
-    public void testAnotheRiddleContainsRandomPuzzle() {
-        puzzles = puzzleGame.getPuzzles();
-        bot.parseMessage("/playpuzzle", ChatId);
-        String response = bot.parseMessage("/anotheriddle", ChatId);
-        String puzzleQuestion = response.replace("Следующая загадка: ", "");
-        Assert.assertTrue(puzzles.containsKey(puzzleQuestion));
-    }
-
-    /**
-     * Проверяет команду /restart - перезапуска игры в загадки.
-     */
-    @Test
-    public void restartCommandTest() {
-        bot.parseMessage("/playpuzzle", ChatId);
-        String response = bot.parseMessage("/restart", ChatId);
-        Assert.assertTrue(response.startsWith("Игра в загадки начата заново."));
-    }
-
-
-    /**
-     * Проверяет, что произвольная загадка, вызываемая в сообщении командой перезапуска игры в загадки
-     * содержится в списке всех загадок
-     */
-    @Test
-    public void testRestartContainsRandomPuzzle() {
-        puzzles = puzzleGame.getPuzzles();
-        bot.parseMessage("/playpuzzle", ChatId);
-        String response = bot.parseMessage("/restart", ChatId);
-        String puzzleQuestion = response.replace("Игра в загадки начата заново.\n" + "Добро пожаловать в игру в загадки! Начнем.\nЗагадка: ", "");
-        Assert.assertTrue(puzzles.containsKey(puzzleQuestion));
-    }
-
-
-    /**
-     * Проверяет команду /getanswer получения ответа на текущую загадку в игре.
-     */
-    @Test
-    public void getAnswerCommandTest() {
-        bot.parseMessage("/playpuzzle", ChatId);
-        String response = bot.parseMessage("/getanswer", ChatId);
-        Assert.assertTrue(response.contains("Ответ на загадку"));
-    }
-
-    /**
-     * Проверяет команду завершения режима головоломки.
-     */
-    @Test
-    public void stopPuzzleCommandTest() {
-        bot.parseMessage("/playpuzzle", ChatId);
-        String response = bot.parseMessage("/stoppuzzle", ChatId);
-        Assert.assertEquals("Режим головоломки завершен.\nПравильных ответов: 0\n" + "Неправильных ответов: 20\n" + "Процент правильных ответов: 0.0%", response);
-    }
-}
+package org.example;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import java.util.*;
+
+
+
+/**
+ * Класс для тестирования обработки сообщений пользователя.
+ */
+public class BotTest {
+
+
+    /**
+     * Идентификатор чата для тестирования.
+     */
+    private long ChatId;
+
+    /**
+     * Объект для обработки сообщений.
+     */
+    private MessageHandling bot;
+
+
+    private PuzzleGame puzzleGame;
+
+    private Map<String, Puzzle> puzzles;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, инициализирует идентификатор чата, объект для обработки сообщений, экземпляр класса PuzzleGame
+     */
+    @Before
+    public void setUp() {
+        ChatId = 12345L;
+        bot = new MessageHandling();
+        puzzles = new HashMap<>();
+        puzzleGame = new PuzzleGame();
+    }
+
+    /**
+     * Проверка для команды /genre
+     */
+    @Test
+    public void GenreCommandTest() {
+        String response = bot.parseMessage("/genre", ChatId);
+        Assert.assertEquals("Здравствуйте, добро пожаловать в бот рекомендации книг! Нажмите /chat и выберите жанр", response);
+
+        /*
+         * Проверка для жанра "Научная фантастика"
+         */
+        response = bot.parseMessage("Научная фантастика", ChatId);
+        Assert.assertEquals("Прочитайте 'Автостопом по галактике', 'Время жить и время умирать' или 'Война миров'", response);
+
+        /*
+         * Проверка для жанра "Фэнтези"
+         */
+        response = bot.parseMessage("Фэнтези", ChatId);
+        Assert.assertEquals("Прочитайте 'Хоббит', 'Игра престолов' или 'Гарри Поттер'", response);
+
+        /*
+         * Проверка для жанра "Романтика"
+         */
+        response = bot.parseMessage("Романтика", ChatId);
+        Assert.assertEquals("Прочитайте 'Великий Гетсби', 'Триумфальная арка' или 'Поющие в терновнике'", response);
+
+        /*
+         * Проверка для жанра "Детектив"
+         */
+        response = bot.parseMessage("Детектив", ChatId);
+        Assert.assertEquals("Прочитайте 'Убийство в восточном экспрессе', 'Снеговик' или 'Собака Баскервилей'", response);
+    }
+
+    /**
+     * Проверка ответа для произвольного сообщения
+     */
+    @Test
+    public void AnyMessageTest() {
+        String response = bot.parseMessage("Привет", ChatId);
+        Assert.assertEquals("Привет", response);
+    }
+
+    /**
+     * Проверяет команду получения цитаты.
+     */
+    @Test
+    public void CitationCommandTest() {
+        String response = bot.parseMessage("/get", ChatId);
+        Assert.assertTrue(response.startsWith("Цитата:"));
+    }
+
+
+    /**
+     * Проверяет команду получения цитаты указанного автора.
+     */
+    @Test
+    public void CitationByAuthorCommandTest() {
+        String response = bot.parseMessage("/get борис стругацкий", ChatId);
+        Assert.assertTrue(response.startsWith("Цитата:"));
+        Assert.assertTrue(response.endsWith("Борис Стругацкий"));
+        response = bot.parseMessage("/get Лев Толстой", ChatId);
+        Assert.assertEquals("Цитат автора Лев Толстой не найдено.", response);
+    }
+
+
+    /**
+     * Проверяет команду /playpuzzle - начала игры в загадки.
+     */
+    @Test
+    public void playPuzzleCommandTest() {
+        String response = bot.parseMessage("/playpuzzle", ChatId); // запуск режима загадок
+        Assert.assertTrue(response.startsWith("Добро пожаловать в игру в загадки! Начнем."));
+    }
+
+
+    /**
+     * Проверяет, что произвольная загадка, вызываемая в сообщении командой начала игры в загадки
+     * содержится в списке всех загадок
+     */
+    @Test
+    public void testPlayPuzzleContainsRandomPuzzle() {
+        puzzles = puzzleGame.getPuzzles();
+        String response = bot.parseMessage("/playpuzzle", ChatId);
+        String puzzleQuestion = response.replace("Добро пожаловать в игру в загадки! Начнем.\nЗагадка: ", "");
+        Assert.assertTrue(puzzles.containsKey(puzzleQuestion));
+    }
+
+    /**
+     * Проверяет команду /gethint - получения подсказки в игре в загадки.
+     */
+    @Test
+    public void getHintCommandTest() {
+        bot.parseMessage("/playpuzzle", ChatId); // запуск режима загадок
+        String response = bot.parseMessage("/gethint", ChatId); //получение подсказки к текущей загадке
+        Assert.assertTrue(response.startsWith("Подсказка:"));
+    }
+
+    /**
+     * Проверяет команду получения следующей загадки в игре.
+     */
+    @Test
+    public void anotherRiddleCommandTest() {
+        bot.parseMessage("/playpuzzle", ChatId);
+        String response = bot.parseMessage("/anotheriddle", ChatId);
+        Assert.assertTrue(response.startsWith("Следующая загадка:"));
+    }
+
+
+    /**
+     * Тестирует команду /anotheriddle для проверки, что произвольная загадка, вызываемая в сообщении командой следующая загадка в игре в загадки
+     * содержится в списке всех загадок
+     */
+    @Test
+    public void testAnotheRiddleContainsRandomPuzzle() {
+        puzzles = puzzleGame.getPuzzles();
+        bot.parseMessage("/playpuzzle", ChatId);
+        String response = bot.parseMessage("/anotheriddle", ChatId);
+        String puzzleQuestion = response.replace("Следующая загадка: ", "");
+        Assert.assertTrue(puzzles.containsKey(puzzleQuestion));
+    }
+
+    /**
+     * Проверяет команду /restart - перезапуска игры в загадки.
+     */
+    @Test
+    public void restartCommandTest() {
+        bot.parseMessage("/playpuzzle", ChatId);
+        String response = bot.parseMessage("/restart", ChatId);
+        Assert.assertTrue(response.startsWith("Игра в загадки начата заново."));
+    }
+
+
+    /**
+     * Проверяет, что произвольная загадка, вызываемая в сообщении командой перезапуска игры в загадки
+     * содержится в списке всех загадок
+     */
+    @Test
+    public void testRestartContainsRandomPuzzle() {
+        puzzles = puzzleGame.getPuzzles();
+        bot.parseMessage("/playpuzzle", ChatId);
+        String response = bot.parseMessage("/restart", ChatId);
+        String puzzleQuestion = response.replace("Игра в загадки начата заново.\n" + "Добро пожаловать в игру в загадки! Начнем.\nЗагадка: ", "");
+        Assert.assertTrue(puzzles.containsKey(puzzleQuestion));
+    }
+
+
+    /**
+     * Проверяет команду /getanswer получения ответа на текущую загадку в игре.
+     */
+    @Test
+    public void getAnswerCommandTest() {
+        bot.parseMessage("/playpuzzle", ChatId);
+        String response = bot.parseMessage("/getanswer", ChatId);
+        Assert.assertTrue(response.contains("Ответ на загадку"));
+    }
+
+    /**
+     * Проверяет команду завершения режима головоломки.
+     */
+    @Test
+    public void stopPuzzleCommandTest() {
+        bot.parseMessage("/playpuzzle", ChatId);
+        String response = bot.parseMessage("/stoppuzzle", ChatId);
+        Assert.assertEquals("Режим головоломки завершен.\nПравильных ответов: 0\n" + "Неправильных ответов: 20\n" + "Процент правильных ответов: 0.0%", response);
+    }
+}
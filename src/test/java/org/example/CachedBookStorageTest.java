@@ -0,0 +1,140 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+
+/**
+ * Класс для тестирования кэша списков прочитанных книг.
+ */
+public class CachedBookStorageTest {
+
+    /**
+     * Идентификатор чата для тестирования.
+     */
+    private long ChatId;
+
+
+    @Mock
+    private Storage storage;
+
+
+    /**
+     * Проверяемое хранилище с кэшем.
+     */
+    private CachedBookStorage cachedStorage;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, инициализирует хранилище с кэшем поверх заглушки.
+     */
+    @Before
+    public void setUp() {
+        ChatId = 12345L;
+        MockitoAnnotations.initMocks(this);
+        cachedStorage = new CachedBookStorage(storage);
+        when(storage.getReadBooks(ChatId)).thenReturn(new ArrayList<>(List.of("Book 1", "Book 2")));
+        when(storage.getAllValues(ChatId)).thenReturn(new ArrayList<>(List.of(
+                new ReadBook(1, "Book 1", "Author 1", 2022, ChatId), new ReadBook(2, "Book 2", "Author 2", 2023, ChatId))));
+        when(storage.getReadBooksPage(ChatId, 0, 11)).thenReturn(new ArrayList<>(List.of(
+                new ReadBook(1, "Book 1", "Author 1", 2022, ChatId), new ReadBook(2, "Book 2", "Author 2", 2023, ChatId))));
+    }
+
+
+    /**
+     * Проверка, что повторные запросы списка чата не обращаются к хранилищу.
+     */
+    @Test
+    public void testRepeatedReadsHitCache() {
+        Assert.assertEquals(List.of("Book 1", "Book 2"), cachedStorage.getReadBooks(ChatId));
+        Assert.assertEquals(List.of("Book 1", "Book 2"), cachedStorage.getReadBooks(ChatId));
+        cachedStorage.getAllValues(ChatId);
+        cachedStorage.getAllValues(ChatId);
+        verify(storage, times(1)).getReadBooks(ChatId);
+        verify(storage, times(1)).getAllValues(ChatId);
+        Assert.assertEquals(2, cachedStorage.getCache().getHitCount());
+        Assert.assertEquals(2, cachedStorage.getCache().getMissCount());
+    }
+
+
+    /**
+     * Проверка, что изменение списка чата сбрасывает его запись в кэше.
+     */
+    @Test
+    public void testMutationInvalidatesChat() {
+        cachedStorage.getReadBooks(ChatId);
+        cachedStorage.addReadBook("Book 3", "Author 3", 2024, ChatId);
+        cachedStorage.getReadBooks(ChatId);
+        cachedStorage.updateReadBooks(ChatId, 3L);
+        cachedStorage.getReadBooks(ChatId);
+        verify(storage, times(3)).getReadBooks(ChatId);
+    }
+
+
+    /**
+     * Проверка, что изменение списка одного чата не затрагивает кэш другого чата.
+     */
+    @Test
+    public void testMutationKeepsOtherChats() {
+        long otherChatId = 54321L;
+        when(storage.getReadBooks(otherChatId)).thenReturn(new ArrayList<>(List.of("Other")));
+        cachedStorage.getReadBooks(otherChatId);
+        cachedStorage.clearReadBooks(ChatId);
+        cachedStorage.getReadBooks(otherChatId);
+        verify(storage, times(1)).getReadBooks(otherChatId);
+    }
+
+
+    /**
+     * Проверка, что при превышении предельного веса вытесняется давно не использованный чат.
+     */
+    @Test
+    public void testLeastRecentlyUsedChatIsEvicted() {
+        CachedBookStorage small = new CachedBookStorage(storage, 150);
+        when(storage.getReadBooks(1L)).thenReturn(new ArrayList<>(List.of("A".repeat(50))));
+        when(storage.getReadBooks(2L)).thenReturn(new ArrayList<>(List.of("B".repeat(50))));
+        small.getReadBooks(1L);
+        small.getReadBooks(2L);
+        Assert.assertEquals(1, small.getCache().getEvictionCount());
+        Assert.assertEquals(1, small.getCache().size());
+        small.getReadBooks(2L);
+        verify(storage, times(1)).getReadBooks(2L);
+    }
+
+
+    /**
+     * Проверка, что изменения возвращённого списка не портят кэш.
+     */
+    @Test
+    public void testReturnedListIsACopy() {
+        cachedStorage.getReadBooks(ChatId).remove(0);
+        Assert.assertEquals(List.of("Book 1", "Book 2"), cachedStorage.getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка, что страницы списка обслуживаются из кэша, в том числе страница меньшего размера
+     * с того же места, и сбрасываются изменением книг чата.
+     */
+    @Test
+    public void testPagesHitCache() {
+        Assert.assertEquals(2, cachedStorage.getReadBooksPage(ChatId, 0, 11).size());
+        Assert.assertEquals(2, cachedStorage.getReadBooksPage(ChatId, 0, 11).size());
+        Assert.assertEquals(List.of(new ReadBook(1, "Book 1", "Author 1", 2022, ChatId)), cachedStorage.getReadBooksPage(ChatId, 0, 1));
+        // Страница из двух книг при размере 11 - последняя, поэтому годится и для большего размера
+        Assert.assertEquals(2, cachedStorage.getReadBooksPage(ChatId, 0, 20).size());
+        verify(storage, times(1)).getReadBooksPage(anyLong(), anyLong(), anyInt());
+
+        cachedStorage.editReadBook(1L, "Book 1", "Author 1", 2021, ChatId);
+        cachedStorage.getReadBooksPage(ChatId, 0, 11);
+        verify(storage, times(2)).getReadBooksPage(ChatId, 0, 11);
+    }
+}
@@ -0,0 +1,137 @@
+package org.example;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Класс для тестирования вытеснения сессий чатов в хранилище и их восстановления.
+ */
+public class ChatSessionsTest {
+
+    /**
+     * Время простоя в тестах, в миллисекундах.
+     */
+    private static final long IDLE_MILLIS = 1000;
+
+    /**
+     * Хранилище вытесненных сессий.
+     */
+    private InMemoryBookStorage storage;
+
+    /**
+     * Проверяемые сессии без периодической проверки: вытеснение вызывается из тестов.
+     */
+    private ChatSessions sessions;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт сессии с пределом в три сессии.
+     */
+    @Before
+    public void setUp() {
+        storage = new InMemoryBookStorage();
+        sessions = new ChatSessions(() -> storage, IDLE_MILLIS, 3);
+    }
+
+
+    /**
+     * Проверка, что неактивная сессия вытесняется в хранилище и восстанавливается со всем состоянием.
+     */
+    @Test
+    public void testEvictAndRestore() {
+        sessions.apply(1, session -> {
+            session.setState(MessageHandling.UserStates.PUZZLE_MODE);
+            session.setInputStep(BookInputStep.AUTHOR);
+            session.setBookData("Война и мир");
+            session.setVoting(true);
+            PageCursor cursor = new PageCursor(PageCursor.Kind.READ_BOOKS);
+            cursor.showed(new long[]{5, 20}, true);
+            cursor.next();
+            session.setPageCursor(cursor);
+            return session.getPuzzleGame().startPuzzle(1);
+        });
+        int puzzlesLeft = sessions.peek(1).getPuzzleGame().getPuzzles().size();
+        String hint = sessions.peek(1).getPuzzleGame().getHint();
+
+        Assert.assertEquals(1, sessions.evictIdle(System.currentTimeMillis() + IDLE_MILLIS));
+        Assert.assertEquals(0, sessions.size());
+        Assert.assertNotNull(storage.loadSession(1));
+
+        sessions.apply(1, session -> {
+            Assert.assertEquals(MessageHandling.UserStates.PUZZLE_MODE, session.getState());
+            Assert.assertEquals(BookInputStep.AUTHOR, session.getInputStep(null));
+            Assert.assertEquals("Война и мир", session.getBookData());
+            Assert.assertTrue(session.isVoting());
+            Assert.assertEquals(1, session.getPageCursor().getPageIndex());
+            Assert.assertEquals(20, session.getPageCursor().getAfterId());
+            Assert.assertEquals(20, session.getPageCursor().idOf(2));
+            Assert.assertEquals(-1, session.getPageCursor().idOf(3));
+            Assert.assertEquals(puzzlesLeft, session.getPuzzleGame().getPuzzles().size());
+            Assert.assertEquals(hint, session.getPuzzleGame().getHint());
+            return null;
+        });
+    }
+
+
+    /**
+     * Проверка, что сессия без состояния не сохраняется, а ставшая пустой восстановленная сессия удаляется из хранилища.
+     */
+    @Test
+    public void testBlankSessionIsNotStored() {
+        sessions.apply(1, session -> null);
+        Assert.assertEquals(1, sessions.evictIdle(System.currentTimeMillis() + IDLE_MILLIS));
+        Assert.assertNull(storage.loadSession(1));
+
+        sessions.apply(2, session -> {
+            session.setState(MessageHandling.UserStates.SEARCH_MODE);
+            return null;
+        });
+        sessions.evictIdle(System.currentTimeMillis() + IDLE_MILLIS);
+        sessions.apply(2, session -> {
+            session.setState(MessageHandling.UserStates.DEFAULT);
+            return null;
+        });
+        sessions.evictIdle(System.currentTimeMillis() + IDLE_MILLIS);
+        Assert.assertNull(storage.loadSession(2));
+    }
+
+
+    /**
+     * Проверка, что сверх предела вытесняются самые давно использованные сессии, даже если они не простаивают.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsedOverLimit() {
+        for (long chatId = 1; chatId <= 5; chatId++) {
+            sessions.apply(chatId, session -> {
+                session.setState(MessageHandling.UserStates.SEARCH_MODE);
+                return null;
+            });
+        }
+        long now = System.currentTimeMillis();
+        for (long chatId = 1; chatId <= 5; chatId++) {
+            sessions.peek(chatId).touch(now - 100 + chatId);
+        }
+        Assert.assertEquals(2, sessions.evictIdle(now));
+        Assert.assertNull(sessions.peek(1));
+        Assert.assertNull(sessions.peek(2));
+        Assert.assertNotNull(sessions.peek(3));
+        Assert.assertEquals(MessageHandling.UserStates.SEARCH_MODE, sessions.get(1).getState());
+    }
+
+
+    /**
+     * Проверка, что сессия с вводимым текстом длиннее 65535 байт в UTF-8 сохраняется и восстанавливается.
+     */
+    @Test
+    public void testLongBookData() {
+        String longText = "Книга ".repeat(20_000);
+        sessions.apply(1, session -> {
+            session.setInputStep(BookInputStep.AUTHOR);
+            session.setBookData(longText);
+            return null;
+        });
+        Assert.assertEquals(1, sessions.evictIdle(System.currentTimeMillis() + IDLE_MILLIS));
+        Assert.assertEquals(longText, sessions.get(1).getBookData());
+    }
+}
@@ -0,0 +1,134 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+
+/**
+ * Класс для тестирования пула соединений и кэша подготовленных запросов.
+ */
+public class ConnectionPoolTest {
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * Проверяемый пул соединений.
+     */
+    private ConnectionPool pool;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт временную базу данных и пул из двух соединений.
+     */
+    @Before
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("pool_test", ".db").toFile();
+        pool = new ConnectionPool("jdbc:sqlite:" + databaseFile.getAbsolutePath(), 2);
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, закрывает пул и удаляет базу данных.
+     */
+    @After
+    public void tearDown() {
+        pool.close();
+        databaseFile.delete();
+    }
+
+
+    /**
+     * Проверка, что запрос с тем же текстом SQL на одном соединении не разбирается повторно.
+     */
+    @Test
+    public void testStatementIsCachedPerConnection() throws SQLException {
+        PreparedStatement first;
+        try (PooledConnection connection = pool.acquire()) {
+            first = connection.prepare("SELECT 1");
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            Assert.assertSame(first, connection.prepare("SELECT 1"));
+            Assert.assertNotSame(first, connection.prepare("SELECT 2"));
+        }
+    }
+
+
+    /**
+     * Проверка, что возвращённое соединение выдаётся повторно, а не открывается новое.
+     */
+    @Test
+    public void testReleasedConnectionIsReused() throws SQLException {
+        PooledConnection first = pool.acquire();
+        first.close();
+        PooledConnection second = pool.acquire();
+        Assert.assertSame(first, second);
+        second.close();
+        Assert.assertEquals(1, pool.size());
+    }
+
+
+    /**
+     * Проверка, что пул не открывает соединений больше своего размера.
+     */
+    @Test
+    public void testPoolDoesNotGrowBeyondMaxSize() throws Exception {
+        PooledConnection first = pool.acquire();
+        PooledConnection second = pool.acquire();
+        Assert.assertNotSame(first, second);
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {
+            }
+            first.close();
+        });
+        releaser.start();
+        PooledConnection third = pool.acquire();
+        Assert.assertSame(first, third);
+        Assert.assertEquals(2, pool.size());
+        releaser.join();
+        second.close();
+        third.close();
+    }
+
+
+    /**
+     * Проверка, что соединения пула только для чтения не изменяют базу данных.
+     */
+    @Test
+    public void testReadOnlyPoolRejectsWrites() throws SQLException {
+        try (PooledConnection connection = pool.acquire()) {
+            connection.prepare("CREATE TABLE books (title text)").execute();
+        }
+        try (ConnectionPool readers = new ConnectionPool("jdbc:sqlite:" + databaseFile.getAbsolutePath(), 1, true);
+             PooledConnection connection = readers.acquire()) {
+            Assert.assertFalse(connection.prepare("SELECT title FROM books").executeQuery().next());
+            try {
+                connection.prepare("INSERT INTO books VALUES ('Book 1')").executeUpdate();
+                Assert.fail("Соединение только для чтения выполнило запись");
+            } catch (SQLException expected) {
+                // запись через соединение только для чтения должна завершаться ошибкой
+            }
+        }
+    }
+
+
+    /**
+     * Проверка, что закрытый пул больше не выдаёт соединения.
+     */
+    @Test(expected = SQLException.class)
+    public void testClosedPoolRejectsAcquire() throws SQLException {
+        pool.close();
+        pool.acquire();
+    }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс для тестирования резервного копирования и восстановления базы данных.
+ */
+public class DatabaseBackupTest {
+
+    /**
+     * Количество книг в базе данных для копирования под нагрузкой; база занимает несколько пачек страниц.
+     */
+    private static final int ROWS = 100_000;
+
+    /**
+     * Временный каталог базы данных и копий.
+     */
+    private Path directory;
+
+    /**
+     * URL временной базы данных.
+     */
+    private String databaseUrl;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт временный каталог.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("database_backup_test");
+        databaseUrl = "jdbc:sqlite:" + directory.resolve("read_books.db");
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, удаляет временный каталог вместе с вложенными каталогами копий.
+     */
+    @After
+    public void tearDown() {
+        delete(directory.toFile());
+    }
+
+
+    /**
+     * Удаляет файл или каталог со всем содержимым.
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+
+    /**
+     * Возвращает количество прочитанных книг в базе данных.
+     */
+    private static int countBooks(String url) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM read_books")) {
+            return resultSet.next() ? resultSet.getInt(1) : -1;
+        }
+    }
+
+
+    /**
+     * Проверка, что копия снимается пачками страниц, пока писатель продолжает добавлять книги,
+     * и содержит согласованный снимок базы данных.
+     */
+    @Test
+    public void testCopyWhileWriting() throws Exception {
+        try (Connection connection = DriverManager.getConnection(databaseUrl)) {
+            StorageBenchmark.fill(connection, ROWS, 100);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = WAL");
+            }
+        }
+        ConnectionPool writer = new ConnectionPool(databaseUrl, 1);
+        AtomicBoolean copying = new AtomicBoolean(true);
+        AtomicInteger written = new AtomicInteger();
+        Thread writes = new Thread(() -> {
+            while (copying.get()) {
+                try (PooledConnection connection = writer.acquire()) {
+                    PreparedStatement insert = connection.prepare("INSERT INTO read_books (title, author, year, chat_id) VALUES ('Новая', 'Автор', 2024, 1)");
+                    insert.executeUpdate();
+                    written.incrementAndGet();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    return;
+                }
+            }
+        });
+        List<long[]> steps = new ArrayList<>();
+        Path copy = directory.resolve("copy.db");
+        try {
+            writes.start();
+            long bytes = DatabaseBackup.copy(writer, databaseUrl, copy, 5, (copied, total) -> steps.add(new long[]{copied, total}));
+            Assert.assertEquals(Files.size(copy), bytes);
+        } finally {
+            copying.set(false);
+            writes.join();
+            writer.close();
+        }
+        Assert.assertTrue("Копирование должно идти несколькими пачками", steps.size() > 1);
+        long[] last = steps.get(steps.size() - 1);
+        Assert.assertEquals(last[1], last[0]);
+        Assert.assertTrue(written.get() > 0);
+        int copied = countBooks("jdbc:sqlite:" + copy);
+        Assert.assertTrue(copied >= ROWS && copied <= ROWS + written.get());
+        Assert.assertEquals(ROWS + written.get(), countBooks(databaseUrl));
+        Assert.assertFalse(Files.exists(directory.resolve("copy.db.part")));
+    }
+
+
+    /**
+     * Проверка, что база данных восстанавливается из копии в состояние на момент копирования.
+     */
+    @Test
+    public void testBackupAndRestore() throws Exception {
+        Storage storage = new Storage(databaseUrl);
+        Path backups = directory.resolve("backups");
+        BackupResult result;
+        try {
+            storage.addReadBook("Book 1", "Author 1", 2022, 1).join();
+            result = DatabaseBackup.backupNow(storage, backups);
+            storage.addReadBook("Book 2", "Author 2", 2023, 1).join();
+        } finally {
+            storage.closeConnection();
+        }
+        Assert.assertEquals(1, result.files().size());
+        Assert.assertTrue(result.files().get(0).startsWith(backups));
+        Assert.assertEquals(Files.size(result.files().get(0)), result.bytes());
+
+        DatabaseBackup.restore(result.files().get(0), databaseUrl);
+        storage = new Storage(databaseUrl);
+        try {
+            Assert.assertEquals(List.of("Book 1"), storage.getReadBooks(1));
+            Assert.assertEquals(1, storage.getReadingStats(1, 5).books());
+        } finally {
+            storage.closeConnection();
+        }
+    }
+
+
+    /**
+     * Проверка, что ход копирования хранилища сообщается получателю, а последний шаг охватывает все страницы.
+     */
+    @Test
+    public void testBackupReportsProgress() throws Exception {
+        Storage storage = new Storage(databaseUrl);
+        List<long[]> steps = new ArrayList<>();
+        try {
+            storage.addReadBook("Book 1", "Author 1", 2022, 1).join();
+            Path target = Files.createDirectories(directory.resolve("progress"));
+            BackupResult result = storage.backup(target, (copied, total) -> steps.add(new long[]{copied, total}));
+            Assert.assertEquals(Files.size(result.files().get(0)), result.bytes());
+        } finally {
+            storage.closeConnection();
+        }
+        Assert.assertFalse(steps.isEmpty());
+        long[] last = steps.get(steps.size() - 1);
+        Assert.assertEquals(last[1], last[0]);
+    }
+
+
+    /**
+     * Проверка, что восстановление из несуществующего файла не трогает базу данных.
+     */
+    @Test
+    public void testRestoreFromMissingFile() throws Exception {
+        try {
+            DatabaseBackup.restore(directory.resolve("missing.db"), databaseUrl);
+            Assert.fail("Восстановление из несуществующего файла должно завершиться ошибкой");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage().contains("не найден"));
+        }
+        Assert.assertFalse(Files.exists(directory.resolve("read_books.db")));
+    }
+}
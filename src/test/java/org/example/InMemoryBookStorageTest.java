@@ -0,0 +1,274 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+
+/**
+ * Класс для тестирования хранилища книг в памяти.
+ */
+public class InMemoryBookStorageTest {
+
+    /**
+     * Идентификатор чата для тестирования.
+     */
+    private long ChatId;
+
+    /**
+     * Временный каталог для снимка и журнала.
+     */
+    private Path directory;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт временный каталог.
+     */
+    @Before
+    public void setUp() throws Exception {
+        ChatId = 12345L;
+        directory = Files.createTempDirectory("in_memory_storage_test");
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, удаляет временный каталог.
+     */
+    @After
+    public void tearDown() {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+
+    /**
+     * Проверка добавления, изменения и удаления прочитанных книг по идентификатору.
+     */
+    @Test
+    public void testReadBooksByRowId() {
+        InMemoryBookStorage storage = new InMemoryBookStorage();
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        storage.addReadBook("Other", "Author 3", 2021, 1L);
+        List<ReadBook> books = storage.getAllValues(ChatId);
+        Assert.assertEquals(2, books.size());
+
+        storage.editReadBook(books.get(0).id(), "Book 1*", "Author 1", 2020, ChatId);
+        storage.updateReadBooks(ChatId, books.get(1).id());
+        storage.updateReadBooks(ChatId, storage.getAllValues(1L).get(0).id());
+
+        Assert.assertEquals(List.of("Book 1*"), storage.getReadBooks(ChatId));
+        Assert.assertEquals(List.of("Book 1*"), storage.getBooksByYear(2020, ChatId));
+        Assert.assertEquals(List.of("Book 1*"), storage.getBooksByAuthor("Author 1", ChatId));
+        Assert.assertEquals(List.of("Other"), storage.getReadBooks(1L));
+    }
+
+
+    /**
+     * Проверка, что статистика следует за добавлением, изменением, удалением и очисткой книг.
+     */
+    @Test
+    public void testReadingStatsFollowChanges() {
+        InMemoryBookStorage storage = new InMemoryBookStorage();
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        storage.addReadBook("Book 3", "Author 1", 2023, ChatId);
+        storage.addReadBook("Other", "Author 3", 2021, ChatId + 1);
+        Assert.assertEquals(new ReadingStats(3, 2,
+                List.of(new ReadingStats.YearCount(2023, 2), new ReadingStats.YearCount(2022, 1)),
+                List.of(new ReadingStats.AuthorCount("Author 1", 2), new ReadingStats.AuthorCount("Author 2", 1))),
+                storage.getReadingStats(ChatId, 5));
+
+        ArrayList<ReadBook> books = storage.getAllValues(ChatId);
+        storage.editReadBook(books.get(0).id(), "Book 1", "Author 2", 2023, ChatId);
+        storage.updateReadBooks(ChatId, books.get(2).id());
+        Assert.assertEquals(new ReadingStats(2, 1,
+                List.of(new ReadingStats.YearCount(2023, 2)),
+                List.of(new ReadingStats.AuthorCount("Author 2", 2))),
+                storage.getReadingStats(ChatId, 5));
+
+        storage.clearReadBooks(ChatId);
+        Assert.assertEquals(new ReadingStats(0, 0, List.of(), List.of()), storage.getReadingStats(ChatId, 5));
+        Assert.assertEquals(1, storage.getReadingStats(ChatId + 1, 5).books());
+    }
+
+
+    /**
+     * Проверка постраничного чтения после удаления книги с границы страницы.
+     */
+    @Test
+    public void testKeysetPaging() {
+        InMemoryBookStorage storage = new InMemoryBookStorage();
+        for (int i = 1; i <= 5; i++) {
+            storage.addReadBook("Book " + i, "Author", 2000 + i, ChatId);
+        }
+        List<ReadBook> first = storage.getReadBooksPage(ChatId, 0, 2);
+        Assert.assertEquals(List.of("Book 1", "Book 2"), first.stream().map(ReadBook::title).toList());
+        storage.updateReadBooks(ChatId, first.get(1).id());
+        List<ReadBook> second = storage.getReadBooksPage(ChatId, first.get(1).id(), 2);
+        Assert.assertEquals(List.of("Book 3", "Book 4"), second.stream().map(ReadBook::title).toList());
+        Assert.assertTrue(storage.getReadBooksPage(2L, 0, 2).isEmpty());
+    }
+
+
+    /**
+     * Проверка поиска рекомендованных книг по началу слов без учёта регистра и «ё».
+     */
+    @Test
+    public void testSearchRecBooks() {
+        InMemoryBookStorage storage = new InMemoryBookStorage();
+        storage.addRecBook("Идиот", "Фёдор Достоевский", "Роман", ChatId);
+        storage.addRecBook("Мастер и Маргарита", "Михаил Булгаков", "Роман", ChatId);
+        Assert.assertEquals(List.of("Идиот"), titles(storage.searchRecBooks("федор дост", 10)));
+        Assert.assertEquals(List.of("Мастер и Маргарита"), titles(storage.searchRecBooks("МАСТ", 10)));
+        Assert.assertTrue(storage.searchRecBooks("Толстой", 10).isEmpty());
+        Assert.assertFalse(storage.addRecBook("Идиот", "Фёдор Достоевский", "Роман", ChatId).join());
+    }
+
+
+    /**
+     * Проверка поиска по автору без учёта регистра, «ё», лишних пробелов и по одной фамилии.
+     */
+    @Test
+    public void testAuthorLookupIsTolerant() {
+        InMemoryBookStorage storage = new InMemoryBookStorage();
+        storage.addReadBook("Анна Каренина", "Лев Толстой", 2022, ChatId);
+        storage.addReadBook("Хождение по мукам", "Алексей Толстой", 2022, ChatId);
+        storage.addReadBook("Отрочество", "Толстой", 2023, ChatId);
+        Assert.assertEquals(List.of("Анна Каренина", "Отрочество"), storage.getBooksByAuthor("  лев  ТОЛСТОЙ ", ChatId));
+        Assert.assertEquals(3, storage.getBooksByAuthor("толстой", ChatId).size());
+        storage.addRecBook("Идиот", "Фёдор Достоевский", "Роман", ChatId);
+        Assert.assertEquals(List.of("Идиот"), titles(storage.searchBooksByAuthor("федор достоевский", 10)));
+        Assert.assertEquals(List.of("Идиот"), titles(storage.searchBooksByAuthor("Достоевский", 10)));
+    }
+
+
+    /**
+     * Проверка, что состояние восстанавливается из снимка и журнала изменений после него.
+     */
+    @Test
+    public void testStateSurvivesRestart() throws Exception {
+        InMemoryBookStorage storage = new InMemoryBookStorage(directory, 0);
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addRecBook("Rec 1", "Author 1", "Драма", ChatId);
+        storage.snapshot();
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        storage.updateRecBooks(ChatId, storage.getRecBooksPage(0, 1).get(0).id());
+        // Имитация остановки без снимка: в файле журнала остаются изменения после снимка
+        InMemoryBookStorage restored = new InMemoryBookStorage(directory, 0);
+        Assert.assertEquals(List.of("Book 1", "Book 2"), restored.getReadBooks(ChatId));
+        Assert.assertTrue(restored.getRecBooksPage(0, 10).isEmpty());
+        restored.addReadBook("Book 3", "Author 3", 2024, ChatId);
+        restored.closeConnection();
+
+        InMemoryBookStorage reopened = new InMemoryBookStorage(directory, 0);
+        List<ReadBook> books = reopened.getAllValues(ChatId);
+        Assert.assertEquals(3, books.size());
+        Assert.assertTrue(books.get(1).id() < books.get(2).id());
+        reopened.closeConnection();
+    }
+
+
+    /**
+     * Проверка, что вытесненные сессии чатов сохраняются и в журнале, и в снимке.
+     */
+    @Test
+    public void testSessionsSurviveRestart() throws Exception {
+        InMemoryBookStorage storage = new InMemoryBookStorage(directory, 0);
+        storage.saveSession(1, new byte[]{1, 2, 3}).join();
+        storage.saveSession(2, new byte[]{4}).join();
+        storage.snapshot();
+        storage.saveSession(2, null).join();
+        storage.saveSession(3, new byte[0]).join();
+        InMemoryBookStorage restored = new InMemoryBookStorage(directory, 0);
+        Assert.assertArrayEquals(new byte[]{1, 2, 3}, restored.loadSession(1));
+        Assert.assertNull(restored.loadSession(2));
+        Assert.assertArrayEquals(new byte[0], restored.loadSession(3));
+        restored.closeConnection();
+    }
+
+
+    /**
+     * Проверка, что недописанная последняя запись журнала отбрасывается, а предыдущие применяются.
+     */
+    @Test
+    public void testTruncatedLogTailIsDropped() throws Exception {
+        InMemoryBookStorage storage = new InMemoryBookStorage(directory, 0);
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        File log = directory.resolve(InMemoryBookStorage.LOG_FILE).toFile();
+        try (RandomAccessFile file = new RandomAccessFile(log, "rw")) {
+            file.setLength(file.length() - 3);
+        }
+        InMemoryBookStorage restored = new InMemoryBookStorage(directory, 0);
+        Assert.assertEquals(List.of("Book 1"), restored.getReadBooks(ChatId));
+        restored.addReadBook("Book 3", "Author 3", 2024, ChatId);
+        Assert.assertEquals(List.of("Book 1", "Book 3"), new InMemoryBookStorage(directory, 0).getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка, что изменение, которое не удалось записать в журнал, не применяется к состоянию.
+     */
+    @Test
+    public void testFailedLogWriteIsNotApplied() throws Exception {
+        InMemoryBookStorage storage = new InMemoryBookStorage(directory, 0);
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId).join();
+        storage.closeConnection();
+        try {
+            storage.addReadBook("Book 2", "Author 2", 2023, ChatId).join();
+            Assert.fail("Запись в закрытый журнал должна завершиться ошибкой");
+        } catch (CompletionException expected) {
+            // журнал закрыт, изменение не записано
+        }
+        Assert.assertEquals(List.of("Book 1"), storage.getReadBooks(ChatId));
+        Assert.assertTrue(storage.addRecBook("Rec 1", "Author 1", "Драма", ChatId).isCompletedExceptionally());
+        Assert.assertTrue(storage.getRecBooksPage(0, 10).isEmpty());
+        Assert.assertEquals(List.of("Book 1"), new InMemoryBookStorage(directory, 0).getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка таблицы с примитивными ключами при росте и удалении со сдвигом.
+     */
+    @Test
+    public void testLongObjectMap() {
+        LongObjectMap<String> map = new LongObjectMap<>();
+        for (long key = -500; key < 500; key++) {
+            map.put(key * 1_000_003L, "v" + key);
+        }
+        for (long key = -500; key < 500; key += 2) {
+            Assert.assertEquals("v" + key, map.remove(key * 1_000_003L));
+        }
+        Assert.assertEquals(500, map.size());
+        for (long key = -500; key < 500; key++) {
+            Assert.assertEquals(key % 2 == 0 ? null : "v" + key, map.get(key * 1_000_003L));
+        }
+    }
+
+
+    /**
+     * Возвращает названия книг.
+     */
+    private static List<String> titles(List<RecommendedBook> books) {
+        List<String> titles = new ArrayList<>();
+        for (RecommendedBook book : books) {
+            titles.add(book.title());
+        }
+        return titles;
+    }
+}
@@ -0,0 +1,65 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк выбора обработчика сообщения в {@link MessageHandling#parseMessage(String, long)}
+ * в режиме по умолчанию: первая и последние команды списка, команда с аргументом, кнопка жанра
+ * и произвольный текст, который бот повторяет. Хранилище в памяти и пустое, поэтому время
+ * почти целиком уходит на разбор команды.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageDispatchBenchmark {
+
+    /**
+     * Идентификатор чата.
+     */
+    private static final long CHAT_ID = 12345L;
+
+    /**
+     * Текст сообщения.
+     */
+    @Param({"/start", "Детектив", "/import", "/backup", "/import missing.csv", "Привет, бот!"})
+    public String textMsg;
+
+    /**
+     * Обработчик сообщений.
+     */
+    private MessageHandling messageHandling;
+
+
+    /**
+     * Создаёт обработчик сообщений с пустым хранилищем в памяти.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        messageHandling = new MessageHandling(new InMemoryBookStorage(), new DefaultDateTimeProvider());
+    }
+
+
+    /**
+     * Обработка одного сообщения.
+     */
+    @Benchmark
+    public String parseMessage() {
+        return messageHandling.parseMessage(textMsg, CHAT_ID);
+    }
+
+
+    /**
+     * Запускает бенчмарк.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MessageDispatchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -7,7 +7,11 @@ import org.mockito.MockitoAnnotations;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.*;
 import org.mockito.Mock;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 
@@ -45,19 +49,56 @@ public class MessageHandlingForReadBookTest {
      */
     @Test
     public void testClearReadBooksCommand() {
+        when(storage.clearReadBooks(ChatId)).thenReturn(CompletableFuture.completedFuture(null));
         String response = messageHandling.parseMessage("/clearread", ChatId);
         verify(storage, times(1)).clearReadBooks(ChatId);
         Assert.assertEquals("Список прочитанных книг очищен!", response);
     }
 
 
+    /**
+     * Проверка, что /clearread не сообщает об очистке, если запись в хранилище не удалась
+     */
+    @Test
+    public void testClearReadBooksCommandWriteFailed() {
+        when(storage.clearReadBooks(ChatId)).thenReturn(CompletableFuture.failedFuture(new SQLException("Диск заполнен")));
+        String response = messageHandling.parseMessage("/clearread", ChatId);
+        Assert.assertEquals("Не удалось сохранить изменения, попробуйте ещё раз.", response);
+    }
+
+
+    /**
+     * Проверка команды /stats для вывода статистики прочитанных книг
+     */
+    @Test
+    public void testStatsCommand() {
+        when(storage.getReadingStats(eq(ChatId), anyInt())).thenReturn(new ReadingStats(3, 2,
+                List.of(new ReadingStats.YearCount(2023, 2), new ReadingStats.YearCount(2022, 1)),
+                List.of(new ReadingStats.AuthorCount("Author 1", 2), new ReadingStats.AuthorCount("Author 2", 1))));
+        String response = messageHandling.parseMessage("/stats", ChatId);
+        Assert.assertEquals("Всего прочитано книг: 3, авторов: 2.\n\n" +
+                "Книг по годам:\n2023: 2\n2022: 1\n\n" +
+                "Самые читаемые авторы:\n1. Author 1 - 2\n2. Author 2 - 1\n", response);
+    }
+
+
+    /**
+     * Проверка команды /stats при пустом списке прочитанных книг
+     */
+    @Test
+    public void testStatsCommandWithEmptyList() {
+        when(storage.getReadingStats(eq(ChatId), anyInt())).thenReturn(new ReadingStats(0, 0, List.of(), List.of()));
+        Assert.assertEquals("Список прочитанных книг пуст.", messageHandling.parseMessage("/stats", ChatId));
+    }
+
+
     /**
      * Проверка добавления книги в базу данных при корректном вводе
      */
     @Test
     public void testAddBookCommandWithValidInput() {
         String textMsg = "/addbook";
-        when(storage.bookExists(anyString(), anyString(), anyInt(), anyLong())).thenReturn(false);
+        when(storage.addReadBook(anyString(), anyString(), anyInt(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
         String response = messageHandling.parseMessage(textMsg, ChatId);
         Assert.assertEquals("Введите название книги:", response);
         textMsg = "Sample Book";
@@ -71,13 +112,51 @@ public class MessageHandlingForReadBookTest {
         Assert.assertEquals("Книга 'Sample Book' от автора John Doe (год: 2023) успешно добавлена в список прочитанных!", response);
     }
 
+    /**
+     * Проверка, что пошаговый ввод книг в разных чатах из нескольких потоков не смешивает данные чатов.
+     */
+    @Test
+    public void testAddBookInParallelChats() throws InterruptedException {
+        when(storage.addReadBook(anyString(), anyString(), anyInt(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
+        int threads = 8;
+        int chatsPerThread = 25;
+        String[] steps = {"/addbook", "Книга ", "Автор ", "2023"};
+        List<Thread> workers = new ArrayList<>();
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int t = 0; t < threads; t++) {
+            long firstChat = 1000L + t * chatsPerThread;
+            Thread worker = new Thread(() -> {
+                // Поток ведёт ввод сразу в нескольких своих чатах, чередуя их шаги
+                for (String step : steps) {
+                    for (long chatId = firstChat; chatId < firstChat + chatsPerThread; chatId++) {
+                        String text = step.endsWith(" ") ? step + chatId : step;
+                        String response = messageHandling.parseMessage(text, chatId);
+                        if (step.equals("2023") && !response.contains("'Книга " + chatId + "' от автора Автор " + chatId)) {
+                            failures.add(response);
+                        }
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assert.assertEquals(List.of(), failures);
+        for (long chatId = 1000L; chatId < 1000L + threads * chatsPerThread; chatId++) {
+            verify(storage, times(1)).addReadBook("Книга " + chatId, "Автор " + chatId, 2023, chatId);
+            Assert.assertEquals(MessageHandling.UserStates.DEFAULT, messageHandling.getUserState(chatId));
+        }
+    }
+
     /**
      * Проверка, что книга не добавляется, если она уже существует в базе данных
      */
     @Test
     public void testAddBookCommandWithExistingBook() {
         String textMsg = "/addbook";
-        when(storage.bookExists(anyString(), anyString(), anyInt(), anyLong())).thenReturn(true);
+        when(storage.addReadBook(anyString(), anyString(), anyInt(), anyLong())).thenReturn(CompletableFuture.completedFuture(false));
         messageHandling.parseMessage(textMsg, ChatId);
         textMsg = "Sample Book";
         messageHandling.parseMessage(textMsg, ChatId);
@@ -85,7 +164,7 @@ public class MessageHandlingForReadBookTest {
         messageHandling.parseMessage(textMsg, ChatId);
         textMsg = "2023";
         String response = messageHandling.parseMessage(textMsg, ChatId);
-        verify(storage, never()).addReadBook(anyString(), anyString(), anyInt(), anyLong());
+        verify(storage, times(1)).addReadBook("Sample Book", "John Doe", 2023, ChatId);
         Assert.assertEquals("Книга с указанным названием, автором и годом прочтения уже существует в базе данных.", response);
     }
 
@@ -113,10 +192,10 @@ public class MessageHandlingForReadBookTest {
      */
     @Test
     public void testGetReadBooksCommandWithEmptyList() {
-        ArrayList<String> emptyList = new ArrayList<>();
-        when(storage.getReadBooks(ChatId)).thenReturn(emptyList);
+        ArrayList<ReadBook> emptyList = new ArrayList<>();
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(emptyList);
         String response = messageHandling.parseMessage("/getread", ChatId);
-        verify(storage, times(1)).getReadBooks(ChatId);
+        verify(storage, times(1)).getReadBooksPage(ChatId, 0L, PageCursor.PAGE_SIZE + 1);
         Assert.assertEquals("Список прочитанных книг пуст.", response);
     }
 
@@ -126,16 +205,75 @@ public class MessageHandlingForReadBookTest {
      */
     @Test
     public void testGetReadBooksCommandWithNonEmptyList() {
-        ArrayList<String> nonEmptyList = new ArrayList<>();
-        nonEmptyList.add("Book 1");
-        nonEmptyList.add("Book 2");
-        when(storage.getReadBooks(ChatId)).thenReturn(nonEmptyList);
+        ArrayList<ReadBook> nonEmptyList = new ArrayList<>();
+        nonEmptyList.add(new ReadBook(1, "Book 1", "Author 1", 2022, ChatId));
+        nonEmptyList.add(new ReadBook(2, "Book 2", "Author 2", 2023, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(nonEmptyList);
         String response = messageHandling.parseMessage("/getread", ChatId);
-        verify(storage, times(1)).getReadBooks(ChatId);
+        verify(storage, times(1)).getReadBooksPage(ChatId, 0L, PageCursor.PAGE_SIZE + 1);
         Assert.assertEquals("Прочитанные книги:\n1. Book 1\n2. Book 2\n", response);
     }
 
 
+    /**
+     * Проверка постраничного просмотра списка прочитанных книг командами /next и /prev
+     */
+    @Test
+    public void testGetReadBooksPaging() {
+        ArrayList<ReadBook> firstPage = new ArrayList<>();
+        for (int i = 1; i <= PageCursor.PAGE_SIZE + 1; i++) {
+            firstPage.add(new ReadBook(i * 10L, "Book " + i, "Author", 2022, ChatId));
+        }
+        long lastIdOnFirstPage = PageCursor.PAGE_SIZE * 10L;
+        ArrayList<ReadBook> secondPage = new ArrayList<>(firstPage.subList(PageCursor.PAGE_SIZE, PageCursor.PAGE_SIZE + 1));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(firstPage);
+        when(storage.getReadBooksPage(eq(ChatId), eq(lastIdOnFirstPage), anyInt())).thenReturn(secondPage);
+
+        String first = messageHandling.parseMessage("/getread", ChatId);
+        Assert.assertTrue(first.contains("20. Book 20\n"));
+        Assert.assertFalse(first.contains("Book 21"));
+        Assert.assertTrue(first.endsWith("Страница 1. /next - следующая страница.\n"));
+
+        String second = messageHandling.parseMessage("/next", ChatId);
+        Assert.assertEquals("Прочитанные книги:\n21. Book 21\n\nСтраница 2. /prev - предыдущая страница.\n", second);
+        Assert.assertEquals("Это последняя страница списка.", messageHandling.parseMessage("/next", ChatId));
+
+        Assert.assertEquals(first, messageHandling.parseMessage("/prev", ChatId));
+        Assert.assertEquals("Это первая страница списка.", messageHandling.parseMessage("/prev", ChatId));
+    }
+
+
+    /**
+     * Проверка, что книгу со второй страницы можно удалить по её номеру после просмотра этой страницы
+     */
+    @Test
+    public void testRemoveBookFromSecondPage() {
+        ArrayList<ReadBook> firstPage = new ArrayList<>();
+        for (int i = 1; i <= PageCursor.PAGE_SIZE + 1; i++) {
+            firstPage.add(new ReadBook(i, "Book " + i, "Author", 2022, ChatId));
+        }
+        ArrayList<ReadBook> secondPage = new ArrayList<>(firstPage.subList(PageCursor.PAGE_SIZE, PageCursor.PAGE_SIZE + 1));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(firstPage);
+        when(storage.getReadBooksPage(eq(ChatId), eq((long) PageCursor.PAGE_SIZE), anyInt())).thenReturn(secondPage);
+        messageHandling.parseMessage("/getread", ChatId);
+        messageHandling.parseMessage("/next", ChatId);
+        when(storage.updateReadBooks(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
+        messageHandling.parseMessage("/removebook", ChatId);
+        String response = messageHandling.parseMessage("21", ChatId);
+        verify(storage, times(1)).updateReadBooks(ChatId, 21L);
+        Assert.assertEquals("Книга Book 21 успешно удалена из списка прочитанных!", response);
+    }
+
+
+    /**
+     * Проверка команды /next без открытого списка
+     */
+    @Test
+    public void testNextWithoutList() {
+        Assert.assertEquals("Сначала откройте список командой /getread или /allrecommendbooks.", messageHandling.parseMessage("/next", ChatId));
+    }
+
+
     /**
      * Проверка команды /getbyauthor для получения списка прочитанных книг указанного автора для случая, когда автор указан верно
      */
@@ -202,16 +340,14 @@ public class MessageHandlingForReadBookTest {
      */
     @Test
     public void testRemoveBookCommandWithValidBookNumber() {
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1\nAuthor 1\n2022");
-        readBooks.add("Book 2\nAuthor 2\n2023");
-        when(storage.getReadBooks(ChatId)).thenReturn(books);
-        when(storage.getAllValues(ChatId)).thenReturn(readBooks);
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Book 1", "Author 1", 2022, ChatId));
+        readBooks.add(new ReadBook(2, "Book 2", "Author 2", 2023, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
+        when(storage.updateReadBooks(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
         messageHandling.parseMessage("/removebook", ChatId);
         String response = messageHandling.parseMessage("1", ChatId);
+        verify(storage, times(1)).updateReadBooks(ChatId, 1L);
         Assert.assertEquals("Книга Book 1 успешно удалена из списка прочитанных!", response);
     }
 
@@ -222,10 +358,10 @@ public class MessageHandlingForReadBookTest {
     @Test
     public void testRemoveBookCommandWithInvalidBookNumber() {
         String message = "3";
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1");
-        readBooks.add("Book 2");
-        when(storage.getReadBooks(ChatId)).thenReturn(readBooks);
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Book 1", "Author 1", 2022, ChatId));
+        readBooks.add(new ReadBook(2, "Book 2", "Author 2", 2023, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
         messageHandling.parseMessage("/removebook", ChatId);
         String response = messageHandling.parseMessage(message, ChatId);
         Assert.assertEquals("Указанный уникальный номер книги не существует в списке прочитанных книг.", response);
@@ -238,10 +374,10 @@ public class MessageHandlingForReadBookTest {
     @Test
     public void testRemoveBookCommandWithInvalidFormat() {
         String message = "InvalidNumber";
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1");
-        readBooks.add("Book 2");
-        when(storage.getReadBooks(ChatId)).thenReturn(readBooks);
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Book 1", "Author 1", 2022, ChatId));
+        readBooks.add(new ReadBook(2, "Book 2", "Author 2", 2023, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
         messageHandling.parseMessage("/removebook", ChatId);
         String response = messageHandling.parseMessage(message, ChatId);
         Assert.assertEquals("Некорректный формат номера книги.", response);
@@ -253,32 +389,72 @@ public class MessageHandlingForReadBookTest {
      */
     @Test
     public void testEditBookCommandWithValidData() {
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Old Book\nOld Author\n2022");
-        when(storage.getReadBooks(ChatId)).thenReturn(readBooks);
-        when(storage.getAllValues(ChatId)).thenReturn(readBooks);
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Old Book", "Old Author", 2022, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
+        when(storage.editReadBook(anyLong(), anyString(), anyString(), anyInt(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
         messageHandling.parseMessage("/editbook", ChatId);
         messageHandling.parseMessage("1", ChatId);
         messageHandling.parseMessage("New Book", ChatId);
         messageHandling.parseMessage("New Author", ChatId);
         String response = messageHandling.parseMessage("2023", ChatId);
-        verify(storage, times(1)).editReadBook(eq("Old Book"), eq("Old Author"), eq(2022), eq("New Book"), eq("New Author"), eq(2023), eq(ChatId));
+        verify(storage, times(1)).editReadBook(eq(1L), eq("New Book"), eq("New Author"), eq(2023), eq(ChatId));
         Assert.assertEquals("Книга 'Old Book' успешно отредактирована в списке прочитанных!", response);
     }
 
 
+    /**
+     * Проверка, что /editbook меняет книгу, выбранную по номеру, даже если до ввода года в список добавили книгу
+     */
+    @Test
+    public void testEditBookKeepsChosenBookWhenListChanges() {
+        ReadBook first = new ReadBook(1, "Book 1", "Author 1", 2021, ChatId);
+        ReadBook chosen = new ReadBook(3, "Book 3", "Author 3", 2022, ChatId);
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(new ArrayList<>(List.of(first, chosen)));
+        when(storage.getReadBooksPage(eq(ChatId), eq(2L), anyInt())).thenReturn(new ArrayList<>(List.of(chosen)));
+        when(storage.editReadBook(anyLong(), anyString(), anyString(), anyInt(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
+        messageHandling.parseMessage("/editbook", ChatId);
+        messageHandling.parseMessage("2", ChatId);
+        // Пока вводятся данные, первая книга удалена, и под номером 2 теперь стояла бы другая книга
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt()))
+                .thenReturn(new ArrayList<>(List.of(chosen, new ReadBook(4, "Book 4", "Author 4", 2023, ChatId))));
+        messageHandling.parseMessage("New Book", ChatId);
+        messageHandling.parseMessage("New Author", ChatId);
+        String response = messageHandling.parseMessage("2024", ChatId);
+        verify(storage, times(1)).editReadBook(eq(3L), eq("New Book"), eq("New Author"), eq(2024), eq(ChatId));
+        Assert.assertEquals("Книга 'Book 3' успешно отредактирована в списке прочитанных!", response);
+    }
+
+
+    /**
+     * Проверка команды /editbook, когда новые данные совпадают с другой книгой из списка
+     */
+    @Test
+    public void testEditBookCommandIntoExistingBook() {
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Old Book", "Old Author", 2022, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
+        when(storage.editReadBook(anyLong(), anyString(), anyString(), anyInt(), anyLong())).thenReturn(CompletableFuture.completedFuture(false));
+        messageHandling.parseMessage("/editbook", ChatId);
+        messageHandling.parseMessage("1", ChatId);
+        messageHandling.parseMessage("New Book", ChatId);
+        messageHandling.parseMessage("New Author", ChatId);
+        String response = messageHandling.parseMessage("2023", ChatId);
+        Assert.assertEquals("Книга с указанным названием, автором и годом прочтения уже существует в списке прочитанных.", response);
+    }
+
+
     /**
      * Проверка команды /editbook для случая, когда указанный номер книги недопустим (например, больше размера списка)
      */
     @Test
     public void testEditBookCommandWithInvalidBookNumber() {
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Old Book\nOld Author\n2022");
-        when(storage.getReadBooks(ChatId)).thenReturn(readBooks);
-        when(storage.getAllValues(ChatId)).thenReturn(readBooks);
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Old Book", "Old Author", 2022, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
         messageHandling.parseMessage("/editbook", ChatId);
         String response = messageHandling.parseMessage("2023", ChatId);
-        verify(storage, never()).editReadBook(anyString(), anyString(), anyInt(), anyString(), anyString(), anyInt(), eq(ChatId));
+        verify(storage, never()).editReadBook(anyLong(), anyString(), anyString(), anyInt(), eq(ChatId));
         Assert.assertEquals("Указанный уникальный номер книги не существует в списке прочитанных книг.", response);
     }
 
@@ -288,13 +464,49 @@ public class MessageHandlingForReadBookTest {
      */
     @Test
     public void testEditBookCommandWithInvalidDataFormat() {
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Old Book\nOld Author\n2022");
-        when(storage.getReadBooks(ChatId)).thenReturn(readBooks);
+        ArrayList<ReadBook> readBooks = new ArrayList<>();
+        readBooks.add(new ReadBook(1, "Old Book", "Old Author", 2022, ChatId));
+        when(storage.getReadBooksPage(eq(ChatId), eq(0L), anyInt())).thenReturn(readBooks);
         String message = "InvalidData";
         messageHandling.parseMessage("/editbook", ChatId);
         String response = messageHandling.parseMessage(message, ChatId);
-        verify(storage, never()).editReadBook(anyString(), anyString(), anyInt(), anyString(), anyString(), anyInt(), eq(ChatId));
+        verify(storage, never()).editReadBook(anyLong(), anyString(), anyString(), anyInt(), eq(ChatId));
         Assert.assertEquals("Некорректный формат номера книги.", response);
     }
+
+
+    /**
+     * Проверка импорта присланного файла: ответ содержит итог импорта из хранилища.
+     */
+    @Test
+    public void testImportDocument() throws Exception {
+        when(storage.importReadBooks(eq(ChatId), any(ReadingListReader.class))).thenReturn(new ImportResult(2, 1, 0));
+        String response = messageHandling.importReadBooks(ChatId, "books.CSV",
+                new ByteArrayInputStream("Book 1,Author 1,2022\n".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals("Импорт завершён. Добавлено книг: 2, уже были в списке: 1, не удалось распознать: 0.", response);
+        response = messageHandling.importReadBooks(ChatId, "books.xlsx", new ByteArrayInputStream(new byte[0]));
+        Assert.assertEquals("Поддерживаются только файлы .csv и .json.", response);
+    }
+
+
+    /**
+     * Проверка, что импорт с локального диска недоступен обычному пользователю.
+     */
+    @Test
+    public void testImportFromDiskRequiresAdmin() throws Exception {
+        String response = messageHandling.parseMessage("/import /etc/passwd.csv", ChatId);
+        Assert.assertEquals("Импорт с диска доступен только администраторам. Чтобы импортировать список, отправьте файл в чат.", response);
+        verify(storage, never()).importReadBooks(anyLong(), any());
+    }
+
+
+    /**
+     * Проверка, что резервное копирование недоступно обычному пользователю.
+     */
+    @Test
+    public void testBackupRequiresAdmin() throws Exception {
+        String response = messageHandling.parseMessage("/backup", ChatId);
+        Assert.assertEquals("Резервное копирование доступно только администраторам.", response);
+        verify(storage, never()).backup(any());
+    }
 }
@@ -7,7 +7,9 @@ import org.mockito.MockitoAnnotations;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.*;
 import org.mockito.Mock;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 
 
@@ -45,7 +47,7 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRecommendBookCommandWithValidInput() {
         String textMsg = "/recommendbook";
-        when(storage.recBookExists(anyString(), anyString())).thenReturn(false);
+        when(storage.addRecBook(anyString(), anyString(), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
         String response = messageHandling.parseMessage(textMsg, ChatId);
         Assert.assertEquals("Введите название книги:", response);
         textMsg = "Sample Book";
@@ -75,7 +77,7 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRecommendBookCommandWithInvalidInput() {
         String textMsg = "/recommendbook";
-        when(storage.recBookExists(anyString(), anyString())).thenReturn(false);
+        when(storage.addRecBook(anyString(), anyString(), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(true));
         messageHandling.parseMessage(textMsg, ChatId);
         messageHandling.parseMessage("Sample Book", ChatId);
         String response = messageHandling.parseMessage("John Doe", ChatId);
@@ -102,7 +104,7 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRecommendBookCommandWithExistingBook() {
         String textMsg = "/recommendbook";
-        when(storage.recBookExists(anyString(), anyString())).thenReturn(true);
+        when(storage.addRecBook(anyString(), anyString(), anyString(), anyLong())).thenReturn(CompletableFuture.completedFuture(false));
         messageHandling.parseMessage(textMsg, ChatId);
         messageHandling.parseMessage("Sample Book", ChatId);
         messageHandling.parseMessage("John Doe", ChatId);
@@ -116,8 +118,8 @@ public class MessageHandlingForRecommendBookTest {
      */
     @Test
     public void testAllRecommendBooksCommandWithEmptyList() {
-        ArrayList<String> emptyList = new ArrayList<>();
-        when(storage.getRecBooks()).thenReturn(emptyList);
+        ArrayList<RecommendedBook> emptyList = new ArrayList<>();
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(emptyList);
         String response = messageHandling.parseMessage("/allrecommendbooks", ChatId);
         Assert.assertEquals("Список книг пуст.", response);
     }
@@ -128,10 +130,10 @@ public class MessageHandlingForRecommendBookTest {
      */
     @Test
     public void testAllRecommendBooksCommandWithNonEmptyList() {
-        ArrayList<String> nonEmptyList = new ArrayList<>();
-        nonEmptyList.add("Book 1");
-        nonEmptyList.add("Book 2");
-        when(storage.getRecBooks()).thenReturn(nonEmptyList);
+        ArrayList<RecommendedBook> nonEmptyList = new ArrayList<>();
+        nonEmptyList.add(new RecommendedBook(1, "Book 1", "Author 1", "Драма", ChatId));
+        nonEmptyList.add(new RecommendedBook(2, "Book 2", "Author 2", "Ужасы", ChatId));
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(nonEmptyList);
         String response = messageHandling.parseMessage("/allrecommendbooks", ChatId);
         Assert.assertEquals("Рекомендованные пользователями книги:\n1. Book 1\n2. Book 2\n", response);
     }
@@ -143,13 +145,13 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testSearchBooksByAuthorCommandWithExistAuthor(){
         String author = "John Doe";
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        when(storage.searchBooksByAuthor(author)).thenReturn(books);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        books.add(new RecommendedBook(1, "Book 1", author, "Драма", ChatId));
+        books.add(new RecommendedBook(2, "Book 2", author, "Ужасы", ChatId));
+        when(storage.searchBooksByAuthor(eq(author), anyInt())).thenReturn(books);
         messageHandling.parseMessage("/searchbyauthor", ChatId);
         String response = messageHandling.parseMessage(author, ChatId);
-        Assert.assertEquals("Найденные книги автора 'John Doe':\n- Book 1\n- Book 2\n", response);
+        Assert.assertEquals("Найденные книги автора 'John Doe':\n- Book 1 (жанр: Драма)\n- Book 2 (жанр: Ужасы)\n", response);
     }
 
 
@@ -159,21 +161,48 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testSearchBooksByAuthorCommandWithNoExistAuthor(){
         String author = "John Doe";
-        ArrayList<String> books = new ArrayList<>();
-        when(storage.searchBooksByAuthor(author)).thenReturn(books);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        when(storage.searchBooksByAuthor(eq(author), anyInt())).thenReturn(books);
         messageHandling.parseMessage("/searchbyauthor", ChatId);
         String response = messageHandling.parseMessage(author, ChatId);
         Assert.assertEquals("Книг автора 'John Doe' не найдено.", response);
     }
 
 
+    /**
+     * Тестирование команды /search с найденными книгами.
+     */
+    @Test
+    public void testSearchCommandWithResults() {
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        books.add(new RecommendedBook(1, "Война и мир", "Лев Толстой", "История", ChatId));
+        when(storage.searchRecBooks(eq("толст"), anyInt())).thenReturn(books);
+        messageHandling.parseMessage("/search", ChatId);
+        String response = messageHandling.parseMessage("толст", ChatId);
+        Assert.assertEquals("Найденные книги по запросу 'толст':\n- Война и мир от автора Лев Толстой (жанр: История)\n", response);
+        Assert.assertEquals(MessageHandling.UserStates.DEFAULT, messageHandling.getUserState(ChatId));
+    }
+
+
+    /**
+     * Тестирование команды /search без результатов.
+     */
+    @Test
+    public void testSearchCommandWithNoResults() {
+        when(storage.searchRecBooks(anyString(), anyInt())).thenReturn(new ArrayList<>());
+        messageHandling.parseMessage("/search", ChatId);
+        String response = messageHandling.parseMessage("нет такой", ChatId);
+        Assert.assertEquals("По запросу 'нет такой' ничего не найдено.", response);
+    }
+
+
     /**
      * Тестирование команды /searchbygenre с отсутствием книг по жанру.
      */
     @Test
     public void testSearchBooksByGenreCommandWithNoBooks() {
         String genre = "История";
-        when(storage.searchBooksByGenre(genre)).thenReturn(new ArrayList<>());
+        when(storage.searchBooksByGenre(eq(genre), anyInt())).thenReturn(new ArrayList<>());
         messageHandling.parseMessage("/searchbygenre", ChatId);
         String response = messageHandling.parseMessage(genre, ChatId);
         Assert.assertEquals("Книг по указанному жанру не найдено.", response);
@@ -198,13 +227,46 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testSearchBooksByGenreCommandWithBooks() {
         String genre = "История";
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        when(storage.searchBooksByGenre(genre)).thenReturn(books);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        books.add(new RecommendedBook(1, "Book 1", "Author 1", genre, ChatId));
+        books.add(new RecommendedBook(2, "Book 2", "Author 2", genre, ChatId));
+        when(storage.searchBooksByGenre(eq(genre), anyInt())).thenReturn(books);
         messageHandling.parseMessage("/searchbygenre", ChatId);
         String response = messageHandling.parseMessage(genre, ChatId);
-        Assert.assertEquals("Найденные книги по жанру 'История':\n- Book 1\n- Book 2\n", response);
+        Assert.assertEquals("Найденные книги по жанру 'История':\n- Book 1 от автора Author 1\n- Book 2 от автора Author 2\n", response);
+    }
+
+
+    /**
+     * Тестирование, что /searchbygenre показывает не больше {@link MessageHandling#SEARCH_BY_LIMIT} книг
+     * и подсказывает, что найдено больше.
+     */
+    @Test
+    public void testSearchBooksByGenreCommandIsLimited() {
+        String genre = "Драма";
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        for (int i = 1; i <= MessageHandling.SEARCH_BY_LIMIT + 1; i++) {
+            books.add(new RecommendedBook(i, "Book " + i, "Author", genre, ChatId));
+        }
+        when(storage.searchBooksByGenre(genre, MessageHandling.SEARCH_BY_LIMIT + 1)).thenReturn(books);
+        messageHandling.parseMessage("/searchbygenre", ChatId);
+        String response = messageHandling.parseMessage(genre, ChatId);
+        Assert.assertTrue(response.contains("- Book " + MessageHandling.SEARCH_BY_LIMIT + " от автора"));
+        Assert.assertFalse(response.contains("- Book " + (MessageHandling.SEARCH_BY_LIMIT + 1) + " от автора"));
+        Assert.assertTrue(response.endsWith("Показаны первые " + MessageHandling.SEARCH_BY_LIMIT
+                + " книг, найдено больше. Уточните запрос через /search или откройте весь список /allrecommendbooks.\n"));
+    }
+
+
+    /**
+     * Тестирование, что команда с аргументом выбирается по первому слову, а неизвестная команда повторяется.
+     */
+    @Test
+    public void testCommandWithArgument() {
+        Assert.assertEquals("/unknown Толстой", messageHandling.parseMessage("/unknown Толстой", ChatId));
+        Assert.assertEquals("Толстой", messageHandling.parseMessage("Толстой", ChatId));
+        messageHandling.parseMessage("/searchbyauthor Толстой", ChatId);
+        Assert.assertEquals(MessageHandling.UserStates.AUTHOR_REC_MODE, messageHandling.getUserState(ChatId));
     }
 
 
@@ -214,34 +276,67 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRemoveRecommendBookCommandWithValidBookNumber() {
         long ChatID = 1823368641;
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1\nAuthor 1\nИстория\n1823368641");
-        readBooks.add("Book 2\nAuthor 2\nДетектив\n1823368640");
-        when(storage.getRecBooks()).thenReturn(books);
-        when(storage.getAllRecValues()).thenReturn(readBooks);
+        ArrayList<RecommendedBook> readBooks = new ArrayList<>();
+        readBooks.add(new RecommendedBook(1, "Book 1", "Author 1", "История", 1823368641L));
+        readBooks.add(new RecommendedBook(2, "Book 2", "Author 2", "Детектив", 1823368640L));
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(readBooks);
+        when(storage.updateRecBooks(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
         messageHandling.parseMessage("/removerecbook", ChatID);
         String response = messageHandling.parseMessage("1", ChatID);
+        verify(storage, times(1)).updateRecBooks(ChatID, 1L);
         Assert.assertEquals("Книга Book 1 успешно удалена из списка!", response);
     }
 
 
+    /**
+     * Тестирование, что /removerecbook не сообщает об удалении, если запись в хранилище не удалась.
+     */
+    @Test
+    public void testRemoveRecommendBookCommandWriteFailed() {
+        long ChatID = 1823368641;
+        ArrayList<RecommendedBook> readBooks = new ArrayList<>();
+        readBooks.add(new RecommendedBook(1, "Book 1", "Author 1", "История", ChatID));
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(readBooks);
+        when(storage.updateRecBooks(anyLong(), anyLong())).thenReturn(CompletableFuture.failedFuture(new SQLException("Диск заполнен")));
+        messageHandling.parseMessage("/removerecbook", ChatID);
+        String response = messageHandling.parseMessage("1", ChatID);
+        Assert.assertEquals("Не удалось сохранить изменения, попробуйте ещё раз.", response);
+    }
+
+
+    /**
+     * Тестирование, что номер из показанного списка удаляет ту книгу, которая была под ним показана,
+     * даже если общий список с тех пор изменился из-за другого чата.
+     */
+    @Test
+    public void testRemoveRecommendBookByShownNumberAfterListChanged() {
+        long ChatID = 1823368641;
+        RecommendedBook other = new RecommendedBook(1, "Book 1", "Author 1", "История", 1823368640L);
+        RecommendedBook own = new RecommendedBook(2, "Book 2", "Author 2", "Детектив", ChatID);
+        RecommendedBook added = new RecommendedBook(3, "Book 3", "Author 3", "Детектив", ChatID);
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(new ArrayList<>(List.of(other, own)));
+        messageHandling.parseMessage("/allrecommendbooks", ChatID);
+        // Другой чат удалил свою книгу: теперь под номером 2 в общем списке была бы другая книга
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(new ArrayList<>(List.of(own, added)));
+        when(storage.getRecBooksPage(eq(1L), anyInt())).thenReturn(new ArrayList<>(List.of(own, added)));
+        when(storage.updateRecBooks(anyLong(), anyLong())).thenReturn(CompletableFuture.completedFuture(null));
+        messageHandling.parseMessage("/removerecbook", ChatID);
+        String response = messageHandling.parseMessage("2", ChatID);
+        verify(storage, times(1)).updateRecBooks(ChatID, 2L);
+        Assert.assertEquals("Книга Book 2 успешно удалена из списка!", response);
+    }
+
+
     /**
      * Тестирование команды /removerecbook для удаления книги с некорректным номером.
      */
     @Test
     public void testRemoveRecommendBookCommandWithInvalidBookNumber() {
         long ChatID = 1823368641;
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1\nAuthor 1\nИстория\n1823368641");
-        readBooks.add("Book 2\nAuthor 2\nДетектив\n1823368640");
-        when(storage.getRecBooks()).thenReturn(books);
-        when(storage.getAllRecValues()).thenReturn(readBooks);
+        ArrayList<RecommendedBook> readBooks = new ArrayList<>();
+        readBooks.add(new RecommendedBook(1, "Book 1", "Author 1", "История", 1823368641L));
+        readBooks.add(new RecommendedBook(2, "Book 2", "Author 2", "Детектив", 1823368640L));
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(readBooks);
         messageHandling.parseMessage("/removerecbook", ChatID);
         String response = messageHandling.parseMessage("5", ChatID);
         Assert.assertEquals("Указанный уникальный номер книги не существует в списке книг.", response);
@@ -253,14 +348,10 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRemoveRecommendBookCommandWithNaN() {
         long ChatID = 1823368641;
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1\nAuthor 1\nИстория\n1823368641");
-        readBooks.add("Book 2\nAuthor 2\nДетектив\n1823368640");
-        when(storage.getRecBooks()).thenReturn(books);
-        when(storage.getAllRecValues()).thenReturn(readBooks);
+        ArrayList<RecommendedBook> readBooks = new ArrayList<>();
+        readBooks.add(new RecommendedBook(1, "Book 1", "Author 1", "История", 1823368641L));
+        readBooks.add(new RecommendedBook(2, "Book 2", "Author 2", "Детектив", 1823368640L));
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(readBooks);
         messageHandling.parseMessage("/removerecbook", ChatID);
         String response = messageHandling.parseMessage("Wrong", ChatID);
         Assert.assertEquals("Некорректный формат номера книги.", response);
@@ -272,16 +363,13 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRemoveRecommendBookCommandWithNoYourRecommendBooks() {
         long ChatID = 1823368641;
-        ArrayList<String> books = new ArrayList<>();
-        books.add("Book 1");
-        books.add("Book 2");
-        ArrayList<String> readBooks = new ArrayList<>();
-        readBooks.add("Book 1\nAuthor 1\nИстория\n1823368640");
-        readBooks.add("Book 2\nAuthor 2\nДетектив\n1823368640");
-        when(storage.getRecBooks()).thenReturn(books);
-        when(storage.getAllRecValues()).thenReturn(readBooks);
+        ArrayList<RecommendedBook> readBooks = new ArrayList<>();
+        readBooks.add(new RecommendedBook(1, "Book 1", "Author 1", "История", 1823368640L));
+        readBooks.add(new RecommendedBook(2, "Book 2", "Author 2", "Детектив", 1823368640L));
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(readBooks);
         messageHandling.parseMessage("/removerecbook", ChatID);
         String response = messageHandling.parseMessage("1", ChatID);
+        verify(storage, never()).updateRecBooks(anyLong(), anyLong());
         Assert.assertEquals("Вы не можете удалить книгу, которую добавляли не вы", response);
     }
 
@@ -292,8 +380,8 @@ public class MessageHandlingForRecommendBookTest {
     @Test
     public void testRemoveRecommendBookCommandWithNoBooks() {
         long ChatID = 1823368641;
-        ArrayList<String> books = new ArrayList<>();
-        when(storage.getRecBooks()).thenReturn(books);
+        ArrayList<RecommendedBook> books = new ArrayList<>();
+        when(storage.getRecBooksPage(eq(0L), anyInt())).thenReturn(books);
         String response =  messageHandling.parseMessage("/removerecbook", ChatID);
         Assert.assertEquals("Список книг пуст.", response);
     }
@@ -0,0 +1,190 @@
+package org.example;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс для тестирования планировщика исходящих сообщений.
+ */
+public class OutboundSenderTest {
+
+    /**
+     * Проверяемый планировщик; закрывается после теста.
+     */
+    private OutboundSender sender;
+
+    /**
+     * Отправленные сообщения в порядке отправки.
+     */
+    private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+
+
+    /**
+     * Метод, выполняемый после каждого теста, закрывает планировщик.
+     */
+    @After
+    public void tearDown() {
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+
+    /**
+     * Ставит в очередь сообщение, которое сразу успешно отправляется.
+     */
+    private CompletableFuture<Void> send(long chatId, OutboundSender.Priority priority, String text) {
+        return sender.send(chatId, priority, () -> {
+            sent.add(text);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+
+    /**
+     * Создаёт ошибку Telegram с кодом и временем retry_after.
+     */
+    private static TelegramApiRequestException telegramError(int code, Integer retryAfter) {
+        JSONObject response = new JSONObject().put("ok", false).put("error_code", code).put("description", "Ошибка " + code);
+        if (retryAfter != null) {
+            response.put("parameters", new JSONObject().put("retry_after", retryAfter));
+        }
+        return new TelegramApiRequestException("Ошибка отправки", response);
+    }
+
+
+    /**
+     * Проверка, что сообщения одного чата уходят по порядку не чаще интервала чата,
+     * а другой чат не ждёт этого интервала.
+     */
+    @Test
+    public void testChatPacing() {
+        sender = new OutboundSender(1000, 100, 100);
+        List<Long> times = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String text = "1:" + i;
+            results.add(sender.send(1, OutboundSender.Priority.INTERACTIVE, () -> {
+                sent.add(text);
+                times.add(System.nanoTime());
+                return CompletableFuture.completedFuture(null);
+            }));
+        }
+        results.add(send(2, OutboundSender.Priority.INTERACTIVE, "2:0"));
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+        Assert.assertEquals(List.of("1:0", "1:1", "1:2"), sent.stream().filter(text -> text.startsWith("1:")).toList());
+        Assert.assertTrue("Второй чат не должен ждать интервала первого", sent.indexOf("2:0") < sent.indexOf("1:1"));
+        for (int i = 1; i < times.size(); i++) {
+            Assert.assertTrue(times.get(i) - times.get(i - 1) >= TimeUnit.MILLISECONDS.toNanos(95));
+        }
+        Assert.assertEquals(4, sender.getSent());
+    }
+
+
+    /**
+     * Проверка, что общая скорость отправки ограничена корзиной токенов.
+     */
+    @Test
+    public void testGlobalRate() {
+        sender = new OutboundSender(10, 0, 100);
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> results = new ArrayList<>();
+        for (int chat = 0; chat < 25; chat++) {
+            results.add(send(chat, OutboundSender.Priority.INTERACTIVE, "сообщение"));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+        // Десять сообщений уходят сразу, остальные пятнадцать - по десять в секунду
+        Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(1400));
+        Assert.assertEquals(25, sent.size());
+    }
+
+
+    /**
+     * Проверка, что после ответа 429 сообщение повторяется не раньше retry_after.
+     */
+    @Test
+    public void testRetryAfter() {
+        sender = new OutboundSender(1000, 0, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        List<Long> times = Collections.synchronizedList(new ArrayList<>());
+        CompletableFuture<Void> result = sender.send(1, OutboundSender.Priority.INTERACTIVE, () -> {
+            times.add(System.nanoTime());
+            return attempts.incrementAndGet() == 1
+                    ? CompletableFuture.failedFuture(telegramError(429, 1))
+                    : CompletableFuture.completedFuture(null);
+        });
+        result.join();
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertTrue(times.get(1) - times.get(0) >= TimeUnit.MILLISECONDS.toNanos(950));
+        Assert.assertEquals(1, sender.getRetried());
+        Assert.assertEquals(1, sender.getSent());
+    }
+
+
+    /**
+     * Проверка, что ошибка, которую бесполезно повторять, завершает отправку после первой попытки.
+     */
+    @Test
+    public void testPermanentErrorIsNotRetried() {
+        sender = new OutboundSender(1000, 0, 100);
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<Void> result = sender.send(1, OutboundSender.Priority.INTERACTIVE, () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(telegramError(403, null));
+        });
+        try {
+            result.join();
+            Assert.fail("Отправка должна завершиться ошибкой");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof TelegramApiRequestException);
+        }
+        Assert.assertEquals(1, attempts.get());
+        Assert.assertEquals(1, sender.getFailed());
+        Assert.assertEquals(-1, OutboundSender.retryDelayNanos(telegramError(400, null), 1));
+        Assert.assertEquals(TimeUnit.SECONDS.toNanos(2), OutboundSender.retryDelayNanos(telegramError(502, null), 2));
+    }
+
+
+    /**
+     * Проверка, что ответы пользователям обгоняют рассылку, а сообщение сверх ёмкости очереди отклоняется.
+     */
+    @Test
+    public void testPriorityAndCapacity() throws Exception {
+        sender = new OutboundSender(2, 0, 3);
+        send(10, OutboundSender.Priority.INTERACTIVE, "10");
+        send(11, OutboundSender.Priority.INTERACTIVE, "11");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sender.getSent() < 2) {
+            Assert.assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+        // Токены корзины израсходованы: следующие сообщения ждут в очереди
+        CompletableFuture<Void> bulk2 = send(2, OutboundSender.Priority.BULK, "2");
+        CompletableFuture<Void> bulk3 = send(3, OutboundSender.Priority.BULK, "3");
+        CompletableFuture<Void> reply = send(4, OutboundSender.Priority.INTERACTIVE, "4");
+        CompletableFuture<Void> overflow = send(5, OutboundSender.Priority.INTERACTIVE, "5");
+        try {
+            overflow.join();
+            Assert.fail("Сообщение сверх ёмкости должно быть отклонено");
+        } catch (CompletionException e) {
+            Assert.assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        CompletableFuture.allOf(bulk2, bulk3, reply).join();
+        Assert.assertEquals(List.of("10", "11", "4", "2", "3"), sent);
+        Assert.assertEquals(1, sender.getRejected());
+        Assert.assertEquals(0, sender.getQueueDepth());
+    }
+}
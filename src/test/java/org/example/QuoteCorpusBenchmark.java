@@ -0,0 +1,107 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк выбора цитаты из отображённого в память корпуса на 2 000 000 цитат:
+ * случайная цитата и случайная цитата одного из 20 000 авторов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuoteCorpusBenchmark {
+
+    /**
+     * Количество цитат в корпусе.
+     */
+    static final int QUOTES = 2_000_000;
+
+    /**
+     * Количество авторов.
+     */
+    static final int AUTHORS = 20_000;
+
+
+    /**
+     * Текстовый источник.
+     */
+    private Path source;
+
+    /**
+     * Собранный корпус.
+     */
+    private Path target;
+
+    /**
+     * Открытый корпус.
+     */
+    private QuoteCorpus corpus;
+
+
+    /**
+     * Создаёт источник и собирает из него корпус.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        source = Files.createTempFile("quote_bench", ".txt");
+        target = Files.createTempFile("quote_bench", ".bin");
+        try (BufferedWriter writer = Files.newBufferedWriter(source, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < QUOTES; i++) {
+                writer.write("Автор " + (i % AUTHORS) + "\tЦитата номер " + i + ": всё, что нас не убивает, делает нас сильнее.");
+                writer.newLine();
+            }
+        }
+        QuoteCorpusBuilder.build(source, target);
+        corpus = new QuoteCorpus(target);
+    }
+
+
+    /**
+     * Удаляет временные файлы.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+
+
+    /**
+     * Случайная цитата из всего корпуса.
+     */
+    @Benchmark
+    public String randomQuote() {
+        return corpus.getRandQuote();
+    }
+
+
+    /**
+     * Случайная цитата случайного автора.
+     */
+    @Benchmark
+    public String randomQuoteByAuthor() {
+        return corpus.getRandQuote("автор " + ThreadLocalRandom.current().nextInt(AUTHORS));
+    }
+
+
+    /**
+     * Запускает бенчмарк.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(QuoteCorpusBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Класс для тестирования корпуса цитат, отображённого в память.
+ */
+public class QuoteCorpusTest {
+
+    /**
+     * Текстовый источник корпуса.
+     */
+    private Path source;
+
+    /**
+     * Собранный файл корпуса.
+     */
+    private Path target;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, собирает корпус из небольшого источника.
+     */
+    @Before
+    public void setUp() throws Exception {
+        source = Files.createTempFile("quotes", ".txt");
+        target = Files.createTempFile("quotes", ".bin");
+        Files.write(source, List.of(
+                "Фёдор  Достоевский\tКрасота спасёт мир.",
+                "Вуди Аллен\t80% успеха - это появиться в нужном месте в нужное время.",
+                "строка без автора",
+                "",
+                "Фёдор Достоевский\tЧеловек есть тайна.\\nЕё надо разгадать.",
+                "Антон Чехов\tКраткость - сестра таланта."), StandardCharsets.UTF_8);
+        Assert.assertEquals(4, QuoteCorpusBuilder.build(source, target));
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, удаляет временные файлы.
+     */
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(source);
+        Files.deleteIfExists(target);
+    }
+
+
+    /**
+     * Проверка, что каждая цитата декодируется целиком и подписана своим автором.
+     */
+    @Test
+    public void testEveryQuoteIsDecoded() throws IOException {
+        QuoteCorpus corpus = new QuoteCorpus(target);
+        Assert.assertEquals(4, corpus.size());
+        Assert.assertEquals(3, corpus.authorCount());
+        Set<String> quotes = new HashSet<>();
+        for (int i = 0; i < corpus.size(); i++) {
+            quotes.add(corpus.getQuote(i));
+        }
+        Assert.assertEquals(Set.of(
+                "Цитата: Красота спасёт мир.\n\nФёдор Достоевский",
+                "Цитата: Человек есть тайна.\nЕё надо разгадать.\n\nФёдор Достоевский",
+                "Цитата: 80% успеха - это появиться в нужном месте в нужное время.\n\nВуди Аллен",
+                "Цитата: Краткость - сестра таланта.\n\nАнтон Чехов"), quotes);
+    }
+
+
+    /**
+     * Проверка выбора цитаты по автору без учёта регистра, «ё» и лишних пробелов.
+     */
+    @Test
+    public void testAuthorFilter() throws IOException {
+        QuoteCorpus corpus = new QuoteCorpus(target);
+        for (int i = 0; i < 20; i++) {
+            Assert.assertTrue(corpus.getRandQuote("  федор   ДОСТОЕВСКИЙ ").endsWith("\n\nФёдор Достоевский"));
+        }
+        Assert.assertEquals("Цитата: Краткость - сестра таланта.\n\nАнтон Чехов", corpus.getRandQuote("антон чехов"));
+        Assert.assertNull(corpus.getRandQuote("Лев Толстой"));
+    }
+
+
+    /**
+     * Проверка, что файл неизвестного формата не открывается.
+     */
+    @Test(expected = IOException.class)
+    public void testUnknownFormatIsRejected() throws IOException {
+        Files.write(target, "не корпус цитат".getBytes(StandardCharsets.UTF_8));
+        new QuoteCorpus(target);
+    }
+
+
+    /**
+     * Проверка встроенного набора цитат, когда корпус не задан.
+     */
+    @Test
+    public void testBuiltInQuotes() {
+        QuoteBook quotes = new QuoteBook(null);
+        Assert.assertTrue(quotes.getRandQuote().startsWith("Цитата:"));
+        Assert.assertEquals("Цитата: 80% успеха - это появиться в нужном месте в нужное время.\n\nВуди Аллен",
+                quotes.getRandQuote("вуди аллен"));
+        Assert.assertNull(quotes.getRandQuote("Лев Толстой"));
+    }
+}
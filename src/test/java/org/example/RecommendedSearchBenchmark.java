@@ -0,0 +1,149 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк поиска по таблице recommendedBooks из 1 000 000 строк: полнотекстовый индекс FTS5
+ * против поиска подстроки через LIKE '%...%', который просматривает всю таблицу.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecommendedSearchBenchmark {
+
+    /**
+     * Количество строк в таблице recommendedBooks.
+     */
+    static final int ROWS = 1_000_000;
+
+    /**
+     * Слова, из которых составляются названия книг.
+     */
+    private static final String[] WORDS = {"война", "мир", "море", "звезда", "город", "сад", "ночь", "дорога",
+            "остров", "тайна", "зима", "лето", "огонь", "ветер", "дом", "река", "небо", "песня", "сердце", "время"};
+
+    /**
+     * Фамилии авторов.
+     */
+    private static final String[] SURNAMES = {"Толстой", "Чехов", "Пушкин", "Гоголь", "Булгаков", "Тургенев",
+            "Лермонтов", "Куприн", "Бунин", "Горький", "Набоков", "Пастернак"};
+
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * Соединение для поиска через LIKE.
+     */
+    private Connection connection;
+
+    /**
+     * Хранилище с полнотекстовым поиском.
+     */
+    private Storage storage;
+
+
+    /**
+     * Создаёт временную базу данных, заполняет recommendedBooks и строит поисковый индекс миграциями хранилища.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("search_bench", ".db").toFile();
+        String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE read_books (title text, author text, year integer, chat_id integer)");
+            statement.execute("CREATE TABLE recommendedBooks (title text, chat_id integer, genre text, author text)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO recommendedBooks (title, chat_id, genre, author) VALUES (?, ?, 'Драма', ?)")) {
+            for (int i = 0; i < ROWS; i++) {
+                insert.setString(1, WORDS[i % WORDS.length] + " " + WORDS[(i / WORDS.length) % WORDS.length] + " " + i);
+                insert.setLong(2, i % 10_000);
+                insert.setString(3, "Автор" + (i % 50_000) + " " + SURNAMES[i % SURNAMES.length]);
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+        storage = new Storage(url);
+    }
+
+
+    /**
+     * Закрывает соединения и удаляет временную базу данных.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        storage.closeConnection();
+        connection.close();
+        databaseFile.delete();
+    }
+
+
+    /**
+     * Поиск редкого автора через LIKE по подстроке.
+     */
+    @Benchmark
+    public ArrayList<String> searchLike() throws SQLException {
+        ArrayList<String> titles = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT title FROM recommendedBooks WHERE title LIKE ? OR author LIKE ? LIMIT 10")) {
+            String pattern = "%автор" + ThreadLocalRandom.current().nextInt(50_000) + " %";
+            statement.setString(1, pattern);
+            statement.setString(2, pattern);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    titles.add(resultSet.getString("title"));
+                }
+            }
+        }
+        return titles;
+    }
+
+
+    /**
+     * Поиск редкого автора через полнотекстовый индекс.
+     */
+    @Benchmark
+    public ArrayList<RecommendedBook> searchFts() {
+        return storage.searchRecBooks("автор" + ThreadLocalRandom.current().nextInt(50_000), 10);
+    }
+
+
+    /**
+     * Поиск по началу частого слова из названия с ранжированием.
+     */
+    @Benchmark
+    public ArrayList<RecommendedBook> searchFtsPrefix() {
+        return storage.searchRecBooks("толст " + WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)].substring(0, 3), 10);
+    }
+
+
+    /**
+     * Запускает бенчмарк.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RecommendedSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк изменения книги на таблице read_books из 1 000 000 строк: прежнее сравнение
+ * по всем полям строки против обращения по идентификатору строки.
+ * Каждый вызов записывает в строку её же значения, поэтому таблица между итерациями не меняется.
+ * Оба запроса выполняются на одном соединении с отключённым fsync, чтобы сравнивалась стоимость поиска строки,
+ * а не фиксации транзакции.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowIdMutationBenchmark {
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * Соединение для прежнего пути доступа.
+     */
+    private Connection connection;
+
+    /**
+     * Прежний запрос: поиск строки по названию, автору, году и чату.
+     */
+    private PreparedStatement updateByTuple;
+
+    /**
+     * Новый запрос: поиск строки по идентификатору.
+     */
+    private PreparedStatement updateById;
+
+
+    /**
+     * Создаёт временную базу данных, заполняет её и приводит к текущей схеме миграциями хранилища.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("row_id_bench", ".db").toFile();
+        String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        connection = DriverManager.getConnection(url);
+        StorageBenchmark.fill(connection, StorageBenchmark.ROWS, StorageBenchmark.CHATS);
+        new Storage(url).closeConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA synchronous = OFF");
+        }
+        updateByTuple = connection.prepareStatement(
+                "UPDATE read_books SET title = ?, author = ?, year = ? WHERE title = ? AND author = ? AND year = ? AND chat_id = ?");
+        updateById = connection.prepareStatement(
+                "UPDATE read_books SET title = ?, author = ?, year = ? WHERE id = ? AND chat_id = ?");
+    }
+
+
+    /**
+     * Закрывает соединения и удаляет временную базу данных.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        updateByTuple.close();
+        updateById.close();
+        connection.close();
+        databaseFile.delete();
+    }
+
+
+    /**
+     * Прежний путь: строка ищется сравнением всех её полей.
+     */
+    @Benchmark
+    public int editByTuple() throws SQLException {
+        int i = ThreadLocalRandom.current().nextInt(StorageBenchmark.ROWS);
+        String title = "Книга " + i;
+        String author = "Автор " + (i % 5_000);
+        int year = 1990 + i % 35;
+        updateByTuple.setString(1, title);
+        updateByTuple.setString(2, author);
+        updateByTuple.setInt(3, year);
+        updateByTuple.setString(4, title);
+        updateByTuple.setString(5, author);
+        updateByTuple.setInt(6, year);
+        updateByTuple.setLong(7, i % StorageBenchmark.CHATS);
+        return updateByTuple.executeUpdate();
+    }
+
+
+    /**
+     * Новый путь: строка находится по первичному ключу.
+     * Миграция сохраняет порядок строк, поэтому строка i получает идентификатор i + 1.
+     */
+    @Benchmark
+    public int editById() throws SQLException {
+        int i = ThreadLocalRandom.current().nextInt(StorageBenchmark.ROWS);
+        updateById.setString(1, "Книга " + i);
+        updateById.setString(2, "Автор " + (i % 5_000));
+        updateById.setInt(3, 1990 + i % 35);
+        updateById.setLong(4, i + 1);
+        updateById.setLong(5, i % StorageBenchmark.CHATS);
+        return updateById.executeUpdate();
+    }
+
+
+    /**
+     * Запускает бенчмарк.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RowIdMutationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,235 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Класс для тестирования миграций схемы базы данных.
+ */
+public class SchemaMigrationsTest {
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * Соединение с временной базой данных.
+     */
+    private Connection connection;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт базу данных в исходной схеме без ключей и индексов.
+     */
+    @Before
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("migrations_test", ".db").toFile();
+        connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE recommendedBooks (title text, chat_id integer, genre text, author text)");
+            statement.execute("CREATE TABLE \"read_books\" (title text, author text, year integer, chat_id integer)");
+            statement.execute("INSERT INTO read_books VALUES ('Book 1', 'Author 1', 2022, 1), ('Book 2', 'Author 2', 2023, 1)");
+            statement.execute("INSERT INTO recommendedBooks VALUES ('Rec 1', 1, 'Драма', 'Author 1')");
+        }
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, закрывает соединение и удаляет базу данных.
+     */
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+        databaseFile.delete();
+    }
+
+
+    /**
+     * Проверка, что миграции поднимают версию схемы и сохраняют данные в исходном порядке.
+     */
+    @Test
+    public void testMigrateKeepsDataAndAddsPrimaryKey() throws SQLException {
+        Assert.assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.migrate(connection));
+        Assert.assertEquals(SchemaMigrations.latestVersion(), SchemaMigrations.currentVersion(connection));
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, title FROM read_books ORDER BY id")) {
+            while (resultSet.next()) {
+                rows.add(resultSet.getLong("id") + " " + resultSet.getString("title"));
+            }
+        }
+        Assert.assertEquals(List.of("1 Book 1", "2 Book 2"), rows);
+    }
+
+
+    /**
+     * Проверка, что миграции убирают накопившиеся дубликаты, оставляя самую раннюю запись.
+     */
+    @Test
+    public void testMigrateRemovesDuplicates() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO read_books VALUES ('Book 1', 'Author 1', 2022, 1), ('Book 1', 'Author 1', 2022, 2)");
+            statement.execute("INSERT INTO recommendedBooks VALUES ('Rec 1', 2, 'Ужасы', 'Author 1')");
+        }
+        SchemaMigrations.migrate(connection);
+        List<String> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, title, chat_id FROM read_books ORDER BY id")) {
+            while (resultSet.next()) {
+                rows.add(resultSet.getLong("id") + " " + resultSet.getString("title") + " " + resultSet.getLong("chat_id"));
+            }
+        }
+        Assert.assertEquals(List.of("1 Book 1 1", "2 Book 2 1", "4 Book 1 2"), rows);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT genre FROM recommendedBooks")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("Драма", resultSet.getString("genre"));
+            Assert.assertFalse(resultSet.next());
+        }
+    }
+
+
+    /**
+     * Проверка, что миграция заполняет статистику по уже сохранённым книгам.
+     */
+    @Test
+    public void testMigrateFillsStats() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO read_books VALUES ('Book 3', 'Author 1', 2023, 1), ('Book 4', 'Author 3', 2020, 2)");
+            statement.execute("INSERT INTO read_books VALUES ('Без чата', NULL, NULL, NULL)");
+        }
+        SchemaMigrations.migrate(connection);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT books, authors FROM read_stats WHERE chat_id = 1")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals(3, resultSet.getInt("books"));
+            Assert.assertEquals(2, resultSet.getInt("authors"));
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT books FROM read_stats_year WHERE chat_id = 1 AND year = 2023")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals(2, resultSet.getInt("books"));
+        }
+    }
+
+
+    /**
+     * Проверка, что миграция заполняет ключи автора у уже сохранённых книг, приводя регистр кириллицы и «ё».
+     */
+    @Test
+    public void testMigrateFillsAuthorKeys() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO read_books VALUES ('Анна Каренина', '  Лев   ТОЛСТОЙ ', 1877, 1)");
+            statement.execute("INSERT INTO recommendedBooks VALUES ('Идиот', 1, 'Роман', 'Фёдор Достоевский')");
+        }
+        SchemaMigrations.migrate(connection);
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT author_key, author_surname FROM read_books WHERE title = 'Анна Каренина'")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("лев толстой", resultSet.getString("author_key"));
+            Assert.assertEquals("толстой", resultSet.getString("author_surname"));
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT author_key, author_surname FROM recommendedBooks WHERE title = 'Идиот'")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals("федор достоевский", resultSet.getString("author_key"));
+            Assert.assertEquals("достоевский", resultSet.getString("author_surname"));
+        }
+        Assert.assertTrue(plan("SELECT title FROM read_books WHERE chat_id = 1 AND author_key IN ('лев толстой', 'толстой')")
+                .contains("idx_read_books_chat_author_key"));
+        Assert.assertTrue(plan("SELECT title FROM read_books WHERE chat_id = 1 AND author_surname = 'лев толстой'")
+                .contains("idx_read_books_chat_author_surname"));
+    }
+
+
+    /**
+     * Проверка, что повторный запуск не применяет миграции заново.
+     */
+    @Test
+    public void testMigrateIsIdempotent() throws SQLException {
+        SchemaMigrations.migrate(connection);
+        Assert.assertEquals(0, SchemaMigrations.migrate(connection));
+    }
+
+
+    /**
+     * Проверка, что миграции создают таблицы в пустой базе данных.
+     */
+    @Test
+    public void testMigrateCreatesTablesInEmptyDatabase() throws Exception {
+        File emptyFile = Files.createTempFile("migrations_empty", ".db").toFile();
+        try (Connection empty = DriverManager.getConnection("jdbc:sqlite:" + emptyFile.getAbsolutePath())) {
+            SchemaMigrations.migrate(empty);
+            try (Statement statement = empty.createStatement();
+                 ResultSet resultSet = statement.executeQuery("SELECT count(*) FROM read_books")) {
+                Assert.assertEquals(0, resultSet.getInt(1));
+            }
+        } finally {
+            emptyFile.delete();
+        }
+    }
+
+
+    /**
+     * Проверка, что запросы хранилища используют индексы, а не полный просмотр таблицы.
+     */
+    @Test
+    public void testStorageQueriesUseIndexes() throws SQLException {
+        SchemaMigrations.migrate(connection);
+        assertUsesIndex("SELECT title FROM read_books WHERE chat_id = 1 ORDER BY id");
+        assertUsesIndex("SELECT title FROM read_books WHERE author = 'a' AND chat_id = 1");
+        assertUsesIndex("SELECT title FROM read_books WHERE year = 2020 AND chat_id = 1");
+        assertUsesIndex("SELECT * FROM read_books WHERE title = 't' AND author = 'a' AND year = 2020 AND chat_id = 1");
+        assertUsesIndex("SELECT title, author FROM recommendedBooks WHERE genre = 'Драма'");
+        assertUsesIndex("SELECT title, genre FROM recommendedBooks WHERE author = 'a'");
+        assertUsesIndex("SELECT * FROM recommendedBooks WHERE title = 't' AND author = 'a'");
+        assertUsesIndex("SELECT * FROM read_books WHERE chat_id = 1 AND id > 5 ORDER BY id LIMIT 21");
+        assertUsesIndex("SELECT year, books FROM read_stats_year WHERE chat_id = 1 ORDER BY year DESC");
+        assertUsesIndex("SELECT author, books FROM read_stats_author WHERE chat_id = 1 ORDER BY books DESC, author LIMIT 5");
+        assertUsesIndex("SELECT title FROM read_books WHERE chat_id = 1 AND author_key IN ('лев толстой', 'толстой') "
+                + "UNION ALL SELECT title FROM read_books WHERE chat_id = 1 AND author_surname = 'лев толстой' AND author_key NOT IN ('лев толстой', 'толстой')");
+        assertUsesIndex("SELECT * FROM recommendedBooks WHERE author_key IN ('лев толстой', 'толстой') "
+                + "UNION ALL SELECT * FROM recommendedBooks WHERE author_surname = 'лев толстой' AND author_key NOT IN ('лев толстой', 'толстой')");
+    }
+
+
+    /**
+     * Проверяет по плану запроса, что SQLite выполняет запрос через индекс или первичный ключ.
+     *
+     * @param sql Текст запроса.
+     */
+    private void assertUsesIndex(String sql) throws SQLException {
+        String plan = plan(sql);
+        Assert.assertTrue(sql + "\n" + plan, plan.contains("INDEX") || plan.contains("PRIMARY KEY"));
+        Assert.assertFalse(sql + "\n" + plan, plan.contains("SCAN TABLE"));
+        Assert.assertFalse(sql + "\n" + plan, plan.contains("TEMP B-TREE"));
+    }
+
+
+    /**
+     * Возвращает план запроса SQLite.
+     *
+     * @param sql Текст запроса.
+     * @return Строки плана, по одной на строку текста.
+     */
+    private String plan(String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN QUERY PLAN " + sql)) {
+            while (resultSet.next()) {
+                plan.append(resultSet.getString("detail")).append("\n");
+            }
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,163 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Класс для тестирования хранилища, распределённого по нескольким базам данных SQLite.
+ */
+public class ShardedBookStorageTest {
+
+    /**
+     * Временный каталог файлов шардов.
+     */
+    private Path directory;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт временный каталог.
+     */
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("sharded_storage_test");
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, удаляет временный каталог.
+     */
+    @After
+    public void tearDown() {
+        File[] files = directory.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.toFile().delete();
+    }
+
+
+    /**
+     * Проверка, что номер шарда не зависит от запуска и чаты распределяются по всем шардам.
+     */
+    @Test
+    public void testShardOfIsStableAndSpread() {
+        Assert.assertEquals(ShardedBookStorage.shardOf(12345L, 4), ShardedBookStorage.shardOf(12345L, 4));
+        Set<Integer> used = new HashSet<>();
+        for (long chatId = 1; chatId <= 16; chatId++) {
+            int shard = ShardedBookStorage.shardOf(chatId, 4);
+            Assert.assertTrue(shard >= 0 && shard < 4);
+            used.add(shard);
+        }
+        Assert.assertEquals(4, used.size());
+        Assert.assertTrue(ShardedBookStorage.shardOf(-1001234567890L, 4) >= 0);
+    }
+
+
+    /**
+     * Проверка, что книги каждого чата читаются из его шарда, а рекомендованные книги всех шардов
+     * объединяются при поиске и постраничном просмотре.
+     */
+    @Test
+    public void testRoutingAndFanOut() {
+        ShardedBookStorage storage = ShardedBookStorage.open(directory, 3, false);
+        try {
+            for (long chatId = 1; chatId <= 6; chatId++) {
+                storage.addReadBook("Книга " + chatId, "Автор", 2020, chatId).join();
+                storage.addRecBook("Рекомендация " + chatId, "Автор " + chatId, "Роман", chatId).join();
+            }
+            Assert.assertEquals(List.of("Книга 4"), storage.getReadBooks(4));
+            Assert.assertFalse(storage.addReadBook("Книга 4", "Автор", 2020, 4).join());
+            Assert.assertFalse(storage.addRecBook("Рекомендация 2", "Автор 2", "Роман", 5).join());
+            Assert.assertEquals(1, storage.searchBooksByAuthor("Автор 5", 10).size());
+
+            Assert.assertEquals(6, storage.searchBooksByGenre("Роман", 10).size());
+            List<RecommendedBook> all = new ArrayList<>();
+            long afterId = 0;
+            List<RecommendedBook> page;
+            while (!(page = storage.getRecBooksPage(afterId, 4)).isEmpty()) {
+                Assert.assertTrue(page.size() <= 4);
+                for (RecommendedBook book : page) {
+                    Assert.assertTrue(book.id() > afterId);
+                    afterId = book.id();
+                }
+                all.addAll(page);
+            }
+            Assert.assertEquals(6, all.size());
+
+            RecommendedBook removed = storage.searchBooksByAuthor("Автор 3", 10).get(0);
+            storage.updateRecBooks(3, removed.id()).join();
+            Assert.assertTrue(storage.searchBooksByAuthor("Автор 3", 10).isEmpty());
+            Assert.assertEquals(5, storage.searchRecBooks("рекомендация", 10).size());
+        } finally {
+            storage.closeConnection();
+        }
+    }
+
+
+    /**
+     * Проверка, что перераспределение переносит книги в новые шарды, сохраняя порядок книг чатов
+     * и порядок рекомендованных книг.
+     */
+    @Test
+    public void testReshard() throws SQLException {
+        ShardedBookStorage before = ShardedBookStorage.open(directory, 2, false);
+        List<String> recTitles = new ArrayList<>();
+        try {
+            for (long chatId = 1; chatId <= 5; chatId++) {
+                for (int i = 1; i <= 3; i++) {
+                    before.addReadBook("Книга " + chatId + "." + i, "Автор", 2020, chatId).join();
+                }
+                before.addRecBook("Рекомендация " + chatId, "Автор " + chatId, "Роман", chatId).join();
+                before.saveSession(chatId, new byte[]{(byte) chatId, 1, 2}).join();
+            }
+            for (RecommendedBook book : before.getRecBooksPage(0, 100)) {
+                recTitles.add(book.title());
+            }
+        } finally {
+            before.closeConnection();
+        }
+
+        Resharder.Counts counts = Resharder.reshard(directory, 2, 3);
+        Assert.assertEquals(15, counts.readBooks());
+        Assert.assertEquals(5, counts.recBooks());
+        Assert.assertEquals(5, counts.sessions());
+
+        ShardedBookStorage after = ShardedBookStorage.open(directory, 3, false);
+        try {
+            Assert.assertEquals(List.of("Книга 4.1", "Книга 4.2", "Книга 4.3"), after.getReadBooks(4));
+            Assert.assertEquals(3, after.getReadingStats(4, 5).books());
+            Assert.assertEquals(List.of("Книга 2.1"), after.getBooksByAuthor("автор", 2).subList(0, 1));
+            List<String> titles = new ArrayList<>();
+            for (RecommendedBook book : after.getRecBooksPage(0, 100)) {
+                titles.add(book.title());
+            }
+            Assert.assertEquals(new HashSet<>(recTitles), new HashSet<>(titles));
+            Assert.assertFalse(after.addRecBook("Рекомендация 1", "Автор 1", "Роман", 1).join());
+            for (long chatId = 1; chatId <= 5; chatId++) {
+                Assert.assertArrayEquals(new byte[]{(byte) chatId, 1, 2}, after.loadSession(chatId));
+            }
+        } finally {
+            after.closeConnection();
+        }
+
+        try {
+            Resharder.reshard(directory, 2, 3);
+            Assert.fail("Повторное перераспределение в существующие файлы должно быть отклонено");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage().contains("уже существует"));
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Класс для тестирования контрольных точек состояния диалогов и тёплого перезапуска бота.
+ */
+public class StateCheckpointTest {
+
+    /**
+     * Поставщик даты внутри периода голосования.
+     */
+    private final DateTimeProvider dateTimeProvider = new FixedDateTimeProvider(LocalDateTime.of(2023, 12, 4, 0, 0));
+
+    /**
+     * Хранилище, общее для бота до и после перезапуска.
+     */
+    private InMemoryBookStorage storage;
+
+    /**
+     * Временный каталог снимка.
+     */
+    private Path directory;
+
+    /**
+     * Файл снимка.
+     */
+    private Path file;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт хранилище и временный каталог.
+     */
+    @Before
+    public void setUp() throws Exception {
+        storage = new InMemoryBookStorage();
+        directory = Files.createTempDirectory("state_checkpoint_test");
+        file = directory.resolve("bot_state.snapshot");
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, удаляет временный каталог.
+     */
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+
+
+    /**
+     * Создаёт бот с открытым голосованием поверх общего хранилища.
+     */
+    private MessageHandling newBot() {
+        MessageHandling messageHandling = new MessageHandling(storage, dateTimeProvider);
+        messageHandling.setVotingEndDay(32);
+        return messageHandling;
+    }
+
+
+    /**
+     * Проверка, что после перезапуска чаты продолжают пошаговый ввод книги и голосование с того же шага,
+     * а голоса всех чатов сохраняются.
+     */
+    @Test
+    public void testWarmRestart() throws Exception {
+        MessageHandling before = newBot();
+        before.parseMessage("/addbook", 1);
+        before.parseMessage("Sample Book", 1);
+        before.parseMessage("/vote", 2);
+        before.parseMessage("3", 2);
+        before.parseMessage("2", 2);
+        before.parseMessage("/vote", 3);
+        before.parseMessage("4", 3);
+        before.parseMessage("5", 3);
+        before.parseMessage("6", 3);
+        new StateCheckpoint(before, file, 0).checkpoint();
+
+        MessageHandling after = newBot();
+        Assert.assertTrue(new StateCheckpoint(after, file, 0).restore());
+        Assert.assertEquals("Теперь введите год прочтения книги:", after.parseMessage("John Doe", 1));
+        Assert.assertEquals("Книга 'Sample Book' от автора John Doe (год: 2023) успешно добавлена в список прочитанных!",
+                after.parseMessage("2023", 1));
+        Assert.assertEquals("Спасибо за ваш голос!", after.parseMessage("1", 2));
+        Assert.assertEquals("Если вы пытаетесь проголосовать повторно, то этого сделать нельзя. Если вы хотите переголосовать, нажмите /revote",
+                after.parseMessage("/vote", 3));
+        String statistics = after.parseMessage("/voteresults", 4);
+        Assert.assertTrue(statistics.contains("\"KGBT+\" - Александр Пелевин - 1 голос(ов)"));
+        Assert.assertTrue(statistics.contains("\"Невидимый гость\" - Эльдар Сафин - 0 голос(ов)"));
+        Assert.assertTrue(statistics.contains("\"The One. Единственный\" - Джон Маррс - 1 голос(ов)"));
+    }
+
+
+    /**
+     * Проверка, что контрольная точка записывает только сессии, изменённые после предыдущей.
+     */
+    @Test
+    public void testCheckpointSavesOnlyChangedSessions() {
+        MessageHandling messageHandling = newBot();
+        messageHandling.parseMessage("/addbook", 1);
+        messageHandling.parseMessage("/addbook", 2);
+        Assert.assertEquals(2, messageHandling.checkpointSessions());
+        Assert.assertEquals(0, messageHandling.checkpointSessions());
+        messageHandling.parseMessage("Sample Book", 2);
+        Assert.assertEquals(1, messageHandling.checkpointSessions());
+        Assert.assertNotNull(storage.loadSession(1));
+    }
+
+
+    /**
+     * Проверка, что повреждённый или отсутствующий снимок не мешает запуску бота.
+     */
+    @Test
+    public void testRestoreWithoutValidSnapshot() throws Exception {
+        MessageHandling messageHandling = newBot();
+        Assert.assertFalse(new StateCheckpoint(messageHandling, file, 0).restore());
+        Files.write(file, new byte[]{1, 2, 3});
+        Assert.assertFalse(new StateCheckpoint(messageHandling, file, 0).restore());
+        Assert.assertEquals("Введите название книги:", messageHandling.parseMessage("/addbook", 1));
+    }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк хранилища: сравнивает прежний путь (одно соединение, новый PreparedStatement на каждый вызов)
+ * с пулом соединений и кэшем подготовленных запросов на таблице read_books из 1 000 000 строк.
+ * Запуск: метод {@link #main(String[])} из IDE или через classpath тестов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    /**
+     * Количество строк в таблице read_books.
+     */
+    static final int ROWS = 1_000_000;
+
+    /**
+     * Количество различных чатов, между которыми распределены строки.
+     */
+    static final int CHATS = 10_000;
+
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * Соединение для прежнего пути доступа.
+     */
+    private Connection connection;
+
+    /**
+     * Хранилище с пулом соединений.
+     */
+    private Storage storage;
+
+
+    /**
+     * Создаёт временную базу данных и заполняет её строками.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempFile("read_books_bench", ".db").toFile();
+        String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        connection = DriverManager.getConnection(url);
+        fill(connection, ROWS, CHATS);
+        storage = new Storage(url);
+    }
+
+
+    /**
+     * Создаёт таблицы в схеме исходной базы данных и заполняет read_books.
+     *
+     * @param connection Соединение с базой данных.
+     * @param rows       Количество строк.
+     * @param chats      Количество различных чатов.
+     */
+    static void fill(Connection connection, int rows, int chats) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE read_books (title text, author text, year integer, chat_id integer)");
+            statement.execute("CREATE TABLE recommendedBooks (title text, chat_id integer, genre text, author text)");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO read_books (title, author, year, chat_id) VALUES (?, ?, ?, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setString(1, "Книга " + i);
+                insert.setString(2, "Автор " + (i % 5_000));
+                insert.setInt(3, 1990 + i % 35);
+                insert.setLong(4, i % chats);
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+
+    /**
+     * Закрывает соединения и удаляет временную базу данных.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        storage.closeConnection();
+        connection.close();
+        databaseFile.delete();
+    }
+
+
+    /**
+     * Прежний путь: запрос разбирается заново на каждый вызов.
+     */
+    @Benchmark
+    public ArrayList<String> getReadBooksUncached() throws SQLException {
+        ArrayList<String> books = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("SELECT title FROM read_books WHERE chat_id = ?")) {
+            statement.setLong(1, ThreadLocalRandom.current().nextInt(CHATS));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    books.add(resultSet.getString("title"));
+                }
+            }
+        }
+        return books;
+    }
+
+
+    /**
+     * Путь через пул соединений и кэш подготовленных запросов.
+     */
+    @Benchmark
+    public ArrayList<String> getReadBooksPooled() {
+        return storage.getReadBooks(ThreadLocalRandom.current().nextInt(CHATS));
+    }
+
+
+    /**
+     * Запускает бенчмарк.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,186 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Бенчмарк смешанной нагрузки: шесть потоков читают списки книг случайных чатов, пока два потока добавляют книги.
+ * Сравниваются прежняя схема, в которой чтения и записи делят общий пул соединений в режиме журнала DELETE,
+ * текущее хранилище с единственным писателем и соединениями только для чтения в режиме WAL
+ * и то же хранилище, распределённое по четырём файлам с отдельным писателем в каждом.
+ * Запуск: метод {@link #main(String[])} из IDE или через classpath тестов.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageConcurrencyBenchmark {
+
+    /**
+     * Количество строк в таблице read_books.
+     */
+    static final int ROWS = 200_000;
+
+    /**
+     * Количество различных чатов.
+     */
+    static final int CHATS = 10_000;
+
+    /**
+     * Количество шардов для схемы "sharded".
+     */
+    static final int SHARDS = 4;
+
+
+    /**
+     * Схема доступа к базе данных: "shared" — общий пул соединений и журнал DELETE,
+     * "split" — писатель и читатели хранилища в режиме WAL, "sharded" — четыре шарда, перераспределённые из той же базы.
+     */
+    @Param({"shared", "split", "sharded"})
+    public String layout;
+
+
+    /**
+     * Файл временной базы данных во временном каталоге.
+     */
+    private File databaseFile;
+
+    /**
+     * Общий пул соединений для прежней схемы.
+     */
+    private ConnectionPool pool;
+
+    /**
+     * Хранилище для текущей схемы или шардов.
+     */
+    private BookStorage storage;
+
+    /**
+     * Счётчик для уникальных названий добавляемых книг.
+     */
+    private final AtomicLong added = new AtomicLong();
+
+
+    /**
+     * Создаёт временную базу данных, заполняет её и приводит к текущей схеме.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        databaseFile = Files.createTempDirectory("read_books_concurrency_bench").resolve("read_books.db").toFile();
+        String url = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url)) {
+            StorageBenchmark.fill(connection, ROWS, CHATS);
+        }
+        if (layout.equals("sharded")) {
+            Resharder.reshard(databaseFile.toPath().getParent(), 1, SHARDS);
+            // Шарды без кэша списков, чтобы чтения сравнивались с хранилищем "split"
+            List<Storage> shards = new ArrayList<>();
+            for (int i = 0; i < SHARDS; i++) {
+                shards.add(new Storage(ShardedBookStorage.shardUrl(databaseFile.toPath().getParent(), i, SHARDS)));
+            }
+            storage = new ShardedBookStorage(shards);
+            return;
+        }
+        storage = new Storage(url);
+        if (layout.equals("shared")) {
+            storage.closeConnection();
+            storage = null;
+            try (Connection connection = DriverManager.getConnection(url);
+                 Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA journal_mode = DELETE");
+            }
+            pool = new ConnectionPool(url, ConnectionPool.DEFAULT_SIZE);
+        }
+    }
+
+
+    /**
+     * Закрывает соединения и удаляет временную базу данных.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (storage != null) {
+            storage.closeConnection();
+        }
+        if (pool != null) {
+            pool.close();
+        }
+        File[] files = databaseFile.getParentFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        databaseFile.getParentFile().delete();
+    }
+
+
+    /**
+     * Чтение списка прочитанных книг случайного чата.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public ArrayList<String> read() throws SQLException {
+        long chatId = ThreadLocalRandom.current().nextInt(CHATS);
+        if (storage != null) {
+            return storage.getReadBooks(chatId);
+        }
+        ArrayList<String> books = new ArrayList<>();
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare("SELECT title FROM read_books WHERE chat_id = ? ORDER BY id");
+            statement.setLong(1, chatId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    books.add(resultSet.getString("title"));
+                }
+            }
+        }
+        return books;
+    }
+
+
+    /**
+     * Добавление новой книги в случайный чат.
+     */
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public Object write() throws SQLException {
+        long chatId = ThreadLocalRandom.current().nextInt(CHATS);
+        String title = "Новая книга " + added.incrementAndGet();
+        if (storage != null) {
+            return storage.addReadBook(title, "Автор", 2024, chatId).join();
+        }
+        try (PooledConnection connection = pool.acquire()) {
+            PreparedStatement statement = connection.prepare(
+                    "INSERT INTO read_books (title, author, year, chat_id) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING");
+            statement.setString(1, title);
+            statement.setString(2, "Автор");
+            statement.setInt(3, 2024);
+            statement.setLong(4, chatId);
+            return statement.executeUpdate();
+        }
+    }
+
+
+    /**
+     * Запускает бенчмарк.
+     */
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StorageConcurrencyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,142 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * Класс для тестирования гистограммы задержек и метрик вызовов хранилища.
+ */
+public class StorageMetricsTest {
+
+    /**
+     * Идентификатор чата для тестирования.
+     */
+    private long ChatId;
+
+    /**
+     * Измеряемое хранилище в памяти.
+     */
+    private InstrumentedBookStorage storage;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт измеряемое хранилище.
+     */
+    @Before
+    public void setUp() {
+        ChatId = 12345L;
+        storage = new InstrumentedBookStorage(new InMemoryBookStorage(), "metrics-test");
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, закрывает хранилище и снимает публикацию метрик.
+     */
+    @After
+    public void tearDown() {
+        storage.closeConnection();
+    }
+
+
+    /**
+     * Проверка, что перцентили гистограммы совпадают с точными значениями с точностью до ширины корзины.
+     */
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        Assert.assertEquals(100_000, histogram.count());
+        Assert.assertEquals(100_000_000, histogram.max());
+        assertClose(50_000_000, histogram.percentile(0.5));
+        assertClose(99_000_000, histogram.percentile(0.99));
+        assertClose(99_900_000, histogram.percentile(0.999));
+        histogram.reset();
+        Assert.assertEquals(0, histogram.percentile(0.5));
+    }
+
+
+    /**
+     * Проверка, что корзины идут подряд и каждое значение попадает в корзину со своей верхней границей.
+     */
+    @Test
+    public void testHistogramBuckets() {
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            Assert.assertTrue(value + " <= " + LatencyHistogram.upperBound(bucket), value <= LatencyHistogram.upperBound(bucket));
+            Assert.assertTrue(bucket == 0 || value > LatencyHistogram.upperBound(bucket - 1));
+        }
+    }
+
+
+    /**
+     * Проверка, что вызовы хранилища учитываются по методам вместе с количеством строк.
+     */
+    @Test
+    public void testCallsAndRowsArePerMethod() {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId).join();
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId).join();
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId).join();
+        storage.getReadBooks(ChatId);
+        storage.getReadBooks(ChatId + 1);
+
+        StorageMetrics.Method add = storage.getMetrics().method("addReadBook");
+        Assert.assertEquals(3, add.getCalls());
+        Assert.assertEquals(2, add.getRows());
+        StorageMetrics.Method read = storage.getMetrics().method("getReadBooks");
+        Assert.assertEquals(2, read.getCalls());
+        Assert.assertEquals(2, read.getRows());
+        Assert.assertEquals(0, read.getErrors());
+        Assert.assertTrue(read.getP50Micros() <= read.getP999Micros());
+        Assert.assertTrue(read.getP999Micros() <= read.getMaxMicros());
+    }
+
+
+    /**
+     * Проверка, что обещание, завершившееся ошибкой, учитывается как ошибка метода.
+     */
+    @Test
+    public void testFailedWriteIsCounted() {
+        InstrumentedBookStorage failing = new InstrumentedBookStorage(new InMemoryBookStorage() {
+            @Override
+            public CompletableFuture<Void> clearReadBooks(long chatId) {
+                return CompletableFuture.failedFuture(new IllegalStateException("диск заполнен"));
+            }
+        }, "metrics-failing");
+        failing.clearReadBooks(ChatId);
+        Assert.assertEquals(1, failing.getMetrics().method("clearReadBooks").getErrors());
+        failing.closeConnection();
+    }
+
+
+    /**
+     * Проверка, что метрики методов доступны через JMX.
+     */
+    @Test
+    public void testMetricsArePublishedOverJmx() throws Exception {
+        storage.getReadBooks(ChatId);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("org.example:type=BookStorage,name=\"metrics-test\",method=getReadBooks");
+        Assert.assertEquals(1L, server.getAttribute(name, "Calls"));
+        storage.closeConnection();
+        Assert.assertFalse(server.isRegistered(name));
+        storage = new InstrumentedBookStorage(new InMemoryBookStorage(), "metrics-test");
+    }
+
+
+    /**
+     * Проверяет, что значение перцентиля отличается от точного не больше чем на ширину корзины.
+     */
+    private static void assertClose(long expected, long actual) {
+        Assert.assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= expected / 16);
+    }
+}
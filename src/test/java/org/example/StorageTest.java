@@ -0,0 +1,430 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Класс для тестирования хранилища книг на временной базе данных.
+ */
+public class StorageTest {
+
+    /**
+     * Идентификатор чата для тестирования.
+     */
+    private long ChatId;
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * Проверяемое хранилище.
+     */
+    private Storage storage;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт хранилище на временной базе данных.
+     */
+    @Before
+    public void setUp() throws Exception {
+        ChatId = 12345L;
+        databaseFile = Files.createTempFile("storage_test", ".db").toFile();
+        storage = new Storage("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, закрывает хранилище и удаляет базу данных вместе с файлами WAL.
+     */
+    @After
+    public void tearDown() {
+        storage.closeConnection();
+        databaseFile.delete();
+        new File(databaseFile.getPath() + "-wal").delete();
+        new File(databaseFile.getPath() + "-shm").delete();
+    }
+
+
+    /**
+     * Проверка, что удаление по идентификатору убирает только выбранную книгу, а не все книги с тем же названием.
+     */
+    @Test
+    public void testRemoveByIdKeepsSameTitle() {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 1", "Author 1", 2023, ChatId);
+        ArrayList<ReadBook> books = storage.getAllValues(ChatId);
+        storage.updateReadBooks(ChatId, books.get(0).id());
+        Assert.assertEquals(List.of(books.get(1)), storage.getAllValues(ChatId));
+    }
+
+
+    /**
+     * Проверка, что повторное добавление книги отклоняется хранилищем и сообщается вызывающему.
+     */
+    @Test
+    public void testDuplicateIsReported() {
+        Assert.assertTrue(storage.addReadBook("Book 1", "Author 1", 2022, ChatId).join());
+        Assert.assertFalse(storage.addReadBook("Book 1", "Author 1", 2022, ChatId).join());
+        Assert.assertTrue(storage.addReadBook("Book 1", "Author 1", 2022, ChatId + 1).join());
+        Assert.assertEquals(1, storage.getAllValues(ChatId).size());
+
+        Assert.assertTrue(storage.addRecBook("Rec 1", "Author 1", "Драма", ChatId).join());
+        Assert.assertFalse(storage.addRecBook("Rec 1", "Author 1", "Ужасы", ChatId + 1).join());
+        Assert.assertEquals(1, storage.getRecBooksPage(0, 10).size());
+    }
+
+
+    /**
+     * Проверка, что редактирование, которое сделало бы книгу копией другой, не выполняется.
+     */
+    @Test
+    public void testEditIntoDuplicateIsRejected() {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        ReadBook second = storage.getAllValues(ChatId).get(1);
+        Assert.assertFalse(storage.editReadBook(second.id(), "Book 1", "Author 1", 2022, ChatId).join());
+        Assert.assertEquals(List.of("Book 1", "Book 2"), storage.getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка поиска по автору без учёта регистра, «ё», лишних пробелов и по одной фамилии.
+     */
+    @Test
+    public void testAuthorLookupIsTolerant() {
+        storage.addReadBook("Анна Каренина", "Лев Толстой", 2022, ChatId);
+        storage.addReadBook("Хождение по мукам", "Алексей Толстой", 2022, ChatId);
+        storage.addReadBook("Отрочество", "Толстой", 2023, ChatId);
+        storage.addReadBook("Идиот", "Фёдор Достоевский", 2023, ChatId);
+        Assert.assertEquals(List.of("Анна Каренина", "Отрочество"), storage.getBooksByAuthor("  лев  ТОЛСТОЙ ", ChatId));
+        Assert.assertEquals(List.of("Отрочество", "Анна Каренина", "Хождение по мукам"), storage.getBooksByAuthor("толстой", ChatId));
+        Assert.assertEquals(List.of("Идиот"), storage.getBooksByAuthor("федор достоевский", ChatId));
+        ReadBook idiot = storage.getAllValues(ChatId).get(3);
+        storage.editReadBook(idiot.id(), "Идиот", "Достоевский", 2023, ChatId).join();
+        Assert.assertEquals(List.of("Идиот"), storage.getBooksByAuthor("Фёдор Достоевский", ChatId));
+        Assert.assertTrue(storage.getBooksByAuthor("Толстой", ChatId + 1).isEmpty());
+
+        storage.addRecBook("Война и мир", "Лев Толстой", "Роман", ChatId).join();
+        storage.addRecBook("Аэлита", "Алексей Толстой", "Фантастика", ChatId).join();
+        Assert.assertEquals(List.of("Война и мир"), titles(storage.searchBooksByAuthor("ЛЕВ толстой", 10)));
+        Assert.assertEquals(2, storage.searchBooksByAuthor("Толстой", 10).size());
+        Assert.assertEquals(List.of("Война и мир"), titles(storage.searchBooksByAuthor("Толстой", 1)));
+    }
+
+
+    /**
+     * Проверка, что поиск по жанру возвращает не больше указанного количества книг в порядке добавления.
+     */
+    @Test
+    public void testSearchByGenreIsLimited() {
+        for (int i = 1; i <= 5; i++) {
+            storage.addRecBook("Book " + i, "Author " + i, "Драма", ChatId).join();
+        }
+        storage.addRecBook("Other", "Author", "Ужасы", ChatId).join();
+        Assert.assertEquals(List.of("Book 1", "Book 2", "Book 3"), titles(storage.searchBooksByGenre("Драма", 3)));
+        Assert.assertEquals(5, storage.searchBooksByGenre("Драма", 10).size());
+    }
+
+
+    /**
+     * Проверка, что статистика следует за добавлением, изменением, удалением и очисткой книг.
+     */
+    @Test
+    public void testReadingStatsFollowChanges() {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        storage.addReadBook("Book 3", "Author 1", 2023, ChatId);
+        storage.addReadBook("Other", "Author 3", 2021, ChatId + 1);
+        Assert.assertEquals(new ReadingStats(3, 2,
+                List.of(new ReadingStats.YearCount(2023, 2), new ReadingStats.YearCount(2022, 1)),
+                List.of(new ReadingStats.AuthorCount("Author 1", 2), new ReadingStats.AuthorCount("Author 2", 1))),
+                storage.getReadingStats(ChatId, 5));
+
+        ArrayList<ReadBook> books = storage.getAllValues(ChatId);
+        storage.editReadBook(books.get(0).id(), "Book 1", "Author 2", 2023, ChatId);
+        storage.updateReadBooks(ChatId, books.get(2).id());
+        Assert.assertEquals(new ReadingStats(2, 1,
+                List.of(new ReadingStats.YearCount(2023, 2)),
+                List.of(new ReadingStats.AuthorCount("Author 2", 2))),
+                storage.getReadingStats(ChatId, 5));
+
+        storage.clearReadBooks(ChatId);
+        Assert.assertEquals(new ReadingStats(0, 0, List.of(), List.of()), storage.getReadingStats(ChatId, 5));
+        Assert.assertEquals(1, storage.getReadingStats(ChatId + 1, 5).books());
+    }
+
+
+    /**
+     * Проверка, что в режиме WAL чтение не ждёт открытой транзакции записи и видит только зафиксированные книги.
+     */
+    @Test(timeout = 2_000)
+    public void testReadDoesNotWaitForWriter() throws Exception {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode")) {
+                Assert.assertEquals("wal", resultSet.getString(1));
+            }
+            statement.execute("BEGIN EXCLUSIVE");
+            statement.execute("INSERT INTO read_books (title, author, year, chat_id) VALUES ('Book 2', 'Author 2', 2023, " + ChatId + ")");
+            Assert.assertEquals(List.of("Book 1"), storage.getReadBooks(ChatId));
+            statement.execute("COMMIT");
+        }
+        Assert.assertEquals(List.of("Book 1", "Book 2"), storage.getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка, что журнал медленных запросов получает текст SQL и типы параметров без их значений.
+     */
+    @Test
+    public void testSlowQueryLogRecordsShape() {
+        storage.getSlowQueryLog().setThresholdMillis(0);
+        storage.getBooksByYear(2022, ChatId);
+        String entry = storage.getSlowQueryLog().getRecent()[0];
+        Assert.assertTrue(entry, entry.contains("SELECT title FROM read_books WHERE year = ? AND chat_id = ?"));
+        Assert.assertTrue(entry, entry.endsWith("(Int, Long)"));
+        Assert.assertEquals(0, storage.getSlowQueryLog().getFailedQueries());
+    }
+
+
+    /**
+     * Проверка, что редактирование по идентификатору меняет только выбранную книгу.
+     */
+    @Test
+    public void testEditById() {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        ReadBook second = storage.getAllValues(ChatId).get(1);
+        storage.editReadBook(second.id(), "New Book", "New Author", 2024, ChatId);
+        Assert.assertEquals(List.of("Book 1", "New Book"), storage.getReadBooks(ChatId));
+        Assert.assertEquals(new ReadBook(second.id(), "New Book", "New Author", 2024, ChatId), storage.getAllValues(ChatId).get(1));
+    }
+
+
+    /**
+     * Проверка, что строку другого чата нельзя изменить или удалить, зная только её идентификатор.
+     */
+    @Test
+    public void testForeignRowIsNotChanged() {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        storage.addRecBook("Rec 1", "Author 1", "Драма", ChatId);
+        long bookId = storage.getAllValues(ChatId).get(0).id();
+        long recId = storage.getRecBooksPage(0, 1).get(0).id();
+        storage.editReadBook(bookId, "New Book", "New Author", 2024, 54321L);
+        storage.updateReadBooks(54321L, bookId);
+        storage.updateRecBooks(54321L, recId);
+        Assert.assertEquals(List.of("Book 1"), storage.getReadBooks(ChatId));
+        Assert.assertEquals(1, storage.getRecBooksPage(0, 10).size());
+        storage.updateRecBooks(ChatId, recId);
+        Assert.assertTrue(storage.getRecBooksPage(0, 10).isEmpty());
+    }
+
+
+    /**
+     * Проверка, что страницы начинаются после указанной книги и не содержат книг других чатов.
+     */
+    @Test
+    public void testReadBooksPageStartsAfterId() {
+        for (int i = 1; i <= 5; i++) {
+            storage.addReadBook("Book " + i, "Author", 2022, ChatId);
+            storage.addReadBook("Other " + i, "Author", 2022, 54321L);
+        }
+        ArrayList<ReadBook> first = storage.getReadBooksPage(ChatId, 0, 2);
+        Assert.assertEquals(List.of("Book 1", "Book 2"), first.stream().map(ReadBook::title).toList());
+        ArrayList<ReadBook> second = storage.getReadBooksPage(ChatId, first.get(1).id(), 2);
+        Assert.assertEquals(List.of("Book 3", "Book 4"), second.stream().map(ReadBook::title).toList());
+        ArrayList<ReadBook> last = storage.getReadBooksPage(ChatId, second.get(1).id(), 2);
+        Assert.assertEquals(List.of("Book 5"), last.stream().map(ReadBook::title).toList());
+    }
+
+
+    /**
+     * Проверка полнотекстового поиска: регистр, начало слова, буква «ё» и поиск по автору.
+     */
+    @Test
+    public void testSearchRecBooksByPrefix() {
+        storage.addRecBook("Война и мир", "Лев Толстой", "История", ChatId);
+        storage.addRecBook("Ёлка", "Пётр Иванов", "Сказка", ChatId);
+        storage.addRecBook("Мастер и Маргарита", "Михаил Булгаков", "Драма", ChatId);
+        Assert.assertEquals(List.of("Война и мир"), titles(storage.searchRecBooks("толстой", 10)));
+        Assert.assertEquals(List.of("Война и мир"), titles(storage.searchRecBooks("ТОЛСТ", 10)));
+        Assert.assertEquals(List.of("Ёлка"), titles(storage.searchRecBooks("елка", 10)));
+        Assert.assertEquals(List.of("Ёлка"), titles(storage.searchRecBooks("Петр", 10)));
+        Assert.assertEquals(List.of("Мастер и Маргарита"), titles(storage.searchRecBooks("булгаков мар", 10)));
+        Assert.assertTrue(storage.searchRecBooks("\"*) OR (", 10).isEmpty());
+    }
+
+
+    /**
+     * Проверка, что поисковый индекс следует за удалением книг, а книга с совпадением в нескольких полях выше в выдаче.
+     */
+    @Test
+    public void testSearchRecBooksFollowsDeletesAndRanks() {
+        storage.addRecBook("Толстой и его время", "Лев Толстой", "История", ChatId);
+        storage.addRecBook("Анна Каренина", "Лев Толстой", "Романтика", ChatId);
+        storage.addRecBook("Воспоминания", "Иван Петров", "История", ChatId);
+        Assert.assertEquals(List.of("Толстой и его время", "Анна Каренина"), titles(storage.searchRecBooks("толстой", 10)));
+        long id = storage.searchRecBooks("каренина", 10).get(0).id();
+        storage.updateRecBooks(ChatId, id);
+        Assert.assertTrue(storage.searchRecBooks("каренина", 10).isEmpty());
+    }
+
+
+    /**
+     * Возвращает названия найденных книг.
+     *
+     * @param books Найденные книги.
+     * @return Названия в порядке выдачи.
+     */
+    private static List<String> titles(List<RecommendedBook> books) {
+        return books.stream().map(RecommendedBook::title).toList();
+    }
+
+
+    /**
+     * Проверка импорта: книги добавляются одной транзакцией, повторы из списка и из самого файла пропускаются.
+     */
+    @Test
+    public void testImportSkipsDuplicates() throws IOException {
+        storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+        String csv = "title,author,year\nBook 1,Author 1,2022\n\"Book, 2\",Author 2,2023\nBook 3,Author 3,не год\n\"Book, 2\",Author 2,2023\n";
+        ImportResult result = storage.importReadBooks(ChatId, reader(csv, ReadingListFormat.CSV));
+        Assert.assertEquals(new ImportResult(1, 2, 1), result);
+        Assert.assertEquals(List.of("Book 1", "Book, 2"), storage.getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка, что при ошибке чтения файла импорт откатывается целиком.
+     */
+    @Test
+    public void testBrokenImportIsRolledBack() {
+        String json = "[{\"title\": \"Book 1\", \"author\": \"Author 1\", \"year\": 2022}, {\"title\": ";
+        try {
+            storage.importReadBooks(ChatId, reader(json, ReadingListFormat.JSON));
+            Assert.fail("Ожидалась ошибка разбора JSON");
+        } catch (IOException e) {
+            Assert.assertTrue(storage.getReadBooks(ChatId).isEmpty());
+        }
+    }
+
+
+    /**
+     * Проверка, что при ошибке чтения файла после нескольких пачек книг в базу не попадает ни одна книга импорта.
+     */
+    @Test
+    public void testBrokenImportAfterSeveralBatchesIsRolledBack() {
+        storage.addReadBook("Book 0", "Author 0", 2021, ChatId);
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= Storage.IMPORT_BATCH_SIZE * 2 + 10; i++) {
+            json.append("{\"title\": \"Book ").append(i).append("\", \"author\": \"Author\", \"year\": 2022}, ");
+        }
+        json.append("{\"title\": ");
+        try {
+            storage.importReadBooks(ChatId, reader(json.toString(), ReadingListFormat.JSON));
+            Assert.fail("Ожидалась ошибка разбора JSON");
+        } catch (IOException e) {
+            Assert.assertEquals(List.of("Book 0"), storage.getReadBooks(ChatId));
+            Assert.assertEquals(1, storage.getReadingStats(ChatId, 5).books());
+        }
+    }
+
+
+    /**
+     * Проверка, что ошибка записи в середине импорта откатывает его целиком и при прямой, и при отложенной записи.
+     */
+    @Test
+    public void testFailedImportWriteIsRolledBack() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TRIGGER fail_import BEFORE INSERT ON read_books WHEN NEW.title = 'Book "
+                    + (Storage.IMPORT_BATCH_SIZE + 10) + "' BEGIN SELECT RAISE(ABORT, 'диск заполнен'); END");
+        }
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 1; i <= Storage.IMPORT_BATCH_SIZE * 2; i++) {
+            json.append(i > 1 ? ", " : "").append("{\"title\": \"Book ").append(i).append("\", \"author\": \"Author\", \"year\": 2022}");
+        }
+        json.append("]");
+        storage.addReadBook("Book 0", "Author 0", 2021, ChatId);
+        Storage writeBehind = new Storage("jdbc:sqlite:" + databaseFile.getAbsolutePath(), true);
+        try {
+            for (Storage target : List.of(storage, writeBehind)) {
+                try {
+                    target.importReadBooks(ChatId, reader(json.toString(), ReadingListFormat.JSON));
+                    Assert.fail("Ожидалась ошибка записи");
+                } catch (IOException expected) {
+                    // триггер прерывает вставку одной из книг
+                }
+                Assert.assertEquals(List.of("Book 0"), target.getReadBooks(ChatId));
+            }
+            Assert.assertTrue(writeBehind.addReadBook("Book 1", "Author 1", 2022, ChatId).join());
+        } finally {
+            writeBehind.closeConnection();
+        }
+        Assert.assertEquals(List.of("Book 0", "Book 1"), storage.getReadBooks(ChatId));
+    }
+
+
+    /**
+     * Проверка, что экспорт и повторный импорт в другой чат дают тот же список книг.
+     */
+    @Test
+    public void testExportRoundTrip() throws IOException {
+        storage.addReadBook("Book \"1\"", "Author, 1", 2022, ChatId);
+        storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+        for (ReadingListFormat format : ReadingListFormat.values()) {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            try (ReadingListWriter writer = ReadingListWriter.open(output, format)) {
+                Assert.assertEquals(2, storage.exportReadBooks(ChatId, writer));
+            }
+            long otherChatId = format.ordinal() + 1;
+            storage.importReadBooks(otherChatId, reader(output.toString(StandardCharsets.UTF_8), format));
+            List<ReadBook> copy = storage.getAllValues(otherChatId);
+            Assert.assertEquals(2, copy.size());
+            Assert.assertEquals("Book \"1\"", copy.get(0).title());
+            Assert.assertEquals("Author, 1", copy.get(0).author());
+            Assert.assertEquals(2023, copy.get(1).year());
+        }
+    }
+
+
+    /**
+     * Проверка, что сессия чата сохраняется, перезаписывается и удаляется.
+     */
+    @Test
+    public void testSessionRoundTrip() {
+        Assert.assertNull(storage.loadSession(ChatId));
+        storage.saveSession(ChatId, new byte[]{1, 2}).join();
+        storage.saveSession(ChatId, new byte[]{3}).join();
+        Assert.assertArrayEquals(new byte[]{3}, storage.loadSession(ChatId));
+        storage.saveSession(ChatId, null).join();
+        Assert.assertNull(storage.loadSession(ChatId));
+    }
+
+
+    /**
+     * Открывает чтение списка книг из строки.
+     */
+    private static ReadingListReader reader(String content, ReadingListFormat format) throws IOException {
+        return ReadingListReader.open(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format);
+    }
+}
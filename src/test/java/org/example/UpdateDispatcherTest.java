@@ -0,0 +1,177 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Класс для тестирования диспетчера обновлений с очередями чатов.
+ */
+public class UpdateDispatcherTest {
+
+    /**
+     * Проверяемый диспетчер; закрывается после теста.
+     */
+    private UpdateDispatcher dispatcher;
+
+
+    /**
+     * Метод, выполняемый после каждого теста, закрывает диспетчер.
+     */
+    @After
+    public void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+
+    /**
+     * Ждёт выполнения условия не дольше пяти секунд.
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("Условие не выполнилось за 5 секунд", System.nanoTime() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+
+    /**
+     * Проверка, что обновления каждого чата обрабатываются по порядку и никогда одновременно.
+     */
+    @Test
+    public void testOrderPerChat() throws Exception {
+        dispatcher = new UpdateDispatcher("testOrderPerChat", 100, 5000);
+        int chats = 8;
+        int updates = 500;
+        List<List<Integer>> seen = new ArrayList<>();
+        List<AtomicInteger> running = new ArrayList<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        for (int chat = 0; chat < chats; chat++) {
+            seen.add(Collections.synchronizedList(new ArrayList<>()));
+            running.add(new AtomicInteger());
+        }
+        for (int i = 0; i < updates; i++) {
+            for (int chat = 0; chat < chats; chat++) {
+                int number = i;
+                int chatId = chat;
+                Assert.assertTrue(dispatcher.submit(chatId, () -> {
+                    if (running.get(chatId).incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    seen.get(chatId).add(number);
+                    running.get(chatId).decrementAndGet();
+                }));
+            }
+        }
+        await(() -> dispatcher.getProcessed() == (long) chats * updates);
+        Assert.assertEquals(0, overlaps.get());
+        for (List<Integer> chat : seen) {
+            Assert.assertEquals(updates, chat.size());
+            for (int i = 0; i < updates; i++) {
+                Assert.assertEquals(i, (int) chat.get(i));
+            }
+        }
+        await(() -> dispatcher.getActiveChats() == 0);
+        Assert.assertEquals(0, dispatcher.getQueueDepth());
+    }
+
+
+    /**
+     * Проверка, что медленный чат не задерживает обновления других чатов.
+     */
+    @Test
+    public void testSlowChatDoesNotBlockOthers() throws Exception {
+        dispatcher = new UpdateDispatcher("testSlowChatDoesNotBlockOthers", 100, 5000);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        dispatcher.submit(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        dispatcher.submit(2, done::countDown);
+        Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(1, dispatcher.getActiveChats());
+        release.countDown();
+        await(() -> dispatcher.getProcessed() == 2);
+    }
+
+
+    /**
+     * Проверка, что при заполненной очереди обновление ждёт места, а не дождавшись, отклоняется,
+     * и что время ожидания в очереди попадает в метрики.
+     */
+    @Test
+    public void testBackpressure() throws Exception {
+        dispatcher = new UpdateDispatcher("testBackpressure", 2, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.submit(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        AtomicInteger handled = new AtomicInteger();
+        Assert.assertTrue(dispatcher.submit(1, handled::incrementAndGet));
+        await(() -> dispatcher.getQueueDepth() == 1);
+        Assert.assertFalse(dispatcher.submit(2, handled::incrementAndGet));
+        Assert.assertEquals(1, dispatcher.getRejected());
+        Assert.assertEquals(1, dispatcher.getActiveChats());
+
+        release.countDown();
+        await(() -> dispatcher.getProcessed() == 2);
+        Assert.assertEquals(1, handled.get());
+        Assert.assertTrue(dispatcher.getQueueTimeMaxMicros() >= 90_000);
+        Assert.assertTrue(dispatcher.submit(2, handled::incrementAndGet));
+        await(() -> handled.get() == 2);
+    }
+
+
+    /**
+     * Проверка, что исключение при обработке обновления не останавливает очередь чата.
+     */
+    @Test
+    public void testFailureDoesNotStopChat() throws Exception {
+        dispatcher = new UpdateDispatcher("testFailureDoesNotStopChat", 10, 5000);
+        AtomicInteger handled = new AtomicInteger();
+        dispatcher.submit(1, () -> {
+            throw new IllegalStateException("Ошибка обработки");
+        });
+        dispatcher.submit(1, handled::incrementAndGet);
+        await(() -> dispatcher.getProcessed() == 2);
+        Assert.assertEquals(1, dispatcher.getFailed());
+        Assert.assertEquals(1, handled.get());
+    }
+
+
+    /**
+     * Проверка, что Error при обработке обновления тоже не останавливает очередь чата.
+     */
+    @Test
+    public void testErrorDoesNotStopChat() throws Exception {
+        dispatcher = new UpdateDispatcher("testErrorDoesNotStopChat", 10, 5000);
+        AtomicInteger handled = new AtomicInteger();
+        dispatcher.submit(1, () -> {
+            throw new AssertionError("Ошибка обработки");
+        });
+        dispatcher.submit(1, handled::incrementAndGet);
+        await(() -> dispatcher.getProcessed() == 2);
+        Assert.assertEquals(1, dispatcher.getFailed());
+        Assert.assertEquals(1, handled.get());
+        await(() -> dispatcher.getActiveChats() == 0);
+    }
+}
@@ -0,0 +1,250 @@
+package org.example;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Класс для сквозного тестирования режима webhook: тест вместо Telegram присылает обновления
+ * POST-запросами на локальный сервер и проверяет ответы бота в теле ответа.
+ */
+public class WebhookServerTest {
+
+    /**
+     * Путь webhook.
+     */
+    private static final String PATH = "/telegram/3f1c9a7e52b84d06a1e4c8b27d90f5e6";
+
+    /**
+     * Секретный токен webhook.
+     */
+    private static final String SECRET_TOKEN = "s3cr3t-t0ken_9f8e7d6c";
+
+    /**
+     * Идентификатор чата.
+     */
+    private static final long CHAT_ID = 42L;
+
+    /**
+     * Разбор ответов сервера.
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * HTTP-клиент, заменяющий Telegram.
+     */
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    /**
+     * Бот, обслуживающий запросы.
+     */
+    private TelegramBot bot;
+
+    /**
+     * Проверяемый сервер.
+     */
+    private WebhookServer server;
+
+    /**
+     * Номер следующего обновления.
+     */
+    private int updateId;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, запускает сервер на свободном порту
+     * с ботом поверх хранилища в памяти.
+     */
+    @Before
+    public void setUp() throws Exception {
+        bot = new TelegramBot(new MessageHandling(new InMemoryBookStorage(), new DefaultDateTimeProvider()));
+        server = new WebhookServer(new InetSocketAddress("127.0.0.1", 0), PATH, null, bot::onWebhookUpdate);
+        server.start();
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, останавливает сервер.
+     */
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+
+    /**
+     * Отправляет запрос на сервер.
+     */
+    private HttpResponse<String> request(String method, String path, String body) throws Exception {
+        return request(method, path, body, null);
+    }
+
+
+    /**
+     * Отправляет запрос на сервер с секретным токеном в заголовке, если он задан.
+     */
+    private HttpResponse<String> request(String method, String path, String body, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + server.getPort() + path))
+                .header("Content-Type", "application/json")
+                .method(method, body != null ? HttpRequest.BodyPublishers.ofString(body) : HttpRequest.BodyPublishers.noBody());
+        if (token != null) {
+            request.header(WebhookServer.SECRET_TOKEN_HEADER, token);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+
+    /**
+     * Присылает текстовое сообщение чата так, как это делает Telegram, и возвращает ответ сервера.
+     */
+    private HttpResponse<String> postMessage(String text) throws Exception {
+        updateId++;
+        String update = mapper.createObjectNode()
+                .put("update_id", updateId)
+                .set("message", mapper.createObjectNode()
+                        .put("message_id", updateId)
+                        .put("date", 1700000000)
+                        .put("text", text)
+                        .set("chat", mapper.createObjectNode().put("id", CHAT_ID).put("type", "private")))
+                .toString();
+        return request("POST", PATH, update);
+    }
+
+
+    /**
+     * Возвращает текст ответа бота из тела ответа сервера, проверив, что это вызов sendMessage в тот же чат.
+     */
+    private String replyText(HttpResponse<String> response) throws Exception {
+        Assert.assertEquals(200, response.statusCode());
+        JsonNode reply = mapper.readTree(response.body());
+        Assert.assertEquals("sendmessage", reply.get("method").asText());
+        Assert.assertEquals(String.valueOf(CHAT_ID), reply.get("chat_id").asText());
+        Assert.assertTrue(reply.has("reply_markup"));
+        return reply.get("text").asText();
+    }
+
+
+    /**
+     * Проверка, что ответы на сообщения приходят прямо в ответе на запрос webhook,
+     * а диалог из нескольких сообщений продолжается с того же шага.
+     */
+    @Test
+    public void testInlineReplies() throws Exception {
+        Assert.assertEquals("Введите название книги:", replyText(postMessage("/addbook")));
+        Assert.assertEquals("Теперь введите автора книги:", replyText(postMessage("Sample Book")));
+        Assert.assertEquals("Теперь введите год прочтения книги:", replyText(postMessage("John Doe")));
+        Assert.assertEquals("Книга 'Sample Book' от автора John Doe (год: 2023) успешно добавлена в список прочитанных!",
+                replyText(postMessage("2023")));
+        Assert.assertTrue(replyText(postMessage("/getread")).contains("Sample Book"));
+    }
+
+
+    /**
+     * Проверка, что обновление без сообщения подтверждается пустым ответом.
+     */
+    @Test
+    public void testUpdateWithoutMessage() throws Exception {
+        HttpResponse<String> response = request("POST", PATH, "{\"update_id\": 1}");
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals("", response.body());
+    }
+
+
+    /**
+     * Проверка, что сервер отклоняет чужой путь, запросы кроме POST и неразборчивое тело.
+     */
+    @Test
+    public void testRejectsInvalidRequests() throws Exception {
+        Assert.assertEquals(404, request("POST", "/other", "{}").statusCode());
+        Assert.assertEquals(404, request("POST", "/telegram", "{}").statusCode());
+        Assert.assertEquals(405, request("GET", PATH, null).statusCode());
+        Assert.assertEquals(400, request("POST", PATH, "не JSON").statusCode());
+    }
+
+
+    /**
+     * Проверка, что при заданном секретном токене запрос без заголовка или с чужим токеном
+     * отклоняется с 401 и не доходит до бота.
+     */
+    @Test
+    public void testRequiresSecretToken() throws Exception {
+        server.close();
+        AtomicInteger handled = new AtomicInteger();
+        server = new WebhookServer(new InetSocketAddress("127.0.0.1", 0), PATH, SECRET_TOKEN, update -> {
+            handled.incrementAndGet();
+            return bot.onWebhookUpdate(update);
+        });
+        server.start();
+
+        Assert.assertEquals(401, request("POST", PATH, "{\"update_id\": 1}").statusCode());
+        Assert.assertEquals(401, request("POST", PATH, "{\"update_id\": 1}", "wrong-token").statusCode());
+        Assert.assertEquals(0, handled.get());
+        Assert.assertEquals(200, request("POST", PATH, "{\"update_id\": 1}", SECRET_TOKEN).statusCode());
+        Assert.assertEquals(1, handled.get());
+    }
+
+
+    /**
+     * Проверка, что обновление, которое не поместилось в переполненную очередь, не подтверждается:
+     * сервер отвечает 503, и Telegram доставит его повторно, а после освобождения очереди оно обрабатывается.
+     */
+    @Test
+    public void testFullQueueIsRedelivered() throws Exception {
+        server.close();
+        try (UpdateDispatcher dispatcher = new UpdateDispatcher("testFullQueueIsRedelivered", 1, 50)) {
+            bot = new TelegramBot(new MessageHandling(new InMemoryBookStorage(), new DefaultDateTimeProvider()), dispatcher);
+            server = new WebhookServer(new InetSocketAddress("127.0.0.1", 0), PATH, null, bot::onWebhookUpdate);
+            server.start();
+            CountDownLatch release = new CountDownLatch(1);
+            Assert.assertTrue(dispatcher.submit(CHAT_ID + 1, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+
+            HttpResponse<String> rejected = postMessage("/addbook");
+            Assert.assertEquals(503, rejected.statusCode());
+            Assert.assertEquals(String.valueOf(WebhookServer.RETRY_AFTER_SECONDS), rejected.headers().firstValue("Retry-After").orElse(null));
+            Assert.assertEquals(1, dispatcher.getRejected());
+
+            release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (dispatcher.getProcessed() < 1) {
+                Assert.assertTrue(System.nanoTime() < deadline);
+                Thread.sleep(5);
+            }
+            Assert.assertEquals("Введите название книги:", replyText(postMessage("/addbook")));
+        }
+    }
+
+
+    /**
+     * Проверка, что сервер не запускается с путём, который можно угадать.
+     */
+    @Test
+    public void testRequiresSecretPath() {
+        for (String path : new String[]{null, "", "/telegram", "/3f1c9a7e52b84d06a1e4c8b27d90f5e6/x"}) {
+            try {
+                WebhookServer.requireSecretPath(path);
+                Assert.fail("Путь " + path + " должен быть отклонён");
+            } catch (IllegalStateException expected) {
+                // короткий или не заданный путь должен отклоняться
+            }
+        }
+        Assert.assertEquals(PATH, WebhookServer.requireSecretPath(PATH));
+    }
+}
@@ -0,0 +1,173 @@
+package org.example;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+
+/**
+ * Класс для тестирования очереди отложенной записи.
+ */
+public class WriteBehindQueueTest {
+
+    /**
+     * Идентификатор чата для тестирования.
+     */
+    private long ChatId;
+
+    /**
+     * Файл временной базы данных.
+     */
+    private File databaseFile;
+
+    /**
+     * URL временной базы данных.
+     */
+    private String databaseUrl;
+
+
+    /**
+     * Метод, выполняемый перед каждым тестом, создаёт временную базу данных.
+     */
+    @Before
+    public void setUp() throws Exception {
+        ChatId = 12345L;
+        databaseFile = Files.createTempFile("write_behind_test", ".db").toFile();
+        databaseUrl = "jdbc:sqlite:" + databaseFile.getAbsolutePath();
+    }
+
+
+    /**
+     * Метод, выполняемый после каждого теста, удаляет базу данных вместе с файлами журнала WAL.
+     */
+    @After
+    public void tearDown() {
+        databaseFile.delete();
+        new File(databaseFile.getPath() + "-wal").delete();
+        new File(databaseFile.getPath() + "-shm").delete();
+    }
+
+
+    /**
+     * Проверка, что чтение чата сразу видит его собственные изменения, ещё стоящие в очереди.
+     */
+    @Test
+    public void testReadSeesOwnPendingWrites() {
+        Storage storage = new Storage(databaseUrl, true);
+        try {
+            storage.addReadBook("Book 1", "Author 1", 2022, ChatId);
+            storage.addReadBook("Book 2", "Author 2", 2023, ChatId);
+            Assert.assertEquals(List.of("Book 1", "Book 2"), storage.getReadBooks(ChatId));
+            storage.clearReadBooks(ChatId);
+            Assert.assertTrue(storage.getReadBooks(ChatId).isEmpty());
+        } finally {
+            storage.closeConnection();
+        }
+    }
+
+
+    /**
+     * Проверка, что обещание выполняется после фиксации записи и данные видны другому соединению.
+     */
+    @Test
+    public void testFutureCompletesWhenWriteIsDurable() throws Exception {
+        Storage storage = new Storage(databaseUrl, true);
+        try {
+            storage.addRecBook("Book 1", "Author 1", "Драма", ChatId).join();
+        } finally {
+            storage.closeConnection();
+        }
+        try (ConnectionPool pool = new ConnectionPool(databaseUrl, 1);
+             PooledConnection connection = pool.acquire();
+             Statement statement = connection.getConnection().createStatement();
+             ResultSet resultSet = statement.executeQuery("PRAGMA journal_mode")) {
+            Assert.assertEquals("wal", resultSet.getString(1));
+            try (ResultSet count = statement.executeQuery("SELECT count(*) FROM recommendedBooks")) {
+                Assert.assertEquals(1, count.getInt(1));
+            }
+        }
+    }
+
+
+    /**
+     * Проверка, что изменения, накопившиеся за время записи предыдущей пачки, фиксируются одной транзакцией.
+     */
+    @Test
+    public void testQueuedWritesAreGroupCommitted() throws Exception {
+        new Storage(databaseUrl).closeConnection();
+        try (ConnectionPool pool = new ConnectionPool(databaseUrl, 1)) {
+            WriteBehindQueue queue = new WriteBehindQueue(pool);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            queue.submit(ChatId, connection -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                int year = 2000 + i;
+                futures.add(queue.submit(ChatId, connection -> {
+                    var statement = connection.prepare("INSERT INTO read_books (title, author, year, chat_id) VALUES ('t', 'a', ?, 1)");
+                    statement.setInt(1, year);
+                    statement.executeUpdate();
+                }));
+            }
+            release.countDown();
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            Assert.assertEquals(51, queue.getWriteCount());
+            Assert.assertEquals(2, queue.getBatchCount());
+            queue.close();
+        }
+    }
+
+
+    /**
+     * Проверка, что после остановки очередь отклоняет новые изменения.
+     */
+    @Test
+    public void testClosedQueueRejectsWrites() {
+        try (ConnectionPool pool = new ConnectionPool(databaseUrl, 1)) {
+            WriteBehindQueue queue = new WriteBehindQueue(pool);
+            queue.close();
+            Assert.assertTrue(queue.submit(ChatId, connection -> { }).isCompletedExceptionally());
+        }
+    }
+
+
+    /**
+     * Проверка, что непроверяемое исключение изменения завершает ошибкой только его обещание,
+     * а поток-писатель продолжает фиксировать остальные изменения.
+     */
+    @Test
+    public void testRuntimeExceptionFailsOnlyItsWrite() {
+        try (ConnectionPool pool = new ConnectionPool(databaseUrl, 1)) {
+            WriteBehindQueue queue = new WriteBehindQueue(pool);
+            CompletableFuture<Void> failed = queue.submit(ChatId, connection -> {
+                throw new IllegalStateException("Ошибка изменения");
+            });
+            CompletableFuture<Void> next = queue.submit(ChatId, connection -> { });
+            queue.awaitChat(ChatId);
+            Assert.assertTrue(failed.isCompletedExceptionally());
+            next.join();
+            Assert.assertEquals(1, queue.getWriteCount());
+            queue.awaitAll();
+            queue.submit(ChatId + 1, connection -> { }).join();
+            queue.close();
+        }
+    }
+}